@@ -718,31 +718,40 @@ public class DataInfo extends Keyed {
    * @return array of dense rows
    */
   public final Row[] extractDenseRowsVertical(Chunk[] chunks) {
-    Row[] rows = new Row[chunks[0]._len];
-
+    final int len = chunks[0]._len;
+    Row[] rows = new Row[len];
+    double[] vals = new double[len]; // One column at a time, bulk loaded
     for (int i = 0; i < rows.length; ++i) {
       rows[i] = new Row(false, _nums, _cats, _responses, 0);
       rows[i].rid = chunks[0].start() + i;
-      if(_offset)  {
-        rows[i].offset = chunks[offsetChunkId()].atd(i);
+    }
+    if(_offset)  {
+      chunks[offsetChunkId()].getDoubles(vals, 0, len);
+      for (int i = 0; i < rows.length; ++i) {
+        rows[i].offset = vals[i];
         if(Double.isNaN(rows[i].offset)) rows[i].bad = true;
       }
-      if(_weights) {
-        rows[i].weight = chunks[weightChunkId()].atd(i);
+    }
+    if(_weights) {
+      chunks[weightChunkId()].getDoubles(vals, 0, len);
+      for (int i = 0; i < rows.length; ++i) {
+        rows[i].weight = vals[i];
         if(Double.isNaN(rows[i].weight)) rows[i].bad = true;
       }
     }
+    int[] levels = _cats > 0 ? new int[len] : null;
     for (int i = 0; i < _cats; ++i) {
-      for (int r = 0; r < chunks[0]._len; ++r) {
+      chunks[i].getIntegers(levels, 0, len, -1); // Levels are never negative: -1 is NA
+      for (int r = 0; r < len; ++r) {
         Row row = rows[r];
         if(row.bad)continue;
-        if (chunks[i].isNA(r)) {
+        if (levels[r] == -1) {
           if (_skipMissing) {
             row.bad = true;
           } else
             row.binIds[row.nBins++] = _catOffsets[i + 1] - 1; // missing value turns into extra (last) factor
         } else {
-          int c = getCategoricalId(i,(int)chunks[i].at8(r));
+          int c = getCategoricalId(i,levels[r]);
           if(c >=0)
             row.binIds[row.nBins++] = c;
         }
@@ -751,12 +760,12 @@ public class DataInfo extends Keyed {
     int numStart = numStart();
     // generic numbers
     for (int cid = 0; cid < _nums; ++cid) {
-      Chunk c = chunks[_cats + cid];
-      for (int r = 0; r < c._len; ++r) {
+      chunks[_cats + cid].getDoubles(vals, 0, len);
+      for (int r = 0; r < len; ++r) {
         Row row = rows[r];
         if (row.bad) continue;
-        if (c.isNA(r)) row.bad = _skipMissing;
-        double d = c.atd(r);
+        double d = vals[r];
+        if (Double.isNaN(d)) row.bad = _skipMissing;
         if(_normMul != null && _normSub != null) //either none or both
           d = (d - _normSub[cid]) * _normMul[cid];
         row.numVals[numStart + cid] = d;
@@ -764,11 +773,11 @@ public class DataInfo extends Keyed {
     }
     // response(s)
     for (int i = 1; i <= _responses; ++i) {
-      Chunk rChunk = chunks[responseChunkId()];
-      for (int r = 0; r < chunks[0]._len; ++r) {
+      chunks[responseChunkId()].getDoubles(vals, 0, len);
+      for (int r = 0; r < len; ++r) {
         Row row = rows[r];
         if(row.bad) continue;
-        row.response[row.response.length - i] = rChunk.atd(r);
+        row.response[row.response.length - i] = vals[r];
         if (_normRespMul != null) {
           row.response[i-1] = (row.response[i-1] - _normRespSub[i-1]) * _normRespMul[i-1];
         }
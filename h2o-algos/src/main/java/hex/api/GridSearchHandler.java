@@ -64,7 +64,8 @@ public abstract class GridSearchHandler<G extends Grid<MP>,
                                            params,
                                            hyperParams,
                                            modelFactory,
-                                           new DefaultModelParametersBuilderFactory<MP, P>());
+                                           new DefaultModelParametersBuilderFactory<MP, P>(),
+                                           gridSearchSchema.parallelism);
 
     // Fill schema with job parameters
     // FIXME: right now we have to remove grid parameters which we sent back
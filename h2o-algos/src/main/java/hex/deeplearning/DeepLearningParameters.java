@@ -431,8 +431,12 @@ public class DeepLearningParameters extends Model.Parameters {
     for (int h : _hidden) if (h <= 0) dl.error("_hidden", "Hidden layer size must be positive.");
     if (_mini_batch_size < 1)
       dl.error("_mini_batch_size", "Mini-batch size must be >= 1");
-    if (_mini_batch_size > 1)
-      dl.error("_mini_batch_size", "Mini-batch size > 1 is not yet supported.");
+    if (_mini_batch_size > 1) {
+      if (_autoencoder)
+        dl.error("_mini_batch_size", "Mini-batch size > 1 is not supported for auto-encoder.");
+      if (_activation == Activation.Maxout || _activation == Activation.MaxoutWithDropout)
+        dl.error("_mini_batch_size", "Mini-batch size > 1 is not supported for Maxout activation.");
+    }
     if (!_diagnostics)
       dl.warn("_diagnostics", "Deprecated option: Diagnostics are always enabled.");
 
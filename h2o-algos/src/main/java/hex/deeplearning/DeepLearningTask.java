@@ -17,6 +17,7 @@ public class DeepLearningTask extends FrameTask<DeepLearningTask> {
   private DeepLearningModelInfo _sharedmodel; //input/output
   transient Neurons[] _neurons;
   transient Random _dropout_rng;
+  transient MiniBatch _minibatch; //only for mini_batch_size > 1
   int _chunk_node_count = 1;
 
   /**
@@ -83,11 +84,14 @@ public class DeepLearningTask extends FrameTask<DeepLearningTask> {
       return false;
     _neurons = makeNeuronsForTraining(_localmodel);
     _dropout_rng = RandomUtils.getRNG(System.currentTimeMillis());
+    if (_training && getMiniBatchSize() > 1)
+      _minibatch = new MiniBatch(_neurons, getMiniBatchSize());
     return true;
   }
 
   /**
-   * Process one training row at a time (online learning)
+   * Process one training row at a time (online learning),
+   * or collect it into the mini-batch (for mini_batch_size > 1)
    * @param seed Seed is only used if reproducible mode is enabled
    * @param r Row (must be dense for now)
    */
@@ -99,6 +103,10 @@ public class DeepLearningTask extends FrameTask<DeepLearningTask> {
     }
     _localmodel.checkMissingCats(r.binIds);
     ((Neurons.Input) _neurons[0]).setInput(seed, r.isSparse() ? r.numIds : null, r.numVals, r.nBins, r.binIds);
+    if (_minibatch != null) {
+      _minibatch.add(seed, r.response[0], r.offset);
+      return;
+    }
     step(seed, _neurons, _localmodel, _localmodel.get_params()._elastic_averaging ? _sharedmodel : null, _training, r.response, r.offset);
   }
 
@@ -108,6 +116,11 @@ public class DeepLearningTask extends FrameTask<DeepLearningTask> {
    */
   @Override public void applyMiniBatchUpdate(int n) {
     assert(_training);
+    if (_minibatch != null) {
+      int trained = _minibatch.train(_localmodel, _localmodel.get_params()._elastic_averaging ? _sharedmodel : null);
+      assert(trained == n);
+      return;
+    }
     assert(n==1);
     applyModelUpdates(_neurons);
   }
@@ -0,0 +1,255 @@
+package hex.deeplearning;
+
+import java.util.Arrays;
+
+/**
+ * Mini-batch training of a Neural Network (mini_batch_size > 1)
+ * The input activations of up to _size training rows are collected into a dense row-major block,
+ * then forward and back propagation are done for the whole block layer by layer, as matrix-matrix
+ * products that re-use every (cache-resident) weight row for all the rows of the batch,
+ * instead of one pass over all the weights per training row.
+ * The weights are updated once per mini-batch, with the gradients averaged over its rows.
+ * Like Neurons, this is per-thread workspace and is NOT sent over the wire.
+ */
+final class MiniBatch {
+  private final Neurons[] _neurons;
+  private final int _size;          //max. number of training rows per mini-batch
+  private int _n;                   //number of training rows collected so far
+
+  // Per training row
+  private final long[] _seeds;
+  private final double[] _responses;
+  private final double[] _offsets;
+
+  // Per layer: activations and errors dE/dy (turned into dE/dnet during back propagation), n x units
+  private final double[][] _a;
+  private final double[][] _e;
+
+  // Summed gradients of the layer being updated (sized for the largest layer)
+  private final float[] _gw;
+  private final double[] _gb;
+
+  MiniBatch(Neurons[] neurons, int size) {
+    _neurons = neurons;
+    _size = size;
+    _seeds = new long[size];
+    _responses = new double[size];
+    _offsets = new double[size];
+    _a = new double[neurons.length][];
+    _e = new double[neurons.length][];
+    int maxw = 0, maxb = 0;
+    for (int i = 0; i < neurons.length; ++i) {
+      _a[i] = new double[size * neurons[i]._a.size()];
+      if (i == 0) continue;
+      _e[i] = new double[size * neurons[i]._a.size()];
+      maxw = Math.max(maxw, neurons[i]._a.size() * neurons[i-1]._a.size());
+      maxb = Math.max(maxb, neurons[i]._a.size());
+    }
+    _gw = new float[maxw];
+    _gb = new double[maxb];
+  }
+
+  /**
+   * Add one training row, its input layer activation must already be set (Input.setInput)
+   * @param seed Seed for hidden dropout
+   * @param response Standardized response
+   * @param offset Offset (in link space)
+   */
+  void add(long seed, double response, double offset) {
+    assert(_n < _size);
+    final double[] in = _neurons[0]._a.raw();
+    System.arraycopy(in, 0, _a[0], _n * in.length, in.length);
+    _seeds[_n] = seed;
+    _responses[_n] = response;
+    _offsets[_n] = offset;
+    _n++;
+  }
+
+  /**
+   * Train on the collected rows: forward propagation, output layer gradient, and back propagation
+   * with one weight update per layer
+   * @param minfo Model info with the weights to train
+   * @param consensus_minfo Consensus model for elastic averaging (or null)
+   * @return number of training rows in this mini-batch
+   */
+  int train(DeepLearningModelInfo minfo, DeepLearningModelInfo consensus_minfo) {
+    final int n = _n;
+    if (n == 0) return 0;
+    for (int i = 1; i < _neurons.length; ++i) fprop(i, n);
+    addOffsets(minfo, n);
+    outputLayerGradient(n);
+    if (consensus_minfo != null) {
+      for (int i = 1; i < _neurons.length; i++) {
+        _neurons[i]._wEA = consensus_minfo.get_weights(i - 1);
+        _neurons[i]._bEA = consensus_minfo.get_biases(i - 1);
+      }
+    }
+    for (int i = _neurons.length - 1; i > 0; --i) bprop(i, n);
+    _n = 0;
+    return n;
+  }
+
+  // Forward propagation of layer i for n rows: net = A_prev * W^T + b, then dropout and activation
+  private void fprop(int i, int n) {
+    final Neurons nr = _neurons[i];
+    final int units = nr._a.size();
+    final int cols = _neurons[i-1]._a.size();
+    final double[] a = _a[i];
+    gemm_nt(a, _a[i-1], nr._w.raw(), nr._b.raw(), n, units, cols);
+    if (nr._dropout != null) {
+      for (int r = 0; r < n; ++r) {
+        nr.fillDropout(_seeds[r]);
+        final byte[] bits = nr._dropout.bits();
+        final int off = r * units;
+        for (int u = 0; u < units; ++u)
+          if ((bits[u / 8] & (1 << (u % 8))) == 0) a[off + u] = 0;
+      }
+    }
+    if (nr instanceof Neurons.Tanh) {
+      for (int k = 0; k < n * units; ++k)
+        a[k] = 1. - 2. / (1. + Math.exp(2 * a[k]));
+    } else if (nr instanceof Neurons.Rectifier) {
+      for (int k = 0; k < n * units; ++k)
+        a[k] = 0.5f * (a[k] + Math.abs(a[k]));
+    } else if (nr instanceof Neurons.Softmax) {
+      for (int r = 0; r < n; ++r) {
+        final int off = r * units;
+        double max = a[off];
+        for (int u = 1; u < units; ++u) max = Math.max(max, a[off + u]);
+        double scaling = 0;
+        for (int u = 0; u < units; ++u) scaling += (a[off + u] = Math.exp(a[off + u] - max));
+        for (int u = 0; u < units; ++u) a[off + u] /= scaling;
+      }
+    } else {
+      assert(nr instanceof Neurons.Linear);
+    }
+  }
+
+  // Add offset (in link space) if applicable, same as DeepLearningTask.step()
+  private void addOffsets(DeepLearningModelInfo minfo, int n) {
+    final double[] m = minfo.data_info()._normRespMul;
+    final double[] s = minfo.data_info()._normRespSub;
+    final double mul = m == null ? 1 : m[0];
+    final double sub = s == null ? 0 : s[0];
+    final double[] a = _a[_a.length - 1];
+    for (int r = 0; r < n; ++r) {
+      if (_offsets[r] > 0) {
+        assert (!minfo._classification); // Regression
+        a[r] += (_offsets[r] - sub) * mul;
+      }
+    }
+  }
+
+  // Gradient dE/dnet at the output layer, row by row via the output neurons themselves
+  private void outputLayerGradient(int n) {
+    final Neurons out = _neurons[_neurons.length - 1];
+    final int units = out._a.size();
+    final double[] a = _a[_a.length - 1];
+    final double[] e = _e[_e.length - 1];
+    for (int r = 0; r < n; ++r) {
+      System.arraycopy(a, r * units, out._a.raw(), 0, units);
+      out.setOutputLayerGradient(_responses[r]);
+      System.arraycopy(out._e.raw(), 0, e, r * units, units);
+    }
+    Arrays.fill(out._e.raw(), 0);
+  }
+
+  /**
+   * Back propagation through layer i for n rows:
+   * turn the errors dE/dy into dE/dnet, propagate them to the previous layer (E_prev = G * W),
+   * sum up the gradients (dW = G^T * A_prev, db = sum of G's rows), and update the weights
+   */
+  private void bprop(int i, int n) {
+    final Neurons nr = _neurons[i];
+    final int units = nr._a.size();
+    final int cols = _neurons[i-1]._a.size();
+    final double[] a = _a[i];
+    final double[] g = _e[i];
+    if (nr instanceof Neurons.Tanh) {
+      for (int k = 0; k < n * units; ++k)
+        g[k] *= 1 - a[k] * a[k];
+    } else if (nr instanceof Neurons.Rectifier) {
+      for (int k = 0; k < n * units; ++k)
+        if (a[k] <= 0) g[k] = 0;
+    } // output layer: already dE/dnet
+
+    final float[] w = nr._w.raw();
+    final double[] aprev = _a[i-1];
+    final double[] eprev = i > 1 ? _e[i-1] : null;
+    if (eprev != null) Arrays.fill(eprev, 0, n * cols, 0);
+    Arrays.fill(_gw, 0, units * cols, 0);
+    Arrays.fill(_gb, 0, units, 0);
+
+    // Blocked over the neurons, so that their rows of W and dW stay in cache for all the training rows
+    final int tile = tileRows(cols);
+    for (int u0 = 0; u0 < units; u0 += tile) {
+      final int u1 = Math.min(units, u0 + tile);
+      for (int r = 0; r < n; ++r) {
+        final int roff = r * cols;
+        for (int u = u0; u < u1; ++u) {
+          final double gu = g[r * units + u];
+          if (gu == 0) continue;
+          _gb[u] += gu;
+          final int woff = u * cols;
+          for (int c = 0; c < cols; ++c)
+            _gw[woff + c] += gu * aprev[roff + c];
+          if (eprev != null)
+            for (int c = 0; c < cols; ++c)
+              eprev[roff + c] += gu * w[woff + c];
+        }
+      }
+    }
+    Arrays.fill(g, 0, n * units, 0);
+    nr.bpropMiniBatch(_gw, _gb, n);
+  }
+
+  /**
+   * Number of weight rows per cache block: about 64kB of floats
+   * @param cols Number of columns of the weight matrix
+   */
+  static int tileRows(int cols) {
+    return Math.max(1, (1 << 14) / cols);
+  }
+
+  /**
+   * Mat-Mat Plus Add: res = x * a^T + y (y added to every row)
+   * Blocked over the rows of a, and with independent partial sums as in Neurons.gemv_row_optimized()
+   * @param res n x rows (pre-allocated, will be overwritten)
+   * @param x n x cols, row-major
+   * @param a matrix of size rows x cols, row-major
+   * @param y vector of length rows
+   * @param n number of rows of x
+   * @param rows number of rows of a
+   * @param cols number of columns of a and x
+   */
+  static void gemm_nt(final double[] res, final double[] x, final float[] a, final double[] y, final int n, final int rows, final int cols) {
+    final int extra = cols - cols % 8;
+    final int tile = tileRows(cols);
+    for (int row0 = 0; row0 < rows; row0 += tile) {
+      final int row1 = Math.min(rows, row0 + tile);
+      for (int r = 0; r < n; ++r) {
+        final int xoff = r * cols;
+        for (int row = row0; row < row1; ++row) {
+          final int idx = row * cols;
+          double psum0 = 0, psum1 = 0, psum2 = 0, psum3 = 0, psum4 = 0, psum5 = 0, psum6 = 0, psum7 = 0;
+          for (int col = 0; col < extra; col += 8) {
+            final int off = idx + col;
+            final int xo = xoff + col;
+            psum0 += a[off    ] * x[xo    ];
+            psum1 += a[off + 1] * x[xo + 1];
+            psum2 += a[off + 2] * x[xo + 2];
+            psum3 += a[off + 3] * x[xo + 3];
+            psum4 += a[off + 4] * x[xo + 4];
+            psum5 += a[off + 5] * x[xo + 5];
+            psum6 += a[off + 6] * x[xo + 6];
+            psum7 += a[off + 7] * x[xo + 7];
+          }
+          double sum = psum0 + psum1 + psum2 + psum3 + psum4 + psum5 + psum6 + psum7;
+          for (int col = extra; col < cols; ++col)
+            sum += a[idx + col] * x[xoff + col];
+          res[r * rows + row] = sum + y[row];
+        }
+      }
+    }
+  }
+}
@@ -177,6 +177,13 @@ public abstract class Neurons {
    */
   protected abstract void fprop(long seed, boolean training);
 
+  /**
+   * Draw the dropout mask of this layer for one training row, as done by fprop(seed, true)
+   * (No-op for layers without hidden dropout)
+   * @param seed For seeding the RNG inside
+   */
+  void fillDropout(long seed) { }
+
   /**
    *  Back propagation of error terms stored in _e (for non-final layers)
    */
@@ -256,29 +263,8 @@ public abstract class Neurons {
       if (DeepLearningModelInfo.gradientCheck != null)
         DeepLearningModelInfo.gradientCheck.apply(_index, row, col, -grad);
 
-      if (have_ada) {
-        final double grad2 = grad*grad;
-        avg_grad2 += grad2;
-        float brate = computeAdaDeltaRateForWeight(grad, w, _ada_dx_g, rho, eps);
-        _w.raw()[w] += brate * grad;
-      } else {
-        if (!nesterov) {
-          final double delta = rate * grad;
-          _w.raw()[w] += delta;
-          if( have_momenta ) {
-            _w.raw()[w] += momentum * _wm.raw()[w];
-            _wm.raw()[w] = (float)delta;
-          }
-        } else {
-          double tmp = grad;
-          if( have_momenta ) {
-            _wm.raw()[w] *= momentum;
-            _wm.raw()[w] += tmp;
-            tmp = _wm.raw()[w];
-          }
-          _w.raw()[w] += rate * tmp;
-        }
-      }
+      if (have_ada) avg_grad2 += grad*grad;
+      update_weight(w, grad, rate, momentum, have_ada, have_momenta, nesterov, rho, eps);
     }
     if (max_w2 != Float.POSITIVE_INFINITY)
       rescale_weights(_w, row, max_w2);
@@ -286,6 +272,82 @@ public abstract class Neurons {
     update_bias(_b, _bEA, _bm, row, partial_grad, avg_grad2, rate, momentum);
   }
 
+  /**
+   * Mini-batch backpropagation: same update as bprop(row, ...) for every neuron of this layer,
+   * but applied once, with the gradients averaged over a mini-batch of n training rows.
+   * The errors are not propagated to the previous layer, {@link MiniBatch} does that.
+   * @param gw partial derivatives dE/dw summed over the mini-batch (same layout as _w)
+   * @param gb partial derivatives dE/dnet summed over the mini-batch (one per neuron)
+   * @param n number of training rows in the mini-batch
+   */
+  final void bpropMiniBatch(final float[] gw, final double[] gb, final int n) {
+    assert(_k == 0); //no Maxout
+    final float momentum = _minfo.adaDelta() ? 0 : momentum();
+    final float rate = _minfo.adaDelta() ? 0 : rate(_minfo.get_processed_total()) * (1f - momentum);
+    final float rho = (float)params._rho;
+    final float eps = (float)params._epsilon;
+    final float l1 = (float)params._l1;
+    final float l2 = (float)params._l2;
+    final float max_w2 = params._max_w2;
+    final boolean have_momenta = _minfo.has_momenta();
+    final boolean have_ada = _minfo.adaDelta();
+    final boolean nesterov = params._nesterov_accelerated_gradient;
+    final boolean fast_mode = params._fast_mode;
+    final int rows = _a.size();
+    final int cols = _previous._a.size();
+    final double scale = 1. / n;
+
+    for( int row = 0; row < rows; row++ ) {
+      double avg_grad2 = 0;
+      final int idx = row * cols;
+      for( int col = 0; col < cols; col++ ) {
+        final int w = idx + col;
+        if (fast_mode && gw[w] == 0) continue;
+        final double weight = _w.raw()[w];
+        double grad = gw[w] * scale - Math.signum(weight) * l1 - weight * l2;
+        if (_wEA != null)
+          grad -= params._elastic_averaging_regularization * (weight - _wEA.raw()[w]);
+        if (have_ada) avg_grad2 += grad*grad;
+        update_weight(w, grad, rate, momentum, have_ada, have_momenta, nesterov, rho, eps);
+      }
+      if (max_w2 != Float.POSITIVE_INFINITY)
+        rescale_weights(_w, row, max_w2);
+      if (have_ada) avg_grad2 /= cols;
+      update_bias(_b, _bEA, _bm, row, gb[row] * scale, avg_grad2, rate, momentum);
+    }
+  }
+
+  /**
+   * Helper to update one weight with its (negative) gradient, via ADADELTA or (Nesterov) momentum
+   * @param w linear index into the weight matrix
+   * @param grad negative gradient -dE/dw, including regularization
+   */
+  private void update_weight(final int w, final double grad, final float rate, final float momentum,
+                             final boolean have_ada, final boolean have_momenta, final boolean nesterov,
+                             final float rho, final float eps) {
+    if (have_ada) {
+      float brate = computeAdaDeltaRateForWeight(grad, w, _ada_dx_g, rho, eps);
+      _w.raw()[w] += brate * grad;
+    } else {
+      if (!nesterov) {
+        final double delta = rate * grad;
+        _w.raw()[w] += delta;
+        if( have_momenta ) {
+          _w.raw()[w] += momentum * _wm.raw()[w];
+          _wm.raw()[w] = (float)delta;
+        }
+      } else {
+        double tmp = grad;
+        if( have_momenta ) {
+          _wm.raw()[w] *= momentum;
+          _wm.raw()[w] += tmp;
+          tmp = _wm.raw()[w];
+        }
+        _w.raw()[w] += rate * tmp;
+      }
+    }
+  }
+
   private void rescale_weights(final Storage.DenseRowMatrix w, final int row, final float max_w2) {
     final int cols = _previous._a.size();
     int start;
@@ -624,8 +686,7 @@ public abstract class Neurons {
     public TanhDropout(int units) { super(units); }
     @Override protected void fprop(long seed, boolean training) {
       if (training) {
-        seed += params._seed + 0xDA7A6000;
-        _dropout.fillBytes(seed);
+        fillDropout(seed);
         super.fprop(seed, true);
       }
       else {
@@ -633,6 +694,9 @@ public abstract class Neurons {
         ArrayUtils.mult(_a.raw(), 1-params._hidden_dropout_ratios[_index]);
       }
     }
+    @Override void fillDropout(long seed) {
+      _dropout.fillBytes(seed + params._seed + 0xDA7A6000);
+    }
   }
 
   /**
@@ -739,8 +803,7 @@ public abstract class Neurons {
     public RectifierDropout(int units) { super(units); }
     @Override protected void fprop(long seed, boolean training) {
       if (training) {
-        seed += params._seed + 0x3C71F1ED;
-        _dropout.fillBytes(seed);
+        fillDropout(seed);
         super.fprop(seed, true);
       }
       else {
@@ -748,6 +811,9 @@ public abstract class Neurons {
         ArrayUtils.mult(_a.raw(), 1-params._hidden_dropout_ratios[_index]);
       }
     }
+    @Override void fillDropout(long seed) {
+      _dropout.fillBytes(seed + params._seed + 0x3C71F1ED);
+    }
   }
 
   /**
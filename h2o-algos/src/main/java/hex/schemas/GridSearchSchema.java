@@ -51,6 +51,9 @@ public /* FIXME: abstract */ class GridSearchSchema<G extends Grid<MP>,
   @API(help = "Destination id for this grid; auto-generated if not specified", required = false, direction = API.Direction.INOUT)
   public KeyV3.GridKeyV3 grid_id;
 
+  @API(help = "Number of models to build at the same time; 1 builds them one after another", required = false, direction = API.Direction.INPUT)
+  public int parallelism = 1;
+
   //
   // Outputs
   //
@@ -74,6 +77,11 @@ public /* FIXME: abstract */ class GridSearchSchema<G extends Grid<MP>,
       parms.remove("grid_id");
     }
 
+    if (parms.containsKey("parallelism")) {
+      parallelism = Integer.parseInt(parms.getProperty("parallelism"));
+      parms.remove("parallelism");
+    }
+
     // Do not check validity of
     this.parameters.fillFromParms(parms, false);
 
@@ -0,0 +1,111 @@
+package hex.tree;
+
+import hex.Model;
+import water.DKV;
+import water.Key;
+import water.MRTask;
+import water.nbhm.NonBlockingHashMap;
+
+/** The trees of a tree model, resolved from the DKV once per node.
+ *  <p>
+ *  Scoring a row used to cost a {@code DKV.get} per tree per class; this
+ *  holds an immutable {@code CompressedTree[][]} built once and shared by all
+ *  scoring tasks (e.g. {@code Model.BigScore}, {@link DTreeScorer}) on the
+ *  node.  Entries are keyed by the model Key and validated against the
+ *  model's tree Keys: a model which grew more trees only resolves the new
+ *  ones, and a different model put under the same Key is re-resolved.
+ *  Entries are dropped cluster-wide whenever a model leaves the DKV, be it
+ *  by {@code Keyed.remove} or by a plain {@code DKV.remove}. */
+public final class CompressedForest {
+  // Per-node cache: model Key to resolved forest
+  private static final NonBlockingHashMap<Key,CompressedForest> FORESTS = new NonBlockingHashMap<>();
+  static {
+    Model.registerNodeCache(new Model.NodeCache() {
+        @Override public void forget( Key modelKey ) { invalidateLocal(modelKey); }
+      });
+  }
+
+  private final Key<CompressedTree>[][] _treeKeys;
+  /** Resolved trees; [ntrees][nclass], with null for missing class trees.
+   *  Must not be modified. */
+  public final CompressedTree[][] _trees;
+
+  // Resolve the trees for treeKeys; trees already resolved by prev, for the
+  // same Keys at the same index, are reused.  A model growing one tree per
+  // scoring pass thus resolves every tree once, not once per pass.
+  private CompressedForest( CompressedForest prev, Key<CompressedTree>[][] treeKeys ) {
+    _treeKeys = treeKeys;
+    _trees = new CompressedTree[treeKeys.length][];
+    for( int t=0; t<treeKeys.length; t++ ) {
+      Key<CompressedTree>[] ks = treeKeys[t];
+      if( prev != null && t < prev._treeKeys.length && sameKeys(prev._treeKeys[t],ks) ) {
+        _trees[t] = prev._trees[t];
+        continue;
+      }
+      CompressedTree[] cts = _trees[t] = new CompressedTree[ks.length];
+      for( int c=0; c<ks.length; c++ )
+        if( ks[c] != null )
+          cts[c] = DKV.get(ks[c]).get();
+    }
+  }
+
+  /** The forest for the given tree Keys, from the node-local cache if it is
+   *  still current, else updated from the cached one.
+   *  @param modelKey Key of the owning model, or null to skip caching
+   *  @param treeKeys the model's tree Keys, [ntrees][nclass]
+   *  @return A resolved forest for exactly these tree Keys */
+  public static CompressedForest get( Key modelKey, Key<CompressedTree>[][] treeKeys ) {
+    if( modelKey == null ) return new CompressedForest(null,treeKeys);
+    CompressedForest cf = FORESTS.get(modelKey);
+    if( cf != null && cf.matches(treeKeys) ) return cf;
+    cf = new CompressedForest(cf,treeKeys);
+    FORESTS.put(modelKey,cf);   // Racing puts all resolve the same trees
+    return cf;
+  }
+
+  // Flattened layout for block scoring; built on first use
+  private volatile FlatForest _flat;
+  private volatile boolean _flatTooBig;
+
+  /** The same trees in a flat layout for scoring blocks of rows, built on
+   *  first use and kept with this forest.
+   *  @return The flattened forest, or null if the forest is too big to flatten */
+  public FlatForest flat() {
+    FlatForest ff = _flat;
+    if( ff != null || _flatTooBig ) return ff;
+    synchronized(this) {
+      if( _flat == null && !_flatTooBig ) {
+        ff = FlatForest.make(_trees);
+        if( ff == null ) _flatTooBig = true;
+        else _flat = ff;
+      }
+      return _flat;
+    }
+  }
+
+  private boolean matches( Key<CompressedTree>[][] treeKeys ) {
+    if( _treeKeys == treeKeys ) return true;
+    if( _treeKeys.length != treeKeys.length ) return false;
+    for( int t=0; t<treeKeys.length; t++ )
+      if( !sameKeys(_treeKeys[t],treeKeys[t]) ) return false;
+    return true;
+  }
+
+  private static boolean sameKeys( Key[] ks0, Key[] ks1 ) {
+    if( ks0.length != ks1.length ) return false;
+    for( int c=0; c<ks1.length; c++ )
+      if( ks0[c] == null ? ks1[c] != null : !ks0[c].equals(ks1[c]) )
+        return false;
+    return true;
+  }
+
+  /** Drop the cached forest for a model on this node only. */
+  static void invalidateLocal( Key modelKey ) { FORESTS.remove(modelKey); }
+
+  /** Drop the cached forest for a model on all nodes, and wait for it;
+   *  called when a model is deleted. */
+  public static void invalidate( final Key modelKey ) {
+    if( modelKey == null ) return;
+    new MRTask() { @Override public void setupLocal() { invalidateLocal(modelKey); } }.doAllNodes();
+  }
+}
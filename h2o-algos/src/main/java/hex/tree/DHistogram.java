@@ -250,6 +250,52 @@ public final class DHistogram extends Iced {
     AtomicUtils.DoubleArray.add(_ssqs,b,(float)yy);
   }
 
+  // Same, for a histogram private to one thread: plain adds, but the same
+  // float-casting as incr1 so results do not depend on the merge order.
+  void incr1Local( int b, double y, double yy) {
+    _sums[b] += (float)y;
+    _ssqs[b] += (float)yy;
+  }
+
+  // An empty copy with identical binning, for accumulating privately in one
+  // thread and merging later via add().  Untracked columns stay unallocated.
+  DHistogram localCopy() {
+    DHistogram h = sameBins();
+    if( _bins != null ) h.init();
+    return h;
+  }
+
+  // A fresh histogram with identical binning and no arrays allocated yet
+  DHistogram sameBins() {
+    DHistogram h = (DHistogram)clone();
+    h._bins = h._sums = h._ssqs = null;
+    h._min2 =  Float.MAX_VALUE;
+    h._maxIn= -Float.MAX_VALUE;
+    return h;
+  }
+
+  // Fill in this fresh histogram as parent minus child; all three must be
+  // binned alike.  Bins left empty up to roundoff are cleared, and the
+  // min/max are bounded by the surviving bins and the parent's min/max.
+  void subtract( DHistogram parent, DHistogram child ) {
+    assert _nbin == parent._nbin && _step == parent._step && _min == parent._min &&
+      _nbin == child._nbin && _step == child._step && _min == child._min;
+    init();
+    int lo=-1, hi=-1;
+    for( int b=0; b<_nbin; b++ ) {
+      double n = parent._bins[b] - child._bins[b];
+      if( n <= 1e-9*parent._bins[b] ) continue; // Emptied bin
+      _bins[b] = n;
+      _sums[b] = parent._sums[b] - child._sums[b];
+      _ssqs[b] = parent._ssqs[b] - child._ssqs[b];
+      if( lo == -1 ) lo = b;
+      hi = b;
+    }
+    if( lo == -1 ) return;
+    _min2  = Math.max(parent._min2 ,binAt(lo  ));
+    _maxIn = Math.min(parent._maxIn,binAt(hi+1));
+  }
+
   // Merge two equal histograms together.
   // Done in a F/J reduce, so no synchronization needed.
   void add0( DHistogram dsh ) {
@@ -40,6 +40,19 @@ public class DTree extends Iced {
   final long _seeds[];        // One seed for each chunk, for sampling
   public final transient Random _rand; // RNG for split decisions & sampling
 
+  /** Histogram subtraction: when both children of a split will split again,
+   *  accumulate histograms only for the child with fewer rows, and derive the
+   *  other child's as parent minus sibling.  The pair of children then keep
+   *  the parent's binning instead of re-binning to their own (tighter) range.
+   *  Enable with {@code -Dh2o.tree.histogram_subtraction=true}. */
+  public static boolean HISTO_SUBTRACT = Boolean.getBoolean("h2o.tree.histogram_subtraction");
+  /** Bytes of parent histograms that one tree may keep for subtraction per
+   *  level; beyond this, children are histogrammed the usual way.  Set with
+   *  {@code -Dh2o.tree.histogram_subtraction.max_bytes}; defaults to 1/16th
+   *  of the heap. */
+  public static final long HISTO_SUBTRACT_MAX_BYTES = Long.getLong("h2o.tree.histogram_subtraction.max_bytes", Runtime.getRuntime().maxMemory()>>4);
+  transient long _keptHistoBytes; // Parent histogram bytes kept for the next level
+
   public DTree( Frame fr, int ncols, char nbins, char nbins_cats, char nclass, double min_rows, int mtrys, long seed ) {
     _names = fr.names();
     _ncols = ncols;
@@ -257,6 +270,8 @@ public class DTree extends Iced {
   public static class UndecidedNode extends Node {
     public transient DHistogram[] _hs; //(up to) one histogram per column
     public final int _scoreCols[];      // A list of columns to score; could be null for all
+    boolean _derived;   // Histograms are parent minus sibling, not accumulated from rows
+    transient DHistogram[] _parentHs; // Parent's histograms, kept until derived
     public UndecidedNode( DTree tree, int pid, DHistogram[] hs ) {
       super(tree,pid);
       assert hs.length==tree._ncols;
@@ -292,6 +307,22 @@ public class DTree extends Iced {
       return Arrays.copyOfRange(cols, len, choices);
     }
 
+    // Node id of the other child of my parent
+    int sibling() {
+      DecidedNode dn = _tree.decided(_pid);
+      return dn._nids[dn._nids[0]==_nid ? 1 : 0];
+    }
+
+    // Fill in the histograms of a derived node, as parent minus sibling.
+    // Called once the sibling's histograms are complete.
+    void derive( DHistogram hs[], DHistogram sibHs[] ) {
+      assert _derived && _parentHs != null;
+      for( int j=0; j<hs.length; j++ )
+        if( hs[j] != null )
+          hs[j].subtract(_parentHs[j],sibHs[j]);
+      _parentHs = null;         // Parent histograms no longer needed
+    }
+
     // Make the parent of this Node use a -1 NID to prevent the split that this
     // node otherwise induces.  Happens if we find out too-late that we have a
     // perfect prediction here, and we want to turn into a leaf.
@@ -460,16 +491,53 @@ public class DTree extends Iced {
       final char nbins_cats = _tree._nbins_cats;
       final double min_rows = _tree._min_rows;
 
+      DHistogram nhists[][] = new DHistogram[2][];
       for( int b=0; b<2; b++ ) { // For all split-points
         // Setup for children splits
-        DHistogram nhists[] = _split.split(b,nbins, nbins_cats, min_rows, hs, _splat);
-        assert nhists==null || nhists.length==_tree._ncols;
-        _nids[b] = nhists == null ? -1 : makeUndecidedNode(nhists)._nid;
+        nhists[b] = _split.split(b,nbins, nbins_cats, min_rows, hs, _splat);
+        assert nhists[b]==null || nhists[b].length==_tree._ncols;
+      }
+      int derive = deriveSide(hs,nhists);
+      for( int b=0; b<2; b++ )
+        _nids[b] = nhists[b] == null ? -1 : makeUndecidedNode(nhists[b])._nid;
+      if( derive != -1 ) {
+        UndecidedNode u = _tree.undecided(_nids[derive]);
+        u._derived = true;
+        u._parentHs = hs;
       }
     }
 
+    // Histogram subtraction: if both children will split again, pick the one
+    // with more rows to be derived from the parent instead of accumulated,
+    // and re-bin both children exactly like the parent.  The child that is
+    // accumulated tracks every column either child needs.  Returns the side
+    // to derive, or -1 to histogram both children as usual.
+    private int deriveSide( DHistogram hs[], DHistogram nhists[][] ) {
+      if( !HISTO_SUBTRACT || nhists[0] == null || nhists[1] == null ) return -1;
+      if( _tree._mtrys != _tree._ncols ) return -1; // Per-node random columns differ between siblings
+      long bytes = 0;
+      for( int j=0; j<hs.length; j++ ) {
+        if( nhists[0][j] == null && nhists[1][j] == null ) continue;
+        if( hs[j] == null || hs[j]._bins == null ) return -1; // Parent did not track this column
+        bytes += 3L*8*hs[j].nbins();
+      }
+      if( _tree._keptHistoBytes+bytes > HISTO_SUBTRACT_MAX_BYTES ) return -1; // Over the memory cap
+      _tree._keptHistoBytes += bytes;
+      int derive = _split._n0 > _split._n1 ? 0 : 1;
+      for( int j=0; j<hs.length; j++ ) {
+        boolean any = nhists[0][j] != null || nhists[1][j] != null;
+        if( nhists[derive][j] != null ) nhists[derive][j] = hs[j].sameBins();
+        nhists[1-derive][j] = any ? hs[j].sameBins() : null;
+      }
+      return derive;
+    }
+
     public int ns( Chunk chks[], int row ) {
-      float d = (float)chks[_split._col].atd(row);
+      return ns((float)chks[_split._col].atd(row));
+    }
+
+    // Child NID for a value of the split column
+    int ns( float d ) {
       int bin;
       // Note that during *scoring* (as opposed to training), we can be exposed
       // to data which is outside the bin limits.
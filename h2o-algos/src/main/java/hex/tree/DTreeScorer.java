@@ -8,27 +8,23 @@ public abstract class DTreeScorer<T extends DTreeScorer<T>> extends MRTask<T> {
   protected final int _nclass;
   protected final int _skip;
   protected final Key[][] _treeKeys;
+  protected final Key _modelKey;
   protected transient CompressedTree[][] _trees;
 
-  public DTreeScorer(int ncols, int nclass, int skip, Key[][] treeKeys) {
+  public DTreeScorer(int ncols, int nclass, int skip, Key[][] treeKeys) { this(ncols, nclass, skip, null, treeKeys); }
+  /** @param modelKey Key of the model owning the trees; when given, the
+   *  resolved trees are shared node-wide via {@link CompressedForest} */
+  public DTreeScorer(int ncols, int nclass, int skip, Key modelKey, Key[][] treeKeys) {
     _ncols = ncols;
     _nclass = nclass;
     _treeKeys = treeKeys;
+    _modelKey = modelKey;
     _skip = skip;
   }
   protected int ntrees() { return _trees.length; }
 
   @Override protected final void setupLocal() {
-    int ntrees = _treeKeys.length;
-    _trees = new CompressedTree[ntrees][];
-    for (int t=0; t<ntrees; t++) {
-      Key[] treek = _treeKeys[t];
-      _trees[t] = new CompressedTree[treek.length];
-      // FIXME remove get by introducing fetch class for all trees
-      for (int i=0; i<treek.length; i++)
-        if (treek[i]!=null)
-          _trees[t][i] = DKV.get(treek[i]).get();
-    }
+    _trees = CompressedForest.get(_modelKey, _treeKeys)._trees;
   }
 
   public final Chunk chk_oobt(Chunk chks[]) { return chks[_ncols+1+_nclass+_nclass+_nclass+_skip]; }
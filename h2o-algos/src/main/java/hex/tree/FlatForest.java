@@ -0,0 +1,221 @@
+package hex.tree;
+
+import java.util.Arrays;
+
+import water.util.IcedBitSet;
+
+/** A whole forest decoded from the {@link CompressedTree} bit-piles into flat,
+ *  parallel primitive arrays, for scoring blocks of rows tree-at-a-time.
+ *  <p>
+ *  {@link CompressedTree#score} walks a variable-length byte[] decoding node
+ *  type, column-id width and skip sizes at every node, for every row.  Here
+ *  all nodes of all trees are laid out once in a few arrays indexed by node
+ *  number, and a block of rows is pushed through one tree before moving on to
+ *  the next, so a tree's nodes stay hot in cache across the block.
+ *  <p>
+ *  Scoring results are bit-identical to {@link CompressedTree#score}: NAs go
+ *  left for numeric splits, and are treated as categorical level 0 for
+ *  bitset splits (the {@code _naRight} array records the resulting
+ *  direction).  Immutable once built. */
+public final class FlatForest {
+  /** Give up flattening beyond this many nodes (about 40 bytes/node) and keep
+   *  scoring through the CompressedTrees. */
+  static final int MAX_NODES = 1<<24;
+
+  // Operators of split nodes; leaves have _col == -1
+  static final byte OP_LT  = 0;  // d <  split goes left
+  static final byte OP_EQ  = 1;  // d == split goes right
+  static final byte OP_SET = 2;  // (int)d in bitset goes right
+
+  final int _ntrees;            // Number of tree rows (boosting iterations)
+  final int _nclass;            // Trees per tree row; 1 for regression & binomial-opt
+  final int[] _roots;           // Root node of tree [t*_nclass+c], or -1 if no tree
+
+  // Per-node arrays
+  final int  [] _col;           // Split column, or -1 for a leaf
+  final byte [] _op;            // Split operator
+  final float[] _split;         // Split value for OP_LT/OP_EQ
+  final int  [] _left, _right;  // Child node numbers
+  final float[] _leaf;          // Leaf prediction
+  final boolean[] _naRight;     // Direction taken by a NA
+  final int  [] _bsOff;         // Offset of the node's bitset in _bits (OP_SET only)
+  final int  [] _bsLo, _bsLen;  // Bitset covers levels [_bsLo, _bsLo+_bsLen)
+  final long [] _bits;          // All bitsets, 64 levels per word
+
+  private FlatForest( int ntrees, int nclass, int[] roots, Builder b ) {
+    _ntrees = ntrees;  _nclass = nclass;  _roots = roots;
+    int n = b._n;
+    _col   = Arrays.copyOf(b._col  ,n);
+    _op    = Arrays.copyOf(b._op   ,n);
+    _split = Arrays.copyOf(b._split,n);
+    _left  = Arrays.copyOf(b._left ,n);
+    _right = Arrays.copyOf(b._right,n);
+    _leaf  = Arrays.copyOf(b._leaf ,n);
+    _naRight=Arrays.copyOf(b._naRight,n);
+    _bsOff = Arrays.copyOf(b._bsOff,n);
+    _bsLo  = Arrays.copyOf(b._bsLo ,n);
+    _bsLen = Arrays.copyOf(b._bsLen,n);
+    _bits  = Arrays.copyOf(b._bits ,b._nbits);
+  }
+
+  /** Flatten a forest.
+   *  @param trees [ntrees][nclass] trees, with nulls for missing class trees
+   *  @return the flattened forest, or null if it is too large to flatten */
+  public static FlatForest make( CompressedTree[][] trees ) {
+    int ntrees = trees.length;
+    int nclass = ntrees == 0 ? 1 : trees[0].length;
+    int[] roots = new int[ntrees*nclass];
+    Builder b = new Builder();
+    for( int t=0; t<ntrees; t++ ) {
+      assert trees[t].length == nclass;
+      for( int c=0; c<nclass; c++ ) {
+        CompressedTree ct = trees[t][c];
+        if( ct == null ) { roots[t*nclass+c] = -1; continue; }
+        roots[t*nclass+c] = b._n;
+        b.flatten(ct);
+        if( b._n > MAX_NODES ) return null;
+      }
+    }
+    return new FlatForest(ntrees, nclass, roots, b);
+  }
+
+  /** Score a block of rows through all trees, adding each tree's prediction
+   *  into {@code preds[r][nclass==1 ? 0 : c+1]}, exactly like {@link
+   *  DTreeScorer#scoreTree} does per row.
+   *  @param cols the block of data, column-major: cols[col][row]
+   *  @param nrows rows in the block
+   *  @param preds per-row predictions, accumulated into */
+  public void score( double[][] cols, int nrows, double[][] preds ) {
+    final int pidx0 = _nclass == 1 ? 0 : 1;
+    for( int t=0; t<_ntrees; t++ )
+      for( int c=0; c<_nclass; c++ ) {
+        int root = _roots[t*_nclass+c];
+        if( root == -1 ) continue;
+        int pidx = pidx0+c;
+        for( int r=0; r<nrows; r++ ) {
+          double pred = _leaf[leafFor(root, cols, r)];
+          assert (!Double.isInfinite(pred));
+          preds[r][pidx] += pred;
+        }
+      }
+  }
+
+  /** Score a single row through all trees; see {@link #score(double[][],int,double[][])}. */
+  public void score( double[] row, double[] preds ) {
+    final int pidx0 = _nclass == 1 ? 0 : 1;
+    for( int t=0; t<_ntrees; t++ )
+      for( int c=0; c<_nclass; c++ ) {
+        int n = _roots[t*_nclass+c];
+        if( n == -1 ) continue;
+        while( _col[n] != -1 )
+          n = goRight(n, row[_col[n]]) ? _right[n] : _left[n];
+        assert (!Double.isInfinite(_leaf[n]));
+        preds[pidx0+c] += _leaf[n];
+      }
+  }
+
+  // Walk one row of a column-major block down a tree
+  private int leafFor( int n, double[][] cols, int r ) {
+    int col;
+    while( (col=_col[n]) != -1 )
+      n = goRight(n, cols[col][r]) ? _right[n] : _left[n];
+    return n;
+  }
+
+  private boolean goRight( int n, double d ) {
+    if( Double.isNaN(d) ) return _naRight[n];
+    switch( _op[n] ) {
+    case OP_LT: return d >= _split[n];
+    case OP_EQ: return d == _split[n];
+    default:    return inSet(n, (int)d);
+    }
+  }
+
+  private boolean inSet( int n, int lvl ) {
+    int idx = lvl - _bsLo[n];
+    if( idx < 0 || idx >= _bsLen[n] ) return false;
+    return (_bits[_bsOff[n] + (idx >> 6)] & (1L << (idx & 63))) != 0;
+  }
+
+  /** Number of nodes (splits and leaves) in the forest. */
+  public int nodes() { return _col.length; }
+
+  // Growable arrays, filled in by a pre-order TreeVisitor walk
+  private static final class Builder {
+    int _n;
+    int  [] _col = new int[16], _left = new int[16], _right = new int[16];
+    int  [] _bsOff = new int[16], _bsLo = new int[16], _bsLen = new int[16];
+    byte [] _op = new byte[16];
+    float[] _split = new float[16], _leaf = new float[16];
+    boolean[] _naRight = new boolean[16];
+    long [] _bits = new long[16];
+    int _nbits;
+
+    private int newNode() {
+      if( _n == _col.length ) {
+        int len = _n<<1;
+        _col   = Arrays.copyOf(_col  ,len);
+        _left  = Arrays.copyOf(_left ,len);
+        _right = Arrays.copyOf(_right,len);
+        _bsOff = Arrays.copyOf(_bsOff,len);
+        _bsLo  = Arrays.copyOf(_bsLo ,len);
+        _bsLen = Arrays.copyOf(_bsLen,len);
+        _op    = Arrays.copyOf(_op   ,len);
+        _split = Arrays.copyOf(_split,len);
+        _leaf  = Arrays.copyOf(_leaf ,len);
+        _naRight=Arrays.copyOf(_naRight,len);
+      }
+      _left[_n] = _right[_n] = -1;
+      return _n++;
+    }
+
+    private int newBits( int nwords ) {
+      while( _nbits+nwords > _bits.length ) _bits = Arrays.copyOf(_bits,_bits.length<<1);
+      int off = _nbits;
+      _nbits += nwords;
+      return off;
+    }
+
+    // Link a new node under the innermost split still missing a child
+    private void link( int[] stk, int sp, int n ) {
+      if( sp == 0 ) return;     // The root
+      int p = stk[sp-1];
+      if( _left[p] == -1 ) _left[p] = n; else _right[p] = n;
+    }
+
+    void flatten( CompressedTree ct ) {
+      final int[][] stk = new int[][]{ new int[64] }; // Splits on the path from the root
+      final int[] sp = new int[1];
+      new TreeVisitor<RuntimeException>(ct) {
+        @Override protected void pre( int col, float fcmp, IcedBitSet gcmp, int equal ) {
+          int n = newNode();
+          link(stk[0],sp[0],n);
+          _col[n] = col;
+          if( equal == 0 || equal == 1 ) {
+            _op[n] = equal == 0 ? OP_LT : OP_EQ;
+            _split[n] = fcmp;
+            _naRight[n] = false; // NaN compares false: go left
+          } else {
+            _op[n] = OP_SET;
+            int lo = gcmp.max()-gcmp.size(), len = gcmp.size();
+            int off = newBits((len+63)>>6);
+            for( int i=0; i<len; i++ )
+              if( gcmp.contains(lo+i) )
+                _bits[off+(i>>6)] |= 1L << (i&63);
+            _bsOff[n] = off;  _bsLo[n] = lo;  _bsLen[n] = len;
+            _naRight[n] = lo <= 0 && gcmp.contains(0); // (int)NaN == 0
+          }
+          if( sp[0] == stk[0].length ) stk[0] = Arrays.copyOf(stk[0],sp[0]<<1);
+          stk[0][sp[0]++] = n;
+        }
+        @Override protected void post( int col, float fcmp, int equal ) { sp[0]--; }
+        @Override protected void leaf( float pred ) {
+          int n = newNode();
+          link(stk[0],sp[0],n);
+          _col[n] = -1;
+          _leaf[n] = pred;
+        }
+      }.visit();
+    }
+  }
+}
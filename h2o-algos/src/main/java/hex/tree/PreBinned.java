@@ -0,0 +1,152 @@
+package hex.tree;
+
+import java.util.Arrays;
+
+import water.*;
+import water.fvec.*;
+
+/** A predictor column re-coded as small integer codes, one per distinct
+ *  (float) value, for histogram building.
+ *  <p>
+ *  {@link ScoreBuildHistogram} casts every predictor to a float and bins it,
+ *  for every tree and every level.  For columns with at most {@link
+ *  #MAX_CODES} distinct float values, this holds a Vec of codes (compressing
+ *  to 1 or 2 bytes per row) in the same VectorGroup as the source, plus the
+ *  sorted distinct values.  Codes are exact: code {@code i} stands for {@code
+ *  _vals[i]}, and code {@code _vals.length} for NA, so histograms bin the
+ *  codes exactly as they would the values; for columns with few codes, via
+ *  a code-to-bin table built once per pass.
+ *  <p>
+ *  Entries live in the DKV under system Keys derived from the model
+ *  builder's Job Key and the source Vec's Key, so all trees of a build share
+ *  them; the code Vecs spill and reload like any other Vec.  The builder
+ *  removes its entries when it finishes, see {@link #remove(PreBinned[])}. */
+public final class PreBinned extends Keyed<PreBinned> {
+  /** Columns with more distinct float values are not pre-binned. */
+  public static final int MAX_CODES = 65535;
+
+  /** Pre-bin predictors when building trees.  Enable with
+   *  {@code -Dh2o.tree.prebin=true}. */
+  public static boolean PRE_BIN = Boolean.getBoolean("h2o.tree.prebin");
+
+  final Key<Vec> _src;          // Source column
+  final Key<Vec> _codes;        // Code per row; same VectorGroup as _src
+  /** Sorted distinct non-NA values; code i is _vals[i], code _vals.length is NA */
+  public final float[] _vals;
+
+  private PreBinned( Key<PreBinned> key, Vec src, Vec codes, float[] vals ) {
+    super(key);
+    _src = src._key;
+    _codes = codes._key;
+    _vals = vals;
+  }
+
+  /** The code Vec; same layout as the source Vec. */
+  public Vec codes() { return DKV.getGet(_codes); }
+
+  private static Key<PreBinned> keyFor( Key owner, Key<Vec> src ) { return Key.makeSystem("prebin_"+owner+"_"+src); }
+
+  /** Pre-binned codes for a column, built now for one model build.
+   *  @param owner Key of the model builder's Job; it removes the codes when done
+   *  @return the codes, or null if the column is not worth pre-binning
+   *  (non-numeric, constant or all-NA, or too many distinct values) */
+  public static PreBinned make( Vec src, Key owner ) {
+    if( !src.isNumeric() || src.isConst() || src.naCnt() == src.length() ) return null;
+    float[] vals = new Distinct().doAll(src)._vals;
+    if( vals == null ) return null; // Too many distinct values
+    Scope.enter();              // Removed explicitly, with the PreBinned: do not track the codes
+    try {
+      Vec codes = new Encode(vals).doAll(1, Vec.T_NUM, new Frame(src)).outputFrame().anyVec();
+      PreBinned pb = new PreBinned(keyFor(owner,src._key),src,codes,vals);
+      DKV.put(pb);
+      return pb;
+    } finally {
+      Scope.pop();
+    }
+  }
+
+  /** Pre-binned codes for the first {@code ncols} columns of a Frame.
+   *  @return per-column codes, with null for columns not pre-binned */
+  public static PreBinned[] make( Frame fr, int ncols, Key owner ) {
+    PreBinned[] pbs = new PreBinned[ncols];
+    Vec[] vecs = fr.vecs();
+    for( int c=0; c<ncols; c++ )
+      pbs[c] = make(vecs[c],owner);
+    return pbs;
+  }
+
+  /** Remove pre-binned codes, and their code Vecs; nulls are skipped. */
+  public static void remove( PreBinned[] pbs ) {
+    if( pbs == null ) return;
+    Futures fs = new Futures();
+    for( PreBinned pb : pbs )
+      if( pb != null ) pb.remove(fs);
+    fs.blockForPending();
+  }
+
+  @Override protected Futures remove_impl( Futures fs ) {
+    Keyed.remove(_codes,fs);
+    return fs;
+  }
+
+  @Override protected long checksum_impl() { return _src.hashCode() ^ Arrays.hashCode(_vals); }
+
+  // Sorted distinct float values of a column, or null if more than MAX_CODES
+  private static class Distinct extends MRTask<Distinct> {
+    float[] _vals;
+    @Override public void map( Chunk c ) {
+      float[] fs = new float[c._len];
+      int n=0;
+      for( int r=0; r<c._len; r++ )
+        if( !c.isNA(r) ) fs[n++] = (float)c.atd(r);
+      _vals = uniq(fs,n);
+    }
+    @Override public void reduce( Distinct d ) {
+      if( _vals == null || d._vals == null ) { _vals = null; return; }
+      float[] fs = Arrays.copyOf(_vals,_vals.length+d._vals.length);
+      System.arraycopy(d._vals,0,fs,_vals.length,d._vals.length);
+      _vals = uniq(fs,fs.length);
+    }
+    private static float[] uniq( float[] fs, int n ) {
+      Arrays.sort(fs,0,n);
+      int u=0;
+      for( int i=0; i<n; i++ )
+        if( u == 0 || Float.floatToRawIntBits(fs[i]) != Float.floatToRawIntBits(fs[u-1]) )
+          fs[u++] = fs[i];
+      return u > MAX_CODES ? null : Arrays.copyOf(fs,u);
+    }
+  }
+
+  // Replace values by codes
+  private static class Encode extends MRTask<Encode> {
+    final float[] _vals;
+    Encode( float[] vals ) { _vals = vals; }
+    @Override public void map( Chunk c, NewChunk nc ) {
+      for( int r=0; r<c._len; r++ )
+        nc.addNum(c.isNA(r) ? _vals.length : code((float)c.atd(r)), 0);
+    }
+    private int code( float f ) {
+      int i = Arrays.binarySearch(_vals,f);
+      assert i >= 0;
+      return i;
+    }
+  }
+
+  /** Columns with at most this many codes get a code-to-bin table per
+   *  histogram and pass; others bin each decoded value. */
+  static final int TABLE_CODES = 256;
+
+  /** For a histogram, the bin of every code; the NA code goes to bin 0 like
+   *  NAs do. */
+  static int[] binTable( DHistogram h, float[] vals ) {
+    int[] tbl = new int[vals.length+1];
+    for( int i=0; i<vals.length; i++ ) {
+      float f = vals[i];
+      // Rows reaching this histogram lie in [_min,_maxEx); codes outside can
+      // not occur, so leave them at bin 0 rather than tripping bin()'s asserts
+      if( Float.isInfinite(f) || (h._min <= f && f < h._maxEx) )
+        tbl[i] = h.bin(f);
+    }
+    return tbl;
+  }
+}
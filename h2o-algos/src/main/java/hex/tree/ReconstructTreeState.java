@@ -19,7 +19,11 @@ import water.fvec.Chunk;
   /* @IN */ final protected boolean _oob;
 
   public ReconstructTreeState(int ncols, int nclass, int skip, float rate, Key[][] treeKeys, boolean oob) {
-    super(ncols,nclass,skip,treeKeys);
+    this(ncols,nclass,skip,rate,null,treeKeys,oob);
+  }
+
+  public ReconstructTreeState(int ncols, int nclass, int skip, float rate, Key modelKey, Key[][] treeKeys, boolean oob) {
+    super(ncols,nclass,skip,modelKey,treeKeys);
     _rate = rate;
     _oob = oob;
   }
@@ -1,10 +1,14 @@
 package hex.tree;
 
 import hex.Distribution;
+import jsr166y.RecursiveAction;
+import water.DKV;
+import water.Key;
 import water.MRTask;
 import water.H2O.H2OCountedCompleter;
 import water.fvec.C0DChunk;
 import water.fvec.Chunk;
+import water.nbhm.NonBlockingHashMap;
 import water.util.ArrayUtils;
 import water.util.AtomicUtils;
 
@@ -31,6 +35,13 @@ import water.util.AtomicUtils;
  *
  * <p>The other result is a prediction "score" for the whole dataset, based on
  * the previous passes' DHistograms.
+ *
+ * <p>By default all F/J workers on a node add into the same shared
+ * DHistograms with atomic updates, which contend on the hot bins as the core
+ * count grows.  With {@link #THREAD_LOCAL_HISTOS} each worker thread instead
+ * accumulates into its own private copy with plain adds; the private copies
+ * are tree-reduced pairwise and folded into the shared histograms once, in
+ * {@link #postLocal}.
  */
 public class ScoreBuildHistogram extends MRTask<ScoreBuildHistogram> {
   final int   _k;    // Which tree
@@ -43,8 +54,27 @@ public class ScoreBuildHistogram extends MRTask<ScoreBuildHistogram> {
   final DHistogram _hcs[/*tree-relative node-id*/][/*column*/];
   final boolean _subset;      // True if working a subset of cols
   final Distribution.Family _family;
+  final boolean _localHistos; // Accumulate into per-thread private histograms
+
+  /** Default for new tasks: accumulate into per-thread private histograms
+   *  instead of atomically updating the node-shared ones.  Set at startup
+   *  with {@code -Dh2o.tree.thread_local_histos=true}; each task carries its
+   *  own copy of the flag to the other nodes. */
+  public static boolean THREAD_LOCAL_HISTOS = Boolean.getBoolean("h2o.tree.thread_local_histos");
+
+  // Per-thread private histograms, made lazily by map() when _localHistos
+  private transient NonBlockingHashMap<Thread,DHistogram[][]> _perThread;
+
+  // Pre-binned predictors: the task's Frame holds codes instead of values for
+  // columns with a non-null Key here; see PreBinned
+  final Key<PreBinned> _prebinned[];
+  private transient float _codeVals[/*column*/][]; // Code to value
+  private transient int _codeBins[/*tree-relative node-id*/][/*column*/][]; // Code to bin, for few codes
 
   public ScoreBuildHistogram(H2OCountedCompleter cc, int k, int ncols, int nbins, int nbins_cats, DTree tree, int leaf, DHistogram hcs[][], boolean subset, Distribution.Family family) {
+    this(cc,k,ncols,nbins,nbins_cats,tree,leaf,hcs,subset,family,THREAD_LOCAL_HISTOS,null);
+  }
+  public ScoreBuildHistogram(H2OCountedCompleter cc, int k, int ncols, int nbins, int nbins_cats, DTree tree, int leaf, DHistogram hcs[][], boolean subset, Distribution.Family family, boolean localHistos, Key<PreBinned> prebinned[]) {
     super(cc);
     _k    = k;
     _ncols= ncols;
@@ -56,6 +86,8 @@ public class ScoreBuildHistogram extends MRTask<ScoreBuildHistogram> {
     _subset = subset;
     _modifiesInputs = true;
     _family = family;
+    _localHistos = localHistos;
+    _prebinned = prebinned;
   }
 
   /** Marker for already decided row. */
@@ -75,6 +107,7 @@ public class ScoreBuildHistogram extends MRTask<ScoreBuildHistogram> {
     // Allocate local shared memory histograms
     for( int l=_leaf; l<_tree._len; l++ ) {
       DTree.UndecidedNode udn = _tree.undecided(l);
+      if( udn._derived ) continue; // Filled in from parent & sibling after the pass
       DHistogram hs[] = _hcs[l-_leaf];
       int sCols[] = udn._scoreCols;
       if( sCols != null ) { // Sub-selecting just some columns?
@@ -86,6 +119,29 @@ public class ScoreBuildHistogram extends MRTask<ScoreBuildHistogram> {
             hs[j].init();
       }
     }
+    if( _localHistos ) _perThread = new NonBlockingHashMap<>();
+    if( _prebinned != null ) {
+      _codeVals = new float[_ncols][];
+      for( int c=0; c<_ncols; c++ )
+        if( _prebinned[c] != null )
+          _codeVals[c] = DKV.<PreBinned>getGet(_prebinned[c])._vals;
+      _codeBins = new int[_hcs.length][_ncols][];
+      for( int l=0; l<_hcs.length; l++ ) {
+        DHistogram hs[] = _hcs[l];
+        if( hs == null ) continue;
+        for( int c=0; c<_ncols; c++ )
+          if( hs[c] != null && hs[c]._bins != null && _codeVals[c] != null && _codeVals[c].length <= PreBinned.TABLE_CODES )
+            _codeBins[l][c] = PreBinned.binTable(hs[c],_codeVals[c]);
+      }
+    }
+  }
+
+  // A predictor as a float, decoding pre-binned columns
+  private float colData( Chunk chks[], int col, int row ) {
+    float vals[] = _codeVals == null ? null : _codeVals[col];
+    if( vals == null ) return (float)chks[col].atd(row);
+    int code = (int)chks[col].at8(row);
+    return code == vals.length ? Float.NaN : vals[code];
   }
 
   @Override public void map( Chunk[] chks ) {
@@ -105,11 +161,71 @@ public class ScoreBuildHistogram extends MRTask<ScoreBuildHistogram> {
       for( int row=0; row<nids._len; row++ )
         if( isDecidedRow((int)nids.atd(row)) ) nnids[row] = -1;
 
+    // Weights and targets are read once per row per column below: bulk
+    // decode them once up front
+    final int len = nids._len;
+    double ws[] = weight.getDoubles(new double[len], 0, len);
+    double ys[] = wrks  .getDoubles(new double[len], 0, len);
+
     // Pass 2: accumulate all rows, cols into histograms
 //    if (_subset)
-//      accum_subset(chks,wrks,weight,nnids); //for debugging - simple code
+//      accum_subset(chks,ys,ws,nnids); //for debugging - simple code
 //    else
-      accum_all   (chks,wrks,weight,nnids); //generally faster
+      accum_all   (chks,ys,ws,nnids); //generally faster
+  }
+
+  // This thread's private histograms, shaped like the shared ones.  A worker
+  // thread runs one map() call at a time, so no other thread touches them
+  // until postLocal.
+  private DHistogram[][] threadHistos() {
+    Thread t = Thread.currentThread();
+    DHistogram hcs[][] = _perThread.get(t);
+    if( hcs != null ) return hcs;
+    hcs = new DHistogram[_hcs.length][];
+    for( int i=0; i<hcs.length; i++ ) {
+      DHistogram hs[] = _hcs[i];
+      if( hs == null ) continue;
+      DHistogram lhs[] = hcs[i] = new DHistogram[hs.length];
+      for( int j=0; j<hs.length; j++ )
+        if( hs[j] != null ) lhs[j] = hs[j].localCopy();
+    }
+    _perThread.put(t,hcs);
+    return hcs;
+  }
+
+  // All map() calls on this node are done: merge the per-thread histograms
+  // into the shared ones before any remote results are reduced in.
+  @Override protected void postLocal() {
+    if( _perThread != null ) {
+      DHistogram all[][][] = _perThread.values().toArray(new DHistogram[0][][]);
+      _perThread.clear();
+      if( all.length > 0 ) {
+        new MergeHistos(all,0,all.length).invoke();
+        addHistos(_hcs,all[0]);
+      }
+    }
+    super.postLocal();
+  }
+
+  // Pairwise tree-reduce of per-thread histograms; the result lands in _all[_lo]
+  private static class MergeHistos extends RecursiveAction {
+    final DHistogram _all[][][];
+    final int _lo, _hi;
+    MergeHistos( DHistogram all[][][], int lo, int hi ) { _all = all; _lo = lo; _hi = hi; }
+    @Override protected void compute() {
+      if( _hi-_lo <= 1 ) return;
+      int mid = (_lo+_hi)>>>1;
+      invokeAll(new MergeHistos(_all,_lo,mid), new MergeHistos(_all,mid,_hi));
+      addHistos(_all[_lo],_all[mid]);
+    }
+  }
+
+  private static void addHistos( DHistogram dst[][], DHistogram src[][] ) {
+    for( int i=0; i<dst.length; i++ )
+      if( dst[i] != null )
+        for( int j=0; j<dst[i].length; j++ )
+          if( dst[i][j] != null )
+            dst[i][j].add(src[i][j]);
   }
 
   @Override public void reduce( ScoreBuildHistogram sbh ) {
@@ -154,7 +270,7 @@ public class ScoreBuildHistogram extends MRTask<ScoreBuildHistogram> {
       }
 
       assert !isDecidedRow(nid);
-      nid = dn.ns(chks,row); // Move down the tree 1 level
+      nid = dn.ns(colData(chks,dn._split._col,row)); // Move down the tree 1 level
       if( !isDecidedRow(nid) ) {
         if( oob ) nid = nid2Oob(nid); // Re-apply OOB encoding
         nids.set(row, nid);
@@ -164,24 +280,26 @@ public class ScoreBuildHistogram extends MRTask<ScoreBuildHistogram> {
   }
 
   // All rows, some cols, accumulate histograms
-  private void accum_subset(Chunk chks[], Chunk wrks, Chunk weight, int nnids[]) {
+  private void accum_subset(Chunk chks[], double ys[], double ws[], int nnids[]) {
     for( int row=0; row<nnids.length; row++ ) { // Over all rows
       int nid = nnids[row];                     // Get Node to decide from
       if( nid >= 0 ) {        // row already predicts perfectly or OOB
-        double w = weight.atd(row);
+        double w = ws[row];
         if (w == 0) continue;
-        double resp = wrks.atd(row);
-        assert !Double.isNaN(wrks.atd(row)); // Already marked as sampled-away
+        double resp = ys[row];
+        assert !Double.isNaN(resp); // Already marked as sampled-away
         DHistogram nhs[] = _hcs[nid];
-        int sCols[] = _tree.undecided(nid+_leaf)._scoreCols; // Columns to score (null, or a list of selected cols)
+        DTree.UndecidedNode udn = _tree.undecided(nid+_leaf);
+        if( udn._derived ) continue;
+        int sCols[] = udn._scoreCols; // Columns to score (null, or a list of selected cols)
         if (sCols == null) {
           for(int col=0; col<nhs.length; ++col ) { //all columns
             if (nhs[col]!=null)
-              nhs[col].incr((float) chks[col].atd(row), resp, w); // Histogram row/col
+              nhs[col].incr(colData(chks,col,row), resp, w); // Histogram row/col
           }
         } else {
           for( int col : sCols )
-            nhs[col].incr((float) chks[col].atd(row), resp, w); // Histogram row/col
+            nhs[col].incr(colData(chks,col,row), resp, w); // Histogram row/col
         }
       }
     }
@@ -197,11 +315,11 @@ public class ScoreBuildHistogram extends MRTask<ScoreBuildHistogram> {
    * histograms once-per-NID, but requires pre-sorting the rows by NID.
    *
    * @param chks predictors, actual response (ignored)
-   * @param wrks predicted response
-   * @param weight observation weights
+   * @param ys predicted response, per row of the chunk
+   * @param ws observation weights, per row of the chunk
    * @param nnids node ids
    */
-  private void accum_all(Chunk chks[], Chunk wrks, Chunk weight, int nnids[]) {
+  private void accum_all(Chunk chks[], double ys[], double ws[], int nnids[]) {
     // Sort the rows by NID, so we visit all the same NIDs in a row
     // Find the count of unique NIDs in this chunk
     int nh[] = new int[_hcs.length+1];
@@ -215,8 +333,9 @@ public class ScoreBuildHistogram extends MRTask<ScoreBuildHistogram> {
         rows[nh[nnids[row]]++] = row;
     // rows[] has Chunk-local ROW-numbers now, in-order, grouped by NID.
     // nh[] lists the start of each new NID, and is indexed by NID+1.
-    final DHistogram hcs[][] = _hcs;
-    if( hcs.length==0 ) return; // Unlikely fast cutout
+    if( _hcs.length==0 ) return; // Unlikely fast cutout
+    final boolean local = _localHistos;
+    final DHistogram hcs[][] = local ? threadHistos() : _hcs;
     // Local temp arrays, no atomic updates.
     double bins[] = new double[Math.max(_nbins, _nbins_cats)];
     double sums[] = new double[Math.max(_nbins, _nbins_cats)];
@@ -227,18 +346,22 @@ public class ScoreBuildHistogram extends MRTask<ScoreBuildHistogram> {
 
     //Note: for (n) for (c) is faster than for(c) for(n) for Airlines and MNIST data for DRF and GBM and stochastic GBM
     for (int n = 0; n < hcslen; n++) {
-      int sCols[] = _tree.undecided(n + _leaf)._scoreCols; // Columns to score (null, or a list of selected cols)
+      DTree.UndecidedNode udn = _tree.undecided(n + _leaf);
+      if( udn._derived ) continue; // Histograms come from parent minus sibling
+      int sCols[] = udn._scoreCols; // Columns to score (null, or a list of selected cols)
       if (sCols == null) {
         for (int c = 0; c < cols; c++)
-          overAllRows(chks, wrks, weight, nh, rows, hcs, c, n, bins, sums, ssqs, binslen);
+          overAllRows(chks, ys, ws, nh, rows, hcs, c, n, bins, sums, ssqs, binslen, local,
+                      _codeVals == null ? null : _codeVals[c], _codeBins == null ? null : _codeBins[n][c]);
       } else {
         for (int c : sCols)
-          overAllRows(chks, wrks, weight, nh, rows, hcs, c, n, bins, sums, ssqs, binslen);
+          overAllRows(chks, ys, ws, nh, rows, hcs, c, n, bins, sums, ssqs, binslen, local,
+                      _codeVals == null ? null : _codeVals[c], _codeBins == null ? null : _codeBins[n][c]);
       }
     }
   }
 
-  private static void overAllRows(Chunk chks[], Chunk wrks, Chunk weight, int nh[], int[] rows, DHistogram hcs[][], int c, int n, double[] bins, double[] sums, double[] ssqs, int binslen) {
+  private static void overAllRows(Chunk chks[], double ys[], double ws[], int nh[], int[] rows, DHistogram hcs[][], int c, int n, double[] bins, double[] sums, double[] ssqs, int binslen, boolean local, float vals[], int tbl[]) {
     Chunk chk = chks[c];
     final DHistogram rh = hcs[n][c];
     if( rh==null ) return; // Ignore untracked columns in this split
@@ -260,25 +383,61 @@ public class ScoreBuildHistogram extends MRTask<ScoreBuildHistogram> {
 
     // Gather all the data for this set of rows, for 1 column and 1 split/NID
     // Gather min/max, sums and sum-squares.
-    for( int xrow=lo; xrow<hi; xrow++ ) {
-      int row = rows[xrow];
-      double w = weight.atd(row);
-      if (w == 0) continue;
-      float col_data = (float)chk.atd(row);
-      if( col_data < min ) min = col_data;
-      if( col_data > max ) max = col_data;
-      int b = rh.bin(col_data); // Compute bin# via linear interpolation
-      double resp = wrks.atd(row); // fitting target (residual)
-      double wy = w*resp;
-      bins[b] += w;                // Bump count in bin
-      sums[b] += wy;
-      ssqs[b] += wy*resp;
+    if( vals != null ) {        // Pre-binned column: codes, sorted by value
+      final int na = vals.length;
+      int minc = na, maxc = -1;
+      for( int xrow=lo; xrow<hi; xrow++ ) {
+        int row = rows[xrow];
+        double w = ws[row];
+        if (w == 0) continue;
+        int code = (int)chk.at8(row);
+        int b;
+        if( code == na ) b = 0;   // NAs to bin 0
+        else {
+          if( code < minc ) minc = code;
+          if( code > maxc ) maxc = code;
+          b = tbl != null ? tbl[code] : rh.bin(vals[code]);
+        }
+        double resp = ys[row]; // fitting target (residual)
+        double wy = w*resp;
+        bins[b] += w;                // Bump count in bin
+        sums[b] += wy;
+        ssqs[b] += wy*resp;
+      }
+      if( maxc != -1 ) {
+        if( vals[minc] < min ) min = vals[minc];
+        if( vals[maxc] > max ) max = vals[maxc];
+      }
+    } else {
+      for( int xrow=lo; xrow<hi; xrow++ ) {
+        int row = rows[xrow];
+        double w = ws[row];
+        if (w == 0) continue;
+        float col_data = (float)chk.atd(row);
+        if( col_data < min ) min = col_data;
+        if( col_data > max ) max = col_data;
+        int b = rh.bin(col_data); // Compute bin# via linear interpolation
+        double resp = ys[row]; // fitting target (residual)
+        double wy = w*resp;
+        bins[b] += w;                // Bump count in bin
+        sums[b] += wy;
+        ssqs[b] += wy*resp;
+      }
     }
 
+    int len = rhbinslen;
+    if( local ) {         // Private to this thread: plain adds
+      rh._min2 = min;     // Started from rh's own min/max above
+      rh._maxIn = max;
+      for( int b=0; b<len; b++ ) {
+        if( bins[b] != 0 ) { rhbins[b] += bins[b]; bins[b]=0; }
+        if( sums[b] != 0 ) { rh.incr1Local(b,sums[b],ssqs[b]); sums[b]=ssqs[b]=0; }
+      }
+      return;
+    }
     // Add all the data into the Histogram (atomically add)
     rh.setMin(min);       // Track actual lower/upper bound per-bin
     rh.setMax(max);
-    int len = rhbinslen;
     for( int b=0; b<len; b++ ) { // Bump counts in bins
       if( bins[b] != 0 ) { AtomicUtils.DoubleArray.add(rhbins,b,bins[b]); bins[b]=0; }
       if( sums[b] != 0 ) { rh.incr1(b,sums[b],ssqs[b]); sums[b]=ssqs[b]=0; }
@@ -46,6 +46,9 @@ public abstract class SharedTree<M extends SharedTreeModel<M,P,O>, P extends Sha
 
   protected Random _rand;
 
+  // Pre-binned predictors for histogram building, or null; see PreBinned
+  private transient PreBinned[/*_ncols*/] _prebinned;
+
   public boolean isSupervised(){return true;}
 
   Key _response_key;
@@ -208,6 +211,9 @@ public abstract class SharedTree<M extends SharedTreeModel<M,P,O>, P extends Sha
           Log.info("Model class distribution: " + Arrays.toString(_model._output._modelClassDist));
         }
 
+        // Re-code the predictors for histogram building; removed when done
+        if( PreBinned.PRE_BIN ) _prebinned = PreBinned.make(_train,_ncols,_key);
+
         // Also add to the basic working Frame these sets:
         //   nclass Vecs of current forest results (sum across all trees)
         //   nclass Vecs of working/temp data
@@ -254,6 +260,8 @@ public abstract class SharedTree<M extends SharedTreeModel<M,P,O>, P extends Sha
         updateModelOutput();
         if (_model != null) _model.unlock(_key);
         _parms.read_unlock_frames(SharedTree.this);
+        PreBinned.remove(_prebinned);
+        _prebinned = null;
         if (_model==null) {
           Scope.exit();
         } else {
@@ -279,7 +287,7 @@ public abstract class SharedTree<M extends SharedTreeModel<M,P,O>, P extends Sha
       // Reconstruct the working tree state from the checkpoint
       Timer t = new Timer();
       int ntreesFromCheckpoint = ((SharedTreeModel.SharedTreeParameters) _parms._checkpoint.<SharedTreeModel>get()._parms)._ntrees;
-      new ReconstructTreeState(_ncols, _nclass, numSpecialCols(), _parms._sample_rate,_model._output._treeKeys, doOOBScoring()).doAll(_train, _parms._build_tree_one_node);
+      new ReconstructTreeState(_ncols, _nclass, numSpecialCols(), _parms._sample_rate, _model._key, _model._output._treeKeys, doOOBScoring()).doAll(_train, _parms._build_tree_one_node);
       for (int i = 0; i < ntreesFromCheckpoint; i++) _rand.nextLong(); //for determinism
       Log.info("Reconstructing OOB stats from checkpoint took " + t);
     }
@@ -329,6 +337,8 @@ public abstract class SharedTree<M extends SharedTreeModel<M,P,O>, P extends Sha
           DKV.put(treeKeys[i][j] = newCt._key,newCt);
         }
       }
+      // Forget any trees cached under the destination Key
+      CompressedForest.invalidate(_dest);
       return newModel;
     }
   }
@@ -344,20 +354,30 @@ public abstract class SharedTree<M extends SharedTreeModel<M,P,O>, P extends Sha
     // but is NOT over all the data.
     ScoreBuildOneTree sb1ts[] = new ScoreBuildOneTree[_nclass];
     Vec vecs[] = fr.vecs();
+    Vec preds[] = Arrays.copyOf(vecs,_ncols+1); //predictors and actual response
+    Key<PreBinned> prebinned[] = null;
+    if( _prebinned != null ) {
+      prebinned = new Key[_ncols];
+      for( int c=0; c<_ncols; c++ )
+        if( _prebinned[c] != null ) {
+          preds[c] = _prebinned[c].codes(); // Codes instead of values
+          prebinned[c] = _prebinned[c]._key;
+        }
+    }
     for( int k=0; k<_nclass; k++ ) {
       final DTree tree = ktrees[k]; // Tree for class K
       if( tree == null ) continue;
       // Build a frame with just a single tree (& work & nid) columns, so the
       // nested MRTask ScoreBuildHistogram in ScoreBuildOneTree does not try
       // to close other tree's Vecs when run in parallel.
-      Frame fr2 = new Frame(Arrays.copyOf(fr._names,_ncols+1), Arrays.copyOf(vecs,_ncols+1)); //predictors and actual response
+      Frame fr2 = new Frame(Arrays.copyOf(fr._names,_ncols+1), preds.clone()); //predictors and actual response
       fr2.add(fr._names[idx_tree(k)],vecs[idx_tree(k)]); //tree predictions
       fr2.add(fr._names[idx_work(k)],vecs[idx_work(k)]); //target value to fit (copy of actual response for DRF, residual for GBM)
       fr2.add(fr._names[idx_nids(k)],vecs[idx_nids(k)]); //node indices
       if (idx_weight() >= 0)
         fr2.add(fr._names[idx_weight()],vecs[idx_weight()]); //observation weights
       // Start building one of the K trees in parallel
-      H2O.submitTask(sb1ts[k] = new ScoreBuildOneTree(this,k,nbins, nbins_cats, tree, leafs, hcs, fr2, subset, build_tree_one_node, _improvPerVar, _model._parms._distribution));
+      H2O.submitTask(sb1ts[k] = new ScoreBuildOneTree(this,k,nbins, nbins_cats, tree, leafs, hcs, fr2, subset, build_tree_one_node, _improvPerVar, _model._parms._distribution, prebinned));
     }
     // Block for all K trees to complete.
     boolean did_split=false;
@@ -384,9 +404,10 @@ public abstract class SharedTree<M extends SharedTreeModel<M,P,O>, P extends Sha
     final boolean _build_tree_one_node;
     float[] _improvPerVar;      // Squared Error improvement per variable per split
     Distribution.Family _family;
+    final Key<PreBinned> _prebinned[]; // Pre-binned predictors, or null
     
     boolean _did_split;
-    ScoreBuildOneTree(SharedTree st, int k, int nbins, int nbins_cats, DTree tree, int leafs[], DHistogram hcs[][][], Frame fr2, boolean subset, boolean build_tree_one_node, float[] improvPerVar, Distribution.Family family) {
+    ScoreBuildOneTree(SharedTree st, int k, int nbins, int nbins_cats, DTree tree, int leafs[], DHistogram hcs[][][], Frame fr2, boolean subset, boolean build_tree_one_node, float[] improvPerVar, Distribution.Family family, Key<PreBinned> prebinned[]) {
       _st   = st;
       _k    = k;
       _nbins= nbins;
@@ -399,6 +420,7 @@ public abstract class SharedTree<M extends SharedTreeModel<M,P,O>, P extends Sha
       _build_tree_one_node = build_tree_one_node;
       _improvPerVar = improvPerVar;
       _family = family;
+      _prebinned = prebinned;
       // Raise the priority, so that if a thread blocks here, we are guaranteed
       // the task completes (perhaps using a higher-priority thread from the
       // upper thread pools).  This prevents thread deadlock.
@@ -413,7 +435,7 @@ public abstract class SharedTree<M extends SharedTreeModel<M,P,O>, P extends Sha
       // Pass 2: Build new summary DHistograms on the new child Nodes every row
       // got assigned into.  Collect counts, mean, variance, min, max per bin,
       // per column.
-      new ScoreBuildHistogram(this,_k, _st._ncols, _nbins, _nbins_cats, _tree, _leafs[_k], _hcs[_k], _subset, _family).dfork(null,_fr2,_build_tree_one_node);
+      new ScoreBuildHistogram(this,_k, _st._ncols, _nbins, _nbins_cats, _tree, _leafs[_k], _hcs[_k], _subset, _family, ScoreBuildHistogram.THREAD_LOCAL_HISTOS, _prebinned).dfork(null,_fr2,_build_tree_one_node);
     }
     @Override public void onCompletion(CountedCompleter caller) {
       ScoreBuildHistogram sbh = (ScoreBuildHistogram)caller;
@@ -421,6 +443,12 @@ public abstract class SharedTree<M extends SharedTreeModel<M,P,O>, P extends Sha
 
       final int leafk = _leafs[_k];
       int tmax = _tree.len();   // Number of total splits in tree K
+      // Histogram subtraction: fill in derived leaves from parent & sibling
+      for( int leaf=leafk; leaf<tmax; leaf++ ) {
+        DTree.UndecidedNode udn = _tree.undecided(leaf);
+        if( udn._derived ) udn.derive(sbh._hcs[leaf-leafk],sbh._hcs[udn.sibling()-leafk]);
+      }
+      _tree._keptHistoBytes = 0; // Budget for the next level's splits
       for( int leaf=leafk; leaf<tmax; leaf++ ) { // Visit all the new splits (leaves)
         DTree.UndecidedNode udn = _tree.undecided(leaf);
 //        System.out.println((_st._nclass==1?"Regression":("Class "+_fr2.vecs()[_st._ncols].domain()[_k]))+",\n  Undecided node:"+udn);
@@ -21,6 +21,7 @@ import water.codegen.CodeGenerator;
 import water.codegen.CodeGeneratorPipeline;
 import water.exceptions.H2OIllegalArgumentException;
 import water.exceptions.JCodeSB;
+import water.fvec.Chunk;
 import water.util.ArrayUtils;
 import water.util.JCodeGen;
 import water.util.PojoUtils;
@@ -184,30 +185,71 @@ public abstract class SharedTreeModel<M extends SharedTreeModel<M,P,O>, P extend
   }
   @Override
   protected double[] score0(double[] data, double[] preds, double weight, double offset) {
-    // Prefetch trees into the local cache if it is necessary
+    // Trees are resolved once per node, not per row
+    CompressedTree[][] trees = forest();
     // Invoke scoring
     Arrays.fill(preds,0);
-    for( int tidx=0; tidx<_output._treeKeys.length; tidx++ )
-      score0(data, preds, tidx);
-    return preds;
-  }
-  // Score per line per tree
-  private void score0(double data[], double preds[], int treeIdx) {
-    Key[] keys = _output._treeKeys[treeIdx];
-    for( int c=0; c<keys.length; c++ ) {
-      if (keys[c] != null) {
-        double pred = DKV.get(keys[c]).<CompressedTree>get().score(data);
+    for( CompressedTree[] ts : trees )
+      for( int c=0; c<ts.length; c++ ) {
+        if( ts[c] == null ) continue;
+        double pred = ts[c].score(data);
         assert (!Double.isInfinite(pred));
-        preds[keys.length == 1 ? 0 : c + 1] += pred;
+        preds[ts.length == 1 ? 0 : c + 1] += pred;
       }
+    return unifyPreds(preds, offset);
+  }
+
+  /** Turn the summed per-class tree predictions into final predictions (e.g.
+   *  apply the link function), in place.  Must match {@link #toJavaUnifyPreds}.
+   *  @return preds */
+  protected double[] unifyPreds(double[] preds, double offset) { return preds; }
+
+  // Score blocks of rows tree-at-a-time through a FlatForest
+  private static final boolean FLAT_SCORING = !Boolean.getBoolean("h2o.tree.disable_flat_scoring");
+
+  /** Block scoring: the block is pulled out of the Chunks column-wise, then
+   *  pushed through the flattened forest one tree at a time. */
+  @Override public void score0(Chunk chks[], double[] weights, double[] offsets, int row0, int nrows, double[] tmp, double[][] preds) {
+    FlatForest ff = FLAT_SCORING ? compressedForest().flat() : null;
+    if( ff == null ) { super.score0(chks, weights, offsets, row0, nrows, tmp, preds); return; }
+    final int ncols = tmp.length;
+    double[][] cols = loadBlock(chks, ncols, row0, nrows);
+    for( int r=0; r<nrows; r++ ) Arrays.fill(preds[r],0);
+    ff.score(cols, nrows, preds);
+    for( int r=0; r<nrows; r++ ) {
+      if( weights[r] == 0 ) continue;
+      for( int c=0; c<ncols; c++ ) tmp[c] = cols[c][r];
+      correctPredictions(unifyPreds(preds[r], offsets[r]), tmp);
     }
   }
 
+  // Trees resolved from the DKV; shared node-wide through CompressedForest
+  private transient volatile CompressedForest _forest;
+
+  private CompressedForest compressedForest() {
+    CompressedForest f = _forest;
+    // Trees are only ever appended while the model is built
+    if( f == null || f._trees.length != _output._treeKeys.length )
+      _forest = f = CompressedForest.get(_key, _output._treeKeys);
+    return f;
+  }
+
+  /** All trees of this model, [ntrees][nclass], resolved from the DKV once
+   *  per node.  The returned arrays must not be modified.
+   *  @return The resolved forest, matching the current {@code _treeKeys} */
+  public final CompressedTree[][] forest() { return compressedForest()._trees; }
+
   @Override protected Futures remove_impl( Futures fs ) {
     for( Key ks[] : _output._treeKeys)
       for( Key k : ks )
         if( k != null ) k.remove(fs);
-    return super.remove_impl(fs);
+    fs = super.remove_impl(fs);
+    // Only once the model and its trees are gone, so that no scorer still
+    // running puts the forest back
+    fs.blockForPending();
+    CompressedForest.invalidate(_key);
+    _forest = null;
+    return fs;
   }
 
   // Override in subclasses to provide some top-level model-specific goodness
@@ -0,0 +1,143 @@
+package hex;
+
+import hex.tree.gbm.GBM;
+import hex.tree.gbm.GBMModel;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import water.TestUtil;
+import water.fvec.Frame;
+import water.fvec.Vec;
+
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+public class OnlineScorerTest extends TestUtil {
+  @BeforeClass public static void stall() { stall_till_cloudsize(1); }
+
+  // Rows scored online, alone or batched with concurrent requests, must match
+  // the bulk scoring of a Frame
+  @Test public void testIrisGBM() throws InterruptedException {
+    GBMModel gbm = null;
+    Frame fr = null, preds = null;
+    try {
+      fr = parse_test_file("smalldata/iris/iris_wheader.csv");
+      GBMModel.GBMParameters parms = new GBMModel.GBMParameters();
+      parms._train = fr._key;
+      parms._response_column = "class";
+      parms._ntrees = 5;
+      parms._distribution = Distribution.Family.multinomial;
+      GBM job = new GBM(parms);
+      gbm = job.trainModel().get();
+      job.remove();
+      preds = gbm.score(fr);
+
+      final OnlineScorer os = OnlineScorer.get(gbm._key);
+      Assert.assertSame(os, OnlineScorer.get(gbm._key)); // Cached per model
+      Assert.assertArrayEquals(new String[]{"predict","Iris-setosa","Iris-versicolor","Iris-virginica"}, os.predictionNames());
+
+      // Columns in another order, with the response, as strings
+      final String[] cols = new String[]{"class","petal_wid","petal_len","sepal_wid","sepal_len"};
+      final String[][] rows = new String[(int)fr.numRows()][cols.length];
+      for( int r=0; r<rows.length; r++ )
+        for( int c=0; c<cols.length; c++ ) {
+          Vec v = fr.vec(cols[c]);
+          rows[r][c] = v.isCategorical() ? v.domain()[(int)v.at8(r)] : Double.toString(v.at(r));
+        }
+      final double[][] expected = new double[rows.length][preds.numCols()];
+      for( int r=0; r<rows.length; r++ )
+        for( int c=0; c<preds.numCols(); c++ )
+          expected[r][c] = preds.vec(c).at(r);
+
+      // All rows in one request
+      double[][] act = os.score(os.adapt(cols,rows));
+      for( int r=0; r<rows.length; r++ )
+        Assert.assertArrayEquals(expected[r], act[r], 1e-6);
+
+      // One row per request, from many threads
+      final AtomicReference<Throwable> err = new AtomicReference<>();
+      Thread[] ts = new Thread[8];
+      for( int t=0; t<ts.length; t++ ) {
+        final int t0 = t;
+        ts[t] = new Thread() {
+          @Override public void run() {
+            try {
+              for( int r=t0; r<rows.length; r+=8 ) {
+                double[][] p = os.score(os.adapt(cols,new String[][]{rows[r]}));
+                Assert.assertArrayEquals(expected[r], p[0], 1e-6);
+              }
+            } catch( Throwable e ) { err.set(e); }
+          }
+        };
+        ts[t].start();
+      }
+      for( Thread t : ts ) t.join();
+      if( err.get() != null ) throw new AssertionError(err.get());
+
+      Assert.assertEquals(1+rows.length, os.requests());
+      double[] lat = os.latencyMillis(0.5,0.99);
+      Assert.assertTrue(lat[0] >= 0 && lat[0] <= lat[1]);
+    } finally {
+      if( fr    != null ) fr.remove();
+      if( preds != null ) preds.remove();
+      if( gbm   != null ) gbm.delete();
+    }
+  }
+
+  // Concurrent single-row requests must share batches, each scored once
+  @Test public void testBatching() throws InterruptedException {
+    GBMModel gbm = null;
+    Frame fr = null;
+    try {
+      fr = parse_test_file("smalldata/iris/iris_wheader.csv");
+      GBMModel.GBMParameters parms = new GBMModel.GBMParameters();
+      parms._train = fr._key;
+      parms._response_column = "class";
+      parms._ntrees = 5;
+      parms._distribution = Distribution.Family.multinomial;
+      GBM job = new GBM(parms);
+      gbm = job.trainModel().get();
+      job.remove();
+
+      final OnlineScorer os = OnlineScorer.get(gbm._key);
+      final int nthreads = 8, rounds = 10;
+      os._maxBatch = nthreads;  // A batch is full once every thread queued its row
+      os._batchNanos = TimeUnit.SECONDS.toNanos(10); // ...and never times out first
+      final String[] cols = fr.names();
+      final String[] row = new String[cols.length];
+      for( int c=0; c<cols.length; c++ ) {
+        Vec v = fr.vec(c);
+        row[c] = v.isCategorical() ? v.domain()[(int)v.at8(0)] : Double.toString(v.at(0));
+      }
+      final double[] expected = os.score(os.adapt(cols,new String[][]{row}))[0];
+      long reqs0 = os.requests(), batches0 = os.batches();
+
+      final CyclicBarrier barrier = new CyclicBarrier(nthreads);
+      final AtomicReference<Throwable> err = new AtomicReference<>();
+      Thread[] ts = new Thread[nthreads];
+      for( int t=0; t<ts.length; t++ ) {
+        ts[t] = new Thread() {
+          @Override public void run() {
+            try {
+              for( int r=0; r<rounds; r++ ) {
+                barrier.await();
+                double[][] p = os.score(os.adapt(cols,new String[][]{row}));
+                Assert.assertArrayEquals(expected, p[0], 1e-6);
+              }
+            } catch( Throwable e ) { err.set(e); }
+          }
+        };
+        ts[t].start();
+      }
+      for( Thread t : ts ) t.join();
+      if( err.get() != null ) throw new AssertionError(err.get());
+
+      Assert.assertEquals(nthreads*rounds, os.requests()-reqs0);
+      Assert.assertEquals(rounds, os.batches()-batches0); // One full batch per round
+    } finally {
+      if( fr  != null ) fr.remove();
+      if( gbm != null ) gbm.delete();
+    }
+  }
+}
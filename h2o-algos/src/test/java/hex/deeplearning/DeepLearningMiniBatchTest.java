@@ -0,0 +1,220 @@
+package hex.deeplearning;
+
+import hex.DataInfo;
+import hex.FrameTask;
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import water.*;
+import water.fvec.Frame;
+import water.fvec.NFSFileVec;
+import water.fvec.Vec;
+import water.parser.ParseDataset;
+import water.util.ArrayUtils;
+import water.util.Log;
+import water.util.PrettyPrint;
+
+import java.io.File;
+import java.util.Random;
+
+public class DeepLearningMiniBatchTest extends TestUtil {
+  @BeforeClass public static void stall() { stall_till_cloudsize(1); }
+
+  // Run the MNIST benchmark with -Dh2o.test.mnist_speed=true
+  static final boolean MNIST_SPEED = Boolean.getBoolean("h2o.test.mnist_speed");
+
+  @Test public void gemmMatchesGemv() {
+    Random rng = new Random(0xB47C4);
+    for (int[] dims : new int[][]{{1, 7, 3}, {32, 50, 784}, {17, 1000, 13}, {5, 3, 20000}}) {
+      int n = dims[0], rows = dims[1], cols = dims[2];
+      float[] a = new float[rows * cols];
+      double[] x = new double[n * cols];
+      double[] y = new double[rows];
+      for (int i = 0; i < a.length; ++i) a[i] = (float)rng.nextGaussian();
+      for (int i = 0; i < x.length; ++i) x[i] = rng.nextDouble() < 0.3 ? 0 : rng.nextGaussian();
+      for (int i = 0; i < y.length; ++i) y[i] = rng.nextGaussian();
+
+      double[] res = new double[n * rows];
+      MiniBatch.gemm_nt(res, x, a, y, n, rows, cols);
+      double[] xr = new double[cols];
+      double[] expected = new double[rows];
+      for (int r = 0; r < n; ++r) {
+        System.arraycopy(x, r * cols, xr, 0, cols);
+        Neurons.gemv_row_optimized(expected, a, xr, y, null);
+        for (int row = 0; row < rows; ++row)
+          Assert.assertEquals(expected[row], res[r * rows + row], 1e-8 * Math.max(1, Math.abs(expected[row])));
+      }
+    }
+  }
+
+  // One mini-batch update of a tiny network, with plain SGD, is the mean of
+  // the updates the per-row path makes from the same weights
+  @Test public void updateIsMeanOfRowGradients() {
+    Frame fr = null;
+    DeepLearningModel dl = null;
+    try {
+      Random rng = new Random(0xC0FFEE);
+      double[][] rows = new double[8][4];
+      for (double[] r : rows) {
+        r[0] = rng.nextGaussian(); r[1] = rng.nextGaussian(); r[2] = rng.nextGaussian();
+        r[3] = r[0] - 2 * r[1] + 0.1 * rng.nextGaussian();
+      }
+      fr = ArrayUtils.frame(new String[]{"a", "b", "c", "y"}, rows);
+      DeepLearningParameters p = new DeepLearningParameters();
+      p._train = fr._key;
+      p._response_column = "y";
+      p._hidden = new int[]{5, 3};
+      p._activation = DeepLearningParameters.Activation.Tanh;
+      p._epochs = 1;
+      p._seed = 0xBA7C4;
+      p._reproducible = true;
+      p._adaptive_rate = false;
+      p._rate = 0.1;
+      p._rate_annealing = 0;
+      p._fast_mode = false;
+      DeepLearning job = new DeepLearning(p);
+      try {
+        dl = job.trainModel().get();
+      } finally {
+        job.remove();
+      }
+      final DeepLearningModelInfo golden = dl.model_info().deep_clone();
+      final DataInfo di = golden.data_info();
+      final int n = rows.length, layers = p._hidden.length + 1;
+
+      // Per row, each from the same weights: summed weight and bias deltas
+      double[][] dw = new double[layers][], db = new double[layers][];
+      for (int l = 0; l < layers; ++l) {
+        dw[l] = new double[golden.get_weights(l).raw().length];
+        db[l] = new double[golden.get_biases(l).raw().length];
+      }
+      for (int i = 0; i < n; ++i) {
+        DataInfo.Row r = new FrameTask.ExtractDenseRow(di, i).doAll(di._adaptedFrame)._row;
+        DeepLearningModelInfo mi = golden.deep_clone();
+        Neurons[] neurons = DeepLearningTask.makeNeuronsForTraining(mi);
+        ((Neurons.Input) neurons[0]).setInput(-1, r.numIds, r.numVals, r.nBins, r.binIds);
+        DeepLearningTask.step(-1, neurons, mi, null, true, new double[]{r.response[0]}, r.offset);
+        DeepLearningTask.applyModelUpdates(neurons);
+        for (int l = 0; l < layers; ++l) {
+          float[] w = mi.get_weights(l).raw(), w0 = golden.get_weights(l).raw();
+          for (int k = 0; k < w.length; ++k) dw[l][k] += w[k] - w0[k];
+          double[] b = mi.get_biases(l).raw(), b0 = golden.get_biases(l).raw();
+          for (int k = 0; k < b.length; ++k) db[l][k] += b[k] - b0[k];
+        }
+      }
+
+      // All rows as one mini-batch
+      DeepLearningModelInfo mi = golden.deep_clone();
+      Neurons[] neurons = DeepLearningTask.makeNeuronsForTraining(mi);
+      MiniBatch mb = new MiniBatch(neurons, n);
+      for (int i = 0; i < n; ++i) {
+        DataInfo.Row r = new FrameTask.ExtractDenseRow(di, i).doAll(di._adaptedFrame)._row;
+        ((Neurons.Input) neurons[0]).setInput(-1, r.numIds, r.numVals, r.nBins, r.binIds);
+        mb.add(-1, r.response[0], r.offset);
+      }
+      Assert.assertEquals(n, mb.train(mi, null));
+      for (int l = 0; l < layers; ++l) {
+        float[] w = mi.get_weights(l).raw(), w0 = golden.get_weights(l).raw();
+        for (int k = 0; k < w.length; ++k)
+          Assert.assertEquals("layer " + l + ", weight " + k, dw[l][k] / n, w[k] - w0[k], 1e-5);
+        double[] b = mi.get_biases(l).raw(), b0 = golden.get_biases(l).raw();
+        for (int k = 0; k < b.length; ++k)
+          Assert.assertEquals("layer " + l + ", bias " + k, db[l][k] / n, b[k] - b0[k], 1e-5);
+      }
+    } finally {
+      if (fr != null) fr.delete();
+      if (dl != null) dl.delete();
+    }
+  }
+
+  // Same network trained per row and with mini-batches: both have to learn
+  @Test public void covtype() {
+    Scope.enter();
+    int[] sizes = new int[]{1, 16};
+    DeepLearningModel[] models = new DeepLearningModel[sizes.length];
+    try {
+      Frame frTrain = parse_test_file("./smalldata/covtype/covtype.20k.data");
+      Vec resp = frTrain.lastVec().toCategoricalVec();
+      frTrain.remove(frTrain.vecs().length - 1).remove();
+      frTrain.add("Response", resp);
+      DKV.put(frTrain);
+      Scope.track(frTrain._key);
+      for (int i = 0; i < sizes.length; ++i) {
+        DeepLearningParameters dl = new DeepLearningParameters();
+        dl._train = frTrain._key;
+        dl._response_column = frTrain.lastVecName();
+        dl._hidden = new int[]{64, 64};
+        dl._activation = DeepLearningParameters.Activation.RectifierWithDropout;
+        dl._mini_batch_size = sizes[i];
+        dl._epochs = 5;
+        dl._seed = 1234;
+        dl._reproducible = true;
+        DeepLearning job = null;
+        try {
+          job = new DeepLearning(dl);
+          long start = System.currentTimeMillis();
+          models[i] = job.trainModel().get();
+          Log.info("mini_batch_size=" + sizes[i] + ": training error " + models[i]._output._training_metrics.cm().err()
+              + " after " + PrettyPrint.msecs(System.currentTimeMillis() - start, true));
+        } finally {
+          if (job != null) job.remove();
+        }
+      }
+      for (DeepLearningModel m : models)
+        Assert.assertTrue(m._output._training_metrics.cm().err() < 0.4);
+    } finally {
+      for (DeepLearningModel m : models)
+        if (m != null) m.delete();
+      Scope.exit();
+    }
+  }
+
+  /**
+   * Training speed (samples/sec) of the per-row and the mini-batch paths on MNIST
+   * Note: requires './gradlew syncBigDataLaptop', and runs with -Dh2o.test.mnist_speed=true
+   */
+  @Test public void mnistSpeed() {
+    Assume.assumeTrue(MNIST_SPEED);
+    Scope.enter();
+    try {
+      File file = find_test_file("bigdata/laptop/mnist/train.csv.gz");
+      if (file == null) {
+        Log.info("Please run ./gradlew syncBigDataLaptop in the top-level directory of h2o-3.");
+        return;
+      }
+      NFSFileVec trainfv = NFSFileVec.make(file);
+      Frame frame = ParseDataset.parse(Key.make(), trainfv._key);
+      int ci = frame.find("C785");
+      Scope.track(frame.replace(ci, frame.vecs()[ci].toCategoricalVec())._key);
+      DKV.put(frame);
+      Scope.track(frame._key);
+      for (int size : new int[]{1, 8, 32, 128}) {
+        DeepLearningParameters p = new DeepLearningParameters();
+        p._train = frame._key;
+        p._response_column = "C785";
+        p._activation = DeepLearningParameters.Activation.RectifierWithDropout;
+        p._hidden = new int[]{800, 800};
+        p._input_dropout_ratio = 0.2;
+        p._mini_batch_size = size;
+        p._epochs = 1;
+        p._train_samples_per_iteration = -1;
+        p._score_training_samples = 1000;
+        DeepLearning dl = new DeepLearning(p);
+        DeepLearningModel model = null;
+        try {
+          long start = System.currentTimeMillis();
+          model = dl.trainModel().get();
+          double secs = (System.currentTimeMillis() - start) / 1e3;
+          Log.info("mini_batch_size=" + size + ": " + String.format("%.1f", frame.numRows() / secs) + " samples/sec, training error "
+              + model._output._training_metrics.cm().err());
+        } finally {
+          dl.remove();
+          if (model != null) model.delete();
+        }
+      }
+    } finally {
+      Scope.exit();
+    }
+  }
+}
@@ -0,0 +1,136 @@
+package hex.genmodel.easy;
+
+import hex.genmodel.GenModel;
+import hex.genmodel.easy.exception.PredictUnknownCategoricalLevelException;
+import hex.genmodel.easy.prediction.BinomialModelPrediction;
+import hex.tree.gbm.GBM;
+import hex.tree.gbm.GBMModel;
+import org.junit.*;
+import water.*;
+import water.fvec.*;
+import water.util.JCodeGen;
+
+import java.util.Random;
+
+/** Predictions through a compiled schema equal those of predict(RowData) on
+ *  the same POJO. */
+public class CompiledRowSchemaTest extends TestUtil {
+  private static final String[] LEVELS = {"a", "b", "c"};
+  private static Frame _train;
+  private static GBMModel _gbm;
+  private static EasyPredictModelWrapper _wrapper;
+
+  @BeforeClass public static void setup() throws Exception {
+    stall_till_cloudsize(1);
+    Vec seq = Vec.makeSeq(2000,true);
+    try {
+      _train = new MRTask() {
+        @Override public void map( Chunk[] cs, NewChunk[] ncs ) {
+          Random rnd = new Random(cs[0].start());
+          for( int i=0; i<cs[0]._len; i++ ) {
+            double x = rnd.nextDouble();
+            int c = rnd.nextInt(3);
+            if( rnd.nextInt(10) == 0 ) ncs[0].addNA(); else ncs[0].addNum(x);
+            if( rnd.nextInt(10) == 0 ) ncs[1].addNA(); else ncs[1].addNum(c,0);
+            ncs[2].addNum(x + (c == 1 ? 0.5 : 0) + 0.2*rnd.nextDouble() > 0.8 ? 1 : 0,0);
+          }
+        }
+      }.doAll(new byte[]{Vec.T_NUM,Vec.T_CAT,Vec.T_CAT},seq)
+       .outputFrame(Key.make("compiled_schema.hex"),new String[]{"x","c","y"},new String[][]{null,LEVELS,{"N","Y"}});
+    } finally {
+      seq.remove();
+    }
+    GBMModel.GBMParameters parms = new GBMModel.GBMParameters();
+    parms._train = _train._key;
+    parms._response_column = "y";
+    parms._ntrees = 5;
+    parms._max_depth = 3;
+    GBM job = null;
+    try {
+      job = new GBM(parms);
+      _gbm = job.trainModel().get();
+    } finally {
+      if( job != null ) job.remove();
+    }
+    String name = JCodeGen.toJavaId(_gbm._key.toString());
+    _wrapper = new EasyPredictModelWrapper((GenModel)JCodeGen.compile(name,_gbm.toJava(false,true)).newInstance());
+  }
+
+  @AfterClass public static void cleanup() {
+    if( _gbm   != null ) _gbm  .delete();
+    if( _train != null ) _train.delete();
+  }
+
+  private static void assertMatch( RowData rd, CompiledRowSchema schema, double[] row ) throws Exception {
+    BinomialModelPrediction p = _wrapper.predictBinomial(rd);
+    double[] preds = schema.predict(row, new double[schema.getPredsSize()]);
+    Assert.assertEquals(p.labelIndex, (int)preds[0]);
+    Assert.assertEquals(p.label, schema.getLabel(preds));
+    for( int k=0; k<p.classProbabilities.length; k++ )
+      Assert.assertEquals(p.classProbabilities[k], preds[k+1], 0);
+  }
+
+  // Reordered columns, an unknown column, and the model's own levels
+  @Test public void testModelLevels() throws Exception {
+    CompiledRowSchema schema = _wrapper.compile(new String[]{"c", "unknown", "x"}, null);
+    double[] row = new double[3];
+    Random rnd = new Random(42);
+    for( int i=0; i<100; i++ ) {
+      int c = rnd.nextInt(LEVELS.length);
+      double x = rnd.nextDouble();
+      row[0] = c; row[1] = rnd.nextDouble(); row[2] = x;
+      RowData rd = new RowData();
+      rd.put("x", x);
+      rd.put("c", LEVELS[c]);
+      rd.put("unknown", "whatever");
+      assertMatch(rd, schema, row);
+    }
+  }
+
+  // Levels in the caller's order, including one the model has not seen
+  @Test public void testCallerLevels() throws Exception {
+    String[] given = {"c", "zz", "a", "b"};
+    CompiledRowSchema schema = _wrapper.compile(new String[]{"x", "c"}, new String[][]{null, given});
+    double[] row = new double[2];
+    for( int l=0; l<given.length; l++ ) {
+      if( given[l].equals("zz") ) continue;
+      row[0] = 0.3; row[1] = l;
+      RowData rd = new RowData();
+      rd.put("x", 0.3);
+      rd.put("c", given[l]);
+      assertMatch(rd, schema, row);
+    }
+    // The unseen level fails both ways
+    row[1] = 1;
+    try {
+      schema.predict(row, new double[schema.getPredsSize()]);
+      Assert.fail("Expected an unknown level");
+    } catch( PredictUnknownCategoricalLevelException e ) {
+      Assert.assertEquals("c", e.columnName);
+      Assert.assertEquals("zz", e.unknownLevel);
+    }
+    RowData rd = new RowData();
+    rd.put("x", 0.3);
+    rd.put("c", "zz");
+    try {
+      _wrapper.predictBinomial(rd);
+      Assert.fail("Expected an unknown level");
+    } catch( PredictUnknownCategoricalLevelException expected ) { }
+  }
+
+  // NaN values, and model columns left out of the schema, are NA
+  @Test public void testNA() throws Exception {
+    CompiledRowSchema schema = _wrapper.compile(new String[]{"x", "c"}, null);
+    RowData rd = new RowData();
+    assertMatch(rd, schema, new double[]{Double.NaN, Double.NaN});
+    rd.put("x", 0.7);
+    assertMatch(rd, schema, new double[]{0.7, Double.NaN});
+
+    schema = _wrapper.compile(new String[]{"c"}, null);
+    rd = new RowData();
+    rd.put("c", "b");
+    assertMatch(rd, schema, new double[]{1});
+    // A row scored before must not leak into the next
+    assertMatch(new RowData(), schema, new double[]{Double.NaN});
+  }
+}
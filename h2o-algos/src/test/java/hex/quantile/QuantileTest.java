@@ -6,6 +6,9 @@ import water.TestUtil;
 import water.fvec.Frame;
 import water.util.ArrayUtils;
 
+import java.util.Arrays;
+import java.util.Random;
+
 public class QuantileTest extends TestUtil {
   @BeforeClass() public static void setup() { stall_till_cloudsize(1); }
 
@@ -73,4 +76,94 @@ public class QuantileTest extends TestUtil {
       if( kmm != null ) kmm.delete();
     }
   }
+
+  // All columns and probs together must give the same quantiles as the
+  // per-prob-per-column passes
+  @Test public void testFused() {
+    Frame fr = null;
+    try {
+      Random rng = new Random(0xDECAF);
+      double[][] d = new double[5000][3];
+      for( int r=0; r<d.length; r++ ) {
+        d[r][0] = rng.nextGaussian()*1e3;           // Doubles
+        d[r][1] = rng.nextInt(20);                  // Few ints
+        d[r][2] = rng.nextInt(10)==0 ? Double.NaN : Math.floor(rng.nextDouble()*1e6); // Many ints, NAs
+      }
+      fr = ArrayUtils.frame(d);
+      double[] probs = new double[]{0,0.001,0.01,0.1,0.25,0.333,0.5,0.667,0.75,0.9,0.99,0.999,1};
+      for( QuantileModel.CombineMethod method : new QuantileModel.CombineMethod[]{QuantileModel.CombineMethod.INTERPOLATE,QuantileModel.CombineMethod.LOW} ) {
+        double[][] exp = quantiles(fr,probs,method,false);
+        double[][] act = quantiles(fr,probs,method,true);
+        for( int c=0; c<exp.length; c++ )
+          Assert.assertArrayEquals(exp[c],act[c],0);
+      }
+    } finally {
+      if( fr  != null ) fr .remove();
+    }
+  }
+
+  // Fused quantiles are the values of the sorted rows, for every combine
+  // method, also with infinities (left out of the rollup sketches)
+  @Test public void testFusedSorted() {
+    Frame fr = null;
+    try {
+      Random rng = new Random(0xC0FFEE);
+      double[][] d = new double[2000][3];
+      for( int r=0; r<d.length; r++ ) {
+        d[r][0] = rng.nextGaussian()*1e3;
+        d[r][1] = rng.nextInt(50);
+        d[r][2] = rng.nextDouble();
+      }
+      for( int r=0; r<5; r++ ) d[r][0] = Double.POSITIVE_INFINITY;
+      for( int r=5; r<8; r++ ) d[r][0] = Double.NEGATIVE_INFINITY;
+      d[10][1] = Double.NaN;
+      d[20][2] = Double.POSITIVE_INFINITY; // A single infinite row
+      fr = ArrayUtils.frame(d);
+      double[] probs = new double[]{0,0.001,0.0015,0.01,0.25,0.5,0.75,0.99,0.9985,0.999,1};
+      for( QuantileModel.CombineMethod method : QuantileModel.CombineMethod.values() ) {
+        double[][] act = quantiles(fr,probs,method,true);
+        for( int c=0; c<d[0].length; c++ ) {
+          double[] col = new double[d.length];
+          int n = 0;
+          for( double[] row : d ) if( !Double.isNaN(row[c]) ) col[n++] = row[c];
+          col = Arrays.copyOf(col,n);
+          Arrays.sort(col);
+          for( int p=0; p<probs.length; p++ ) {
+            double p2 = probs[p]*(n-1);
+            int r2 = (int)p2;
+            double exp = r2 == p2 ? col[r2] : Quantile.computeQuantile(col[r2],col[r2+1],r2,n,probs[p],method);
+            Assert.assertEquals(method+" col "+c+" prob "+probs[p],exp,act[c][p],0);
+          }
+        }
+      }
+    } finally {
+      if( fr  != null ) fr .remove();
+    }
+  }
+
+  // A quantile in the infinite tail, alone in its column
+  @Test public void testFusedInf() {
+    Frame fr = null;
+    try {
+      fr = ArrayUtils.frame(new double[][]{{1},{2},{Double.POSITIVE_INFINITY}});
+      double[][] act = quantiles(fr,new double[]{0,0.5,0.75,1},QuantileModel.CombineMethod.INTERPOLATE,true);
+      Assert.assertArrayEquals(new double[]{1,2,Double.POSITIVE_INFINITY,Double.POSITIVE_INFINITY},act[0],0);
+    } finally {
+      if( fr  != null ) fr .remove();
+    }
+  }
+
+  private static double[][] quantiles( Frame fr, double[] probs, QuantileModel.CombineMethod method, boolean fused ) {
+    QuantileModel.QuantileParameters parms = new QuantileModel.QuantileParameters();
+    parms._train = fr._key;
+    parms._probs = probs;
+    parms._combine_method = method;
+    parms._fused = fused;
+    Job<QuantileModel> job = new Quantile(parms).trainModel();
+    QuantileModel kmm = job.get();
+    job.remove();
+    double[][] qs = kmm._output._quantiles;
+    kmm.delete();
+    return qs;
+  }
 }
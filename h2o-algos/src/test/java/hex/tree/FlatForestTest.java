@@ -0,0 +1,72 @@
+package hex.tree;
+
+import hex.Distribution;
+import hex.tree.gbm.GBM;
+import hex.tree.gbm.GBMModel;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import water.TestUtil;
+import water.fvec.Frame;
+
+/** FlatForest must score bit-identically to the CompressedTrees it was built from. */
+public class FlatForestTest extends TestUtil {
+  @BeforeClass public static void stall() { stall_till_cloudsize(1); }
+
+  @Test public void testScoresIdentical() {
+    // iris: numeric splits only; cars: categorical (bitset) splits and NAs
+    checkIdentical("./smalldata/iris/iris_wheader.csv", "class", Distribution.Family.multinomial);
+    checkIdentical("./smalldata/junit/cars.csv", "cylinders", Distribution.Family.gaussian);
+  }
+
+  private void checkIdentical( String fname, String response, Distribution.Family family ) {
+    Frame fr = null;
+    GBMModel gbm = null;
+    try {
+      fr = parse_test_file(fname);
+      GBMModel.GBMParameters parms = new GBMModel.GBMParameters();
+      parms._train = fr._key;
+      parms._response_column = response;
+      parms._distribution = family;
+      parms._ntrees = 10;
+      parms._max_depth = 6;
+      parms._min_rows = 1;
+      GBM job = null;
+      try {
+        job = new GBM(parms);
+        gbm = job.trainModel().get();
+      } finally {
+        if( job != null ) job.remove();
+      }
+
+      CompressedTree[][] trees = gbm.forest();
+      FlatForest ff = FlatForest.make(trees);
+      Assert.assertNotNull(ff);
+      int ncols = gbm._output.nfeatures();
+      int nrows = (int)fr.numRows();
+      int npreds = gbm._output.nclasses()+1;
+      double[][] cols = new double[ncols][nrows];
+      for( int c=0; c<ncols; c++ ) {
+        int idx = fr.find(gbm._output._names[c]);
+        for( int r=0; r<nrows; r++ )
+          cols[c][r] = fr.vec(idx).at(r);
+      }
+      double[][] flat = new double[nrows][npreds];
+      ff.score(cols, nrows, flat);
+      double[] row = new double[ncols];
+      for( int r=0; r<nrows; r++ ) {
+        double[] expected = new double[npreds];
+        for( int c=0; c<ncols; c++ ) row[c] = cols[c][r];
+        for( CompressedTree[] ts : trees )
+          DTreeScorer.scoreTree(row, expected, ts);
+        Assert.assertArrayEquals(expected, flat[r], 0);
+        double[] single = new double[npreds];
+        ff.score(row, single);
+        Assert.assertArrayEquals(expected, single, 0);
+      }
+    } finally {
+      if( fr  != null ) fr .remove();
+      if( gbm != null ) gbm.delete();
+    }
+  }
+}
@@ -0,0 +1,212 @@
+package hex.tree;
+
+import hex.Distribution;
+import hex.tree.gbm.GBM;
+import hex.tree.gbm.GBMModel;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Ignore;
+import org.junit.Test;
+import water.H2O;
+import water.Key;
+import water.TestUtil;
+import water.fvec.Frame;
+import water.fvec.Vec;
+import water.util.AtomicUtils;
+import water.util.Log;
+
+import java.util.Random;
+
+/** Shared, atomically-updated histograms vs per-thread private histograms in
+ *  ScoreBuildHistogram; histogram subtraction; pre-binned predictors. */
+public class ScoreBuildHistogramTest extends TestUtil {
+  @BeforeClass public static void stall() { stall_till_cloudsize(1); }
+
+  // Both modes must grow the same model
+  @Test public void testThreadLocalSameModel() {
+    double mse0 = trainMSE(false), mse1 = trainMSE(true);
+    Log.info("Shared histograms MSE="+mse0+", thread-local histograms MSE="+mse1);
+    Assert.assertEquals(mse0, mse1, 1e-6*mse0);
+  }
+
+  // Subtraction keeps the parent's binning for derived pairs, so the model
+  // differs slightly but must fit about as well
+  @Test public void testHistogramSubtraction() {
+    double mse0 = trainMSE(false), mse1;
+    boolean old = DTree.HISTO_SUBTRACT;
+    try {
+      DTree.HISTO_SUBTRACT = true;
+      mse1 = trainMSE(false);
+    } finally {
+      DTree.HISTO_SUBTRACT = old;
+    }
+    Log.info("Accumulated histograms MSE="+mse0+", with subtraction MSE="+mse1);
+    Assert.assertEquals(mse0, mse1, 0.1*mse0);
+  }
+
+  // Pre-binned codes are exact, so the model must not change
+  @Test public void testPreBinnedSameModel() {
+    double mse0 = trainMSE(false), mse1;
+    boolean old = PreBinned.PRE_BIN;
+    try {
+      PreBinned.PRE_BIN = true;
+      mse1 = trainMSE(false);
+    } finally {
+      PreBinned.PRE_BIN = old;
+    }
+    Log.info("Raw predictors MSE="+mse0+", pre-binned predictors MSE="+mse1);
+    Assert.assertEquals(mse0, mse1, 1e-6*mse0);
+  }
+
+  @Test public void testPreBinnedCodes() {
+    Frame fr = null;
+    PreBinned[] pbs = null;
+    try {
+      fr = parse_test_file("./smalldata/logreg/prostate.csv");
+      int nkeys = H2O.store_size();
+      pbs = PreBinned.make(fr,fr.numCols(),Key.make());
+      for( int c=0; c<fr.numCols(); c++ ) {
+        Vec v = fr.vec(c);
+        PreBinned pb = pbs[c];
+        Assert.assertNotNull(pb);
+        Assert.assertFalse(pb._key.user_allowed()); // Not listed with the user's Frames
+        Vec codes = pb.codes();
+        for( long r=0; r<v.length(); r++ )
+          Assert.assertEquals((float)v.at(r), pb._vals[(int)codes.at8(r)], 0);
+      }
+      PreBinned.remove(pbs);
+      pbs = null;
+      Assert.assertEquals(nkeys, H2O.store_size()); // Codes removed too
+    } finally {
+      PreBinned.remove(pbs);
+      if( fr != null ) fr.remove();
+    }
+  }
+
+  // Parent minus one child equals the other child, bin for bin
+  @Test public void testSubtract() {
+    DHistogram parent = DHistogram.make("x", 20, 20, (byte)0, 0f, 1f);
+    parent.init();
+    DHistogram left = parent.sameBins(), right = parent.sameBins();
+    left.init();  right.init();
+    Random rng = new Random(0xDECAF);
+    for( int r=0; r<10000; r++ ) {
+      float x = rng.nextFloat()*0.999f;
+      double y = rng.nextDouble();
+      parent.incr(x,y,1);
+      (x < 0.3f ? left : right).incr(x,y,1);
+    }
+    DHistogram derived = parent.sameBins();
+    derived.subtract(parent,left);
+    for( int b=0; b<parent.nbins(); b++ ) {
+      Assert.assertEquals(right.bins(b), derived.bins(b), 0);
+      Assert.assertEquals(right.mean(b), derived.mean(b), 1e-6);
+      Assert.assertEquals(right.var (b), derived.var (b), 1e-6);
+    }
+    Assert.assertTrue(derived.find_min() <= right.find_min());
+    Assert.assertTrue(derived.find_maxIn() >= right.find_maxIn());
+  }
+
+  private double trainMSE( boolean localHistos ) {
+    boolean old = ScoreBuildHistogram.THREAD_LOCAL_HISTOS;
+    Frame fr = null;
+    GBMModel gbm = null;
+    try {
+      ScoreBuildHistogram.THREAD_LOCAL_HISTOS = localHistos;
+      fr = parse_test_file("./smalldata/logreg/prostate.csv");
+      fr.remove("ID").remove();
+      GBMModel.GBMParameters parms = new GBMModel.GBMParameters();
+      parms._train = fr._key;
+      parms._response_column = "AGE";
+      parms._distribution = Distribution.Family.gaussian;
+      parms._ntrees = 10;
+      parms._max_depth = 5;
+      parms._seed = 0xDECAF;
+      GBM job = null;
+      try {
+        job = new GBM(parms);
+        gbm = job.trainModel().get();
+      } finally {
+        if( job != null ) job.remove();
+      }
+      return gbm._output._training_metrics._MSE;
+    } finally {
+      ScoreBuildHistogram.THREAD_LOCAL_HISTOS = old;
+      if( fr  != null ) fr .remove(); // The builder removed its pre-binned codes; see checkLeakedKeys
+      if( gbm != null ) gbm.delete();
+    }
+  }
+
+  // Benchmark: threads flush chunk-sized batches of rows into histograms for
+  // a set of columns the same way ScoreBuildHistogram.overAllRows does, either
+  // atomically into shared histograms or plainly into private ones which are
+  // then merged.
+  final static int COLS = 50;
+  final static int NBINS = 20;
+  final static int CHUNKS = 2000;
+  final static int ROWS = 1000;        // Rows per chunk
+
+  @Test @Ignore public void benchThreads() throws InterruptedException {
+    int ncpu = Runtime.getRuntime().availableProcessors();
+    for( int nthreads=1; nthreads<=2*ncpu; nthreads<<=1 ) {
+      DHistogram shared[] = newHistos(), merged[] = newHistos();
+      long t0 = System.nanoTime();
+      run(nthreads, shared, false);
+      long t1 = System.nanoTime();
+      run(nthreads, merged, true);
+      long t2 = System.nanoTime();
+      Log.info("threads="+nthreads+" shared/atomic="+(t1-t0)/1000000+"ms thread-local="+(t2-t1)/1000000+"ms");
+      for( int c=0; c<COLS; c++ )
+        Assert.assertArrayEquals(shared[c]._bins, merged[c]._bins, 0);
+    }
+  }
+
+  private static DHistogram[] newHistos() {
+    DHistogram hs[] = new DHistogram[COLS];
+    for( int c=0; c<COLS; c++ ) {
+      hs[c] = DHistogram.make("C"+c, NBINS, NBINS, (byte)0, 0f, 1f);
+      hs[c].init();
+    }
+    return hs;
+  }
+
+  private static void run( int nthreads, final DHistogram dst[], final boolean local ) throws InterruptedException {
+    final DHistogram per[][] = new DHistogram[nthreads][];
+    Thread ts[] = new Thread[nthreads];
+    for( int t=0; t<nthreads; t++ ) {
+      final int tid = t, nt = nthreads;
+      ts[t] = new Thread() {
+        @Override public void run() {
+          DHistogram hs[] = dst;
+          if( local ) {
+            hs = per[tid] = new DHistogram[COLS];
+            for( int c=0; c<COLS; c++ ) hs[c] = dst[c].localCopy();
+          }
+          double bins[] = new double[NBINS], sums[] = new double[NBINS], ssqs[] = new double[NBINS];
+          for( int chk=tid; chk<CHUNKS; chk+=nt ) {
+            Random rng = new Random(chk);
+            for( int c=0; c<COLS; c++ ) {
+              DHistogram rh = hs[c];
+              for( int r=0; r<ROWS; r++ ) {
+                int b = rh.bin(rng.nextFloat());
+                double y = rng.nextDouble();
+                bins[b]++;  sums[b] += y;  ssqs[b] += y*y;
+              }
+              for( int b=0; b<NBINS; b++ ) {
+                if( local ) { rh._bins[b] += bins[b]; rh.incr1Local(b,sums[b],ssqs[b]); }
+                else { AtomicUtils.DoubleArray.add(rh._bins,b,bins[b]); rh.incr1(b,sums[b],ssqs[b]); }
+                bins[b] = sums[b] = ssqs[b] = 0;
+              }
+            }
+          }
+        }
+      };
+      ts[t].start();
+    }
+    for( Thread t : ts ) t.join();
+    if( local )
+      for( DHistogram hs[] : per )
+        for( int c=0; c<COLS; c++ )
+          dst[c].add(hs[c]);
+  }
+}
@@ -8,14 +8,17 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Map;
 import java.util.Random;
 import java.util.Set;
 
 import hex.Distribution;
 import hex.Model;
+import hex.ScoreKeeper;
 import hex.grid.Grid;
 import hex.grid.GridSearch;
+import hex.grid.HyperSpaceWalker;
 import water.DKV;
 import water.Key;
 import water.TestUtil;
@@ -121,6 +124,111 @@ public class GBMGridTest extends TestUtil {
     }
   }
 
+  @Test
+  public void testParallelCarsGrid() {
+    Grid<GBMModel.GBMParameters> grid = null;
+    Frame fr = null;
+    Vec old = null;
+    try {
+      fr = parse_test_file("smalldata/junit/cars.csv");
+      fr.remove("name").remove(); // Remove unique id
+      old = fr.remove("cylinders");
+      fr.add("cylinders", old.toCategoricalVec()); // response to last column
+      DKV.put(fr);
+
+      // Setup hyperparameter search space, with one illegal option
+      HashMap<String, Object[]> hyperParms = new HashMap<>();
+      hyperParms.put("_ntrees", new Integer[]{1, 2, 3});
+      hyperParms.put("_max_depth", new Integer[]{1, 2, 5});
+      hyperParms.put("_learn_rate", new Float[]{0.1f, 0.3f, -1f});
+      int hyperSpaceSize = ArrayUtils.crossProductSize(hyperParms);
+
+      // Fire off a grid search building 4 models at the same time
+      GBMModel.GBMParameters params = new GBMModel.GBMParameters();
+      params._train = fr._key;
+      params._response_column = "cylinders";
+      GridSearch gs = GridSearch.startGridSearch(params, hyperParms, GBM_MODEL_FACTORY, 4);
+      grid = (Grid<GBMModel.GBMParameters>) gs.get();
+
+      // Every point of hyper space was visited once
+      Assert.assertEquals("Size of grid (models+failures) should match to size of hyper space",
+                          hyperSpaceSize, grid.getModelCount() + grid.getFailureCount());
+      Assert.assertEquals(9, grid.getFailureCount());
+      Key<Model>[] mKeys = grid.getModelKeys();
+      Assert.assertEquals(mKeys.length, new HashSet<>(Arrays.asList(mKeys)).size());
+      for (Key<Model> mKey : mKeys) {
+        Assert.assertTrue(((GBMModel) mKey.get())._parms._learn_rate > 0);
+      }
+    } finally {
+      if (old != null) {
+        old.remove();
+      }
+      if (fr != null) {
+        fr.remove();
+      }
+      if (grid != null) {
+        grid.remove();
+      }
+    }
+  }
+
+  @Test
+  public void testSuccessiveHalvingCarsGrid() {
+    Grid<GBMModel.GBMParameters> grid = null;
+    Frame fr = null;
+    Vec old = null;
+    try {
+      fr = parse_test_file("smalldata/junit/cars.csv");
+      fr.remove("name").remove(); // Remove unique id
+      old = fr.remove("cylinders");
+      fr.add("cylinders", old.toCategoricalVec()); // response to last column
+      DKV.put(fr);
+
+      HashMap<String, Object[]> hyperParms = new HashMap<>();
+      hyperParms.put("_max_depth", new Integer[]{1, 2, 5});
+      hyperParms.put("_learn_rate", new Float[]{0.01f, 0.1f, 0.3f});
+
+      // 9 configurations with 2 trees, the best 3 continue to 6 trees, the best one to 18 trees
+      GBMModel.GBMParameters params = new GBMModel.GBMParameters();
+      params._train = fr._key;
+      params._response_column = "cylinders";
+      HyperSpaceWalker<GBMModel.GBMParameters> walker =
+          new HyperSpaceWalker.SuccessiveHalvingWalker<>(params, hyperParms,
+                                                         new GridSearch.SimpleParametersBuilderFactory<GBMModel.GBMParameters>(),
+                                                         "_ntrees", 2, 18, 3,
+                                                         ScoreKeeper.StoppingMetric.logloss, true, 0, 42);
+      Assert.assertEquals(9 + 3 + 1, walker.getHyperSpaceSize());
+      GridSearch gs = GridSearch.startGridSearch(null, GBM_MODEL_FACTORY, walker, 2);
+      grid = (Grid<GBMModel.GBMParameters>) gs.get();
+
+      Assert.assertEquals(0, grid.getFailureCount());
+      Assert.assertEquals(9 + 3 + 1, grid.getModelCount());
+      int[] counts = new int[19];
+      GBMModel best = null;
+      for (Key<Model> mKey : grid.getModelKeys()) {
+        GBMModel m = (GBMModel) mKey.get();
+        counts[m._parms._ntrees]++;
+        if (m._parms._ntrees == 18) best = m;
+      }
+      Assert.assertEquals(9, counts[2]);
+      Assert.assertEquals(3, counts[6]);
+      Assert.assertEquals(1, counts[18]);
+      // The survivor continued its 6 tree model
+      Assert.assertNotNull(best._parms._checkpoint);
+      Assert.assertEquals(6, ((GBMModel) best._parms._checkpoint.get())._parms._ntrees);
+    } finally {
+      if (old != null) {
+        old.remove();
+      }
+      if (fr != null) {
+        fr.remove();
+      }
+      if (grid != null) {
+        grid.remove();
+      }
+    }
+  }
+
   //@Ignore("PUBDEV-1643")
   @Test
   public void testDuplicatesCarsGrid() {
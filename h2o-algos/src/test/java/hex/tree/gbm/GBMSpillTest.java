@@ -0,0 +1,98 @@
+package hex.tree.gbm;
+
+import hex.Distribution;
+import org.junit.*;
+import water.*;
+import water.fvec.*;
+import water.persist.PersistManager;
+import water.util.Log;
+import water.util.PrettyPrint;
+import water.util.RandomUtils;
+
+import java.util.Random;
+
+/** Train a GBM on a Frame which does not fit in the K/V cache; relies on the
+ *  Cleaner spilling cold Chunks to the ICE root and reloading them lazily.
+ *
+ *  By default the Frame is small (-Dh2o.test.spill.mb, 32M) and the cache of
+ *  every node is capped at a quarter of it, so the spill path runs without a
+ *  big heap.  With -Dh2o.test.spill.mb=0 the Frame is sized at 1.25x the
+ *  cluster heap instead and the cache is left uncapped; that run is slow and
+ *  needs lots of ice_root disk.
+ */
+public class GBMSpillTest extends TestUtil {
+  @BeforeClass public static void stall() { stall_till_cloudsize(1); }
+
+  private static final int NCOLS = 10;
+  private static final long SPILL_MB = Long.getLong("h2o.test.spill.mb", 32);
+
+  @Test public void testGBMLargerThanCache() {
+    Frame fr = null;
+    GBMModel gbm = null;
+    // All-random doubles do not compress, so the Chunks hold 8 bytes/element
+    long heap = Runtime.getRuntime().maxMemory()*H2O.CLOUD.size();
+    long bytes = SPILL_MB > 0 ? SPILL_MB<<20 : heap + (heap>>2);
+    long rows = bytes/(8L*(NCOLS+1));
+    PersistManager.PersistStatsEntry ice = H2O.getPM().getStats()[Value.ICE];
+    long stored = ice.store_count.get(), loaded = ice.load_count.get();
+    try {
+      Log.info("Building a "+PrettyPrint.bytes(rows*8L*(NCOLS+1))+" Frame, heap="+PrettyPrint.bytes(heap));
+      fr = makeBigFrame(rows, 0xDECAFL);
+      if( SPILL_MB > 0 ) setCacheMax(bytes>>2);
+
+      GBMModel.GBMParameters parms = new GBMModel.GBMParameters();
+      parms._train = fr._key;
+      parms._response_column = "y";
+      parms._distribution = Distribution.Family.gaussian;
+      parms._ntrees = 5;
+      parms._max_depth = 5;
+      parms._learn_rate = 0.5f;
+
+      GBM job = null;
+      try {
+        job = new GBM(parms);
+        gbm = job.trainModel().get();
+      } finally {
+        if( job != null ) job.remove();
+      }
+      // y is a simple function of x0; 5 trees of depth 5 learn most of it
+      double mse = gbm._output._training_metrics._MSE;
+      Log.info("MSE="+mse+", spilled="+(ice.store_count.get()-stored)+", reloaded="+(ice.load_count.get()-loaded));
+      Assert.assertTrue("MSE="+mse, mse < 0.05);
+      // Chunks went out to disk and came back
+      Assert.assertTrue(ice.store_count.get() > stored);
+      Assert.assertTrue(ice.load_count.get() > loaded);
+    } finally {
+      if( SPILL_MB > 0 ) setCacheMax(-1);
+      if( fr  != null ) fr .delete();
+      if( gbm != null ) gbm.delete();
+    }
+  }
+
+  // Cap the K/V cache of every node
+  private static void setCacheMax( final long bytes ) {
+    new MRTask() { @Override protected void setupLocal() { MemoryManager.setCacheMax(bytes); } }.doAllNodes();
+  }
+
+  private static Frame makeBigFrame( long rows, final long seed ) {
+    Vec v0 = Vec.makeZero(rows);
+    Vec[] vecs = v0.makeZeros(NCOLS+1);
+    v0.remove();
+    new MRTask() {
+      @Override public void map( Chunk[] cs ) {
+        Random rng = RandomUtils.getRNG(seed * (cs[0].cidx() + 1));
+        for( int r = 0; r < cs[0]._len; r++ ) {
+          for( int c = 0; c < NCOLS; c++ )
+            cs[c].set(r, rng.nextDouble());
+          cs[NCOLS].set(r, 2*cs[0].atd(r) + 0.1*rng.nextDouble());
+        }
+      }
+    }.doAll(vecs);
+    String[] names = new String[NCOLS+1];
+    for( int c = 0; c < NCOLS; c++ ) names[c] = "x"+c;
+    names[NCOLS] = "y";
+    Frame fr = new Frame(Key.make("spill_test.hex"), names, vecs);
+    DKV.put(fr);
+    return fr;
+  }
+}
@@ -0,0 +1,56 @@
+#!/bin/bash
+
+# Local multi-JVM network benchmark: runs NetworkBench on a cloud of local
+# JVMs, first with the thread-per-peer small-message transport, then with
+# selector threads (-nio_threads).  Results go to the driver's output.
+#
+#   ./benchNetwork.sh [nodes] [nio_threads]
+
+NODES=${1:-4}
+NIO_THREADS=${2:-2}
+
+OUTDIR=sandbox/bench_network
+rm -fr $OUTDIR; mkdir -p $OUTDIR
+
+# Check for os
+SEP=:
+case "`uname`" in
+    CYGWIN* )
+      SEP=";"
+      ;;
+esac
+
+PIDS=""
+function cleanup () {
+  kill -9 $PIDS 1> /dev/null 2>&1
+  wait 1> /dev/null 2>&1
+  PIDS=""
+}
+trap 'cleanup; exit 1' SIGTERM SIGINT
+
+if [ -z "$TEST_JAVA_HOME" ]; then
+  JAVA_CMD="java"
+else
+  JAVA_CMD="$TEST_JAVA_HOME/bin/java"
+fi
+JVM="nice $JAVA_CMD -ea -cp build/classes/test${SEP}build/classes/main${SEP}build/icers${SEP}../h2o-genmodel/build/libs/h2o-genmodel.jar${SEP}../lib/*"
+JUNIT_RUNNER="water.junit.H2OTestRunner"
+
+# run <label> <nio_threads>: NODES-1 helper JVMs plus the driver
+function run () {
+  LABEL=$1
+  CLUSTER_NAME=bench_network_${LABEL}_$$
+  CLUSTER_BASEPORT=44000
+  for i in `seq 2 $NODES`; do
+    $JVM water.H2O -name $CLUSTER_NAME -baseport $CLUSTER_BASEPORT -nio_threads $2 --ga_opt_out 1> $OUTDIR/$LABEL.$i 2>&1 & PIDS="$PIDS $!"
+  done
+  echo Running NetworkBench, $LABEL transport, $NODES nodes...
+  $JVM -Dai.h2o.name=$CLUSTER_NAME -Dai.h2o.baseport=$CLUSTER_BASEPORT -Dai.h2o.nio_threads=$2 -Dai.h2o.ga_opt_out=yes \
+       -Dh2o.bench.network.nodes=$NODES $JUNIT_RUNNER water.init.NetworkBenchTest 1> $OUTDIR/$LABEL.1 2>&1
+  cleanup
+  grep -A 12 "=== MSG SZ" $OUTDIR/$LABEL.1
+  grep "NIO transport" $OUTDIR/$LABEL.1
+}
+
+run threads 0
+run nio $NIO_THREADS
@@ -13,6 +13,7 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Comparator;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 import hex.genmodel.GenModel;
 import water.DKV;
@@ -801,31 +802,46 @@ public abstract class Model<M extends Model<M,P,O>, P extends Model.Parameters,
         } else
           actual = new float[chks.length];
       }
-      double[] preds = _mb._work;  // Sized for the union of test and train classes
       int len = chks[0]._len;
-      for (int row = 0; row < len; row++) {
-        double weight = weightsChunk.atd(row);
-        if (weight == 0) {
+      // Rows are scored a block at a time, so models with a block layout
+      // (e.g. trees scored tree-at-a-time) can amortize their per-row costs
+      // (capped so that very wide predictions, e.g. autoencoders, stay small)
+      final int blk = Math.max(1, Math.min(len, Math.min(SCORE_BLOCK, (1 << 16) / Math.max(1, _mb._work.length))));
+      double[][] preds = new double[blk][];
+      for( int r = 0; r < blk; r++ )
+        preds[r] = r == 0 ? _mb._work : new double[_mb._work.length]; // Sized for the union of test and train classes
+      double[] weights = new double[blk], offsets = new double[blk];
+      double[] responses = responseChunk == null ? null : new double[blk];
+      for (int row0 = 0; row0 < len; row0 += blk) {
+        int nrows = Math.min(blk, len - row0);
+        weightsChunk.getDoubles(weights, row0, row0 + nrows);
+        offsetChunk.getDoubles(offsets, row0, row0 + nrows);
+        if (responses != null) responseChunk.getDoubles(responses, row0, row0 + nrows);
+        score0(chks, weights, offsets, row0, nrows, tmp, preds);
+        for (int r = 0; r < nrows; r++) {
+          int row = row0 + r;
+          double weight = weights[r];
+          if (weight == 0) {
+            if (_makePreds) {
+              for (int c = 0; c < _npredcols; c++)  // Output predictions; sized for train only (excludes extra test classes)
+                cpreds[c].addNum(0);
+            }
+            continue;
+          }
+          double[] p = preds[r];
+          if (_computeMetrics) {
+            if(isSupervised()) {
+              actual[0] = (float)responses[r];
+            } else {
+              for(int i = 0; i < actual.length; ++i)
+                actual[i] = (float)chks[i].atd(row);
+            }
+            _mb.perRow(p, actual, weight, offsets[r], Model.this);
+          }
           if (_makePreds) {
             for (int c = 0; c < _npredcols; c++)  // Output predictions; sized for train only (excludes extra test classes)
-              cpreds[c].addNum(0);
+              cpreds[c].addNum(p[c]);
           }
-          continue;
-        }
-        double offset = offsetChunk.atd(row);
-        double [] p = score0(chks, weight, offset, row, tmp, preds);
-        if (_computeMetrics) {
-          if(isSupervised()) {
-            actual[0] = (float)responseChunk.atd(row);
-          } else {
-            for(int i = 0; i < actual.length; ++i)
-              actual[i] = (float)chks[i].atd(row);
-          }
-          _mb.perRow(preds, actual, weight, offset, Model.this);
-        }
-        if (_makePreds) {
-          for (int c = 0; c < _npredcols; c++)  // Output predictions; sized for train only (excludes extra test classes)
-            cpreds[c].addNum(p[c]);
         }
       }
     }
@@ -841,11 +857,53 @@ public abstract class Model<M extends Model<M,P,O>, P extends Model.Parameters,
   public double[] score0( Chunk chks[], int row_in_chunk, double[] tmp, double[] preds ) {
     return score0(chks, 1, 0, row_in_chunk, tmp, preds);
   }
-  public double[] score0( Chunk chks[], double weight, double offset, int row_in_chunk, double[] tmp, double[] preds ) {
+  /** Weighted, offset variant of the bulk scoring API for one row.  Final so
+   *  it always agrees with the block API below, which bulk-loads the same
+   *  values; models customize scoring via {@link #score0(double[], double[], double, double)}. */
+  public final double[] score0( Chunk chks[], double weight, double offset, int row_in_chunk, double[] tmp, double[] preds ) {
     assert(_output.nfeatures() == tmp.length);
     for( int i=0; i< tmp.length; i++ )
       tmp[i] = chks[i].atd(row_in_chunk);
     double [] scored = score0(tmp, preds, weight, offset);
+    return correctPredictions(scored, tmp);
+  }
+
+  /** Rows per block in the block scoring API used by {@code BigScore}. */
+  public static final int SCORE_BLOCK = 256;
+
+  /** Bulk scoring API for a block of rows: score rows {@code row0} to {@code
+   *  row0+nrows-1} of the Chunks into {@code preds[0]} to {@code
+   *  preds[nrows-1]}.  Rows with zero weight may be skipped.  Results must
+   *  match calling {@link #score0(Chunk[], double, double, int, double[], double[])}
+   *  on each row; the default bulk-loads the block column-wise and scores it
+   *  row by row, the way that (final) method does.  Models with a faster
+   *  block-at-a-time layout override. */
+  public void score0( Chunk chks[], double[] weights, double[] offsets, int row0, int nrows, double[] tmp, double[][] preds ) {
+    assert(_output.nfeatures() == tmp.length);
+    double[][] cols = loadBlock(chks, tmp.length, row0, nrows);
+    for( int r=0; r<nrows; r++ ) {
+      if( weights[r] == 0 ) continue;
+      for( int c=0; c<tmp.length; c++ ) tmp[c] = cols[c][r];
+      double[] p = correctPredictions(score0(tmp, preds[r], weights[r], offsets[r]), tmp);
+      if( p != preds[r] ) System.arraycopy(p, 0, preds[r], 0, Math.min(p.length, preds[r].length));
+    }
+  }
+
+  /** Bulk load a block of rows of the first {@code ncols} Chunks, column-wise.
+   *  @return cols[col][row-row0], with NAs as NaN */
+  protected static double[][] loadBlock( Chunk chks[], int ncols, int row0, int nrows ) {
+    double[][] cols = new double[ncols][nrows];
+    for( int c=0; c<ncols; c++ )
+      chks[c].getDoubles(cols[c], row0, row0+nrows);
+    return cols;
+  }
+
+  /** Final adjustment of a scored row: for classifiers, correct the class
+   *  probabilities for class balancing and assign the predicted label.
+   *  @param scored predictions for the row, adjusted in place
+   *  @param tmp the row's data, as passed to score0
+   *  @return scored */
+  protected double[] correctPredictions( double[] scored, double[] tmp ) {
     if(isSupervised()) {
       // Correct probabilities obtained from training on oversampled data back to original distribution
       // C.f. http://gking.harvard.edu/files/0s.pdf Eq.(27)
@@ -882,6 +940,28 @@ public abstract class Model<M extends Model<M,P,O>, P extends Model.Parameters,
 
   @Override protected long checksum_impl() { return _parms.checksum_impl() * _output.checksum_impl(); }
 
+  /** A node-local cache of state derived from models (e.g. resolved trees),
+   *  dropped on every node when a model leaves the DKV.  */
+  public interface NodeCache {
+    /** Drop anything cached for this model Key on this node. */
+    void forget( Key modelKey );
+  }
+  private static final CopyOnWriteArrayList<NodeCache> NODE_CACHES = new CopyOnWriteArrayList<>();
+  /** Register a node-local cache; nodes which never register one have
+   *  nothing to forget. */
+  public static void registerNodeCache( NodeCache nc ) { NODE_CACHES.add(nc); }
+
+  /** Called by the home node of a model Key when its model is removed from
+   *  the DKV, however it was removed (Keyed.remove or a plain DKV.remove).
+   *  The caches are cleared asynchronously on all nodes. */
+  public static void removedFromDKV( final Key modelKey ) {
+    new MRTask() {
+      @Override public void setupLocal() {
+        for( NodeCache nc : NODE_CACHES ) nc.forget(modelKey);
+      }
+    }.asyncExecOnAllNodes();
+  }
+
   // ==========================================================================
   /** Return a String which is a valid Java program representing a class that
    *  implements the Model.  The Java is of the form:
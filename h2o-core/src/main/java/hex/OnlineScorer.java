@@ -0,0 +1,292 @@
+package hex;
+
+import water.DKV;
+import water.Key;
+import water.Value;
+import water.fvec.Chunk;
+import water.fvec.NewChunk;
+import water.nbhm.NonBlockingHashMap;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.concurrent.TimeUnit;
+
+/** Low-latency scoring of a few rows at a time, e.g. for REST requests,
+ *  straight through the model's block {@code score0}: no Frame, no
+ *  adaptTestForTrain, no MRTask.
+ *
+ *  <p>The adapted schema of the model - the feature columns in the order the
+ *  model expects, and the categorical levels as a hash map per column - is
+ *  built once per model and cached on this node, as is the model itself: only
+ *  a local lookup of the model's {@link Value} is done per request, to notice
+ *  a deleted or rebuilt model.
+ *
+ *  <p>Concurrent requests are coalesced into small batches: a queued request
+ *  leads a batch, waits for others up to the latency budget (or until the
+ *  batch is full), and scores the whole batch in one block call, which
+ *  amortizes the per-call costs of block scoring models (e.g. flattened
+ *  forests).  Requests arriving while a batch is scored queue up for the
+ *  next one; requests drained into a batch just wait for it.
+ *
+ *  <p>The budget and the batch size can be changed by
+ *  <code>-Dh2o.score.batch_usec</code> and <code>-Dh2o.score.max_batch</code>,
+ *  the largest request by <code>-Dh2o.score.max_rows</code>.
+ *  The latencies of the last {@link #NLAT} requests are kept for the p50/p99
+ *  reported with each response.
+ */
+public final class OnlineScorer {
+  /** Max. time a request waits for others to share its batch, in nanos */
+  public static final long BATCH_NANOS = TimeUnit.MICROSECONDS.toNanos(Long.getLong("h2o.score.batch_usec", 100));
+  /** Max. rows per batch; a single larger request is scored alone */
+  public static final int MAX_BATCH = Integer.getInteger("h2o.score.max_batch", Model.SCORE_BLOCK);
+  /** Max. rows of a single request; larger ones are rejected */
+  public static final int MAX_ROWS = Integer.getInteger("h2o.score.max_rows", 64*MAX_BATCH);
+  /** Number of recent request latencies kept */
+  public static final int NLAT = 4096;
+
+  // One scorer per model on this node
+  private static final NonBlockingHashMap<Key,OnlineScorer> SCORERS = new NonBlockingHashMap<>();
+
+  private final Value _value;   // The model's value, to notice model changes
+  private final Model _model;
+  private final String[] _names;        // Feature names, in the model's order
+  private final HashMap<String,Integer> _cols = new HashMap<>(); // Feature name to index
+  private final HashMap<String,Integer>[] _levels; // Categorical level to index, per feature
+  private final int _offsetIdx; // Index of the offset past the features, or -1
+  private final double _missing; // Substitute for a missing feature
+  private final int _npreds;    // Prediction columns: label and class probabilities, or value
+  private final String[] _predNames;
+
+  // Batching knobs; package-private for tests
+  long _batchNanos = BATCH_NANOS;
+  int _maxBatch = MAX_BATCH;
+
+  // Requests waiting to be scored, and whether a request leads their batch
+  private final ArrayDeque<Request> _queue = new ArrayDeque<>();
+  private int _pending;         // Rows in the queue
+  private boolean _leader;
+  private long _nbatches;       // Batches scored
+
+  // Recent request latencies, in nanos
+  private final long[] _lat = new long[NLAT];
+  private long _nreqs;
+
+  /** @return The scorer of a model; built on first use, and rebuilt if the
+   *  model changed */
+  public static OnlineScorer get( Key key ) {
+    Value v = DKV.get(key);     // Local after the first fetch
+    if( v == null || !v.isModel() ) {
+      SCORERS.remove(key);
+      throw new IllegalArgumentException("Model not found: "+key);
+    }
+    OnlineScorer os = SCORERS.get(key);
+    if( os == null || os._value != v )
+      SCORERS.put(key,os = new OnlineScorer(v));
+    return os;
+  }
+
+  @SuppressWarnings("unchecked")
+  private OnlineScorer( Value v ) {
+    _value = v;
+    _model = v.get();
+    Model.Output out = _model._output;
+    if( !out.isSupervised() )
+      throw new IllegalArgumentException("Online scoring needs a supervised model: "+_model._key);
+    int nfeatures = out.nfeatures();
+    _names = Arrays.copyOf(out._names,nfeatures);
+    _levels = new HashMap[nfeatures];
+    for( int i=0; i<nfeatures; i++ ) {
+      _cols.put(_names[i],i);
+      String[] dom = out._domains[i];
+      if( dom == null ) continue;
+      _levels[i] = new HashMap<>();
+      for( int l=0; l<dom.length; l++ ) _levels[i].put(dom[l],l);
+    }
+    _offsetIdx = out.hasOffset() ? nfeatures : -1;
+    if( _offsetIdx >= 0 ) _cols.put(out.offsetName(),_offsetIdx);
+    _missing = _model._parms.missingColumnsType();
+    int nc = out.nclasses();
+    _npreds = nc==1 ? 1 : nc+1; // Regression has 1 predict col; classification also has class distribution
+    _predNames = new String[_npreds];
+    _predNames[0] = "predict";
+    for( int i=1; i<_npreds; i++ ) _predNames[i] = out.classNames()[i-1];
+  }
+
+  public Model model() { return _model; }
+  /** @return Names of the prediction columns */
+  public String[] predictionNames() { return _predNames; }
+  /** @return Number of columns of an adapted row: the features, then the offset if any */
+  public int ncols() { return _names.length + (_offsetIdx >= 0 ? 1 : 0); }
+  /** @return Domain of the predicted label, or null for regression */
+  public String[] labelDomain() { return _npreds == 1 ? null : _model._output.classNames(); }
+
+  /** Adapt rows given as strings, by column name, to the model: columns are
+   *  put in the model's order, categorical levels are mapped to their index,
+   *  and unknown levels and missing columns become NA.  Extra columns (e.g.
+   *  the response) are ignored.
+   *  @param columns Column names of the rows
+   *  @param rows Row-major values; null, empty or "NA" for NA
+   *  @return The rows, ready for {@link #score} */
+  public double[][] adapt( String[] columns, String[][] rows ) {
+    int[] map = new int[columns.length];
+    for( int c=0; c<columns.length; c++ ) {
+      Integer idx = _cols.get(columns[c]);
+      map[c] = idx == null ? -1 : idx;
+    }
+    if( _offsetIdx >= 0 && !Arrays.asList(columns).contains(_model._output.offsetName()) )
+      throw new IllegalArgumentException("Rows are missing the offset column '"+_model._output.offsetName()+"'");
+    double[][] res = new double[rows.length][];
+    for( int r=0; r<rows.length; r++ ) {
+      if( rows[r].length != columns.length )
+        throw new IllegalArgumentException("Row "+r+" has "+rows[r].length+" values for "+columns.length+" columns");
+      double[] row = res[r] = new double[ncols()];
+      Arrays.fill(row,0,_names.length,_missing);
+      for( int c=0; c<columns.length; c++ ) {
+        int idx = map[c];
+        if( idx == -1 ) continue;
+        String s = rows[r][c];
+        if( s == null || s.isEmpty() || s.equals("NA") ) row[idx] = Double.NaN;
+        else if( idx < _levels.length && _levels[idx] != null ) {
+          Integer l = _levels[idx].get(s);
+          row[idx] = l == null ? Double.NaN : l;
+        } else {
+          try { row[idx] = Double.parseDouble(s); }
+          catch( NumberFormatException nfe ) {
+            throw new IllegalArgumentException("Column '"+columns[c]+"' is not categorical in the model, and cannot be a number: "+s);
+          }
+        }
+      }
+    }
+    return res;
+  }
+
+  /** Score rows, already in the model's order (see {@link #adapt}), batched
+   *  with concurrent requests.
+   *  @return Predictions per row: label (or value), then class probabilities */
+  public double[][] score( double[][] rows ) {
+    long start = System.nanoTime();
+    for( double[] row : rows )
+      if( row.length != ncols() )
+        throw new IllegalArgumentException("Rows must have "+ncols()+" values, not "+row.length);
+    Request req = new Request(rows);
+    synchronized( this ) {
+      _queue.add(req);
+      _pending += rows.length;
+      if( _pending >= _maxBatch ) notifyAll(); // Full batch: wake the leader
+    }
+    while( true ) {
+      ArrayList<Request> batch;
+      synchronized( this ) {
+        // Only a request still queued may lead; one drained into a batch
+        // being scored just waits for it
+        while( !req._done && (_leader || req._batched) ) waitNanos(0);
+        if( req._done ) break;
+        // Lead a batch: wait for more requests within the budget
+        _leader = true;
+        long deadline = System.nanoTime()+_batchNanos;
+        for( long left; _pending < _maxBatch && (left = deadline-System.nanoTime()) > 0; )
+          waitNanos(left);
+        batch = drain();        // Holds at least the head of the queue
+        _leader = false;
+        notifyAll();            // Another request may lead the next batch
+      }
+      scoreBatch(batch);        // Not holding the lock: the next batch forms meanwhile
+    }
+    recordLatency(System.nanoTime()-start);
+    if( req._ex != null ) throw req._ex;
+    return req._preds;
+  }
+
+  private static final class Request {
+    final double[][] _rows;
+    double[][] _preds;
+    RuntimeException _ex;
+    boolean _batched;           // Drained into a batch
+    boolean _done;
+    Request( double[][] rows ) { _rows = rows; }
+  }
+
+  // Whole requests from the head of the queue, up to the max. batch rows
+  // (or just the first, if larger)
+  private ArrayList<Request> drain() {
+    ArrayList<Request> batch = new ArrayList<>();
+    int n = 0;
+    while( !_queue.isEmpty() && (n == 0 || n+_queue.peek()._rows.length <= _maxBatch) ) {
+      Request req = _queue.poll();
+      req._batched = true;
+      n += req._rows.length;
+      batch.add(req);
+    }
+    _pending -= n;
+    return batch;
+  }
+
+  private void scoreBatch( ArrayList<Request> batch ) {
+    if( batch.isEmpty() ) return;
+    int n = 0;
+    for( Request req : batch ) n += req._rows.length;
+    int nfeatures = _names.length;
+    try {
+      // Column-wise in-memory Chunks, for the block scoring API
+      double[][] cols = new double[nfeatures][n];
+      double[] weights = new double[n], offsets = new double[n];
+      Arrays.fill(weights,1);
+      int r = 0;
+      for( Request req : batch )
+        for( double[] row : req._rows ) {
+          for( int c=0; c<nfeatures; c++ ) cols[c][r] = row[c];
+          if( _offsetIdx >= 0 ) offsets[r] = row[_offsetIdx];
+          r++;
+        }
+      Chunk[] chks = new Chunk[nfeatures];
+      for( int c=0; c<nfeatures; c++ ) chks[c] = new NewChunk(cols[c]);
+      double[][] preds = new double[n][_model._output.nclasses()+1];
+      _model.score0(chks,weights,offsets,0,n,new double[nfeatures],preds);
+      r = 0;
+      for( Request req : batch ) {
+        req._preds = new double[req._rows.length][];
+        for( int i=0; i<req._rows.length; i++ )
+          req._preds[i] = Arrays.copyOf(preds[r++],_npreds);
+      }
+    } catch( RuntimeException e ) {
+      for( Request req : batch ) req._ex = e;
+    }
+    synchronized( this ) {
+      for( Request req : batch ) req._done = true;
+      _nbatches++;
+      notifyAll();
+    }
+  }
+
+  private void waitNanos( long nanos ) {
+    try {
+      if( nanos == 0 ) wait();
+      else TimeUnit.NANOSECONDS.timedWait(this,nanos);
+    } catch( InterruptedException ignore ) { }
+  }
+
+  private synchronized void recordLatency( long nanos ) {
+    _lat[(int)(_nreqs++ % NLAT)] = nanos;
+  }
+
+  /** @return Number of requests scored */
+  public synchronized long requests() { return _nreqs; }
+
+  /** @return Number of batches scored; fewer than {@link #requests} when
+   *  concurrent requests were batched */
+  public synchronized long batches() { return _nbatches; }
+
+  /** @return Latency quantiles of the recent requests, in milliseconds;
+   *  NaN before any request */
+  public double[] latencyMillis( double... probs ) {
+    long[] lat;
+    synchronized( this ) { lat = Arrays.copyOf(_lat,(int)Math.min(_nreqs,NLAT)); }
+    Arrays.sort(lat);
+    double[] res = new double[probs.length];
+    for( int i=0; i<probs.length; i++ )
+      res[i] = lat.length == 0 ? Double.NaN : lat[(int)Math.min(lat.length-1,(long)(probs[i]*lat.length))]/1e6;
+    return res;
+  }
+}
@@ -1,5 +1,6 @@
 package hex;
 
+import water.H2O;
 import water.Iced;
 import water.util.MathUtils;
 
@@ -44,6 +45,37 @@ public class ScoreKeeper extends Iced {
     }
   }
 
+  /**
+   * Metrics which can be used to rank models by their scores
+   */
+  public enum StoppingMetric { AUTO, deviance, logloss, MSE, AUC, misclassification }
+
+  /**
+   * Value of a metric
+   * @param metric which metric; AUTO is logloss for classification, deviance (or MSE) for regression
+   * @return value of the metric, NaN if it was not scored
+   */
+  public double get(StoppingMetric metric) {
+    switch (metric) {
+      case AUTO:              return !Double.isNaN(_logloss) ? _logloss
+                                   : !Double.isNaN(_mean_residual_deviance) ? _mean_residual_deviance : _mse;
+      case deviance:          return _mean_residual_deviance;
+      case logloss:           return _logloss;
+      case MSE:               return _mse;
+      case AUC:               return _AUC;
+      case misclassification: return _classError;
+      default: throw H2O.unimpl();
+    }
+  }
+
+  /**
+   * @param metric which metric
+   * @return true if higher values of the metric are better
+   */
+  public static boolean moreIsBetter(StoppingMetric metric) {
+    return metric == StoppingMetric.AUC;
+  }
+
   /**
    * Compare this ScoreKeeper with that ScoreKeeper
    * @param that
@@ -0,0 +1,74 @@
+package hex.grid;
+
+import hex.Model;
+import water.H2O;
+import water.H2ONode;
+import water.fvec.Frame;
+
+/**
+ * Admission control for the model builds of all grid searches driven from this node.
+ *
+ * A model build is admitted only while fewer than {@link #MAX_BUILDS} grid builds are running,
+ * and while its estimated memory, next to the memory reserved by the builds already running,
+ * fits in {@link #MEM_FRACTION} of the free memory of the cloud. Both caps are there to leave F/J
+ * threads and heap to interactive requests (REST calls, Rapids, parses) while grids are running.
+ *
+ * A build is always admitted when no other grid build is running, so a grid can never stall.
+ *
+ * The caps can be changed by <code>-Dh2o.grid.max_builds</code> and
+ * <code>-Dh2o.grid.mem_fraction</code>.
+ */
+final class BuildScheduler {
+  /** Max. number of concurrent grid model builds on this node */
+  static final int MAX_BUILDS = Integer.getInteger("h2o.grid.max_builds", Math.max(2, H2O.NUMCPUS / 2));
+  /** Max. fraction of the free memory of the cloud reserved by concurrent grid model builds */
+  static final double MEM_FRACTION = Double.parseDouble(System.getProperty("h2o.grid.mem_fraction", "0.5"));
+
+  private static int _running;  // Admitted builds which are not yet released
+  private static long _reserved; // Memory reserved by them
+
+  private BuildScheduler() {}
+
+  /**
+   * Admit a new build if the caps allow.
+   *
+   * @param mem estimated memory of the build, see {@link #estimateMemory}
+   * @return true if the build was admitted; it must be {@link #release}d once it stops.
+   */
+  static synchronized boolean tryAcquire(long mem) {
+    if (_running > 0 && (_running >= MAX_BUILDS || _reserved + mem > MEM_FRACTION * freeMemory())) {
+      return false;
+    }
+    _running++;
+    _reserved += mem;
+    return true;
+  }
+
+  /** Release a build admitted by {@link #tryAcquire}. */
+  static synchronized void release(long mem) {
+    assert _running > 0;
+    _running--;
+    _reserved -= mem;
+  }
+
+  /**
+   * Estimated memory needed by a model build: its working copies are about the size of the
+   * training and validation frames.
+   */
+  static long estimateMemory(Model.Parameters params) {
+    long mem = 0;
+    Frame train = params.train();
+    Frame valid = params.valid();
+    if (train != null) mem += train.byteSize();
+    if (valid != null) mem += valid.byteSize();
+    return mem;
+  }
+
+  private static long freeMemory() {
+    long free = 0;
+    for (H2ONode node : H2O.CLOUD.members()) {
+      free += node._heartbeat.get_free_mem();
+    }
+    return free;
+  }
+}
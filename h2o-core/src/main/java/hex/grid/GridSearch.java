@@ -1,5 +1,7 @@
 package hex.grid;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 
 import hex.Model;
@@ -28,8 +30,10 @@ import water.util.PojoUtils;
  *
  * The job is started by the <code>startGridSearch</code> method which create a new grid search, put
  * representation of Grid into distributed KV store, and for each parameter in hyper space of
- * possible parameters, it launches a separated model building job. The launch of jobs is sequential
- * and blocking. So after finish the last model, whole grid search job is done as well.
+ * possible parameters, it launches a separated model building job. By default the launch of jobs is
+ * sequential and blocking; with a <code>parallelism</code> above 1, several model building jobs run
+ * at the same time, capped node-wide by {@link hex.grid.BuildScheduler}. So after finish the last
+ * model, whole grid search job is done as well.
  *
  * By default, the grid search invokes cartezian grid search, but it can be modified by passing
  * explicit hyper space walk strategy via the {@link #startGridSearch(Key, ModelFactory,
@@ -79,17 +83,25 @@ public final class GridSearch<MP extends Model.Parameters> extends Job<Grid> {
    * new model builders via ModelFactory.
    */
   private final transient HyperSpaceWalker<MP> _hyperSpaceWalker;
+  /**
+   * Max. number of models built at the same time.
+   */
+  private final int _parallelism;
 
+  /** How often to check running model builders, in msec */
+  private static final long POLL_MSEC = 50;
 
   private GridSearch(Key gkey,
                      ModelFactory<MP> modelFactory,
-                     HyperSpaceWalker<MP> hyperSpaceWalker) {
+                     HyperSpaceWalker<MP> hyperSpaceWalker,
+                     int parallelism) {
     super(gkey, modelFactory.getModelName() + " Grid Search");
     assert modelFactory != null : "Grid search needs to know how to build a new model!";
     assert hyperSpaceWalker != null : "Grid search needs to know to how walk around hyper space!";
     //_paramsBuilderFactory = paramsBuilderFactory;
     _modelFactory = modelFactory;
     _hyperSpaceWalker = hyperSpaceWalker;
+    _parallelism = parallelism;
 
     // Note: do not validate parameters of created model builders here!
     // Leave it to launch time, and just mark the corresponding model builder job as failed.
@@ -97,7 +109,8 @@ public final class GridSearch<MP extends Model.Parameters> extends Job<Grid> {
 
   GridSearch start() {
     final int gridSize = _hyperSpaceWalker.getHyperSpaceSize();
-    Log.info("Starting gridsearch: estimated size of search space = " + gridSize);
+    Log.info("Starting gridsearch: estimated size of search space = " + gridSize
+             + ", parallelism = " + _parallelism);
     // Create grid object and lock it
     // Creation is done here, since we would like make sure that after leaving
     // this function the grid object is in DKV and accessible.
@@ -168,45 +181,100 @@ public final class GridSearch<MP extends Model.Parameters> extends Job<Grid> {
   /**
    * Invokes grid search based on specified hyper space walk strategy.
    *
+   * Up to {@link #_parallelism} model builders are running at the same time, as long as the
+   * {@link BuildScheduler} admits them. Whenever one of them stops, its model (or failure) is
+   * recorded in the grid, and new points of hyper space are launched.
+   *
    * It updates passed grid object in distributed store.
    *
    * @param grid grid object to save results
    */
   private void gridSearch(Grid<MP> grid) {
     Model model = null;
+    final List<Build> running = new ArrayList<>();
+    MP pending = null; // Parameters waiting for admission
+    final long start = System.currentTimeMillis();
+    int built = 0;
     try {
       HyperSpaceWalker.HyperSpaceIterator<MP> it = _hyperSpaceWalker.iterator();
-      while (it.hasNext(model)) {
+      while (pending != null || !running.isEmpty() || it.hasNext(model)) {
         // Handle end-user cancel request
         if (!isRunning()) {
-          // FIXME: propagate cancellation event to sub jobs, block till they are cancelled
+          for (Build b : running) {
+            b._builder.cancel();
+          }
           cancel();
           return;
         }
-        MP params = null;
-        try {
-          // Get parameters for next model
-          params = it.nextModelParameters(model);
-          // Sequential model building, should never propagate
-          // exception up, just mark combination of model parameters as wrong
+        // Launch new model builders, as many as allowed
+        while (running.size() < _parallelism && (pending != null || it.hasNext(model))) {
+          MP params = pending;
+          pending = null;
+          if (params == null) {
+            try {
+              // Get parameters for next model
+              params = it.nextModelParameters(model);
+            } catch (IllegalArgumentException e) {
+              Log.warn("Grid search: construction of model parameters failed! Exception: ", e);
+              // Model parameters cannot be constructed for some reason
+              Object[] rawParams = it.getCurrentRawParameters();
+              grid.appendFailedModelParameters(rawParams, e);
+              attemptDone(grid, built, start);
+              continue;
+            }
+          }
+          // FIXME: get checksum here since model builder will modify instance of params!!!
+          long checksum = params.checksum();
+          // Make sure that the model is not yet built or being built
+          // (can be case of duplicated hyper parameters)
+          Key<Model> key = grid.getModelKey(checksum);
+          if (key != null || isBuilding(running, checksum)) {
+            if (key != null) {
+              model = key.get();
+              it.onModelBuilt(params, model);
+            }
+            attemptDone(grid, built, start);
+            continue;
+          }
+          long mem = BuildScheduler.estimateMemory(params);
+          if (!BuildScheduler.tryAcquire(mem)) {
+            pending = params; // Retry once running builds free resources
+            break;
+          }
           try {
-            model = buildModel(params, grid);
+            running.add(new Build(params, checksum, mem, startBuildModel(params)));
           } catch (RuntimeException e) { // Catch everything
+            BuildScheduler.release(mem);
             Log.warn("Grid search: model builder for parameters " + params + " failed! Exception: ", e);
             grid.appendFailedModelParameters(params, e);
+            it.onModelBuilt(params, null);
+            attemptDone(grid, built, start);
           }
-        } catch (IllegalArgumentException e) {
-          Log.warn("Grid search: construction of model parameters failed! Exception: ", e);
-          // Model parameters cannot be constructed for some reason
-          Object[] rawParams = it.getCurrentRawParameters();
-          grid.appendFailedModelParameters(rawParams, e);
+        }
+        // Collect a stopped model builder, if any
+        Build b = stoppedBuild(running);
+        if (b == null) {
+          continue;
+        }
+        running.remove(b);
+        BuildScheduler.release(b._mem);
+        // Model building should never propagate exception up,
+        // just mark combination of model parameters as wrong
+        Model m = null;
+        try {
+          m = (Model) b._builder.get();
+          grid.putModel(b._checksum, m._key);
+          model = m;
+          built++;
+        } catch (RuntimeException e) { // Catch everything
+          Log.warn("Grid search: model builder for parameters " + b._params + " failed! Exception: ", e);
+          grid.appendFailedModelParameters(b._params, e);
         } finally {
-          // Update progress by 1 increment
-          this.update(1L);
-          // Always update grid in DKV after model building attempt
-          grid.update(jobKey());
+          it.onModelBuilt(b._params, m);
+          attemptDone(grid, built, start);
         }
       }
+      Log.info("Grid search: " + built + " models built " + throughput(built, start));
       // Grid search is done
       done();
     } catch(Throwable e) {
@@ -223,59 +291,83 @@ public final class GridSearch<MP extends Model.Parameters> extends Job<Grid> {
         throw e;
       }
     } finally {
+      for (Build b : running) {
+        BuildScheduler.release(b._mem);
+      }
       // Unlock grid object
       grid.unlock(jobKey());
     }
   }
 
   /**
-   * Build a model based on specified parameters and save it to resulting Grid object.
-   *
-   * Returns a model run with these parameters, typically built on demand and cached - expected to
-   * be an expensive operation.  If the model in question is "in progress", a 2nd build will NOT be
-   * kicked off. This is a blocking call.
-   *
-   * If a new model is created, then the Grid object is updated in distributed store. If a model for
-   * given parameters already exists, it is directly returned without updating the Grid object. If
-   * model building fails then the Grid object is not updated and the method returns
-   * <code>null</code>.
+   * A model builder launched by this grid search, with the resources it holds.
+   */
+  private final class Build {
+    final MP _params;
+    final long _checksum;
+    final long _mem;
+    final ModelBuilder _builder;
+
+    Build(MP params, long checksum, long mem, ModelBuilder builder) {
+      _params = params;
+      _checksum = checksum;
+      _mem = mem;
+      _builder = builder;
+    }
+  }
+
+  // Update progress and throughput, and the grid in DKV after each model building attempt
+  private void attemptDone(Grid<MP> grid, int built, long start) {
+    // Update progress by 1 increment
+    this.update(1L, built + " models built " + throughput(built, start));
+    // Always update grid in DKV after model building attempt
+    grid.update(jobKey());
+  }
+
+  private static String throughput(int built, long start) {
+    double minutes = Math.max(System.currentTimeMillis() - start, 1) / 60000.0;
+    return String.format("(%.2f models/min)", built / minutes);
+  }
+
+  private static boolean isBuilding(List<Build> running, long checksum) {
+    for (Build b : running) {
+      if (b._checksum == checksum) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Returns a stopped model builder out of the running ones, waiting a little if none is stopped
+   * yet.
    *
-   * @param params parameters for a new model
-   * @return return a new model if it does not exist
+   * @return a stopped model builder, or null if none stopped in the meantime
    */
-  private Model buildModel(final MP params, Grid<MP> grid) {
-    // Make sure that the model is not yet built (can be case of duplicated hyper parameters)
-    // FIXME: get checksum here since model builder will modify instance of params!!!
-    long checksum = params.checksum();
-    Key<Model> key = grid.getModelKey(checksum);
-    // It was already built
-    if (key != null) {
-      System.err.println("Found params: ");
-      System.err.println(" - in cache: " + key.get()._parms.toJsonString());
-      System.err.println(" - new one : " + params.toJsonString());
-      return key.get();
+  private Build stoppedBuild(List<Build> running) {
+    for (int i = 0; i < 2; i++) {
+      for (Build b : running) {
+        if (b._builder.isStopped()) {
+          return b;
+        }
+      }
+      if (i == 0) {
+        try {
+          Thread.sleep(POLL_MSEC);
+        } catch (InterruptedException ignore) {
+        }
+      }
     }
-    // Build a new model
-    // THIS IS BLOCKING call since we do not have enough information about free resources
-    // FIXME: we should allow here any launching strategy (not only sequential)
-    Model m = (Model) (startBuildModel(params, grid).get());
-    grid.putModel(checksum, m._key);
-    return m;
+    return null;
   }
 
   /**
    * Triggers model building process but do not block on it.
    *
    * @param params parameters for a new model
-   * @param grid   resulting grid object
-   * @return A Future of a model run with these parameters, typically built on demand and not cached
-   * - expected to be an expensive operation.  If the model in question is "in progress", a 2nd
-   * build will NOT be kicked off. This is a non-blocking call.
+   * @return A running model builder. This is a non-blocking call.
    */
-  private ModelBuilder startBuildModel(MP params, Grid<MP> grid) {
-    if (grid.getModel(params) != null) {
-      return null;
-    }
+  private ModelBuilder startBuildModel(MP params) {
     ModelBuilder mb = _modelFactory.buildModel(params);
     mb.trainModel();
     return mb;
@@ -319,12 +411,40 @@ public final class GridSearch<MP extends Model.Parameters> extends Job<Grid> {
       final Map<String, Object[]> hyperParams,
       final ModelFactory<MP> modelFactory,
       final ModelParametersBuilderFactory<MP> paramsBuilderFactory) {
+    return startGridSearch(destKey, params, hyperParams, modelFactory, paramsBuilderFactory, 1);
+  }
+
+  /**
+   * Start a new grid search job building up to <code>parallelism</code> models at the same time.
+   *
+   * <p>This method launches "classical" grid search traversing cartezian grid of parameters.
+   *
+   * @param destKey              A key to store result of grid search under.
+   * @param params               Default parameters for model builder. This object is used to create
+   *                             a specific model parameters for a combination of hyper parameters.
+   * @param hyperParams          A set of arrays of hyper parameter values, used to specify a simple
+   *                             fully-filled-in grid search.
+   * @param modelFactory         defines a strategy for creating new model builders
+   * @param paramsBuilderFactory defines a strategy for creating a new model parameters based on
+   *                             common parameters and list of hyper-parameters
+   * @param parallelism          max. number of models built at the same time
+   * @return GridSearch Job, with models run with these parameters, built as needed - expected to be
+   * an expensive operation.  If the models in question are "in progress", a 2nd build will NOT be
+   * kicked off.  This is a non-blocking call.
+   */
+  public static <MP extends Model.Parameters> GridSearch startGridSearch(
+      final Key<Grid> destKey,
+      final MP params,
+      final Map<String, Object[]> hyperParams,
+      final ModelFactory<MP> modelFactory,
+      final ModelParametersBuilderFactory<MP> paramsBuilderFactory,
+      final int parallelism) {
     // Create a walker to traverse hyper space of model parameters
     CartesianWalker<MP>
         hyperSpaceWalker =
         new CartesianWalker<>(params, hyperParams, paramsBuilderFactory);
 
-    return startGridSearch(destKey, modelFactory, hyperSpaceWalker);
+    return startGridSearch(destKey, modelFactory, hyperSpaceWalker, parallelism);
   }
 
 
@@ -358,6 +478,14 @@ public final class GridSearch<MP extends Model.Parameters> extends Job<Grid> {
     return startGridSearch(null, params, hyperParams, modelFactory);
   }
 
+  public static <MP extends Model.Parameters> GridSearch startGridSearch(final MP params,
+                                                                         final Map<String, Object[]> hyperParams,
+                                                                         final ModelFactory<MP> modelFactory,
+                                                                         final int parallelism) {
+    return startGridSearch(null, params, hyperParams, modelFactory,
+                           new SimpleParametersBuilderFactory<MP>(), parallelism);
+  }
+
   /**
    * Start a new grid search job. <p> This method launches any grid search traversing space of hyper
    * parameters based on specified strategy.
@@ -374,13 +502,39 @@ public final class GridSearch<MP extends Model.Parameters> extends Job<Grid> {
       final Key<Grid> destKey,
       final ModelFactory<MP> modelFactory,
       final HyperSpaceWalker<MP> hyperSpaceWalker) {
+    return startGridSearch(destKey, modelFactory, hyperSpaceWalker, 1);
+  }
+
+  /**
+   * Start a new grid search job building up to <code>parallelism</code> models at the same time.
+   * <p> This method launches any grid search traversing space of hyper parameters based on
+   * specified strategy.
+   *
+   * @param destKey          A key to store result of grid search under.
+   * @param modelFactory     defines a strategy for creating new model builders
+   * @param hyperSpaceWalker defines a strategy for traversing a hyper space. The object itself
+   *                         holds definition of hyper space.
+   * @param parallelism      max. number of models built at the same time; the builds are also
+   *                         capped by the node-wide {@link BuildScheduler}
+   * @return GridSearch Job, with models run with these parameters, built as needed - expected to be
+   * an expensive operation.  If the models in question are "in progress", a 2nd build will NOT be
+   * kicked off.  This is a non-blocking call.
+   */
+  public static <MP extends Model.Parameters> GridSearch startGridSearch(
+      final Key<Grid> destKey,
+      final ModelFactory<MP> modelFactory,
+      final HyperSpaceWalker<MP> hyperSpaceWalker,
+      final int parallelism) {
+    if (parallelism < 1) {
+      throw new H2OIllegalArgumentException("parallelism", "grid", parallelism);
+    }
     // Compute key for destination object representing grid
     Key<Grid>
         gridKey =
         destKey != null ? destKey : gridKeyName(modelFactory.getModelName(),
                                                 hyperSpaceWalker.getParams().train());
     // Start the search
-    return new GridSearch(gridKey, modelFactory, hyperSpaceWalker).start();
+    return new GridSearch(gridKey, modelFactory, hyperSpaceWalker, parallelism).start();
   }
 
   /**
@@ -388,7 +542,7 @@ public final class GridSearch<MP extends Model.Parameters> extends Job<Grid> {
    *
    * @param <MP> type of model parameters object
    */
-  static class SimpleParametersBuilderFactory<MP extends Model.Parameters>
+  public static class SimpleParametersBuilderFactory<MP extends Model.Parameters>
       implements ModelParametersBuilderFactory<MP> {
 
     @Override
@@ -1,10 +1,24 @@
 package hex.grid;
 
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.NoSuchElementException;
+import java.util.Random;
 
 import hex.Model;
+import hex.ModelMetrics;
 import hex.ModelParametersBuilderFactory;
+import hex.ScoreKeeper;
+import water.H2O;
+import water.Key;
+import water.util.ArrayUtils;
+import water.util.Log;
 
 public interface HyperSpaceWalker<MP extends Model.Parameters> {
 
@@ -30,11 +44,27 @@ public interface HyperSpaceWalker<MP extends Model.Parameters> {
 
     /**
      * Returns true if the iterator can continue.
+     *
+     * <p>An iterator which needs the results of models still being built can return false
+     * until {@link #onModelBuilt} reported them; the grid search asks again after each model
+     * build stops.</p>
+     *
      * @param previousModel  optional parameter which helps to determine next step, can be null
      * @return  true if the iterator can produce one more model parameters configuration.
      */
     boolean hasNext(Model previousModel);
 
+    /**
+     * Reports the outcome of model parameters produced by this iterator.
+     *
+     * <p>The grid search calls it once for every produced model parameters, in the order the
+     * model builds stop (except for duplicates of a model still being built).</p>
+     *
+     * @param params  model parameters returned by {@link #nextModelParameters}
+     * @param model  the model built for them, or null if the model build failed
+     */
+    void onModelBuilt(MP params, Model model);
+
     /**
      * Returns current "raw" state of iterator.
      *
@@ -166,6 +196,11 @@ public interface HyperSpaceWalker<MP extends Model.Parameters> {
           return false;
         }
 
+        @Override
+        public void onModelBuilt(MP params, Model model) {
+          // Cartesian walk does not depend on results
+        }
+
         @Override
         public Object[] getCurrentRawParameters() {
           Object[] hyperValues = new Object[_hyperParamNames.length];
@@ -244,6 +279,298 @@ public interface HyperSpaceWalker<MP extends Model.Parameters> {
     }
   }
 
+  /**
+   * Successive halving: an early-stopping walk over a cartesian hyper space.
+   *
+   * <p>All configurations of the hyper space (or a random subset of them) are first trained on a
+   * small budget, given by a model parameter such as the number of trees, epochs or iterations.
+   * Once all models of such a rung are built, they are ranked by a metric of their validation
+   * scores (training scores if there is no validation frame), and only the best 1/eta of them are
+   * trained further, on an eta times larger budget. By default, each survivor continues from its
+   * previous model as a checkpoint. This repeats until the budget reaches the max. budget.</p>
+   *
+   * <p>Most of the compute goes into the few promising configurations instead of being spread
+   * over all of them. The models of all rungs are kept in the grid.</p>
+   */
+  class SuccessiveHalvingWalker<MP extends Model.Parameters> implements HyperSpaceWalker<MP> {
+
+    /**
+     * Parameters builder factory to create new instance of parameters.
+     */
+    final transient ModelParametersBuilderFactory<MP> _paramsBuilderFactory;
+
+    /**
+     * Used "based" model parameters for this grid search.
+     */
+    final MP _params;
+
+    /**
+     * Cached names of used hyper parameters.
+     */
+    final private String[] _hyperParamNames;
+
+    /**
+     * Model parameters and raw hyper values of every configuration, without budget.
+     */
+    final private List<MP> _configs = new ArrayList<>();
+    final private List<Object[]> _rawConfigs = new ArrayList<>();
+
+    /**
+     * Name of the budget field of model parameters (e.g., "_ntrees"), and its value in every rung.
+     */
+    final private String _budgetParam;
+    final private double[] _budgets;
+
+    /**
+     * Only the best 1/eta of the models of a rung continue to the next one.
+     */
+    final private int _eta;
+    final private ScoreKeeper.StoppingMetric _metric;
+    final private boolean _useCheckpoints;
+
+    /**
+     * Prefix of model keys, model keys identify the configuration of a model.
+     */
+    final private String _modelIdPrefix;
+
+    /**
+     * @param params               Default parameters for model builder.
+     * @param hyperParams          Hyper space to search, as for {@link CartesianWalker}.
+     * @param paramsBuilderFactory defines a strategy for creating a new model parameters.
+     * @param budgetParam          name of the numeric model parameter holding the training budget,
+     *                             e.g., "_ntrees" or "_epochs"
+     * @param minBudget            budget of the first rung
+     * @param maxBudget            budget of the last rung
+     * @param eta                  reduction factor between rungs, at least 2
+     * @param metric               metric to rank models by
+     * @param useCheckpoints       continue the models of the next rung from the models of the
+     *                             previous rung (the algorithm has to support checkpoints)
+     * @param maxConfigs           max. number of configurations, sampled randomly from hyper space;
+     *                             0 for all of them
+     * @param seed                 seed of the sampling
+     */
+    public SuccessiveHalvingWalker(MP params,
+                                   Map<String, Object[]> hyperParams,
+                                   ModelParametersBuilderFactory<MP> paramsBuilderFactory,
+                                   String budgetParam,
+                                   double minBudget,
+                                   double maxBudget,
+                                   int eta,
+                                   ScoreKeeper.StoppingMetric metric,
+                                   boolean useCheckpoints,
+                                   int maxConfigs,
+                                   long seed) {
+      if (minBudget <= 0 || maxBudget < minBudget) {
+        throw new IllegalArgumentException("Budget must satisfy 0 < min. budget <= max. budget");
+      }
+      if (eta < 2) {
+        throw new IllegalArgumentException("Reduction factor eta must be at least 2");
+      }
+      _params = params;
+      _paramsBuilderFactory = paramsBuilderFactory;
+      _hyperParamNames = hyperParams.keySet().toArray(new String[0]);
+      _budgetParam = budgetParam;
+      _eta = eta;
+      _metric = metric;
+      _useCheckpoints = useCheckpoints;
+      _modelIdPrefix = H2O.calcNextUniqueModelId("SuccessiveHalving");
+      budgetField(params); // Fail early for a wrong budget parameter
+
+      // Budget of every rung
+      List<Double> budgets = new ArrayList<>();
+      for (double b = minBudget; b < maxBudget; b *= eta) {
+        budgets.add(b);
+      }
+      budgets.add(maxBudget);
+      _budgets = new double[budgets.size()];
+      for (int i = 0; i < _budgets.length; i++) {
+        _budgets[i] = budgets.get(i);
+      }
+
+      // All configurations of hyper space, then a random subset of them
+      HyperSpaceIterator<MP> it = new CartesianWalker<>(params, hyperParams, paramsBuilderFactory).iterator();
+      while (it.hasNext(null)) {
+        try {
+          MP config = it.nextModelParameters(null);
+          _configs.add(config);
+          _rawConfigs.add(it.getCurrentRawParameters());
+        } catch (IllegalArgumentException e) {
+          Log.warn("Successive halving: skipping hyper parameters " + Arrays.toString(it.getCurrentRawParameters()), e);
+        }
+      }
+      if (maxConfigs > 0 && maxConfigs < _configs.size()) {
+        long rseed = seed;
+        Collections.shuffle(_configs, new Random(rseed));
+        Collections.shuffle(_rawConfigs, new Random(rseed)); // Same permutation
+        _configs.subList(maxConfigs, _configs.size()).clear();
+        _rawConfigs.subList(maxConfigs, _rawConfigs.size()).clear();
+      }
+    }
+
+    @Override
+    public HyperSpaceIterator<MP> iterator() {
+
+      return new HyperSpaceIterator<MP>() {
+        /** Current rung, and the configurations trained in it. */
+        private int _rung = 0;
+        private int[] _alive = ArrayUtils.seq(0, _configs.size());
+        /** Model parameters produced, and results reported in the current rung. */
+        private int _issued = 0;
+        private int _reported = 0;
+        /** Score of every configuration in the current rung (NaN if its model failed). */
+        private final double[] _scores = new double[_configs.size()];
+        /** Last model of every configuration, to continue from. */
+        private final Key[] _models = new Key[_configs.size()];
+        /** Configuration of every model key which is being built. */
+        private final Map<Key, Integer> _building = new HashMap<>();
+        private int _current = -1;
+
+        @Override
+        public MP nextModelParameters(Model previousModel) {
+          if (!hasNext(previousModel)) {
+            throw new NoSuchElementException("No more elements to explore in hyper-space!");
+          }
+          int c = _current = _alive[_issued++];
+          MP params = (MP) _configs.get(c).clone();
+          setBudget(params, _budgets[_rung]);
+          if (_useCheckpoints && _models[c] != null) {
+            params._checkpoint = _models[c];
+          }
+          params._model_id = Key.make(_modelIdPrefix + "_c" + c + "_r" + _rung);
+          _building.put(params._model_id, c);
+          return params;
+        }
+
+        @Override
+        public boolean hasNext(Model previousModel) {
+          if (_issued < _alive.length) {
+            return true;
+          }
+          // Rung is over once all its models are built
+          if (_reported < _issued || _rung + 1 >= _budgets.length) {
+            return false;
+          }
+          return promote();
+        }
+
+        @Override
+        public void onModelBuilt(MP params, Model model) {
+          Integer c = params._model_id != null ? _building.remove(params._model_id) : null;
+          if (c == null) {
+            return;
+          }
+          _reported++;
+          _scores[c] = model != null ? score(model) : Double.NaN;
+          if (model != null) {
+            _models[c] = model._key;
+          }
+        }
+
+        @Override
+        public Object[] getCurrentRawParameters() {
+          return _current >= 0 ? _rawConfigs.get(_current) : new Object[_hyperParamNames.length];
+        }
+
+        // Move the best 1/eta configurations of this rung to the next one
+        private boolean promote() {
+          List<Integer> ranked = new ArrayList<>();
+          for (int c : _alive) {
+            if (!Double.isNaN(_scores[c])) {
+              ranked.add(c);
+            }
+          }
+          final boolean moreIsBetter = ScoreKeeper.moreIsBetter(_metric);
+          Collections.sort(ranked, new Comparator<Integer>() {
+            @Override
+            public int compare(Integer c1, Integer c2) {
+              int cmp = Double.compare(_scores[c1], _scores[c2]);
+              return moreIsBetter ? -cmp : cmp;
+            }
+          });
+          int keep = Math.min(ranked.size(), Math.max(1, _alive.length / _eta));
+          if (keep == 0) {
+            return false;
+          }
+          Log.info("Successive halving: rung " + _rung + " done, " + keep + " of " + _alive.length
+                   + " configurations continue with " + _budgetParam + " = " + _budgets[_rung + 1]);
+          _alive = new int[keep];
+          for (int i = 0; i < keep; i++) {
+            _alive[i] = ranked.get(i);
+          }
+          _rung++;
+          _issued = 0;
+          _reported = 0;
+          return true;
+        }
+      };
+    }
+
+    // Score of a model: its validation scores, or training scores if there is no validation frame
+    private double score(Model model) {
+      ModelMetrics mm = model._output._validation_metrics != null
+                        ? model._output._validation_metrics : model._output._training_metrics;
+      return mm != null ? new ScoreKeeper(mm).get(_metric) : Double.NaN;
+    }
+
+    private Field budgetField(MP params) {
+      try {
+        Field f = params.getClass().getField(_budgetParam);
+        Class<?> t = f.getType();
+        if (t != int.class && t != long.class && t != float.class && t != double.class) {
+          throw new IllegalArgumentException("Budget parameter '" + _budgetParam + "' is not numeric");
+        }
+        return f;
+      } catch (NoSuchFieldException e) {
+        throw new IllegalArgumentException("Cannot find budget parameter '" + _budgetParam + "'", e);
+      }
+    }
+
+    private void setBudget(MP params, double budget) {
+      Field f = budgetField(params);
+      try {
+        Class<?> t = f.getType();
+        if (t == int.class) {
+          f.setInt(params, (int) Math.round(budget));
+        } else if (t == long.class) {
+          f.setLong(params, Math.round(budget));
+        } else if (t == float.class) {
+          f.setFloat(params, (float) budget);
+        } else {
+          f.setDouble(params, budget);
+        }
+      } catch (IllegalAccessException e) {
+        throw new IllegalArgumentException("Cannot set budget parameter '" + _budgetParam + "'", e);
+      }
+    }
+
+    @Override
+    public String[] getHyperParamNames() {
+      return _hyperParamNames;
+    }
+
+    /**
+     * @return number of models built if every rung has models to promote
+     */
+    @Override
+    public int getHyperSpaceSize() {
+      int size = 0;
+      for (int i = 0, n = _configs.size(); i < _budgets.length && n > 0; i++, n = Math.max(1, n / _eta)) {
+        size += n;
+      }
+      return size;
+    }
+
+    @Override
+    public MP getParams() {
+      return _params;
+    }
+
+    @Override
+    public ModelParametersBuilderFactory<MP> getParametersBuilderFactory() {
+      return _paramsBuilderFactory;
+    }
+  }
+
   /**
    * FIXME : finish random walk
    */
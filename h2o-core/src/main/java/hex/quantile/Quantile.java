@@ -14,8 +14,10 @@ import water.fvec.Frame;
 import water.fvec.Vec;
 import water.util.ArrayUtils;
 import water.util.Log;
+import water.util.QuantileSketch;
 
 import java.util.Arrays;
+import java.util.Comparator;
 
 /**
  *  Quantile model builder... building a simple QuantileModel
@@ -77,35 +79,49 @@ public class Quantile extends ModelBuilder<QuantileModel,QuantileModel.QuantileP
         // ---
         // Run the main Quantile Loop
         Vec vecs[] = train().vecs();
-        for( int n=0; n<vecs.length; n++ ) {
-          if( !isRunning() ) return; // Stopped/cancelled
-          Vec vec = vecs[n];
-          if (vec.isBad()) {
-            model._output._quantiles[n] = new double[_parms._probs.length];
-            Arrays.fill(model._output._quantiles[n], Double.NaN);
-            continue;
-          }
-
-          // Compute top-level histogram
-          Histo h1 = new Histo(vec.min(),vec.max(),0,vec.length()-vec.naCnt(),vec.isInt()).doAll(vec);
-
-          // For each probability, see if we have it exactly - or else run
-          // passes until we do.
-          for( int p = 0; p < _parms._probs.length; p++ ) {
-            double prob = _parms._probs[p];
-            Histo h = h1;  // Start from the first global histogram
-
-            while( Double.isNaN(model._output._quantiles[n][p] = h.findQuantile(prob,_parms._combine_method)) )
-              h = h.refinePass(prob).doAll(vec); // Full pass at higher resolution
-
-            // Update the model
-            model._output._iterations++; // One iter per-prob-per-column
+        if( _parms._fused ) {
+          // All probabilities of all columns together, a few passes in total
+          MultiQuantile mq = new MultiQuantile(vecs,_parms._probs);
+          while( !mq.done() ) {
+            if( !isRunning() ) return; // Stopped/cancelled
+            mq.refine();        // One pass over all the columns
+            model._output._iterations++; // One iter per pass
             model.update(_key); // Update model in K/V store
-            update(1);          // One unit of work
           }
-          StringBuilder sb = new StringBuilder();
-          sb.append("Quantile: iter: ").append(model._output._iterations).append(" Qs=").append(Arrays.toString(model._output._quantiles[n]));
-          Log.info(sb);
+          model._output._quantiles = mq.quantiles(_parms._combine_method);
+          update(progressUnits()); // All the work at once
+          Log.info("Quantile: iter: "+model._output._iterations+" for "+vecs.length+" columns");
+        } else {
+          for( int n=0; n<vecs.length; n++ ) {
+            if( !isRunning() ) return; // Stopped/cancelled
+            Vec vec = vecs[n];
+            if (vec.isBad()) {
+              model._output._quantiles[n] = new double[_parms._probs.length];
+              Arrays.fill(model._output._quantiles[n], Double.NaN);
+              continue;
+            }
+
+            // Compute top-level histogram
+            Histo h1 = new Histo(vec.min(),vec.max(),0,vec.length()-vec.naCnt(),vec.isInt()).doAll(vec);
+
+            // For each probability, see if we have it exactly - or else run
+            // passes until we do.
+            for( int p = 0; p < _parms._probs.length; p++ ) {
+              double prob = _parms._probs[p];
+              Histo h = h1;  // Start from the first global histogram
+
+              while( Double.isNaN(model._output._quantiles[n][p] = h.findQuantile(prob,_parms._combine_method)) )
+                h = h.refinePass(prob).doAll(vec); // Full pass at higher resolution
+
+              // Update the model
+              model._output._iterations++; // One iter per-prob-per-column
+              model.update(_key); // Update model in K/V store
+              update(1);          // One unit of work
+            }
+            StringBuilder sb = new StringBuilder();
+            sb.append("Quantile: iter: ").append(model._output._iterations).append(" Qs=").append(Arrays.toString(model._output._quantiles[n]));
+            Log.info(sb);
+          }
         }
         done();                 // Job done!
       } catch( Throwable t ) {
@@ -276,6 +292,312 @@ public class Quantile extends ModelBuilder<QuantileModel,QuantileModel.QuantileP
     }
   }
 
+  // -------------------------------------------------------------------------
+
+  /** Exact quantiles of all the probabilities of all the columns together, in
+   *  a few passes rather than some passes per-probability-per-column.
+   *
+   *  The quantile sketches of the rollups (one pass for all the columns)
+   *  bracket the rows needed for every probability.  Then every pass bins all
+   *  the brackets of all the columns at once, and counts the rows in between
+   *  the brackets, which gives the row number of every bin: a row in a bin
+   *  holding a single value (or at either end of its bin) is found, else its
+   *  bin is the bracket of the next pass.  A bracket missing its row (the
+   *  sketch error is only probabilistically bounded) shows in these counts,
+   *  and is retried over the finite range of the column; so the rows, and
+   *  the quantiles computed from them, are exact.
+   *
+   *  <p>Infinities are left out of the sketches and of the brackets: the
+   *  rollups count them, so the rows in either infinite tail are known from
+   *  the start.
+   *
+   *  <p>A probability landing exactly on a row gives the value of that row,
+   *  whatever the combine method; the per-column passes may mix in the next
+   *  row for AVERAGE and HIGH, depending on their bin layout.
+   */
+  static final class MultiQuantile {
+    private static final int MAX_BINS = 1<<14; // Bins of all the brackets of a pass
+    private static final int MIN_BINS = 16;    // Min. bins of a bracket
+
+    private final Vec _vecs[];
+    private final double _probs[];
+    private final long _nrows[];        // Non-NA rows per column
+    private final long _rows[][];       // Sorted rows needed per column
+    private final double _vals[][];     // Values at these rows, once found
+    private final boolean _found[][];
+    private double _brackets[][];       // Sorted lo,hi,count,rows quads per column; null if all found
+
+    MultiQuantile( Vec vecs[], double probs[] ) {
+      _vecs = vecs;
+      _probs = probs;
+      int ncols = vecs.length;
+      _nrows = new long[ncols];
+      _rows = new long[ncols][];
+      _vals = new double[ncols][];
+      _found = new boolean[ncols][];
+      _brackets = new double[ncols][];
+      Vec.computeRollupStats(vecs); // The sketch pass: rollups of all columns at once
+      for( int c=0; c<ncols; c++ ) {
+        Vec vec = vecs[c];
+        long n = vec.isBad() || vec.isString() || vec.isUUID() ? 0 : vec.length()-vec.naCnt();
+        _nrows[c] = n;
+        long rows[] = new long[n == 0 ? 0 : 2*probs.length];
+        int k = 0;
+        for( int p=0; p<rows.length/2; p++ ) {
+          double p2 = probs[p]*(n-1); // Desired fractional row number for this probability
+          long r2 = (long)p2;
+          rows[k++] = r2;
+          if( r2 != p2 ) rows[k++] = r2+1;
+        }
+        Arrays.sort(rows,0,k);
+        int m = 0;              // Drop the duplicate rows
+        for( int i=0; i<k; i++ )
+          if( m == 0 || rows[i] != rows[m-1] ) rows[m++] = rows[i];
+        _rows[c] = Arrays.copyOf(rows,m);
+        _vals[c] = new double[m];
+        _found[c] = new boolean[m];
+        if( m == 0 ) continue;
+
+        // Rows in the infinite tails are known from the rollups
+        long ninfs = vec.ninfs(), nfinite = n-ninfs-vec.pinfs();
+        for( int i=0; i<m; i++ ) {
+          long row = _rows[c][i];
+          if( row < ninfs )              { _vals[c][i] = Double.NEGATIVE_INFINITY; _found[c][i] = true; }
+          else if( row >= ninfs+nfinite ) { _vals[c][i] = Double.POSITIVE_INFINITY; _found[c][i] = true; }
+        }
+
+        // Bracket every finite row by the sketch quantiles (of the finite
+        // values) a few rank errors away
+        QuantileSketch qs = vec.quantileSketch();
+        double err = qs.rankError()*nfinite+1;
+        double ps[] = new double[2*m];
+        k = 0;
+        for( int i=0; i<m; i++ ) {
+          if( _found[c][i] ) continue;
+          long row = _rows[c][i]-ninfs; // Rank among the finite values
+          ps[k++] = Math.max(0,(row-err)/Math.max(nfinite-1,1));
+          ps[k++] = Math.min(1,(row+err)/Math.max(nfinite-1,1));
+        }
+        if( k == 0 ) continue;
+        double lohi[] = qs.quantiles(Arrays.copyOf(ps,k));
+        if( vec.isInt() )
+          for( int i=0; i<k; i++ )
+            lohi[i] = (i&1)==0 ? Math.floor(lohi[i]) : Math.ceil(lohi[i]);
+        _brackets[c] = merge(lohi,Math.min(nfinite,2*(long)err+1));
+      }
+      if( !anyBrackets() ) _brackets = null;
+    }
+
+    /** @return True once all the needed rows are found */
+    boolean done() { return _brackets == null; }
+
+    /** One pass over all the columns with brackets left */
+    void refine() {
+      // Columns to pass over, and the bins of their brackets
+      int ncols = 0, nbrackets = 0;
+      long nneeded = 0;
+      for( double b[] : _brackets )
+        if( b != null ) {
+          ncols++;
+          for( int i=0; i<b.length; i+=4 ) { nbrackets++; nneeded += (long)b[i+2]; }
+        }
+      int cols[] = new int[ncols];
+      Vec vecs[] = new Vec[ncols];
+      int woff[] = new int[ncols+1];
+      double lbs[] = new double[nbrackets], steps[] = new double[nbrackets];
+      int boff[] = new int[nbrackets+1];
+      for( int c=0, j=0, w=0; c<_brackets.length; c++ ) {
+        double b[] = _brackets[c];
+        if( b == null ) continue;
+        cols[j] = c;
+        vecs[j] = _vecs[c];
+        for( int i=0; i<b.length; i+=4, w++ ) {
+          double lo = b[i], hi = b[i+1];
+          // Bins in proportion to the rows needed in the bracket, but no more
+          // than the rows the bracket holds
+          int nbins = (int)Math.max(1,Math.min(b[i+3],Math.max(MIN_BINS,MAX_BINS*b[i+2]/nneeded)));
+          boolean is_int = lo == hi || (_vecs[c].isInt() && hi-lo < nbins);
+          if( is_int ) nbins = (int)(hi-lo+1);
+          double ulp = Math.ulp(Math.max(Math.abs(lo),Math.abs(hi)));
+          lbs[w] = lo;
+          steps[w] = is_int ? 1 : (hi+ulp-lo)/nbins;
+          boff[w+1] = boff[w]+nbins;
+        }
+        woff[++j] = w;
+      }
+      MultiHisto h = new MultiHisto(woff,lbs,steps,boff).doAll(new Frame(vecs));
+
+      // Find the rows in the bins, or the next brackets
+      for( int j=0; j<ncols; j++ ) {
+        int c = cols[j];
+        Vec vec = _vecs[c];
+        int nw = woff[j+1]-woff[j];
+        long starts[] = new long[nw], ends[] = new long[nw]; // Row numbers of every bracket
+        long sum = 0;
+        for( int w=0; w<nw; w++ ) {
+          int gw = woff[j]+w;
+          sum += h._gaps[gw+j];
+          starts[w] = sum;
+          for( int x=boff[gw]; x<boff[gw+1]; x++ ) sum += h._bins[x];
+          ends[w] = sum;
+        }
+        double lohi[] = new double[2*_rows[c].length];
+        long rows[] = new long[_rows[c].length];
+        int k = 0;
+        for( int i=0; i<_rows[c].length; i++ ) {
+          if( _found[c][i] ) continue;
+          long row = _rows[c][i];
+          int w = 0;
+          while( w < nw && !(starts[w] <= row && row < ends[w]) ) w++;
+          if( w == nw ) {       // Missed by the bracket: retry over the finite values
+            rows[k>>1] = vec.length()-vec.naCnt()-vec.ninfs()-vec.pinfs();
+            lohi[k++] = h._lo[j];  lohi[k++] = h._hi[j];
+            continue;
+          }
+          int gw = woff[j]+w;
+          long s = starts[w];
+          int x = boff[gw];
+          while( row >= s+h._bins[x] ) s += h._bins[x++];
+          double min = h._mins[x], max = h._maxs[x];
+          if( min == max || row == s ) { _vals[c][i] = min; _found[c][i] = true; }
+          else if( row == s+h._bins[x]-1 ) { _vals[c][i] = max; _found[c][i] = true; }
+          else { rows[k>>1] = h._bins[x];  lohi[k++] = min;  lohi[k++] = max; } // Refine the bin
+        }
+        _brackets[c] = k == 0 ? null : merge(Arrays.copyOf(lohi,k),rows);
+      }
+      if( !anyBrackets() ) _brackets = null;
+    }
+
+    private boolean anyBrackets() {
+      for( double b[] : _brackets ) if( b != null ) return true;
+      return false;
+    }
+
+    /** @return The quantiles of every column, once {@link #done} */
+    double[][] quantiles( QuantileModel.CombineMethod method ) {
+      assert done();
+      double qs[][] = new double[_vecs.length][_probs.length];
+      for( int c=0; c<_vecs.length; c++ ) {
+        long n = _nrows[c];
+        for( int p=0; p<_probs.length; p++ ) {
+          if( n == 0 ) { qs[c][p] = Double.NaN; continue; }
+          double prob = _probs[p];
+          double p2 = prob*(n-1);
+          long r2 = (long)p2;
+          double lo = _vals[c][Arrays.binarySearch(_rows[c],r2)];
+          qs[c][p] = r2 == p2 ? lo : computeQuantile(lo,_vals[c][Arrays.binarySearch(_rows[c],r2+1)],r2,n,prob,method);
+        }
+      }
+      return qs;
+    }
+
+    // Sort lo,hi pairs by lo, and merge the overlapping ones; the result has
+    // lo,hi,count,rows quads, with the count of pairs merged in, and a bound
+    // on the rows they hold
+    private static double[] merge( double lohi[], long rows ) {
+      long rs[] = new long[lohi.length/2];
+      Arrays.fill(rs,rows);
+      return merge(lohi,rs);
+    }
+    private static double[] merge( double lohi[], long rows[] ) {
+      int n = lohi.length/2;
+      Integer idx[] = new Integer[n];
+      for( int i=0; i<n; i++ ) idx[i] = i;
+      final double[] ds = lohi;
+      Arrays.sort(idx,new Comparator<Integer>() {
+        @Override public int compare( Integer a, Integer b ) { return Double.compare(ds[2*a],ds[2*b]); }
+      });
+      double res[] = new double[4*n];
+      int k = 0;
+      for( int i : idx ) {
+        double lo = lohi[2*i], hi = lohi[2*i+1];
+        if( k > 0 && lo <= res[k-3] ) { // Overlaps the last bracket
+          res[k-3] = Math.max(res[k-3],hi);
+          res[k-2]++;
+          res[k-1] += rows[i];
+        } else { res[k++] = lo;  res[k++] = hi;  res[k++] = 1;  res[k++] = rows[i]; }
+      }
+      return Arrays.copyOf(res,k);
+    }
+  }
+
+  /** Bins of the brackets of many columns, like {@link Histo}, the counts of
+   *  the rows in between the brackets, and the finite range of every column */
+  private static class MultiHisto extends MRTask<MultiHisto> {
+    // Brackets, sorted and disjoint within a column
+    private final int _woff[/*ncols+1*/]; // Brackets of column j: _woff[j] until _woff[j+1]
+    private final double _lbs[/*W*/];     // Lower bound of bin[0] per bracket
+    private final double _steps[/*W*/];   // Step-size per-bin per bracket
+    private final int _boff[/*W+1*/];     // Bins of bracket w: _boff[w] until _boff[w+1]
+
+    // Big Data output result
+    long   _gaps[/*W+ncols*/]; // Rows below bracket w of column j at w+j; above the last one at _woff[j+1]+j
+    long   _bins[/*nbins*/];   // Rows in each bin
+    double _mins[/*nbins*/];   // Smallest element in bin
+    double _maxs[/*nbins*/];   // Largest  element in bin
+    double _lo[/*ncols*/];     // Smallest finite element per column
+    double _hi[/*ncols*/];     // Largest  finite element per column
+
+    MultiHisto( int woff[], double lbs[], double steps[], int boff[] ) {
+      _woff = woff; _lbs = lbs; _steps = steps; _boff = boff;
+    }
+
+    @Override public void map( Chunk cs[] ) {
+      int nbins = _boff[_boff.length-1];
+      long   gaps[] = _gaps = new long[_lbs.length+cs.length];
+      long   bins[] = _bins = new long  [nbins];
+      double mins[] = _mins = new double[nbins];
+      double maxs[] = _maxs = new double[nbins];
+      Arrays.fill(_mins, Double.MAX_VALUE);
+      Arrays.fill(_maxs,-Double.MAX_VALUE);
+      double los[] = _lo = new double[cs.length];
+      double his[] = _hi = new double[cs.length];
+      Arrays.fill(_lo, Double.MAX_VALUE);
+      Arrays.fill(_hi,-Double.MAX_VALUE);
+      for( int j=0; j<cs.length; j++ ) {
+        Chunk chk = cs[j];
+        int w0 = _woff[j], w1 = _woff[j+1];
+        double d;
+        for( int row=0; row<chk._len; row++ ) {
+          if( Double.isNaN(d = chk.atd(row)) ) continue; // na.rm=true
+          if( !Double.isInfinite(d) ) {
+            if( d < los[j] ) los[j] = d;
+            if( d > his[j] ) his[j] = d;
+          }
+          // Last bracket starting at or below d, by binary search
+          int lo = w0, hi = w1;
+          while( lo < hi ) {
+            int mid = (lo+hi)>>>1;
+            if( _lbs[mid] <= d ) lo = mid+1; else hi = mid;
+          }
+          int w = lo-1;
+          double idx = w < w0 ? -1 : (d - _lbs[w]) / _steps[w];
+          if( 0.0 <= idx && idx < _boff[w+1]-_boff[w] ) {
+            int i = _boff[w]+(int)idx;
+            if( bins[i] == 0 ) mins[i] = maxs[i] = d; // Capture unique value
+            else {
+              if( d < mins[i] ) mins[i] = d;
+              if( d > maxs[i] ) maxs[i] = d;
+            }
+            bins[i]++;          // Bump row counts
+          } else gaps[w+1+j]++; // Below bracket w+1
+        }
+      }
+    }
+    @Override public void reduce( MultiHisto h ) {
+      for( int i=0; i<_bins.length; i++ ) { // Keep min/max
+        if( _mins[i] > h._mins[i] ) _mins[i] = h._mins[i];
+        if( _maxs[i] < h._maxs[i] ) _maxs[i] = h._maxs[i];
+      }
+      for( int j=0; j<_lo.length; j++ ) {
+        if( _lo[j] > h._lo[j] ) _lo[j] = h._lo[j];
+        if( _hi[j] < h._hi[j] ) _hi[j] = h._hi[j];
+      }
+      ArrayUtils.add(_bins,h._bins);
+      ArrayUtils.add(_gaps,h._gaps);
+    }
+  }
+
   /** Compute the correct final quantile from these 4 values.  If the lo and hi
    *  elements are equal, use them.  However if they differ, then there is no
    *  single value which exactly matches the desired quantile.  There are
@@ -13,6 +13,11 @@ public class QuantileModel extends Model<QuantileModel,QuantileModel.QuantilePar
     // Set of probabilities to compute
     public double _probs[/*Q*/] = new double[]{0.001,0.01,0.1,0.25,0.333,0.50,0.667,0.75,0.9,0.99,0.999};
     public CombineMethod _combine_method = CombineMethod.INTERPOLATE;
+    // Compute all probabilities of all columns together, in a few passes
+    // bracketed by the rollup quantile sketches, rather than in some passes
+    // per-probability-per-column.  Opt-in: a probability landing exactly on a
+    // row always gives that row's value, also for AVERAGE and HIGH
+    public boolean _fused = false;
     protected boolean defaultDropConsCols() { return false; }
   }
 
@@ -528,7 +528,7 @@ public /* final */ class AutoBuffer {
       water.init.NetworkInit.multicast(_bb, _priority);
     } else {                    // Else single-cast send
       if(H2O.ARGS.useUDP)
-        water.init.NetworkInit.CLOUD_DGRAM.send(_bb, _h2o._key);
+        UDPBatch.send(_h2o, _bb);
       else
         _h2o.sendMessage(_sentMsg = H2OSmallMessage.make(_bb,_priority));
     }
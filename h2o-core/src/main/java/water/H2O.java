@@ -136,6 +136,11 @@ final public class H2O {
             "    -client\n" +
             "          Launch H2O node in client mode.\n" +
             "\n" +
+            "    -nio_threads <#threads>\n" +
+            "          Serve small node-to-node messages from this many selector\n" +
+            "          threads instead of a sender and a reader thread per peer.\n" +
+            "          (The default is 0, thread per peer.)\n" +
+            "\n" +
             "Cloud formation behavior:\n" +
             "\n" +
             "    New H2O nodes join together to form a cloud at startup time.\n" +
@@ -273,6 +278,9 @@ final public class H2O {
     public ModelBuilder.BuilderVisibility model_builders_visibility = ModelBuilder.BuilderVisibility.Stable;
     public boolean useUDP = false;
 
+    /** -nio_threads=nio_threads; Selector threads serving small messages; 0 for a thread per peer */
+    public int nio_threads = 0;
+
     @Override public String toString() {
       StringBuilder result = new StringBuilder();
 
@@ -474,6 +482,9 @@ final public class H2O {
         ARGS.model_builders_visibility = ModelBuilder.BuilderVisibility.Experimental;
       } else if(s.matches("useUDP")) {
           ARGS.useUDP = true;
+      } else if (s.matches("nio_threads")) {
+        i = s.incrementAndCheck(i, args);
+        ARGS.nio_threads = s.parseInt(args[i]);
       } else {
         parseFailed("Unknown argument (" + s + ")");
       }
@@ -1295,6 +1306,7 @@ final public class H2O {
 
     // Create the starter Cloud with 1 member
     SELF._heartbeat._jar_md5 = JarHash.JARHASH;
+    SELF._heartbeat._typemap_hash = TypeMap.PRECOOKED_HASH;
     SELF._heartbeat._client = ARGS.client;
   }
 
@@ -1303,6 +1315,8 @@ final public class H2O {
   private static void startNetworkServices() {
     // We've rebooted the JVM recently. Tell other Nodes they can ignore task
     // prior tasks by us. Do this before we receive any packets
+    if(NIOTransport.enabled())
+      NIOTransport.start();
     UDPRebooted.T.reboot.broadcast();
 
     // Start the UDPReceiverThread, to listen for requests from other Cloud
@@ -1512,6 +1526,9 @@ final public class H2O {
     // If the K/V mapping is changing, let the store cleaner just overwrite.
     // If the K/V mapping is new, let the store cleaner just create
     if( old != null && val == null ) old.removePersist(); // Remove the old guy
+    // A model gone from its home: drop what the nodes cached from it
+    if( old != null && (val == null || val.isNull()) && key.home() && !old.isNull() && old.isModel() )
+      hex.Model.removedFromDKV(key);
     if( val != null ) {
       Cleaner.dirty_store(); // Start storing the new guy
       if( old==null ) Scope.track(key); // New Key - start tracking
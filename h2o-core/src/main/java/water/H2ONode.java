@@ -16,6 +16,7 @@ import java.util.Collection;
 import java.util.Enumeration;
 import java.util.List;
 import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import water.RPC.RPCCall;
@@ -231,7 +232,7 @@ public class H2ONode extends Iced<H2ONode> implements Comparable {
    */
   public static class H2OSmallMessage implements Comparable<H2OSmallMessage> {
     private int _priority;
-    final private byte [] _data;
+    final byte [] _data;
 
     public H2OSmallMessage(byte[] data, int priority) {
       _data = data;
@@ -275,7 +276,7 @@ public class H2ONode extends Iced<H2ONode> implements Comparable {
   }
 
 
-  private final PriorityBlockingQueue<H2OSmallMessage> _msgQ = new PriorityBlockingQueue<>();
+  final PriorityBlockingQueue<H2OSmallMessage> _msgQ = new PriorityBlockingQueue<>();
 
   /**
    * Private thread serving (actually ships the bytes over) small msg Q.
@@ -283,6 +284,8 @@ public class H2ONode extends Iced<H2ONode> implements Comparable {
    */
   private class UDP_TCP_SendThread extends Thread {
     private final ByteBuffer _bb;
+    private int _msgs;          // Messages in _bb
+    private long _first;        // nanoTime the first one was taken
 
     public UDP_TCP_SendThread(){
       super("UDP-TCP-SEND-" + H2ONode.this);
@@ -328,6 +331,8 @@ public class H2ONode extends Iced<H2ONode> implements Comparable {
           }
           while (_bb.hasRemaining())
             _rawChannel.write(_bb);
+          UDPBatch.record(_msgs, sz, System.nanoTime() - _first);
+          _msgs = 0;
           _bb.position(0);
           _bb.limit(_bb.capacity());
           return;
@@ -350,13 +355,20 @@ public class H2ONode extends Iced<H2ONode> implements Comparable {
         while (true) {
           try {
             H2OSmallMessage m = _msgQ.take();
+            long deadline = System.nanoTime() + UDPBatch.LINGER_US*1000L;
             while (m != null) {
               if (m._data.length > _bb.capacity())
                 H2O.fail("Small message larger than the buffer");
               if (_bb.remaining() < m._data.length)
                 sendBuffer();
+              if (_msgs++ == 0) _first = System.nanoTime();
               _bb.put(m._data);
               m = _msgQ.poll();
+              // Linger a little for more messages while the batch is small
+              if (m == null && UDPBatch.LINGER_US > 0 && _bb.position() < UDPBatch.BATCH_BYTES) {
+                long wait = deadline - System.nanoTime();
+                if (wait > 0) m = _msgQ.poll(wait, TimeUnit.NANOSECONDS);
+              }
             }
             sendBuffer();
           } catch (InterruptedException e) {
@@ -379,6 +391,10 @@ public class H2ONode extends Iced<H2ONode> implements Comparable {
    */
   public void sendMessage(H2OSmallMessage msg) {
     _msgQ.put(msg);
+    if(NIOTransport.enabled()) {  // Served by a selector loop instead of a sender thread
+      NIOTransport.send(this);
+      return;
+    }
     if(_sendThread == null) synchronized(this) {
       if(_sendThread == null)
         (_sendThread = new UDP_TCP_SendThread()).start();
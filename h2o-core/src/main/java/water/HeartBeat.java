@@ -16,6 +16,7 @@ public class HeartBeat extends Iced<HeartBeat> {
   long _jvm_boot_msec;   // Boot time of JVM
   public long jvmBootTimeMsec(){return _jvm_boot_msec;}
   byte[] _jar_md5;       // JAR file digest
+  int _typemap_hash;     // Hash of the build-time type ID table
   public char _num_cpus; // Number of CPUs for this Node, limit of 65535
   public double _gflops;        // Number of GFlops for this node
   public double _membw;         // Memory bandwidth in GB/s
@@ -52,6 +53,11 @@ public class HeartBeat extends Iced<HeartBeat> {
   public long get_max_disk ()  { return  ((long)_max_disk)<<20 ; }
 
   boolean check_jar_md5() {
+    // Even mingled builds have to agree on the pre-cooked type IDs
+    if( _typemap_hash != TypeMap.PRECOOKED_HASH ) {
+      System.out.println("Type ID table check fails; my hash="+TypeMap.PRECOOKED_HASH+", received hash="+_typemap_hash);
+      return false;
+    }
     if( H2O.ARGS.md5skip || Arrays.equals(JarHash.JARHASH, _jar_md5) ) return true;
     System.out.println("Jar check fails; my hash="+Arrays.toString(JarHash.JARHASH));
     System.out.println("Jar check fails; received hash="+Arrays.toString(_jar_md5));
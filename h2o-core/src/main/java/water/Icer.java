@@ -19,6 +19,12 @@ public class Icer<T extends Freezable> {
   protected void copyOver( T dst, T src ) { /*base of the call chain; no fields to copy*/ }
   protected int frozenType() { throw fail(); }
   protected String className() { throw fail(); }
+  // Unsafe offset of an Iced field, looked up by the static initializer of
+  // auto-gen'd Icers which cannot access the field directly
+  protected static long fieldOffset( Class clz, String fld ) {
+    try { return _unsafe.objectFieldOffset(clz.getDeclaredField(fld)); }
+    catch( NoSuchFieldException e ) { throw new RuntimeException(e); }
+  }
   private RuntimeException fail() {
     return new RuntimeException(getClass().toString()+" should be automatically overridden by the auto-serialization code");
   }
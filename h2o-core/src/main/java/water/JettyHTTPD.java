@@ -10,6 +10,10 @@ import org.eclipse.jetty.server.handler.HandlerCollection;
 import org.eclipse.jetty.server.handler.HandlerWrapper;
 import org.eclipse.jetty.servlet.ServletContextHandler;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.EOFException;
 import java.io.FileNotFoundException;
 import java.io.IOException;
@@ -236,6 +240,7 @@ public class JettyHTTPD {
     context.addServlet(H2oPostFileServlet.class, "/3/PostFile");
     context.addServlet(H2oDatasetServlet.class,   "/3/DownloadDataset");
     context.addServlet(H2oDatasetServlet.class,   "/3/DownloadDataset.bin");
+    context.addServlet(H2oScoreBinServlet.class,  "/3/Score.bin/*");
     context.addServlet(H2oDefaultServlet.class,  "/");
 
     Handler[] handlers = {gh, rhh, eh1, context};
@@ -416,6 +421,68 @@ public class JettyHTTPD {
     }
   }
 
+  /** Low-latency scoring of a few rows, in binary, through {@link hex.OnlineScorer}.
+   *  POST /3/Score.bin/&lt;model_id&gt;, with a body of big-endian: int nrows,
+   *  int ncols, then nrows*ncols doubles - the rows, in the model's column
+   *  order (categoricals as level indices, NaN for NA), with the offset last
+   *  if the model has one.  The reply is: int nrows, int npreds, then
+   *  nrows*npreds doubles - the predicted label (or value), then the class
+   *  probabilities of every row. */
+  public static class H2oScoreBinServlet extends HttpServlet {
+    @Override
+    protected void doPost(HttpServletRequest request,
+                          HttpServletResponse response) throws IOException, ServletException {
+      String uri = getDecodedUri(request);
+      try {
+        Pattern p = Pattern.compile(".*/Score.bin/(.+)");
+        Matcher m = p.matcher(uri);
+        if (!m.matches()) {
+          setResponseStatus(response, HttpServletResponse.SC_BAD_REQUEST);
+          response.getWriter().write("Improperly formatted URI");
+          return;
+        }
+        hex.OnlineScorer scorer = hex.OnlineScorer.get(Key.make(m.group(1)));
+
+        DataInputStream is = new DataInputStream(new BufferedInputStream(request.getInputStream()));
+        int nrows = is.readInt(), ncols = is.readInt();
+        if (ncols != scorer.ncols())
+          throw new IllegalArgumentException("Rows must have " + scorer.ncols() + " values, not " + ncols);
+        // The rows are allocated before they are read: bound the count, and
+        // check it against the body when its length is known
+        int len = request.getContentLength();
+        if (nrows < 0 || nrows > hex.OnlineScorer.MAX_ROWS)
+          throw new IllegalArgumentException("Row count must be from 0 to " + hex.OnlineScorer.MAX_ROWS + ", not " + nrows);
+        if (len >= 0 && len != 8 + 8L * nrows * ncols)
+          throw new IllegalArgumentException("Body of " + len + " bytes does not hold " + nrows + " rows of " + ncols + " values");
+        double[][] rows = new double[nrows][ncols];
+        for (double[] row : rows)
+          for (int c = 0; c < ncols; c++)
+            row[c] = is.readDouble();
+
+        double[][] preds = scorer.score(rows);
+
+        int npreds = scorer.predictionNames().length;
+        response.setContentType("application/octet-stream");
+        long outLen = 8 + 8L * nrows * npreds;
+        if (outLen <= Integer.MAX_VALUE) response.setContentLength((int) outLen);
+        setResponseStatus(response, HttpServletResponse.SC_OK);
+        DataOutputStream os = new DataOutputStream(new BufferedOutputStream(response.getOutputStream()));
+        os.writeInt(nrows);
+        os.writeInt(npreds);
+        for (double[] pred : preds)
+          for (int c = 0; c < npreds; c++)
+            os.writeDouble(pred[c]);
+        os.flush();
+      }
+      catch (Exception e) {
+        sendErrorResponse(response, e, uri);
+      }
+      finally {
+        logRequest("POST", request, response);
+      }
+    }
+  }
+
   private static InputStream extractPartInputStream (HttpServletRequest request, HttpServletResponse response) throws IOException{
     String ct = request.getContentType();
     if (! ct.startsWith("multipart/form-data")) {
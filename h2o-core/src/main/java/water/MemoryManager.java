@@ -52,6 +52,10 @@ abstract public class MemoryManager {
   // threshold - which is limited in size to the old-gen pool size.
   static long MEM_CRITICAL = HEAP_USAGE_MONITOR._gc_callback;
 
+  // Cap on the K/V cache below the heap-derived goal, or -1 for none.  A small
+  // cap forces cold Values out to the ICE root; used to test spilling.
+  static volatile long CACHE_MAX = Long.getLong("h2o.cache.max_bytes", -1);
+
   // Block allocations?
   private static volatile boolean CAN_ALLOC = true;
   private static volatile boolean MEM_LOW_CRITICAL = false;
@@ -82,6 +86,13 @@ abstract public class MemoryManager {
   }
   static boolean canAlloc() { return CAN_ALLOC; }
 
+  /** Cap this node's K/V cache at bytes, or -1 to lift the cap; the Cleaner
+   *  spills anything above it to the ICE root. */
+  public static void setCacheMax( long bytes ) {
+    CACHE_MAX = bytes;
+    set_goals("cache cap",false);
+  }
+
   static void set_goals( String msg, boolean oom){
     set_goals(msg, oom, 0);
   }
@@ -117,6 +128,7 @@ abstract public class MemoryManager {
     while( (age-=5000) > 0 ) p = p-(p>>3); // Decay effective POJO by 1/8th every 5sec
     d -= 2*p - bytes; // Allow for the effective POJO, and again to throttle GC rate
     d = Math.max(d,MEM_MAX>>3); // Keep at least 1/8th heap
+    if( CACHE_MAX >= 0 ) d = Math.min(d,CACHE_MAX); // ...unless capped lower
     if( Cleaner.DESIRED != -1 ) // Set to -1 only for OOM/Cleaner testing.  Never negative normally
       Cleaner.DESIRED = d;
 
@@ -197,20 +209,18 @@ abstract public class MemoryManager {
      * Limit to touching global vars in the Boot class.
      */
     @Override public void handleNotification(Notification notification, Object handback) {
-      // TODO:  re-enable when this works.
-
-//      String notifType = notification.getType();
-//      if( notifType.equals(MemoryNotificationInfo.MEMORY_COLLECTION_THRESHOLD_EXCEEDED)) {
-//        // Memory used after this FullGC
-//        Cleaner.TIME_AT_LAST_GC = System.currentTimeMillis();
-//        Cleaner.HEAP_USED_AT_LAST_GC = _allMemBean.getHeapMemoryUsage().getUsed();
-//        MEM_LOW_CRITICAL = Cleaner.HEAP_USED_AT_LAST_GC > (MEM_MAX - (MEM_MAX >> 2));
-//        if( Cleaner.HEAP_USED_AT_LAST_GC > (MEM_MAX - (MEM_MAX >> 1))) { // emergency measure - really low on memory, stop allocations right now!
-//          setMemLow();
-//        } else // enable new allocations (even if cleaner is still running, we have enough RAM)
-//          setMemGood();
-//        Cleaner.kick_store_cleaner();
-//      }
+      String notifType = notification.getType();
+      if( notifType.equals(MemoryNotificationInfo.MEMORY_COLLECTION_THRESHOLD_EXCEEDED)) {
+        // Memory used after this FullGC
+        Cleaner.TIME_AT_LAST_GC = System.currentTimeMillis();
+        Cleaner.HEAP_USED_AT_LAST_GC = _allMemBean.getHeapMemoryUsage().getUsed();
+        MEM_LOW_CRITICAL = Cleaner.HEAP_USED_AT_LAST_GC > (MEM_MAX - (MEM_MAX >> 2));
+        if( Cleaner.HEAP_USED_AT_LAST_GC > (MEM_MAX - (MEM_MAX >> 1))) { // emergency measure - really low on memory, stop allocations right now!
+          setMemLow();
+        } else // enable new allocations (even if cleaner is still running, we have enough RAM)
+          setMemGood();
+        Cleaner.kick_store_cleaner();
+      }
     }
   }
 
@@ -0,0 +1,316 @@
+package water;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import water.H2ONode.H2OSmallMessage;
+import water.nbhm.NonBlockingHashMap;
+import water.util.Log;
+
+/**
+ * Selector-based transport for small messages; enabled with
+ * {@code -nio_threads <n>}.
+ *
+ * The classic transport runs a UDP_TCP_SendThread per peer and a
+ * UDP_TCP_ReaderThread per inbound connection, so large clouds carry
+ * hundreds of mostly idle threads.  Here a fixed pool of event loops, each
+ * with its own Selector, serves every small-message connection.  Reads are
+ * non-blocking and re-assemble frames (2B size, body, 0xef EOM) across
+ * partial reads.  Writes drain the peer's priority queue into one buffer, so
+ * messages queued while a write is in flight go out together.
+ *
+ * The wire format is unchanged, so nodes running either transport
+ * interoperate.  Large messages still stream over blocking sockets with a
+ * reader thread each, since AutoBuffer deserializes them by pulling from the
+ * channel.
+ */
+public class NIOTransport {
+  /** True if small messages go through the selector loops. */
+  public static boolean enabled() { return H2O.ARGS.nio_threads > 0; }
+
+  // Counters; local to this node
+  static final AtomicLong MSGS_SENT = new AtomicLong(), WRITES = new AtomicLong();
+  static final AtomicLong BYTES_SENT = new AtomicLong(), MSGS_RECV = new AtomicLong();
+
+  public static String stats() {
+    long msgs = MSGS_SENT.get(), writes = WRITES.get();
+    return "NIO transport: msgs sent=" + msgs + ", bytes sent=" + BYTES_SENT.get() +
+      ", socket writes=" + writes + " (" + (writes == 0 ? 0 : msgs/writes) + " msgs/write), msgs received=" + MSGS_RECV.get();
+  }
+
+  private static volatile Loop[] LOOPS;
+  private static final AtomicInteger NEXT = new AtomicInteger();
+  private static final NonBlockingHashMap<H2ONode,Peer> PEERS = new NonBlockingHashMap<>();
+
+  /** Start the event loops.  Called at startup; also lazily by the first
+   *  message, if any go out earlier. */
+  static synchronized void start() {
+    if( LOOPS != null ) return;
+    Loop[] loops = new Loop[H2O.ARGS.nio_threads];
+    try {
+      for( int i=0; i<loops.length; i++ ) loops[i] = new Loop(i);
+    } catch( IOException ioe ) {
+      throw H2O.fail("Unable to open a Selector",ioe);
+    }
+    for( Loop l : loops ) l.start();
+    LOOPS = loops;
+  }
+
+  private static Loop[] loops() {
+    Loop[] loops = LOOPS;
+    if( loops == null ) { start(); loops = LOOPS; }
+    return loops;
+  }
+
+  /** Messages are waiting in the node's queue; have its loop send them. */
+  static void send( H2ONode h2o ) {
+    Peer p = PEERS.get(h2o);
+    if( p == null ) {
+      Loop[] loops = loops();
+      Peer p2 = new Peer(h2o,loops[(h2o._unique_idx&0x7FFF) % loops.length]);
+      p = PEERS.putIfAbsent(h2o,p2);
+      if( p == null ) p = p2;
+    }
+    if( p._queued.compareAndSet(false,true) ) p._loop.schedule(p);
+  }
+
+  /** Serve an accepted small-message connection from a loop. */
+  static void accept( H2ONode h2o, SocketChannel chan ) throws IOException {
+    chan.configureBlocking(false);
+    Loop[] loops = loops();
+    Loop l = loops[(NEXT.getAndIncrement()&0x7FFFFFFF) % loops.length];
+    l._accepted.add(new Reader(h2o,chan));
+    l._sel.wakeup();
+  }
+
+  // One Selector and its thread.  Channels are registered, and Peer/Reader
+  // state touched, only from this thread.
+  private static final class Loop extends Thread {
+    final Selector _sel;
+    final ConcurrentLinkedQueue<Peer> _ready = new ConcurrentLinkedQueue<>();
+    final ConcurrentLinkedQueue<Reader> _accepted = new ConcurrentLinkedQueue<>();
+    final ArrayList<Peer> _delayed = new ArrayList<>(); // Waiting to reconnect
+
+    Loop( int i ) throws IOException {
+      super("NIO-" + i);
+      setDaemon(true);
+      setPriority(MAX_PRIORITY-1);
+      _sel = Selector.open();
+    }
+
+    void schedule( Peer p ) { _ready.add(p); _sel.wakeup(); }
+
+    @Override public void run() {
+      ArrayList<Peer> due = new ArrayList<>();
+      while( true ) {
+        try {
+          // Reconnect peers whose back-off expired; else sleep until the first does
+          long now = System.currentTimeMillis(), timeout = 0;
+          for( Iterator<Peer> it = _delayed.iterator(); it.hasNext(); ) {
+            Peer p = it.next();
+            if( p._retryAt <= now ) { it.remove(); due.add(p); }
+            else timeout = timeout == 0 ? p._retryAt-now : Math.min(timeout,p._retryAt-now);
+          }
+          for( Peer p : due ) { p._retryAt = 0; p.flush(); }
+          if( !due.isEmpty() ) { due.clear(); continue; }
+
+          _sel.select(timeout);
+          Reader r;
+          while( (r = _accepted.poll()) != null )
+            r._chan.register(_sel,SelectionKey.OP_READ,r);
+          Peer p;
+          while( (p = _ready.poll()) != null )
+            p.flush();
+          Iterator<SelectionKey> it = _sel.selectedKeys().iterator();
+          while( it.hasNext() ) {
+            SelectionKey k = it.next();
+            it.remove();
+            if( !k.isValid() ) continue;
+            Object a = k.attachment();
+            if( a instanceof Reader ) ((Reader)a).read(k);
+            else if( k.isConnectable() ) ((Peer)a).finishConnect();
+            else ((Peer)a).flush();
+          }
+        } catch( Throwable t ) {
+          Log.err("Unexpected error in NIO loop " + getName());
+          Log.err(t);
+        }
+      }
+    }
+  }
+
+  // Outbound small-message connection to one node
+  private static final class Peer {
+    final H2ONode _h2o;
+    final Loop _loop;
+    final AtomicBoolean _queued = new AtomicBoolean(); // Scheduled with the loop
+    final ByteBuffer _bb = AutoBuffer.BBP_BIG.make(); // Batch being written, in read mode
+    final ByteBuffer _hdr = ByteBuffer.allocate(4).order(ByteOrder.nativeOrder());
+    H2OSmallMessage _next;      // Did not fit the last batch
+    SocketChannel _chan;
+    SelectionKey _key;
+    long _retryAt;
+    int _retries, _sleep;
+
+    Peer( H2ONode h2o, Loop loop ) {
+      _h2o = h2o;
+      _loop = loop;
+      _bb.limit(0);
+    }
+
+    // Write what we can; leaves interest in OP_WRITE if the socket is full
+    void flush() {
+      if( _retryAt != 0 ) return; // Flushed again after the back-off
+      try {
+        if( _chan == null && !connect() ) return; // Flushed again once connected
+        if( _chan.isConnectionPending() ) return;
+        if( _hdr.hasRemaining() ) {
+          _chan.write(_hdr);
+          if( _hdr.hasRemaining() ) { _key.interestOps(SelectionKey.OP_WRITE); return; }
+        }
+        while( true ) {
+          if( !_bb.hasRemaining() ) {
+            _queued.set(false); // Messages queued from here on reschedule us
+            if( !fill() ) { _key.interestOps(0); return; }
+          }
+          BYTES_SENT.addAndGet(_chan.write(_bb));
+          WRITES.incrementAndGet();
+          if( _bb.hasRemaining() ) { _key.interestOps(SelectionKey.OP_WRITE); return; }
+        }
+      } catch( IOException ioe ) {
+        failed(ioe);
+      }
+    }
+
+    // Pack queued messages, highest priority first, into the send buffer
+    private boolean fill() {
+      _bb.clear();
+      int n = 0;
+      H2OSmallMessage m;
+      while( (m = _next != null ? _next : _h2o._msgQ.poll()) != null ) {
+        _next = null;
+        assert m._data.length <= _bb.capacity() : "Small message larger than the buffer";
+        if( _bb.remaining() < m._data.length ) { _next = m; break; }
+        _bb.put(m._data);
+        n++;
+      }
+      _bb.flip();
+      MSGS_SENT.addAndGet(n);
+      if( n > 0 ) UDPBatch.record(n,_bb.limit(),0);
+      return _bb.hasRemaining();
+    }
+
+    private boolean connect() throws IOException {
+      SocketChannel sock = SocketChannel.open();
+      boolean done;
+      SelectionKey key;
+      try {
+        sock.socket().setReuseAddress(true);
+        sock.socket().setSendBufferSize(AutoBuffer.BBP_BIG.size());
+        sock.socket().setTcpNoDelay(true);
+        sock.configureBlocking(false);
+        // A non-blocking connect may still fail right away, e.g. refused
+        done = sock.connect(new InetSocketAddress(_h2o._key.getAddress(),_h2o._key.getPort()));
+        key = sock.register(_loop._sel,done ? 0 : SelectionKey.OP_CONNECT,this);
+      } catch( IOException ioe ) {
+        try { sock.close(); } catch( IOException ignore ) { }
+        throw ioe;
+      }
+      _chan = sock;
+      _key = key;
+      _hdr.clear();
+      _hdr.put((byte)1).putChar((char)H2O.H2O_PORT).put((byte)0xef).flip();
+      _bb.position(0);          // Resend a partly written batch in full, as the classic sender does
+      return done;
+    }
+
+    void finishConnect() {
+      try {
+        if( !_chan.finishConnect() ) return;
+      } catch( IOException ioe ) {
+        failed(ioe);
+        return;
+      }
+      _key.interestOps(0);
+      _retries = _sleep = 0;
+      flush();
+    }
+
+    // Close the connection, if any, and reconnect after a back-off
+    private void failed( IOException ioe ) {
+      boolean connecting = _chan == null || !_chan.isConnected();
+      if( _key != null ) _key.cancel();
+      if( _chan != null ) try { _chan.close(); } catch( IOException ignore ) { }
+      _chan = null;
+      _key = null;
+      _queued.set(false);       // Sends during the back-off schedule us again; flush waits for it
+      long sleep;
+      if( connecting && !Paxos._cloudLocked && _retries++ < 300 ) {
+        sleep = 100;            // cloud not yet up => other node is most likely starting
+      } else {
+        _sleep = Math.min(5000,(_sleep + 1) << 1);
+        sleep = _sleep;
+        if( !H2O.getShutdownRequested() ) {
+          Log.err(ioe);
+          Log.warn("Got IO error when sending raw bytes to " + _h2o + ", retrying in " + sleep + " ms");
+        }
+      }
+      _retryAt = System.currentTimeMillis() + sleep;
+      _loop._delayed.add(this);
+    }
+  }
+
+  // Inbound small-message connection from one node
+  private static final class Reader {
+    final H2ONode _h2o;
+    final SocketChannel _chan;
+    final ByteBuffer _bb = ByteBuffer.allocate(AutoBuffer.BBP_BIG.size());
+
+    Reader( H2ONode h2o, SocketChannel chan ) { _h2o = h2o; _chan = chan; }
+
+    void read( SelectionKey k ) {
+      try {
+        if( _chan.read(_bb) == -1 ) { close(k); return; }
+        _h2o._last_heard_from = System.currentTimeMillis();
+        // Hand off every complete message; keep a partial one for the next read
+        byte[] mem = _bb.array();
+        int start = 0, end = _bb.position();
+        while( end - start >= 2 ) {
+          int sz = ((0xFF & mem[start+1]) << 8) | (0xFF & mem[start]); // message size in bytes
+          assert sz < AutoBuffer.BBP_SML.size() : "Incoming message is too big, should've been sent by TCP-BIG, got " + sz + " bytes";
+          if( end - start < sz+2+1 ) break;
+          if( (0xFF & mem[start+2+sz]) != 0xef )
+            H2O.fail("Missing expected sentinel (0xef==239) at the end of the message from " + _h2o + ", likely out of sync, start = " + start + ", size = " + sz);
+          byte[] ary = MemoryManager.malloc1(Math.max(16,sz)); // 16 for timeline which always accesses first 16 bytes
+          System.arraycopy(mem,start+2,ary,0,sz);
+          UDPReceiverThread.basic_packet_handling(new AutoBuffer(_h2o,ary));
+          MSGS_RECV.incrementAndGet();
+          start += sz+2+1;
+        }
+        _bb.limit(end);
+        _bb.position(start);
+        _bb.compact();
+      } catch( IOException ioe ) {
+        Log.err("Got IO Error when reading small messages over TCP from " + _h2o);
+        Log.err(ioe);
+        close(k);
+      }
+    }
+
+    private void close( SelectionKey k ) {
+      k.cancel();
+      try { _chan.close(); } catch( IOException ignore ) { }
+    }
+  }
+}
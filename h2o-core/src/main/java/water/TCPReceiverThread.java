@@ -63,7 +63,10 @@ public class TCPReceiverThread extends Thread {
         // todo compare against current cloud, refuse the con if no match
         H2ONode h2o = H2ONode.intern(sock.socket().getInetAddress(),port);
         // Pass off the TCP connection to a separate reader thread
-        if(chanType == 1) {
+        if(chanType == 1 && NIOTransport.enabled()) {
+          Log.info("serving new UDP-TCP connection from " + sock.socket().getRemoteSocketAddress() + " on a selector loop");
+          NIOTransport.accept(h2o, sock);
+        } else if(chanType == 1) {
           Log.info("starting new UDP-TCP receiver thread connected to " + sock.socket().getRemoteSocketAddress());
           new UDP_TCP_ReaderThread(h2o, sock).start();
         } else if(chanType == 2)
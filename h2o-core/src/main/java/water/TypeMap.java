@@ -1,5 +1,10 @@
 package water;
 
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.lang.reflect.Modifier;
 import java.util.Arrays;
 import water.UDPRebooted.ShutdownTsk;
 import water.api.CloudV3;
@@ -64,6 +69,12 @@ public class TypeMap {
   static private Icer[] GOLD;
   // Unique IDs
   static private int IDS;
+  // Table of type IDs assigned at build time, see Weaver.main
+  static final String PRECOOKED_TABLE = "water/typemap.txt";
+  // Hash of that table (0 if none), all nodes of a cloud have to agree on it
+  static public final int PRECOOKED_HASH;
+  // Type IDs below this one are in the table, and have pre-cooked Icers
+  static int PRECOOKED_IDS;
   // JUnit helper flag
   static public volatile boolean _check_no_locking; // ONLY TOUCH IN AAA_PreCloudLock!
   static {
@@ -82,10 +93,40 @@ public class TypeMap {
     VECGROUP     = (short)onIce("water.fvec.Vec$VectorGroup"); // Used in TestUtil
     ESPCGROUP    = (short)onIce("water.fvec.Vec$ESPC"); // Used in TestUtil
     KEY          = (short)onIce("water.Key");           // Used in water.api
+    // Type IDs of all classes which were known at build time
+    PRECOOKED_HASH = loadPrecooked();
     // Fill in some pre-cooked delegates so seralization has a base-case
     GOLD[ICED ] = Icer.ICER;
   }
 
+  // Install the build-time type IDs, before any other ID is handed out.  Every
+  // node of a cloud runs the same jar, so they all agree on these IDs without
+  // asking the leader.  Returns the hash of the table, or 0 if there is none
+  // (e.g. classes compiled by an IDE): then all IDs come from the leader.
+  private static int loadPrecooked() {
+    InputStream is = TypeMap.class.getClassLoader().getResourceAsStream(PRECOOKED_TABLE);
+    if( is == null ) return 0;
+    int hash = 0;
+    try( BufferedReader br = new BufferedReader(new InputStreamReader(is)) ) {
+      String line;
+      while( (line=br.readLine()) != null ) {
+        if( line.isEmpty() || line.startsWith("#") ) continue;
+        int sp = line.indexOf(' ');
+        int id = Integer.parseInt(line.substring(0,sp));
+        String className = line.substring(sp+1);
+        assert id >= BOOTSTRAP_CLASSES.length && !MAP.containsKey(className) : "Bad type ID table entry: "+line;
+        hash = 31*hash + line.hashCode();
+        MAP.put(className,id);
+        if( id >= CLAZZES.length ) CLAZZES = Arrays.copyOf(CLAZZES,Math.max(CLAZZES.length<<1,id+1));
+        CLAZZES[id] = className;
+        IDS = Math.max(IDS,id+1);
+      }
+    } catch( IOException e ) { throw new RuntimeException(e); }
+    GOLD = Arrays.copyOf(GOLD,CLAZZES.length);
+    PRECOOKED_IDS = IDS;
+    return hash == 0 ? 1 : hash;
+  }
+
   // The major complexity of this code is that the are FOUR major data forms
   // which get converted to one another.  At various times the code is
   // presented with one of the forms, and asked for another form, sometimes
@@ -181,8 +222,8 @@ public class TypeMap {
     synchronized( ice_clz ) {
       f = goForGold(id);        // Recheck under lock
       if( f != null ) return f;
-      // Hard work: make a new delegate class
-      try { f = Weaver.genDelegate(id,ice_clz); }
+      // Hard work: make a new delegate class, unless it was made at build time
+      try { f = precookedIcer(id,ice_clz); if( f == null ) f = Weaver.genDelegate(id,ice_clz); }
       catch( Exception e ) {
         Log.err("Weaver generally only throws if classfiles are not found, e.g. IDE setups running test code from a remote node that is not in the classpath on this node.");
         Log.throwErr(e);
@@ -195,6 +236,19 @@ public class TypeMap {
     }
   }
 
+  // The Icer generated at build time for a class of the type ID table, or null
+  private static Icer precookedIcer( int id, Class ice_clz ) throws Exception {
+    if( id >= PRECOOKED_IDS ) return null;
+    Class icer_clz;
+    try { icer_clz = Class.forName(ice_clz.getName()+"$Icer",true,ice_clz.getClassLoader()); }
+    catch( ClassNotFoundException e ) { return null; } // Could not be generated; weave it
+    Object ice = Modifier.isAbstract(ice_clz.getModifiers()) ? null : Icer._unsafe.allocateInstance(ice_clz);
+    Icer f = (Icer)icer_clz.getDeclaredConstructors()[0].newInstance(ice);
+    if( f.frozenType() != id )
+      throw new IllegalStateException("Stale Icer "+icer_clz.getName()+" for type ID "+f.frozenType()+", expected "+id+"; rebuild the pre-cooked Icers");
+    return f;
+  }
+
   static Iced newInstance(int id) { return (Iced) newFreezable(id); }
 
   /** Create a new freezable object based on its unique ID.
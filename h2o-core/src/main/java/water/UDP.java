@@ -39,6 +39,7 @@ public abstract class UDP {
     // We'll hang on to these packets; filter out dup sends and auto-reply
     // identical result ACK packets.
     exec(false,new RPC.RemoteHandler(),H2O.DESERIAL_PRIORITY), // Remote hi-q execution request
+    batch(true,new UDPBatch(),H2O.MAX_PRIORITY), // Coalesced small messages; each is checked on unpacking
     i_o (false,new UDP.IO_record(),(byte)-1); // Only used to profile I/O
     
     final UDP _udp;           // The Callable S.A.M. instance
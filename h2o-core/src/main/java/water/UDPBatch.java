@@ -0,0 +1,182 @@
+package water;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import water.nbhm.NonBlockingHashMap;
+import water.util.Log;
+
+/**
+ * Small messages coalesced per destination node.
+ *
+ * With -useUDP every task, ack and ackack is its own datagram, so a wide
+ * MRTask fan-out turns into a packet storm.  When {@link #LINGER_US} is set,
+ * datagrams to the same node are packed into one batch datagram until it
+ * holds {@link #BATCH_BYTES}, or its first message has waited LINGER_US; the
+ * receiver unpacks it and handles every message as if it arrived alone.
+ * Over TCP the per-node sender already writes whatever is queued at once;
+ * LINGER_US also lets it wait for more messages before writing a small
+ * batch.
+ *
+ * Layout: ctrl, port, then for every message a 2-byte size and its bytes.
+ */
+public class UDPBatch extends UDP {
+  /** Microseconds a message may wait for others to the same node; 0 (the
+   *  default) sends at once.  Set with {@code -Dh2o.msg.linger_us}. */
+  static final int LINGER_US = Integer.getInteger("h2o.msg.linger_us", 0);
+  /** Stop lingering once a batch holds this many bytes; at most a UDP-sized
+   *  buffer.  Set with {@code -Dh2o.msg.batch_bytes}. */
+  static final int BATCH_BYTES = Math.min(Integer.getInteger("h2o.msg.batch_bytes", 1400), AutoBuffer.BBP_SML.size()-1);
+
+  // Counters, over both transports; local to this node
+  private static final AtomicLong BATCHES = new AtomicLong(), MSGS = new AtomicLong();
+  private static final AtomicLong BYTES = new AtomicLong(), LINGER_NS = new AtomicLong();
+  static void record( int msgs, int bytes, long lingerNs ) {
+    BATCHES.incrementAndGet();
+    MSGS.addAndGet(msgs);
+    BYTES.addAndGet(bytes);
+    LINGER_NS.addAndGet(lingerNs);
+  }
+
+  public static String stats() {
+    long b = Math.max(1,BATCHES.get());
+    return "Small message batches: " + BATCHES.get() + ", msgs/batch=" + MSGS.get()/(double)b +
+      ", bytes/batch=" + BYTES.get()/b + ", avg linger=" + LINGER_NS.get()/b/1000 + "us";
+  }
+
+  // Handled inline by UDPReceiverThread.basic_packet_handling
+  @Override AutoBuffer call(AutoBuffer ab) { throw H2O.fail(); }
+  @Override String print16( AutoBuffer ab ) { return "batch of "+ab._bb.limit()+"b"; }
+
+  /** Send one small UDP message, flipped for reading, to a node. */
+  static void send( H2ONode h2o, ByteBuffer bb ) throws IOException {
+    if( LINGER_US == 0 || bb.limit()+1+2+2 > BATCH_BYTES ) {
+      water.init.NetworkInit.CLOUD_DGRAM.send(bb, h2o._key);
+      return;
+    }
+    Pending p = PENDING.get(h2o);
+    if( p == null ) {
+      Pending p2 = new Pending(h2o);
+      p = PENDING.putIfAbsent(h2o,p2);
+      if( p == null ) p = p2;
+    }
+    p.add(bb);
+  }
+
+  /** Handle every message of a batch; closes the batch. */
+  static void unpack( AutoBuffer ab ) throws IOException {
+    for( byte[] ary : split(ab._bb) )
+      UDPReceiverThread.basic_packet_handling(new AutoBuffer(ab._h2o,ary));
+    ab.close();
+  }
+
+  // Start a batch in bb: ctrl and port
+  static void begin( ByteBuffer bb ) {
+    bb.clear();
+    bb.put((byte)udp.batch.ordinal()).putChar((char)H2O.H2O_PORT);
+  }
+
+  // Append a message, flipped for reading, to the batch in bb
+  static void append( ByteBuffer bb, ByteBuffer msg ) {
+    msg.position(0);
+    bb.putChar((char)msg.limit()).put(msg);
+  }
+
+  // Flip a batch of msgs messages for sending; a lone message is sent as is
+  static void seal( ByteBuffer bb, int msgs ) {
+    bb.flip();
+    if( msgs == 1 ) bb.position(1+2+2);
+  }
+
+  // The messages of a sealed batch, in order
+  static ArrayList<byte[]> split( ByteBuffer bb ) {
+    ArrayList<byte[]> msgs = new ArrayList<>();
+    for( int off = 1+2; off+2 <= bb.limit(); ) {
+      int sz = bb.getChar(off);
+      byte[] ary = MemoryManager.malloc1(Math.max(16,sz)); // 16 for timeline which always accesses first 16 bytes
+      bb.position(off+2);
+      bb.get(ary,0,sz);
+      off += 2+sz;
+      msgs.add(ary);
+    }
+    return msgs;
+  }
+
+  private static final NonBlockingHashMap<H2ONode,Pending> PENDING = new NonBlockingHashMap<>();
+  // Batches with a linger deadline, in deadline order
+  private static final LinkedBlockingQueue<Pending> DUE = new LinkedBlockingQueue<>();
+  private static final Thread FLUSHER;
+  static {
+    FLUSHER = new Thread("UDP-Batch-Flush") {
+      @Override public void run() {
+        while( true ) {
+          try {
+            Pending p = DUE.take();
+            long wait;
+            while( (wait = p.deadline() - System.nanoTime()) > 0 )
+              LockSupport.parkNanos(wait);
+            p.flushIfDue();
+          } catch( Throwable t ) {
+            Log.err(t);
+          }
+        }
+      }
+    };
+    FLUSHER.setDaemon(true);
+    if( LINGER_US > 0 ) FLUSHER.start();
+  }
+
+  // Outbound batch to one node
+  private static final class Pending {
+    final H2ONode _h2o;
+    final ByteBuffer _bb = ByteBuffer.allocate(AutoBuffer.BBP_SML.size()).order(ByteOrder.nativeOrder());
+    int _msgs;
+    long _first;                // nanoTime of the first message
+
+    Pending( H2ONode h2o ) { _h2o = h2o; }
+
+    synchronized long deadline() { return _first + LINGER_US*1000L; }
+
+    synchronized void add( ByteBuffer msg ) throws IOException {
+      if( _msgs > 0 && _bb.position()+2+msg.limit() > BATCH_BYTES ) flushFull();
+      if( _msgs == 0 ) {
+        begin(_bb);
+        _first = System.nanoTime();
+        DUE.add(this);
+      }
+      append(_bb,msg);
+      _msgs++;
+      if( _bb.position() >= BATCH_BYTES ) flushFull();
+    }
+
+    // Refilled batches are queued again, and flushed on their own deadline
+    synchronized void flushIfDue() throws IOException {
+      if( _msgs > 0 && System.nanoTime() >= deadline() ) flush();
+    }
+
+    // Flushed before its deadline: drop the queued entry, or every refill
+    // would queue another
+    private void flushFull() throws IOException {
+      flush();
+      DUE.remove(this);
+    }
+
+    private void flush() throws IOException {
+      if( _msgs == 0 ) return;
+      seal(_bb,_msgs);
+      int sz = _bb.remaining();
+      try {
+        water.init.NetworkInit.CLOUD_DGRAM.send(_bb, _h2o._key);
+      } finally {
+        record(_msgs,sz,System.nanoTime()-_first);
+        _msgs = 0;
+        _bb.clear();            // Handed off: the next batch starts empty
+      }
+    }
+  }
+}
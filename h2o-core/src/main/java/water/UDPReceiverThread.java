@@ -74,15 +74,21 @@ public class UDPReceiverThread extends Thread {
     int drop = H2O.ARGS.random_udp_drop &&
       RANDOM_UDP_DROP.nextInt(5) == 0 ? 2 : 0;
 
-    // Record the last time we heard from any given Node
-    TimeLine.record_recv(ab, false, drop);
+    // Record the last time we heard from any given Node.  A batch is not
+    // recorded itself: each of its messages is, as it is unpacked.
+    int ctrl = ab.getCtrl();
+    if( ctrl != UDP.udp.batch.ordinal() ) TimeLine.record_recv(ab, false, drop);
     final long now = ab._h2o._last_heard_from = System.currentTimeMillis();
 
     // Snapshots are handled *IN THIS THREAD*, to prevent more UDP packets from
     // being handled during the dump.  Also works for packets from outside the
     // Cloud... because we use Timelines to diagnose Paxos failures.
-    int ctrl = ab.getCtrl();
     ab.getPort(); // skip the port bytes
+    // Coalesced messages: handle each one as if it arrived alone
+    if( ctrl == UDP.udp.batch.ordinal() ) {
+      UDPBatch.unpack(ab);
+      return;
+    }
     if( ctrl == UDP.udp.timeline.ordinal() ) {
       UDP.udp.timeline._udp.call(ab);
       return;
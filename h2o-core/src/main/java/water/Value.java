@@ -186,6 +186,7 @@ public final class Value extends Iced implements ForkJoinPool.ManagedBlocker {
   public  final static byte HDFS= 2<<0; // HDFS: backed by Hadoop cluster
   public  final static byte S3  = 3<<0; // Amazon S3
   public  final static byte NFS = 4<<0; // NFS: Standard file system
+  public  final static byte SNAP= 5<<0; // SNAP: Chunks of a FrameSnapshot
   public  final static byte TCP = 7<<0; // TCP: For profile purposes, not a storage system
   private final static byte BACKEND_MASK = (8-1);
   private final static byte NOTdsk = 0<<3; // latest _mem is persisted or not
@@ -238,6 +239,7 @@ public final class Value extends Iced implements ForkJoinPool.ManagedBlocker {
     case HDFS: return "HDFS";
     case S3  : return "S3";
     case NFS : return "NFS";
+    case SNAP: return "SNAP";
     case TCP : return "TCP";
     default  : return null;
     }
@@ -5,10 +5,14 @@ import sun.misc.Unsafe;
 import water.api.API;
 import water.nbhm.UtilUnsafe;
 
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
 import java.lang.reflect.Field;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Modifier;
-import java.util.ArrayList;
+import java.util.*;
 
 /** Class to auto-gen serializer delegate classes.  */
 public class Weaver {
@@ -70,6 +74,102 @@ public class Weaver {
     throw new RuntimeException(e2);
   }
 
+  /** Build-time Icer generation: pre-cook the Icer of every {@link Freezable}
+   *  class found in the given classes directory, and write the Icers and the
+   *  table of type IDs they are compiled against into the output directory
+   *  (see {@link TypeMap#PRECOOKED_TABLE}), which goes on the classpath next
+   *  to the classes.  Nodes loading these
+   *  classes start with this table, so they neither fetch the IDs from the
+   *  leader nor weave the Icers with javassist at runtime.
+   *
+   *  <p>Type IDs are the {@link TypeMap#BOOTSTRAP_CLASSES} followed by all
+   *  other Freezables sorted by class name; all nodes of a cloud run the same
+   *  jar, hence share the table.  Classes whose Icer cannot be generated (e.g.
+   *  with fields which cannot be serialized) keep their ID, and are woven at
+   *  runtime if they ever get serialized.
+   *
+   *  <p>Usage: {@code java water.Weaver <classes dir> <output dir>}, with the
+   *  classes directory on the classpath. */
+  public static void main( String[] args ) throws IOException, NotFoundException {
+    File dir = new File(args[0]);  // Compiled classes, read only
+    File out = new File(args[1]);  // Icers and the type ID table
+    // All Freezables with an auto-serialized super class chain, sorted by name
+    TreeSet<String> names = new TreeSet<>();
+    for( String name : listClasses(dir,"",new ArrayList<String>()) ) {
+      if( name.endsWith("$Icer") ) continue; // Pre-cooked, not a Freezable of its own
+      CtClass cc = _pool.getOrNull(name);
+      if( cc != null && !cc.isInterface() && !cc.equals(_iced) && !cc.equals(_h2cc) && hasIcedBase(cc) )
+        names.add(name);
+    }
+    LinkedHashMap<String,Integer> ids = new LinkedHashMap<>();
+    for( String name : TypeMap.BOOTSTRAP_CLASSES ) ids.put(name,ids.size());
+    for( String name : names ) if( !ids.containsKey(name) ) ids.put(name,ids.size());
+
+    HashMap<String,Boolean> cooked = new HashMap<>();
+    int n=0;
+    for( String name : names ) if( precook(name,ids,out,cooked) ) n++;
+
+    File table = new File(out,TypeMap.PRECOOKED_TABLE);
+    if( !table.getParentFile().isDirectory() && !table.getParentFile().mkdirs() )
+      throw new IOException("Cannot create "+table.getParent());
+    try( PrintWriter pw = new PrintWriter(new FileWriter(table)) ) {
+      pw.println("# Type IDs of the pre-cooked Icers, generated by water.Weaver: <id> <class name>");
+      for( Map.Entry<String,Integer> e : ids.entrySet() )
+        if( e.getValue() >= TypeMap.BOOTSTRAP_CLASSES.length )
+          pw.println(e.getValue()+" "+e.getKey());
+    }
+    System.out.println("Pre-cooked "+n+" Icers of "+names.size()+" Freezable classes, type IDs in "+table);
+  }
+
+  // Class names of all class files below dir
+  private static List<String> listClasses( File dir, String pkg, List<String> names ) {
+    File[] files = dir.listFiles();
+    if( files == null ) return names;
+    for( File f : files ) {
+      String fname = f.getName();
+      if( f.isDirectory() ) listClasses(f,pkg+fname+".",names);
+      else if( fname.endsWith(".class") ) names.add(pkg+fname.substring(0,fname.length()-6));
+    }
+    return names;
+  }
+
+  // Is the super class chain made of Freezables, down to the Iced base classes?
+  private static boolean hasIcedBase( CtClass cc ) {
+    try {
+      while( cc != null && cc.subtypeOf(_freezable) ) {
+        if( cc.equals(_iced) || cc.equals(_h2cc) ) return true;
+        cc = cc.getSuperclass();
+      }
+    } catch( NotFoundException ignore ) { } // Super class not on the classpath
+    return false;
+  }
+
+  // Generate and write the Icer of one class, after the Icer of its super class
+  private static boolean precook( String name, Map<String,Integer> ids, File out, Map<String,Boolean> cooked ) {
+    Boolean done = cooked.get(name);
+    if( done != null ) return done;
+    if( !ids.containsKey(name) ) return false; // Super class from another module
+    boolean ok = false;
+    try {
+      CtClass iced_cc = _pool.get(name);
+      CtClass super_cc = iced_cc.getSuperclass();
+      String super_name = super_cc.getName();
+      boolean base = super_cc.equals(_iced) || super_cc.equals(_h2cc);
+      if( base || precook(super_name,ids,out,cooked) ) {
+        CtClass super_icer_cc = _pool.get(base ? Icer.class.getName() : implClazzName(super_name));
+        CtClass icer_cc = genIcerClass(ids.get(name),iced_cc,implClazzName(name),ids.get(super_name),super_icer_cc,hasWovenJSONFields(super_cc));
+        icer_cc.writeFile(out.getPath());
+        ok = true;
+      }
+    } catch( NotFoundException | CannotCompileException | IOException | RuntimeException e ) {
+      System.err.println("Icer of "+name+" is not pre-cooked, it is woven at runtime if needed: "+e);
+      CtClass icer_cc = _pool.getOrNull(implClazzName(name));
+      if( icer_cc != null ) icer_cc.detach();
+    }
+    cooked.put(name,ok);
+    return ok;
+  }
+
   // The name conversion from a Iced subclass to an Icer subclass.
   private static String implClazzName( String name ) {
     return name + "$Icer";
@@ -104,15 +204,11 @@ public class Weaver {
     if( iced_name.equals("water.H2O$H2OCountedCompleter") ) return water.Icer.class;
     assert !iced_name.startsWith("scala.runtime.AbstractFunction");
 
-    // Now look for a pre-cooked Icer.  No locking, 'cause we're just looking
+    // Now look for a pre-cooked Icer: generated at build time (see main), or
+    // woven before.  No locking, 'cause we're just looking
     String icer_name = implClazzName(iced_name);
-    CtClass icer_cc = _pool.getOrNull(icer_name); // Full Name Lookup of Icer
-    if( icer_cc != null ) {
-      synchronized( iced_clazz ) {
-        if( !icer_cc.isFrozen() ) icer_cc.toClass(Weaver.class.getClassLoader()); // Load class (but does not link & init)
-        return Class.forName(icer_name); // Found a pre-cooked Icer implementation
-      }
-    }
+    try { return Class.forName(icer_name); } // Found a pre-cooked Icer implementation
+    catch( ClassNotFoundException ignore ) { }
 
     // Serialize parent.  No locking; occasionally we'll "onIce" from the
     // remote leader more than once.
@@ -128,16 +224,16 @@ public class Weaver {
     // class, but also to allow parallel class-gens of unrelated Iced).
     //noinspection SynchronizationOnLocalVariableOrMethodParameter
     synchronized( iced_clazz ) {
-      icer_cc = _pool.getOrNull(icer_name); // Retry under lock
+      CtClass icer_cc = _pool.getOrNull(icer_name); // Retry under lock
       if( icer_cc != null ) return Class.forName(icer_name); // Found a pre-cooked Icer implementation
-      icer_cc = genIcerClass(id,iced_cc,iced_clazz,icer_name,super_id,super_icer_cc,super_has_jfields);
+      icer_cc = genIcerClass(id,iced_cc,icer_name,super_id,super_icer_cc,super_has_jfields);
       icer_cc.toClass(Weaver.class.getClassLoader());               // Load class (but does not link & init)
       return Class.forName(icer_name); // Initialize class now, before subclasses
     }
   }
 
   // Generate the Icer class
-  private static CtClass genIcerClass(int id, CtClass iced_cc, Class iced_clazz, String icer_name, int super_id, CtClass super_icer, boolean super_has_jfields ) throws CannotCompileException, NotFoundException, NoSuchFieldException {
+  private static CtClass genIcerClass(int id, CtClass iced_cc, String icer_name, int super_id, CtClass super_icer, boolean super_has_jfields ) throws CannotCompileException, NotFoundException, NoSuchFieldException {
     // Generate the Icer class
     String iced_name = iced_cc.getName();
     CtClass icer_cc = _pool.makeClass(icer_name);
@@ -179,22 +275,22 @@ public class Weaver {
 
     // The write call
     String debug = 
-    make_body(icer_cc, iced_cc, iced_clazz, "write", null, null,
+    make_body(icer_cc, iced_cc, "write", null, null,
               "  protected final water.AutoBuffer write"+id+"(water.AutoBuffer ab, "+iced_name+" ice) {\n",
               "    write"+super_id+"(ab,ice);\n",
-              "    ab.put%z(ice.%s);\n"  ,  "    ab.put%z((%C)_unsafe.get%u(ice,%dL)); // %s\n",
-              "    ab.put%z(ice.%s);\n"  ,  "    ab.put%z((%C)_unsafe.get%u(ice,%dL)); // %s\n",
-              "    ab.put%z(ice.%s);\n"  ,  "    ab.put%z((%C)_unsafe.get%u(ice,%dL)); // %s\n",
+              "    ab.put%z(ice.%s);\n"  ,  "    ab.put%z((%C)_unsafe.get%u(ice,%d)); // %s\n",
+              "    ab.put%z(ice.%s);\n"  ,  "    ab.put%z((%C)_unsafe.get%u(ice,%d)); // %s\n",
+              "    ab.put%z(ice.%s);\n"  ,  "    ab.put%z((%C)_unsafe.get%u(ice,%d)); // %s\n",
               "    return ab;\n" +
               "  }");
     if( debug_print ) System.out.println(debug);
     String debugJ= 
-    make_body(icer_cc, iced_cc, iced_clazz, "writeJSON", super_has_jfields ? null : "    ab.", "    ab.put1(',').",
+    make_body(icer_cc, iced_cc, "writeJSON", super_has_jfields ? null : "    ab.", "    ab.put1(',').",
               "  protected final water.AutoBuffer writeJSON"+id+"(water.AutoBuffer ab, "+iced_name+" ice) {\n",
               "    writeJSON"+super_id+"(ab,ice);\n",
-              "putJSON%z(\"%s\",ice.%s);\n"  ,  "putJSON%z(\"%s\",(%C)_unsafe.get%u(ice,%dL)); // %s\n",
-              "putJSON%z(\"%s\",ice.%s);\n"  ,  "putJSON%z(\"%s\",(%C)_unsafe.get%u(ice,%dL)); // %s\n",
-              "putJSON%z(\"%s\",ice.%s);\n"  ,  "putJSON%z(\"%s\",(%C)_unsafe.get%u(ice,%dL)); // %s\n"  ,
+              "putJSON%z(\"%s\",ice.%s);\n"  ,  "putJSON%z(\"%s\",(%C)_unsafe.get%u(ice,%d)); // %s\n",
+              "putJSON%z(\"%s\",ice.%s);\n"  ,  "putJSON%z(\"%s\",(%C)_unsafe.get%u(ice,%d)); // %s\n",
+              "putJSON%z(\"%s\",ice.%s);\n"  ,  "putJSON%z(\"%s\",(%C)_unsafe.get%u(ice,%d)); // %s\n"  ,
               "    return ab;\n" +
               "  }");
     if( debug_print ) System.out.println(debugJ);
@@ -215,22 +311,22 @@ public class Weaver {
 
     // The read call
     String rbody_impl =
-    make_body(icer_cc, iced_cc, iced_clazz, "read", null, null,
+    make_body(icer_cc, iced_cc, "read", null, null,
               "  protected final "+iced_name+" read"+id+"(water.AutoBuffer ab, "+iced_name+" ice) {\n",
               "    read"+super_id+"(ab,ice);\n",
-              "    ice.%s = ab.get%z();\n",            "    _unsafe.put%u(ice,%dL,ab.get%z());  //%s\n",
-              "    ice.%s = (%C)ab.get%z(%s);\n",    "    _unsafe.put%u(ice,%dL,ab.get%z(%s));\n",
-              "    ice.%s = (%C)ab.get%z(%c.class);\n","    _unsafe.put%u(ice,%dL,(%C)ab.get%z(%c.class));  //%s\n",
+              "    ice.%s = ab.get%z();\n",            "    _unsafe.put%u(ice,%d,ab.get%z());  //%s\n",
+              "    ice.%s = (%C)ab.get%z(%s);\n",    "    _unsafe.put%u(ice,%d,ab.get%z(%s));\n",
+              "    ice.%s = (%C)ab.get%z(%c.class);\n","    _unsafe.put%u(ice,%d,(%C)ab.get%z(%c.class));  //%s\n",
               "    return ice;\n" +
               "  }");
     if( debug_print ) System.out.println(rbody_impl);
     String rbodyJ_impl =
-    make_body(icer_cc, iced_cc, iced_clazz, "readJSON", null, null,
+    make_body(icer_cc, iced_cc, "readJSON", null, null,
               "  protected final "+iced_name+" readJSON"+id+"(water.AutoBuffer ab, "+iced_name+" ice) {\n",
               "    readJSON"+super_id+"(ab,ice);\n",
-              "    ice.%s = ab.get%z();\n",            "    _unsafe.put%u(ice,%dL,ab.get%z());  //%s\n",
-              "    ice.%s = (%C)ab.get%z(%s);\n",    "    _unsafe.put%u(ice,%dL,ab.get%z(%s));\n",
-              "    ice.%s = (%C)ab.get%z(%c.class);\n","    _unsafe.put%u(ice,%dL,(%C)ab.get%z(%c.class));  //%s\n",
+              "    ice.%s = ab.get%z();\n",            "    _unsafe.put%u(ice,%d,ab.get%z());  //%s\n",
+              "    ice.%s = (%C)ab.get%z(%s);\n",    "    _unsafe.put%u(ice,%d,ab.get%z(%s));\n",
+              "    ice.%s = (%C)ab.get%z(%c.class);\n","    _unsafe.put%u(ice,%d,(%C)ab.get%z(%c.class));  //%s\n",
               "    return ice;\n" +
               "  }");
     if( debug_print )
@@ -261,14 +357,14 @@ public class Weaver {
     // DTask instance over another, to match the MRTask API.
     if( iced_cc.subclassOf(_dtask) ) {
       String cpbody_impl =
-        make_body(icer_cc, iced_cc, iced_clazz, "copyOver", null, null,
+        make_body(icer_cc, iced_cc, "copyOver", null, null,
                   "  protected void copyOver(water.Freezable fdst, water.Freezable fsrc) {\n",
                   "    super.copyOver(fdst,fsrc);\n"+
                   "    "+iced_name+" dst = ("+iced_name+")fdst;\n"+
                   "    "+iced_name+" src = ("+iced_name+")fsrc;\n",
-                  "    dst.%s = src.%s;\n","    _unsafe.put%u(dst,%dL,_unsafe.get%u(src,%dL));  //%s\n",
-                  "    dst.%s = src.%s;\n","    _unsafe.put%u(dst,%dL,_unsafe.get%u(src,%dL));  //%s\n",
-                  "    dst.%s = src.%s;\n","    _unsafe.put%u(dst,%dL,_unsafe.get%u(src,%dL));  //%s\n",
+                  "    dst.%s = src.%s;\n","    _unsafe.put%u(dst,%d,_unsafe.get%u(src,%d));  //%s\n",
+                  "    dst.%s = src.%s;\n","    _unsafe.put%u(dst,%d,_unsafe.get%u(src,%d));  //%s\n",
+                  "    dst.%s = src.%s;\n","    _unsafe.put%u(dst,%d,_unsafe.get%u(src,%d));  //%s\n",
                   "  }");
       if( debug_print ) System.out.println(cpbody_impl);
     }
@@ -287,7 +383,7 @@ public class Weaver {
   }
 
   // Generate a method body string
-  private static String make_body(CtClass icer_cc, CtClass iced_cc, Class iced_clazz, String impl, String field_sep1, String field_sep2,
+  private static String make_body(CtClass icer_cc, CtClass iced_cc, String impl, String field_sep1, String field_sep2,
                                   String header,
                                   String supers,
                                   String  prims, String prims_unsafe,
@@ -334,7 +430,7 @@ public class Weaver {
       // access, only private is a problem.
       boolean can_access = !javassist.Modifier.isPrivate(mods);
       if( (impl.equals("read") || impl.equals("copyOver")) && javassist.Modifier.isFinal(mods) ) can_access = false; 
-      long off = _unsafe.objectFieldOffset(iced_clazz.getDeclaredField(ctf.getName()));
+      String off = can_access ? null : offsetField(icer_cc, iced_cc, ctf.getName());
       int ftype = ftype(iced_cc, ctf.getSignature() ); // Field type encoding
       if( ftype%20 == 9 || ftype%20 == 11 ) {          // Iced/Objects
         sb.append(can_access ?  iced :  iced_unsafe);
@@ -350,7 +446,7 @@ public class Weaver {
       subsub(sb, "%s", ctf.getName());             // %s ==> field name
       subsub(sb, "%c", dollarsub(base.getName())); // %c ==> base class name
       subsub(sb, "%C", dollarsub(ctft.getName())); // %C ==> full class name
-      subsub(sb, "%d", ""+off);                    // %d ==> field offset, only for Unsafe
+      if( off != null ) subsub(sb, "%d", off);     // %d ==> field offset, only for Unsafe
       subsub(sb, "%u", utype(ctf.getSignature())); // %u ==> unsafe type name
 
     }
@@ -361,6 +457,24 @@ public class Weaver {
     return body;
   }
 
+  // Static field of the Icer holding the Unsafe offset of an Iced field.  The
+  // offsets depend on the JVM, so they are looked up when the Icer class is
+  // initialized, and not compiled into (possibly pre-generated) Icers.
+  private static String offsetField( CtClass icer_cc, CtClass iced_cc, String fld ) throws CannotCompileException {
+    String name = "_off_"+fld;
+    try { icer_cc.getDeclaredField(name); return name; } // Already made by another method body
+    catch( NotFoundException ignore ) { }
+    String src = "  private static final long "+name+";";
+    try {
+      icer_cc.addField(CtField.make(src,icer_cc),
+                       CtField.Initializer.byExpr("water.Icer.fieldOffset("+iced_cc.getName()+".class,\""+fld+"\")"));
+    } catch( CannotCompileException ce ) {
+      System.err.println("--- Compilation failure while compiling "+icer_cc.getName()+"\n"+src+"\n------\n"+ce);
+      throw ce;
+    }
+    return name;
+  }
+
   // Add a gen'd method.  Politely print if there's an error during generation.
   private static void addMethod( String body, CtClass icer_cc ) throws CannotCompileException {
     try {
@@ -33,6 +33,12 @@ class FramesBase<I extends Frames, S extends FramesBase<I, S>> extends RequestSc
   @API(help="Overwrite existing file",json=false)
   public boolean force;
 
+  @API(help="Write one part file per chunk into the directory at path, in parallel; the directory must be reachable by every node",json=false)
+  public boolean parallel;
+
+  @API(help="Compression of the exported file(s)",values={"none","gzip"},json=false)
+  public String compression;
+
   @API(help="Job for export file",direction=API.Direction.OUTPUT)
   public JobV3 job;
 
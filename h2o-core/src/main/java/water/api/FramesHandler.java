@@ -6,12 +6,12 @@ import water.*;
 import water.api.ModelsHandler.Models;
 import water.exceptions.*;
 import water.fvec.Frame;
+import water.fvec.ParallelExport;
 import water.fvec.Vec;
 import water.persist.PersistManager;
 import water.util.KeyedVoid;
 import water.util.Log;
 
-import java.io.InputStream;
 import java.io.OutputStream;
 import java.util.*;
 
@@ -269,7 +269,8 @@ class FramesHandler<I extends FramesHandler.Frames, S extends FramesBase<I, S>>
   public FramesV3 export(int version, FramesV3 s) {
     Frame fr = getFromDKV("key", s.frame_id.key());
     Log.info("ExportFiles processing (" + s.path + ")");
-    s.job =  (JobV3) Schema.schema(version, Job.class).fillFromImpl(ExportDatasetJob.export(fr, s.path, s.frame_id.key().toString(),s.force));
+    boolean gzip = "gzip".equalsIgnoreCase(s.compression);
+    s.job =  (JobV3) Schema.schema(version, Job.class).fillFromImpl(ExportDatasetJob.export(fr, s.path, s.frame_id.key().toString(),s.force,s.parallel,gzip));
     return s;
   }
 
@@ -286,7 +287,7 @@ class FramesHandler<I extends FramesHandler.Frames, S extends FramesBase<I, S>>
       super(Key.<KeyedVoid>make(path), "Export frame");
     }
 
-    private static ExportDatasetJob export(Frame fr, String path, String frameName, boolean overwrite) {
+    private static ExportDatasetJob export(Frame fr, String path, String frameName, boolean overwrite, boolean parts, boolean gzip) {
       // Validate input
       boolean fileExists = H2O.getPM().exists(path);
       if (overwrite && fileExists) {
@@ -294,57 +295,47 @@ class FramesHandler<I extends FramesHandler.Frames, S extends FramesBase<I, S>>
       } else if (!overwrite && fileExists) {
         throw new H2OIllegalArgumentException(path, "exportFrame", "File " + path + " already exists!");
       }
-      InputStream is = (fr).toCSV(true, false);
       ExportDatasetJob job = new ExportDatasetJob(path);
-      ExportTask t = new ExportTask(is, path, frameName, overwrite, job);
+      ExportTask t = new ExportTask(fr, path, frameName, overwrite, parts, gzip, job);
       job.start(t, fr.anyVec().nChunks(), true);
       return job;
     }
 
     private static class ExportTask extends H2O.H2OCountedCompleter<ExportTask> {
 
-      final InputStream _csv;
+      final Frame _fr;
       final String _path;
       final String _frameName;
       final boolean _overwrite;
+      final boolean _parts;     // Part file per chunk, into directory _path
+      final boolean _gzip;
       final Job _j;
 
-      ExportTask(InputStream csv, String path, String frameName, boolean overwrite, Job j) {
-        _csv = csv;
+      ExportTask(Frame fr, String path, String frameName, boolean overwrite, boolean parts, boolean gzip, Job j) {
+        _fr = fr;
         _path = path;
         _frameName = frameName;
         _overwrite = overwrite;
+        _parts = parts;
+        _gzip = gzip;
         _j = j;
       }
 
-      private void copyStream(OutputStream os, final int buffer_size) {
-        int curIdx = 0;
-        try {
-          byte[] bytes = new byte[buffer_size];
-          for (; ; ) {
-            int count = _csv.read(bytes, 0, buffer_size);
-            if (count <= 0) {
-              break;
-            }
-            os.write(bytes, 0, count);
-            int workDone = ((Frame.CSVStream) _csv)._curChkIdx;
-            if (curIdx != workDone) {
-              _j.update(workDone - curIdx);
-              curIdx = workDone;
-            }
-          }
-        } catch (Exception ex) {
-          throw new RuntimeException(ex);
-        }
-      }
-
       @Override
       public void compute2() {
+        if (_parts) {
+          ParallelExport.exportParts(_fr, _path, _overwrite, _gzip, false, _j);
+          Log.info("Key '" + _frameName + "' was written to " + _path + " as " + _fr.anyVec().nChunks() + " parts.");
+          tryComplete();
+          return;
+        }
         PersistManager pm = H2O.getPM();
         OutputStream os = null;
         try {
           os = pm.create(_path, _overwrite);
-          copyStream(os, 4 * 1024 * 1024);
+          ParallelExport.exportSingle(_fr, os, _gzip, false, _j);
+        } catch (java.io.IOException ioe) {
+          throw new RuntimeException(ioe);
         } finally {
           if (os != null) {
             try {
@@ -14,7 +14,7 @@ public class ParseSetupV3 extends RequestSchema<ParseSetup,ParseSetupV3> {
   @API(help="Source frames", required=true, direction=API.Direction.INOUT)
   public FrameKeyV3[] source_frames;
 
-  @API(help="Parser type", values = {"GUESS", "ARFF", "XLS", "XLSX", "CSV", "SVMLight"}, direction=API.Direction.INOUT)
+  @API(help="Parser type", values = {"GUESS", "ARFF", "XLS", "XLSX", "CSV", "SVMLight", "ORC", "PARQUET"}, direction=API.Direction.INOUT)
   public ParserType parse_type = ParserType.GUESS;
 
   @API(help="Field separator", direction=API.Direction.INOUT)
@@ -35,6 +35,12 @@ public class ParseSetupV3 extends RequestSchema<ParseSetup,ParseSetupV3> {
   @API(help="NA strings for columns", direction=API.Direction.INOUT)
   public String[][] na_strings;
 
+  @API(help="ORC/Parquet only: indices of file columns not to parse", direction=API.Direction.INOUT)
+  public int[] skipped_columns;
+
+  @API(help="ORC/Parquet only: keep rows matching numeric comparisons joined by '&', e.g. \"year >= 2014 & amount < 1e6\"", direction=API.Direction.INOUT)
+  public String row_filter;
+
   @API(help="Regex for names of columns to return", direction=API.Direction.INOUT)
   public String column_name_filter;
 
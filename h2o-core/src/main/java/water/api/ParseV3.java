@@ -16,7 +16,7 @@ public class ParseV3 extends RequestSchema<Iced, ParseV3> {
   @API(help="Source frames",required=true)
   FrameKeyV3[] source_frames;
 
-  @API(help="Parser type", values = {"GUESS", "ARFF", "XLS", "XLSX", "CSV", "SVMLight"})
+  @API(help="Parser type", values = {"GUESS", "ARFF", "XLS", "XLSX", "CSV", "SVMLight", "ORC", "PARQUET"})
   ParserType parse_type;
 
   @API(help="Field separator")
@@ -43,6 +43,12 @@ public class ParseV3 extends RequestSchema<Iced, ParseV3> {
   @API(help="NA strings for columns")
   String[][] na_strings;
 
+  @API(help="ORC/Parquet only: indices of file columns not to parse")
+  int[] skipped_columns;
+
+  @API(help="ORC/Parquet only: keep rows matching numeric comparisons joined by '&'")
+  String row_filter;
+
   @API(help="Size of individual parse tasks", direction=API.Direction.INPUT)
   int chunk_size;
 
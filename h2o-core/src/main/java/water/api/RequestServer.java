@@ -230,6 +230,11 @@ public class RequestServer extends NanoHTTPD {
     register("/3/Predictions/models/(?<model>.*)/frames/(?<frame>.*)"     ,"POST"  ,ModelMetricsHandler.class, "predict", null,
       "Score (generate predictions) for the specified Frame with the specified Model.  Both the Frame of predictions and the metrics will be returned.");
 
+    register("/3/Score/models/(?<model_id>.*)/stats"                      ,"GET"   ,ScoreHandler.class, "fetchStats", null,
+      "Return the online scoring latency of a model on this node.");
+    register("/3/Score/models/(?<model_id>.*)"                            ,"POST"  ,ScoreHandler.class, "score", null,
+      "Score a few rows given in the request with a model, without a Frame (low latency; concurrent requests are batched).");
+
     register("/3/WaterMeterCpuTicks/(?<nodeidx>.*)"                       ,"GET"   ,WaterMeterCpuTicksHandler.class, "fetch", null,
       "Return a CPU usage snapshot of all cores of all nodes in the H2O cluster.");
     register("/3/WaterMeterIo/(?<nodeidx>.*)"                             ,"GET"   ,WaterMeterIoHandler.class, "fetch", null,
@@ -0,0 +1,49 @@
+package water.api;
+
+import hex.OnlineScorer;
+import water.exceptions.H2OIllegalArgumentException;
+
+import java.util.Arrays;
+
+/** Low-latency scoring of a few rows given in the request, without a Frame;
+ *  see {@link OnlineScorer} */
+class ScoreHandler extends Handler {
+  @SuppressWarnings("unused") // called through reflection by RequestServer
+  public ScoreV3 score(int version, ScoreV3 s) {
+    OnlineScorer os = OnlineScorer.get(s.model_id.key());
+    if( s.columns == null || s.columns.length == 0 )
+      throw new H2OIllegalArgumentException("No columns given");
+    if( s.values == null || s.values.length % s.columns.length != 0 )
+      throw new H2OIllegalArgumentException("Expected whole rows of "+s.columns.length+" values");
+    String[][] rows = new String[s.values.length/s.columns.length][];
+    for( int r=0; r<rows.length; r++ )
+      rows[r] = Arrays.copyOfRange(s.values,r*s.columns.length,(r+1)*s.columns.length);
+
+    double[][] preds = os.score(os.adapt(s.columns,rows));
+
+    String[] names = os.predictionNames();
+    String[] dom = os.labelDomain();
+    s.prediction_names = names;
+    s.predictions = new double[preds.length*names.length];
+    if( dom != null ) s.labels = new String[preds.length];
+    for( int r=0; r<preds.length; r++ ) {
+      System.arraycopy(preds[r],0,s.predictions,r*names.length,names.length);
+      if( dom != null ) s.labels[r] = dom[(int)preds[r][0]];
+    }
+    s.values = null;            // Not echoed back
+    return stats(os,s);
+  }
+
+  @SuppressWarnings("unused") // called through reflection by RequestServer
+  public ScoreV3 fetchStats(int version, ScoreV3 s) {
+    return stats(OnlineScorer.get(s.model_id.key()),s);
+  }
+
+  private static ScoreV3 stats(OnlineScorer os, ScoreV3 s) {
+    double[] lat = os.latencyMillis(0.5,0.99);
+    s.requests = os.requests();
+    s.latency_p50_ms = lat[0];
+    s.latency_p99_ms = lat[1];
+    return s;
+  }
+}
@@ -0,0 +1,35 @@
+package water.api;
+
+import water.Iced;
+import water.api.KeyV3.ModelKeyV3;
+
+public class ScoreV3 extends RequestSchema<Iced, ScoreV3> {
+  // INPUT
+  @API(help="Model to score with", json=false)
+  public ModelKeyV3 model_id;
+
+  @API(help="Column names of the rows; columns not in the model are ignored, model columns not given are NA", direction=API.Direction.INPUT)
+  public String[] columns;
+
+  @API(help="Row-major values, as many per row as columns; several rows are concatenated. Categorical levels by name; NA or empty for NA", direction=API.Direction.INPUT)
+  public String[] values;
+
+  // OUTPUT
+  @API(help="Names of the prediction columns", direction=API.Direction.OUTPUT)
+  public String[] prediction_names;
+
+  @API(help="Row-major predictions, as many per row as prediction names", direction=API.Direction.OUTPUT)
+  public double[] predictions;
+
+  @API(help="Predicted labels, for classifiers", direction=API.Direction.OUTPUT)
+  public String[] labels;
+
+  @API(help="Number of requests scored with this model on this node", direction=API.Direction.OUTPUT)
+  public long requests;
+
+  @API(help="Median latency of the recent requests on this node, in ms", direction=API.Direction.OUTPUT)
+  public double latency_p50_ms;
+
+  @API(help="99th percentile latency of the recent requests on this node, in ms", direction=API.Direction.OUTPUT)
+  public double latency_p99_ms;
+}
@@ -3,6 +3,8 @@ package water.fvec;
 import water.AutoBuffer;
 import water.util.UnsafeUtils;
 
+import java.util.Arrays;
+
 /**
  * The constant 'double' column.
  */
@@ -24,6 +26,10 @@ public class C0DChunk extends Chunk {
   }
   @Override protected final double atd_impl( int i ) {return _con;}
   @Override protected final boolean isNA_impl( int i ) { return Double.isNaN(_con); }
+  @Override double[] getDoubles_impl(double[] vals, int from, int to, double NA) {
+    Arrays.fill(vals, 0, to-from, Double.isNaN(_con) ? NA : _con);
+    return vals;
+  }
   @Override boolean set_impl(int idx, long l) { return l==_con; }
   @Override boolean set_impl(int i, double d) { return d==_con; }
   @Override boolean set_impl(int i, float f ) { return f==_con; }
@@ -21,6 +21,18 @@ public class C0LChunk extends Chunk {
   @Override protected final long at8_impl( int i ) { return _con; }
   @Override protected final double atd_impl( int i ) {return _con; }
   @Override protected final boolean isNA_impl( int i ) { return false; }
+  @Override double[] getDoubles_impl(double[] vals, int from, int to, double NA) {
+    Arrays.fill(vals, 0, to-from, _con);
+    return vals;
+  }
+  @Override long[] getLongs_impl(long[] vals, int from, int to, long NA) {
+    Arrays.fill(vals, 0, to-from, _con);
+    return vals;
+  }
+  @Override int[] getIntegers_impl(int[] vals, int from, int to, int NA) {
+    Arrays.fill(vals, 0, to-from, (int)_con);
+    return vals;
+  }
   @Override boolean set_impl(int idx, long l) { return l==_con; }
   @Override boolean set_impl(int i, double d) { return d==_con; }
   @Override boolean set_impl(int i, float f ) { return f==_con; }
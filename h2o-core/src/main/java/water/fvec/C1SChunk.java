@@ -27,6 +27,14 @@ public class C1SChunk extends Chunk {
     return (res == C1Chunk._NA)?Double.NaN:(res+_bias)*_scale;
   }
   @Override protected final boolean isNA_impl( int i ) { return (0xFF&_mem[i+_OFF]) == C1Chunk._NA; }
+  @Override double[] getDoubles_impl(double[] vals, int from, int to, double NA) {
+    final long bias = _bias;  final double scale = _scale;
+    for( int i = from; i < to; ++i ) {
+      long res = 0xFF&_mem[i+_OFF];
+      vals[i-from] = res == C1Chunk._NA ? NA : (res+bias)*scale;
+    }
+    return vals;
+  }
   @Override boolean set_impl(int i, long l) {
     long res = (long)(l/_scale)-_bias; // Compressed value
     double d = (res+_bias)*_scale;     // Reverse it
@@ -19,6 +19,27 @@ public class C4Chunk extends Chunk {
     return res == _NA?Double.NaN:res;
   }
   @Override protected final boolean isNA_impl( int i ) { return UnsafeUtils.get4(_mem,i<<2) == _NA; }
+  @Override double[] getDoubles_impl(double[] vals, int from, int to, double NA) {
+    for( int i = from; i < to; ++i ) {
+      int res = UnsafeUtils.get4(_mem,i<<2);
+      vals[i-from] = res == _NA ? NA : res;
+    }
+    return vals;
+  }
+  @Override long[] getLongs_impl(long[] vals, int from, int to, long NA) {
+    for( int i = from; i < to; ++i ) {
+      int res = UnsafeUtils.get4(_mem,i<<2);
+      vals[i-from] = res == _NA ? NA : res;
+    }
+    return vals;
+  }
+  @Override int[] getIntegers_impl(int[] vals, int from, int to, int NA) {
+    for( int i = from; i < to; ++i ) {
+      int res = UnsafeUtils.get4(_mem,i<<2);
+      vals[i-from] = res == _NA ? NA : res;
+    }
+    return vals;
+  }
   @Override boolean set_impl(int idx, long l) {
     if( !(Integer.MIN_VALUE < l && l <= Integer.MAX_VALUE) ) return false;
     UnsafeUtils.set4(_mem,idx<<2,(int)l);
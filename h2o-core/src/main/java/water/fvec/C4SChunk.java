@@ -28,6 +28,14 @@ public class C4SChunk extends Chunk {
     return (res == _NA)?Double.NaN:(res + _bias)*_scale;
   }
   @Override protected final boolean isNA_impl( int i ) { return UnsafeUtils.get4(_mem,(i<<2)+_OFF) == _NA; }
+  @Override double[] getDoubles_impl(double[] vals, int from, int to, double NA) {
+    final long bias = _bias;  final double scale = _scale;
+    for( int i = from; i < to; ++i ) {
+      long res = UnsafeUtils.get4(_mem,(i<<2)+_OFF);
+      vals[i-from] = res == _NA ? NA : (res+bias)*scale;
+    }
+    return vals;
+  }
   @Override boolean set_impl(int idx, long l) {
     long res = (long)(l/_scale)-_bias; // Compressed value
     double d = (res+_bias)*_scale;     // Reverse it
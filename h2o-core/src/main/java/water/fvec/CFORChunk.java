@@ -0,0 +1,111 @@
+package water.fvec;
+
+import water.AutoBuffer;
+import water.util.UnsafeUtils;
+
+/**
+ * The frame-of-reference compression function, for integers which are close
+ * to their neighbours, such as sorted timestamps or monotonic IDs: rows are
+ * cut into blocks of {@link #BLOCK}, and each block stores its minimum plus
+ * per-row unsigned offsets of 0, 1, 2, 4 or 8 bytes.  Unlike running deltas
+ * this keeps random access O(1).
+ * Layout: _len, then a directory entry per block (reference value, width
+ * byte with the {@link #NAS} flag, data offset), then the block data.  In
+ * blocks with NAs the all-ones offset is the NA; 8-byte blocks hold raw
+ * values with C8Chunk._NA.
+ */
+public class CFORChunk extends Chunk {
+  static protected final int _OFF=4;
+  static final int BLOG = 8, BLOCK = 1<<BLOG; // Rows per block
+  static final int DIR = 8+1+4;               // Directory entry bytes
+  static final int NAS = 0x80;                // Width-byte flag: block has NAs
+  static final long _NA = C8Chunk._NA;
+  static int nblocks( int len ) { return (len+BLOCK-1)>>BLOG; }
+  static int dataOff( int len ) { return _OFF + nblocks(len)*DIR; }
+  /** Bytes per row for a block with values in [lo,hi] and maybe NAs; 0 for
+   *  a constant block without NAs. */
+  static int width( long lo, long hi, boolean nas ) {
+    if( lo > hi ) return 1;     // All NAs
+    if( lo < 0 && hi >= Long.MAX_VALUE + lo ) return 8; // Range overflows
+    long r = hi - lo;
+    if( r == 0 && !nas ) return 0;
+    if( r < 0xFFL || (!nas && r == 0xFFL) ) return 1;
+    if( r < 0xFFFFL || (!nas && r == 0xFFFFL) ) return 2;
+    if( r < 0xFFFFFFFFL || (!nas && r == 0xFFFFFFFFL) ) return 4;
+    return 8;
+  }
+  CFORChunk( byte[] bs ) { _mem=bs; _start = -1; set_len(UnsafeUtils.get4(_mem,0)); }
+  // Decode row i; NAs as _NA
+  private long get( int i ) {
+    int dir = _OFF + (i>>BLOG)*DIR;
+    long ref = UnsafeUtils.get8(_mem,dir);
+    int  wb  = _mem[dir+8];
+    int  off = UnsafeUtils.get4(_mem,dir+9) + (i&(BLOCK-1))*(wb&0x0F);
+    long x;
+    switch( wb&0x0F ) {
+    case 0: return ref;
+    case 1: x = _mem[off]&0xFFL;                           if( (wb&NAS)!=0 && x==0xFFL ) return _NA; break;
+    case 2: x = UnsafeUtils.get2(_mem,off)&0xFFFFL;        if( (wb&NAS)!=0 && x==0xFFFFL ) return _NA; break;
+    case 4: x = UnsafeUtils.get4(_mem,off)&0xFFFFFFFFL;    if( (wb&NAS)!=0 && x==0xFFFFFFFFL ) return _NA; break;
+    default: return UnsafeUtils.get8(_mem,off);
+    }
+    return ref + x;
+  }
+  @Override protected final long at8_impl( int i ) {
+    long res = get(i);
+    if( res == _NA ) throw new IllegalArgumentException("at8_abs but value is missing");
+    return res;
+  }
+  @Override protected final double atd_impl( int i ) {
+    long res = get(i);
+    return res == _NA ? Double.NaN : res;
+  }
+  @Override protected final boolean isNA_impl( int i ) { return get(i) == _NA; }
+  @Override boolean set_impl(int idx, long l) { return false; }
+  @Override boolean set_impl(int i, double d) { return false; }
+  @Override boolean set_impl(int i, float f ) { return false; }
+  @Override boolean setNA_impl(int idx) { return false; }
+  // Bulk decode: one directory lookup and width dispatch per block
+  @Override double[] getDoubles_impl(double[] vals, int from, int to, double NA) {
+    for( int r0 = from; r0 < to; ) {
+      int dir = _OFF + (r0>>BLOG)*DIR;
+      long ref = UnsafeUtils.get8(_mem,dir);
+      int  wb  = _mem[dir+8], w = wb&0x0F;
+      boolean nas = (wb&NAS)!=0;
+      int  r1 = Math.min(to,((r0>>BLOG)+1)<<BLOG);
+      int  off = UnsafeUtils.get4(_mem,dir+9) + (r0&(BLOCK-1))*w;
+      switch( w ) {
+      case 0: for( int i=r0; i<r1; i++ ) vals[i-from] = ref; break;
+      case 1: for( int i=r0; i<r1; i++, off++ ) { long x = _mem[off]&0xFFL; vals[i-from] = nas && x==0xFFL ? NA : ref+x; } break;
+      case 2: for( int i=r0; i<r1; i++, off+=2 ) { long x = UnsafeUtils.get2(_mem,off)&0xFFFFL; vals[i-from] = nas && x==0xFFFFL ? NA : ref+x; } break;
+      case 4: for( int i=r0; i<r1; i++, off+=4 ) { long x = UnsafeUtils.get4(_mem,off)&0xFFFFFFFFL; vals[i-from] = nas && x==0xFFFFFFFFL ? NA : ref+x; } break;
+      default:for( int i=r0; i<r1; i++, off+=8 ) { long x = UnsafeUtils.get8(_mem,off); vals[i-from] = x==_NA ? NA : x; }
+      }
+      r0 = r1;
+    }
+    return vals;
+  }
+  @Override long[] getLongs_impl(long[] vals, int from, int to, long NA) {
+    for( int i = from; i < to; ++i ) {
+      long l = get(i);
+      vals[i-from] = l == _NA ? NA : l;
+    }
+    return vals;
+  }
+  @Override public NewChunk inflate_impl(NewChunk nc) {
+    for( int i=0; i< _len; i++ ) {
+      long l = get(i);
+      if( l == _NA ) nc.addNA();
+      else nc.addNum(l,0);
+    }
+    nc.set_sparseLen(nc.set_len(_len));
+    return nc;
+  }
+  @Override public CFORChunk read_impl(AutoBuffer bb) {
+    _mem = bb.bufClose();
+    _start = -1;  _cidx = -1;
+    set_len(UnsafeUtils.get4(_mem,0));
+    return this;
+  }
+  @Override public boolean hasFloat() { return false; }
+}
@@ -0,0 +1,110 @@
+package water.fvec;
+
+import java.util.Arrays;
+
+import water.AutoBuffer;
+import water.util.UnsafeUtils;
+
+/**
+ * The run-length compression function: sorted, grouped or slowly-changing
+ * columns stored as runs of equal values.  Values are 'long's (NAs as
+ * C8Chunk._NA) for integer data and 'double's (NAs as NaN) otherwise.
+ * Layout: _len, run count, value-kind byte, the exclusive end row of every
+ * run, then the value of every run.
+ */
+public class CRLChunk extends Chunk {
+  static protected final int _OFF=4+4+1;
+  static final long _NA = C8Chunk._NA;
+  public static int computeByteSize(int nruns) { return _OFF + nruns*(4+8); }
+  private transient int _nruns;
+  private transient boolean _ints; // Values are longs, else doubles
+  private transient int _hint;     // Last run looked up; racy, always re-checked
+  CRLChunk( byte[] bs ) { _mem=bs; _start = -1; init(); }
+  private void init() {
+    set_len(UnsafeUtils.get4(_mem,0));
+    _nruns = UnsafeUtils.get4(_mem,4);
+    _ints = _mem[8]==0;
+    _hint = 0;
+  }
+  private int  end( int r ) { return UnsafeUtils.get4(_mem,_OFF+(r<<2)); }
+  private long val( int r ) { return UnsafeUtils.get8(_mem,_OFF+(_nruns<<2)+(r<<3)); }
+  // Run holding row i: the run found last time or the next one (sequential
+  // scans), else a binary search over the run ends
+  private int run( int i ) {
+    int r = _hint;
+    if( r >= _nruns ) r = 0;
+    if( i < end(r) && (r==0 || end(r-1) <= i) ) return r;
+    if( r+1 < _nruns && end(r) <= i && i < end(r+1) ) return _hint = r+1;
+    int lo = 0, hi = _nruns-1;
+    while( lo < hi ) {
+      int mid = (lo+hi)>>>1;
+      if( end(mid) <= i ) lo = mid+1; else hi = mid;
+    }
+    return _hint = lo;
+  }
+  private double d( long v ) { return _ints ? (v == _NA ? Double.NaN : v) : Double.longBitsToDouble(v); }
+  @Override protected final long at8_impl( int i ) {
+    long v = val(run(i));
+    if( _ints ) {
+      if( v == _NA ) throw new IllegalArgumentException("at8_abs but value is missing");
+      return v;
+    }
+    double d = Double.longBitsToDouble(v);
+    if( Double.isNaN(d) ) throw new IllegalArgumentException("at8_abs but value is missing");
+    return (long)d;
+  }
+  @Override protected final double atd_impl( int i ) { return d(val(run(i))); }
+  @Override protected final boolean isNA_impl( int i ) { return Double.isNaN(atd_impl(i)); }
+  @Override boolean set_impl(int idx, long l) { return false; }
+  @Override boolean set_impl(int i, double d) { return false; }
+  @Override boolean set_impl(int i, float f ) { return false; }
+  @Override boolean setNA_impl(int idx) { return false; }
+  // Bulk decode: fill whole runs
+  @Override double[] getDoubles_impl(double[] vals, int from, int to, double NA) {
+    if( from == to ) return vals;
+    for( int r=run(from), start=from; start<to; r++ ) {
+      int end = Math.min(end(r),to);
+      double d = d(val(r));
+      Arrays.fill(vals,start-from,end-from,Double.isNaN(d) ? NA : d);
+      start = end;
+    }
+    return vals;
+  }
+  @Override long[] getLongs_impl(long[] vals, int from, int to, long NA) {
+    if( from == to ) return vals;
+    for( int r=run(from), start=from; start<to; r++ ) {
+      int end = Math.min(end(r),to);
+      long v = val(r);
+      if( _ints ) v = v == _NA ? NA : v;
+      else { double d = Double.longBitsToDouble(v); v = Double.isNaN(d) ? NA : (long)d; }
+      Arrays.fill(vals,start-from,end-from,v);
+      start = end;
+    }
+    return vals;
+  }
+  @Override public NewChunk inflate_impl(NewChunk nc) {
+    if( _ints ) {
+      for( int r=0, start=0; r<_nruns; r++ ) {
+        int end = end(r);
+        long v = val(r);
+        for( int i=start; i<end; i++ )
+          if( v == _NA ) nc.addNA();
+          else nc.addNum(v,0);
+        start = end;
+      }
+    } else {
+      nc.alloc_doubles(_len);
+      getDoubles_impl(nc.doubles(),0,_len,Double.NaN);
+    }
+    nc.set_sparseLen(nc.set_len(_len));
+    return nc;
+  }
+  @Override public CRLChunk read_impl(AutoBuffer bb) {
+    _mem = bb.bufClose();
+    _start = -1;  _cidx = -1;
+    init();
+    assert _mem.length == computeByteSize(_nruns);
+    return this;
+  }
+  @Override public boolean hasFloat() { return !_ints; }
+}
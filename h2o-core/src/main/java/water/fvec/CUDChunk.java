@@ -47,6 +47,17 @@ public class CUDChunk extends Chunk {
     return Double.longBitsToDouble(UnsafeUtils.get8(_mem, 8 + (whichUnique << 3)));
   }
   @Override protected final boolean isNA_impl( int i ) { return Double.isNaN(atd_impl(i)); }
+  @Override double[] getDoubles_impl(double[] vals, int from, int to, double NA) {
+    final double[] uniques = new double[numUniques];
+    for( int j = 0; j < numUniques; ++j ) {
+      double d = Double.longBitsToDouble(UnsafeUtils.get8(_mem, 8 + (j << 3)));
+      uniques[j] = Double.isNaN(d) ? NA : d;
+    }
+    final int off = 8 + (numUniques << 3);
+    for( int i = from; i < to; ++i )
+      vals[i-from] = uniques[_mem[off+i]+128];
+    return vals;
+  }
   @Override boolean set_impl(int idx, long l) { return false; }
   @Override boolean set_impl(int i, double d) {
     for (int j = 0; j < numUniques; ++j) {
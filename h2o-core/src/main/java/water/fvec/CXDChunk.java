@@ -3,6 +3,7 @@ package water.fvec;
 import water.H2O;
 import water.util.UnsafeUtils;
 
+import java.util.Arrays;
 import java.util.Iterator;
 
 public class CXDChunk extends CXIChunk {
@@ -33,6 +34,29 @@ public class CXDChunk extends CXIChunk {
     return Double.isNaN(getFValue(off));
   }
 
+  @Override double[] getDoubles_impl(double[] vals, int from, int to, double NA) {
+    Arrays.fill(vals, 0, to-from, 0);
+    final int inc = ridsz() + valsz();
+    for( int off = firstOffset(from); off < _mem.length; off += inc ) {
+      int id = getId(off);
+      if( id >= to ) break;
+      double d = getFValue(off);
+      vals[id-from] = Double.isNaN(d) ? NA : d;
+    }
+    return vals;
+  }
+  @Override long[] getLongs_impl(long[] vals, int from, int to, long NA) {
+    Arrays.fill(vals, 0, to-from, 0);
+    final int inc = ridsz() + valsz();
+    for( int off = firstOffset(from); off < _mem.length; off += inc ) {
+      int id = getId(off);
+      if( id >= to ) break;
+      double d = getFValue(off);
+      vals[id-from] = Double.isNaN(d) ? NA : (long)d;
+    }
+    return vals;
+  }
+
   @Override public NewChunk inflate_impl(NewChunk nc) {
     final int slen = sparseLen();
     nc.set_len(_len);
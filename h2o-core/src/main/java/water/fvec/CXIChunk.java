@@ -4,6 +4,7 @@ import water.AutoBuffer;
 import water.H2O;
 import water.util.UnsafeUtils;
 
+import java.util.Arrays;
 import java.util.Iterator;
 
 // Sparse chunk.
@@ -75,6 +76,43 @@ public class CXIChunk extends Chunk {
     return getIValue(off) == NAS[_valsz_log];
   }
 
+  // Bulk readers: zero-fill, then scatter the stored rows in range
+  @Override double[] getDoubles_impl(double[] vals, int from, int to, double NA) {
+    Arrays.fill(vals, 0, to-from, 0);
+    final int inc = _valsz + _ridsz;
+    final long na = NAS[_valsz_log];
+    for( int off = firstOffset(from); off < _mem.length; off += inc ) {
+      int id = getId(off);
+      if( id >= to ) break;
+      if( _valsz == 0 ) vals[id-from] = 1;
+      else { long v = getIValue(off); vals[id-from] = v == na ? NA : v; }
+    }
+    return vals;
+  }
+  @Override long[] getLongs_impl(long[] vals, int from, int to, long NA) {
+    Arrays.fill(vals, 0, to-from, 0);
+    final int inc = _valsz + _ridsz;
+    final long na = NAS[_valsz_log];
+    for( int off = firstOffset(from); off < _mem.length; off += inc ) {
+      int id = getId(off);
+      if( id >= to ) break;
+      if( _valsz == 0 ) vals[id-from] = 1;
+      else { long v = getIValue(off); vals[id-from] = v == na ? NA : v; }
+    }
+    return vals;
+  }
+
+  // Offset of the first stored row at or after row idx, or _mem.length
+  protected final int firstOffset(int idx) {
+    final int inc = _valsz + _ridsz;
+    int lo = 0, hi = _sparse_len;
+    while( lo < hi ) {
+      int mid = (lo+hi) >>> 1;
+      if( getId(_OFF + mid*inc) < idx ) lo = mid+1; else hi = mid;
+    }
+    return _OFF + lo*inc;
+  }
+
   @Override public NewChunk inflate_impl(NewChunk nc) {
     final int slen = sparseLen();
     nc.set_len(_len);
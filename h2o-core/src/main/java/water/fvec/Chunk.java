@@ -332,9 +332,60 @@ public abstract class Chunk extends Iced implements Cloneable {
 
   public double[] toDoubleArray(double[] res){
     if (res==null) res = new double[_len];
-    for(int i = 0; i < _len; ++i)
-      res[i] = atd(i);
-    return res;
+    return getDoubles(res, 0, _len);
+  }
+
+  /** Bulk load the {@code double} values of chunk-relative rows
+   *  {@code [from,to)} into {@code vals[0..to-from)}, with missing values
+   *  as NaN.  One dispatch per call, and a tight Chunk-specific loop, instead
+   *  of an {@link #atd} call per row.
+   *  @return vals */
+  public final double[] getDoubles(double[] vals, int from, int to) { return getDoubles(vals, from, to, Double.NaN); }
+
+  /** Bulk load the {@code double} values of chunk-relative rows
+   *  {@code [from,to)} into {@code vals[0..to-from)}, with missing values
+   *  as {@code NA}.
+   *  @return vals */
+  public final double[] getDoubles(double[] vals, int from, int to, double NA) {
+    assert 0 <= from && from <= to && to <= _len && vals.length >= to-from;
+    return _chk2 == null ? getDoubles_impl(vals, from, to, NA) : _chk2.getDoubles_impl(vals, from, to, NA);
+  }
+
+  /** Bulk load the {@code long} values of chunk-relative rows {@code [from,to)}
+   *  into {@code vals[0..to-from)}, with missing values as {@code NA}.
+   *  Floating point values are silently rounded, as in {@link #at8}.
+   *  @return vals */
+  public final long[] getLongs(long[] vals, int from, int to, long NA) {
+    assert 0 <= from && from <= to && to <= _len && vals.length >= to-from;
+    return _chk2 == null ? getLongs_impl(vals, from, to, NA) : _chk2.getLongs_impl(vals, from, to, NA);
+  }
+
+  /** Bulk load the {@code int} values of chunk-relative rows {@code [from,to)}
+   *  into {@code vals[0..to-from)}, with missing values as {@code NA}; e.g.
+   *  categorical levels.  Values are silently truncated to an int.
+   *  @return vals */
+  public final int[] getIntegers(int[] vals, int from, int to, int NA) {
+    assert 0 <= from && from <= to && to <= _len && vals.length >= to-from;
+    return _chk2 == null ? getIntegers_impl(vals, from, to, NA) : _chk2.getIntegers_impl(vals, from, to, NA);
+  }
+
+  /** Chunk-specific bulk readers; the defaults go row by row.  Not a public API */
+  double[] getDoubles_impl(double[] vals, int from, int to, double NA) {
+    for( int i = from; i < to; ++i ) {
+      double d = atd_impl(i);
+      vals[i-from] = Double.isNaN(d) ? NA : d;
+    }
+    return vals;
+  }
+  long[] getLongs_impl(long[] vals, int from, int to, long NA) {
+    for( int i = from; i < to; ++i )
+      vals[i-from] = isNA_impl(i) ? NA : at8_impl(i);
+    return vals;
+  }
+  int[] getIntegers_impl(int[] vals, int from, int to, int NA) {
+    for( int i = from; i < to; ++i )
+      vals[i-from] = isNA_impl(i) ? NA : (int)at8_impl(i);
+    return vals;
   }
 
   /** Set the element as missing, using absolute row numbers.
@@ -0,0 +1,265 @@
+package water.fvec;
+
+import water.*;
+import water.nbhm.NonBlockingHashMap;
+import water.persist.PersistManager;
+import water.util.FileUtils;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+
+/** Binary snapshot of a Frame: save it once, reload it without parsing.
+ *
+ *  A snapshot is a directory with a metadata file and one file per chunk
+ *  index.  The metadata holds the names, types, domains, the row layout and
+ *  the rollups of every column.  A chunk file holds, for every column, the
+ *  Chunk class name and the compressed {@code Chunk._mem} bytes verbatim;
+ *  since a Chunk is exactly its bytes, loading is a copy and no row is ever
+ *  decoded.
+ *
+ *  Chunk files are written by the home node of the chunk index, in parallel
+ *  and through the persist layer, so the directory must be reachable by
+ *  every node.  Loading from a local (or NFS) directory is lazy: only the
+ *  chunk headers are read, and each chunk is installed as an on-disk Value
+ *  of the {@link Value#SNAP} backend, read by mapping its file on first use
+ *  (and again if the MemoryManager frees it).  The snapshot files must then
+ *  outlive the loaded Frame.  From HDFS or S3 every chunk is read eagerly.
+ *  Snapshots are specific to an H2O version: the Chunk encodings and the
+ *  RollupStats layout may change.
+ *
+ *  From Rapids: {@code (snapshot.save frame "dir" overwrite)} and
+ *  {@code (snapshot.load id "dir")}.
+ */
+public class FrameSnapshot {
+  public static final String META = "frame.meta";
+  private static final int MAGIC = 0x48324f53; // "H2OS"
+  private static final int VERSION = 1;
+
+  /** Name of the file for a chunk index. */
+  public static String chunkName( int cidx ) {
+    String s = Integer.toString(cidx);
+    while( s.length() < 5 ) s = "0"+s;
+    return "chunk-"+s+".bin";
+  }
+
+  /** Save fr into dir.  Only plain Vecs can be saved; wrapped or file-backed
+   *  columns should be copied first. */
+  public static void save( Frame fr, String dir, boolean overwrite ) throws IOException {
+    Vec[] vs = fr.vecs();
+    for( int i=0; i<vs.length; i++ )
+      if( vs[i].getClass() != Vec.class )
+        throw new IllegalArgumentException("Column "+fr._names[i]+" is a "+vs[i].getClass().getSimpleName()+"; only plain Vecs can be saved, copy it first");
+    if( !H2O.getPM().exists(dir) && !H2O.getPM().mkdirs(dir) )
+      throw new IllegalArgumentException("Cannot create directory "+dir);
+    String meta = dir+"/"+META;
+    if( !overwrite && H2O.getPM().exists(meta) )
+      throw new IllegalArgumentException("Snapshot "+dir+" already exists");
+    if( vs.length > 0 ) new WriteChunks(dir,overwrite).doAll(fr);
+    // Metadata last: a snapshot without it is incomplete
+    AutoBuffer ab = new AutoBuffer().put4(MAGIC).put4(VERSION);
+    ab.putAStr(fr._names);
+    ab.putA8(vs.length == 0 ? null : fr.anyVec().espc());
+    for( Vec v : vs ) {
+      ab.put1(v._type).putAStr(v.domain());
+      RollupStats rs = RollupStats.get(v);
+      ab.putA1(rs.write(new AutoBuffer()).buf());
+    }
+    OutputStream os = H2O.getPM().create(meta,overwrite);
+    try {
+      os.write(ab.buf());
+    } finally {
+      FileUtils.close(os);
+    }
+  }
+
+  /** Load the snapshot in dir as a new Frame under key.  Every chunk is put
+   *  on its home node; the rollups come back with it. */
+  public static Frame load( String dir, Key key ) throws IOException {
+    AutoBuffer ab = new AutoBuffer(readAll(dir+"/"+META));
+    if( ab.get4() != MAGIC ) throw new IllegalArgumentException("Not a frame snapshot: "+dir);
+    int version = ab.get4();
+    if( version != VERSION ) throw new IllegalArgumentException("Unsupported snapshot version "+version+" in "+dir);
+    String[] names = ab.getAStr();
+    long[] espc = ab.getA8();
+    Vec[] vs = new Vec[names.length];
+    byte[][] rss = new byte[names.length][];
+    if( vs.length > 0 ) {
+      Key<Vec>[] keys = new Vec.VectorGroup().addVecs(vs.length);
+      int rowLayout = Vec.ESPC.rowLayout(keys[0],espc);
+      for( int i=0; i<vs.length; i++ ) {
+        byte type = ab.get1();
+        vs[i] = new Vec(keys[i],rowLayout,ab.getAStr(),type);
+        rss[i] = ab.getA1();
+      }
+      Key[] cks = new Key[espc.length-1];
+      for( int i=0; i<cks.length; i++ ) cks[i] = vs[0].chunkKey(i);
+      boolean mapped = !PersistManager.isHdfsPath(dir);
+      if( mapped ) new Register(dir,keys).doAllNodes();
+      new ReadChunks(dir,keys,mapped).doAll(cks);
+    }
+    Futures fs = new Futures();
+    for( int i=0; i<vs.length; i++ ) {
+      DKV.put(vs[i],fs);
+      RollupStats rs = (RollupStats)TypeMap.newFreezable(TypeMap.onIce(RollupStats.class.getName()));
+      rs.read(new AutoBuffer(rss[i]));
+      DKV.put(vs[i].rollupStatsKey(),rs,fs);
+    }
+    fs.blockForPending();
+    Frame fr = new Frame(key,names,vs);
+    DKV.put(fr);
+    return fr;
+  }
+
+  private static byte[] readAll( String path ) throws IOException {
+    InputStream is = H2O.getPM().open(path);
+    try {
+      ByteArrayOutputStream bos = new ByteArrayOutputStream();
+      byte[] buf = new byte[1<<16];
+      for( int n; (n = is.read(buf)) > 0; ) bos.write(buf,0,n);
+      return bos.toByteArray();
+    } finally {
+      FileUtils.close(is);
+    }
+  }
+
+  // Chunk file: column count, then per column the Chunk class name and _mem
+  private static class WriteChunks extends MRTask<WriteChunks> {
+    final String _dir;
+    final boolean _overwrite;
+    WriteChunks( String dir, boolean overwrite ) { _dir = dir; _overwrite = overwrite; }
+    @Override public void map( Chunk[] cs ) {
+      String path = _dir+"/"+chunkName(cs[0].cidx());
+      DataOutputStream os = new DataOutputStream(new BufferedOutputStream(H2O.getPM().create(path,_overwrite),1<<16));
+      try {
+        os.writeInt(cs.length);
+        for( Chunk c : cs ) {
+          byte[] mem = c.getBytes();
+          os.writeUTF(c.getClass().getName());
+          os.writeInt(mem.length);
+          os.write(mem);
+        }
+      } catch( IOException ioe ) {
+        throw new RuntimeException(ioe);
+      } finally {
+        FileUtils.close(os);
+      }
+    }
+  }
+
+  // Read each chunk file on the home node of its chunks: only the chunk
+  // headers when mapped, else the chunks too
+  private static class ReadChunks extends MRTask<ReadChunks> {
+    final String _dir;
+    final Key[] _vecs;
+    final boolean _mapped;
+    ReadChunks( String dir, Key[] vecs, boolean mapped ) { _dir = dir; _vecs = vecs; _mapped = mapped; }
+    @Override public void map( Key ckey ) {
+      int cidx = FileVec.chunkIdx(ckey);
+      String path = _dir+"/"+chunkName(cidx);
+      try {
+        if( _mapped ) mapHeaders(path,cidx);
+        else readChunks(path,cidx);
+      } catch( IOException ioe ) {
+        throw new RuntimeException(ioe);
+      }
+    }
+
+    // On-disk Values, loaded by the SNAP backend on first use
+    private void mapHeaders( String path, int cidx ) throws IOException {
+      ByteBuffer bb = map(path);
+      checkCols(path,bb.getInt());
+      for( Key vkey : _vecs ) {
+        short type = (short)TypeMap.onIce(getUTF(bb));
+        int len = bb.getInt();
+        bb.position(bb.position()+len);
+        Key k = Vec.chunkKey(vkey,cidx);
+        Value val = new Value(k,len,null,type,Value.SNAP);
+        val.setdsk();           // It is already on disk
+        DKV.put(k,val,_fs);
+      }
+    }
+
+    private void readChunks( String path, int cidx ) throws IOException {
+      DataInputStream is = null;
+      try {
+        is = new DataInputStream(new BufferedInputStream(H2O.getPM().open(path),1<<16));
+        checkCols(path,is.readInt());
+        for( Key vkey : _vecs ) {
+          short type = (short)TypeMap.onIce(is.readUTF());
+          byte[] mem = MemoryManager.malloc1(is.readInt());
+          is.readFully(mem);
+          Key k = Vec.chunkKey(vkey,cidx);
+          DKV.put(k,new Value(k,mem.length,mem,type,Value.ICE),_fs);
+        }
+      } finally {
+        FileUtils.close(is);
+      }
+    }
+
+    private void checkCols( String path, int ncols ) {
+      if( ncols != _vecs.length )
+        throw new IllegalArgumentException("Chunk file "+path+" has "+ncols+" columns, expected "+_vecs.length);
+    }
+  }
+
+  // ---
+  // Lazily loaded chunks: where the chunks of each loaded Vec are, on every
+  // node, since any node caching a chunk may need to reload it.  Forgotten
+  // when the Vec is removed.
+  private static final NonBlockingHashMap<Key,Loc> LOCS = new NonBlockingHashMap<>();
+  private static class Loc {
+    final String _dir;          // Snapshot directory
+    final int _col;             // Column in the chunk files
+    Loc( String dir, int col ) { _dir = dir; _col = col; }
+  }
+
+  private static class Register extends MRTask<Register> {
+    final String _dir;
+    final Key[] _vecs;
+    Register( String dir, Key[] vecs ) { _dir = dir; _vecs = vecs; }
+    @Override public void setupLocal() {
+      for( int i=0; i<_vecs.length; i++ ) LOCS.put(_vecs[i],new Loc(_dir,i));
+    }
+  }
+
+  static void forget( Key vkey ) { LOCS.remove(vkey); }
+
+  /** The bytes of a lazily loaded chunk, read by mapping its chunk file; for
+   *  the {@link Value#SNAP} persist backend. */
+  public static byte[] loadChunk( Key ckey ) throws IOException {
+    Loc loc = LOCS.get(ckey.getVecKey());
+    if( loc == null ) throw new IOException("Chunk "+ckey+" is not from a loaded snapshot");
+    String path = loc._dir+"/"+chunkName(FileVec.chunkIdx(ckey));
+    ByteBuffer bb = map(path);
+    bb.getInt();                // Column count, checked at load
+    for( int c=0; ; c++ ) {
+      getUTF(bb);
+      int len = bb.getInt();
+      if( c == loc._col ) {
+        byte[] mem = MemoryManager.malloc1(len);
+        bb.get(mem);
+        return mem;
+      }
+      bb.position(bb.position()+len);
+    }
+  }
+
+  // The mapping stays valid once the file is closed
+  private static ByteBuffer map( String path ) throws IOException {
+    RandomAccessFile raf = new RandomAccessFile(path,"r");
+    try {
+      return raf.getChannel().map(FileChannel.MapMode.READ_ONLY,0,raf.length());
+    } finally {
+      FileUtils.close(raf);
+    }
+  }
+
+  // As written by DataOutputStream.writeUTF; class names are plain ASCII
+  private static String getUTF( ByteBuffer bb ) {
+    byte[] bs = new byte[bb.getShort()&0xFFFF];
+    bb.get(bs);
+    return new String(bs,StandardCharsets.UTF_8);
+  }
+}
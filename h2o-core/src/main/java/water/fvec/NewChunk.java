@@ -694,6 +694,13 @@ public class NewChunk extends Chunk {
   }
 
   private Chunk compress2() {
+    Chunk res = compressFixed();
+    Chunk runs = compressRuns(res);
+    return runs == null ? res : runs;
+  }
+
+  // Pick the fixed-width (per-row) encoding
+  private Chunk compressFixed() {
     // Check for basic mode info: all missing or all strings or mixed stuff
     byte mode = type();
     if( mode==Vec.T_BAD ) // ALL NAs, nothing to do
@@ -911,6 +918,120 @@ public class NewChunk extends Chunk {
 
   private static long [] NAS = {C1Chunk._NA,C2Chunk._NA,C4Chunk._NA,C8Chunk._NA};
 
+  // Run-length and frame-of-reference encodings have slower random access
+  // than fixed-width ones; only take them when they save this much space.
+  // Small chunks gain little; keep them fixed-width.
+  private static final double RUNS_RATIO = 0.8;
+  private static final int RUNS_MIN_LEN = 1024;
+
+  // Try run-length and frame-of-reference encoding of dense numbers; return
+  // the smaller if it beats the fixed-width encoding, else null.
+  private Chunk compressRuns( Chunk fixed ) {
+    if( _len < RUNS_MIN_LEN || sparseLen() != _len || _ss != null || isUUID() ||
+        fixed instanceof C0LChunk || fixed instanceof C0DChunk ) return null;
+    final boolean ints = _ds == null && !fixed.hasFloat();
+    final int limit = (int)(RUNS_RATIO*fixed._mem.length);
+    int nruns = 1;
+    long prev = bits2(0,ints);
+    for( int i=1; i<_len && CRLChunk.computeByteSize(nruns) < limit; i++ ) {
+      long b = bits2(i,ints);
+      if( b != prev ) { nruns++; prev = b; }
+    }
+    final int rlsz = CRLChunk.computeByteSize(nruns);
+    int forsz = Integer.MAX_VALUE;
+    if( ints ) {
+      forsz = CFORChunk.dataOff(_len);
+      for( int r0=0; r0<_len && forsz < limit; r0+=CFORChunk.BLOCK ) {
+        int r1 = Math.min(_len,r0+CFORChunk.BLOCK);
+        forsz += (r1-r0)*(forWidth(r0,r1)&0x0F);
+      }
+    }
+    if( Math.min(rlsz,forsz) >= limit ) return null;
+    return rlsz <= forsz ? new CRLChunk(bufRL(nruns,ints)) : new CFORChunk(bufFOR(forsz));
+  }
+
+  // Row i of a dense chunk as a long (NAs as C8Chunk._NA) for integer data,
+  // else as double bits (NaN canonical)
+  private long bits2( int i, boolean ints ) {
+    if( ints ) {
+      if( isNA2(i) ) return C8Chunk._NA;
+      int x = _xs[i]==Integer.MIN_VALUE+1 ? 0 : _xs[i];
+      return x >= 0 ? _ls[i]*PrettyPrint.pow10i(x) : _ls[i]/PrettyPrint.pow10i(-x);
+    }
+    double d = _ds != null ? _ds[i] : (isNA2(i) || isCategorical2(i)) ? Double.NaN : _ls[i]*PrettyPrint.pow10(_xs[i]);
+    return Double.doubleToLongBits(d);
+  }
+
+  // Frame-of-reference width of the block of rows [r0,r1), with the NA flag
+  private int forWidth( int r0, int r1 ) {
+    long lo = Long.MAX_VALUE, hi = Long.MIN_VALUE;
+    boolean nas = false;
+    for( int i=r0; i<r1; i++ ) {
+      long l = bits2(i,true);
+      if( l == C8Chunk._NA ) { nas = true; continue; }
+      if( l < lo ) lo = l;
+      if( l > hi ) hi = l;
+    }
+    int w = CFORChunk.width(lo,hi,nas);
+    return nas && w < 8 ? w|CFORChunk.NAS : w;
+  }
+
+  // Compute a run-length buffer
+  private byte[] bufRL( int nruns, boolean ints ) {
+    byte[] bs = MemoryManager.malloc1(CRLChunk.computeByteSize(nruns));
+    UnsafeUtils.set4(bs,0,_len);
+    UnsafeUtils.set4(bs,4,nruns);
+    bs[8] = (byte)(ints ? 0 : 1);
+    final int voff = CRLChunk._OFF + (nruns<<2);
+    int r = 0;
+    long prev = bits2(0,ints);
+    for( int i=1; i<_len; i++ ) {
+      long b = bits2(i,ints);
+      if( b == prev ) continue;
+      UnsafeUtils.set4(bs,CRLChunk._OFF+(r<<2),i);
+      UnsafeUtils.set8(bs,voff+(r<<3),prev);
+      r++;  prev = b;
+    }
+    UnsafeUtils.set4(bs,CRLChunk._OFF+(r<<2),_len);
+    UnsafeUtils.set8(bs,voff+(r<<3),prev);
+    assert r+1 == nruns;
+    return bs;
+  }
+
+  // Compute a frame-of-reference buffer
+  private byte[] bufFOR( int sz ) {
+    byte[] bs = MemoryManager.malloc1(sz);
+    UnsafeUtils.set4(bs,0,_len);
+    int off = CFORChunk.dataOff(_len);
+    for( int r0=0, dir=CFORChunk._OFF; r0<_len; r0+=CFORChunk.BLOCK, dir+=CFORChunk.DIR ) {
+      int r1 = Math.min(_len,r0+CFORChunk.BLOCK);
+      int wb = forWidth(r0,r1), w = wb&0x0F;
+      long ref = Long.MAX_VALUE;
+      for( int i=r0; i<r1; i++ ) {
+        long l = bits2(i,true);
+        if( l != C8Chunk._NA && l < ref ) ref = l;
+      }
+      if( ref == Long.MAX_VALUE || w == 8 ) ref = 0; // All NAs, or raw values
+      UnsafeUtils.set8(bs,dir,ref);
+      bs[dir+8] = (byte)wb;
+      UnsafeUtils.set4(bs,dir+9,off);
+      for( int i=r0; i<r1; i++, off+=w ) {
+        long l = bits2(i,true);
+        long x = w == 8 ? l : l == C8Chunk._NA ? -1 : l-ref; // NA: all ones
+        switch( w ) {
+        case 0: break;
+        case 1: bs[off] = (byte)x; break;
+        case 2: UnsafeUtils.set2(bs,off,(short)x); break;
+        case 4: UnsafeUtils.set4(bs,off,(int)x); break;
+        case 8: UnsafeUtils.set8(bs,off,x); break;
+        default: throw H2O.fail();
+        }
+      }
+    }
+    assert off == sz;
+    return bs;
+  }
+
   // Compute a sparse integer buffer
   private byte[] bufS(final int valsz){
     int log = 0;
@@ -0,0 +1,301 @@
+package water.fvec;
+
+import water.*;
+import water.parser.BufferedString;
+import water.persist.Persist;
+import water.util.Log;
+import water.util.PrettyPrint;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPOutputStream;
+
+/** Chunk-parallel CSV export of a Frame.
+ *
+ *  Same text as {@link Frame#toCSV}, but every chunk is formatted on its home
+ *  node, in parallel, straight from the Chunk into a byte buffer; no per-row
+ *  Vec lookups, and no Strings for integers or categoricals.  Gzip, when
+ *  asked for, is also done per chunk: every chunk is its own gzip member, and
+ *  members concatenate into a valid gzip file.
+ *
+ *  The chunks are either written as part files into a directory by the nodes
+ *  that formatted them, or gathered a window at a time and written in order
+ *  into one file while the next window is formatted.  A window is sized by
+ *  the estimated text of its chunks against the driver's free heap.
+ */
+public class ParallelExport {
+  // Column kinds
+  private static final byte CAT = 0, UUID = 1, INT = 2, STR = 3, REAL = 4;
+  private static final Pattern PART = Pattern.compile("part-\\d{5,}\\.csv(\\.gz)?");
+
+  /** Export fr as one CSV file, with a header.  Progress (one unit per chunk)
+   *  goes to the job, if any. */
+  public static void exportSingle( Frame fr, OutputStream os, boolean gzip, boolean hexString, Job j ) throws IOException {
+    exportSingle(fr,os,gzip,hexString,j,windowBudget());
+  }
+
+  // Windows hold up to budget bytes of estimated text; at least one chunk
+  static void exportSingle( Frame fr, OutputStream os, boolean gzip, boolean hexString, Job j, long budget ) throws IOException {
+    Key[] cks = chunkKeys(fr);
+    int[] bounds = windows(fr,budget);
+    os.write(compress(header(fr),gzip));
+    FormatWindow next = cks.length == 0 ? null : window(fr,cks,bounds[0],bounds[1],gzip,hexString);
+    for( int w=0; w<bounds.length-1; w++ ) {
+      FormatWindow cur = next.getResult();
+      // Format the next window while this one is written
+      next = w+2 < bounds.length ? window(fr,cks,bounds[w+1],bounds[w+2],gzip,hexString) : null;
+      for( byte[] bs : cur._bytes ) os.write(bs);
+      if( j != null ) j.update(cur._bytes.length);
+    }
+  }
+
+  /** Export fr as part files named part-NNNNN.csv[.gz] into dir, one per chunk,
+   *  written by the node holding the chunk; so dir must be reachable by every
+   *  node (HDFS, or a shared filesystem).  Only the first part has the
+   *  header, so the parts concatenate into the single-file export. */
+  public static void exportParts( Frame fr, String dir, boolean overwrite, boolean gzip, boolean hexString, Job j ) {
+    if( !H2O.getPM().exists(dir) && !H2O.getPM().mkdirs(dir) )
+      throw new IllegalArgumentException("Cannot create directory "+dir);
+    // Parts of an earlier, longer export would otherwise be left behind
+    if( overwrite ) deleteParts(dir);
+    new WriteParts(fr,dir,overwrite,gzip,hexString,j == null ? null : j._key).doAll(fr);
+  }
+
+  /** Name of the part file for a chunk. */
+  public static String partName( int cidx, boolean gzip ) {
+    String s = Integer.toString(cidx);
+    while( s.length() < 5 ) s = "0"+s;
+    return "part-"+s+(gzip ? ".csv.gz" : ".csv");
+  }
+
+  // Delete the part files (of either compression) in dir
+  private static void deleteParts( String dir ) {
+    for( Persist.PersistEntry pe : H2O.getPM().list(dir) ) {
+      String name = pe._name.substring(pe._name.lastIndexOf('/')+1);
+      if( PART.matcher(name).matches() && !H2O.getPM().delete(dir+"/"+name) )
+        throw new IllegalArgumentException("Cannot delete "+dir+"/"+name);
+    }
+  }
+
+  private static Key[] chunkKeys( Frame fr ) {
+    if( fr.numCols() == 0 ) return new Key[0];
+    Vec v = fr.anyVec();
+    Key[] ks = new Key[v.nChunks()];
+    for( int i=0; i<ks.length; i++ ) ks[i] = v.chunkKey(i);
+    return ks;
+  }
+
+  // Bytes of formatted text a window may hold.  Two windows are alive at
+  // once - the one being written and the one being formatted - and each is
+  // also held by its task while gathered, so take an eighth of the driver's
+  // free heap.
+  static long windowBudget() {
+    Runtime run = Runtime.getRuntime();
+    long free = run.maxMemory() - (run.totalMemory() - run.freeMemory());
+    return Math.max(1<<20,free>>3);
+  }
+
+  // Window boundaries: chunk indices 0 = b[0] < b[1] < ... < b[n] = nChunks,
+  // each window within the budget by the estimated text size of its chunks
+  static int[] windows( Frame fr, long budget ) {
+    int nchks = fr.numCols() == 0 ? 0 : fr.anyVec().nChunks();
+    if( nchks == 0 ) return new int[]{0};
+    long row = rowBytes(fr);
+    long[] espc = fr.anyVec().espc();
+    int[] bounds = new int[nchks+1];
+    int n = 1;
+    long sz = 0;
+    for( int c=0; c<nchks; c++ ) {
+      long csz = (espc[c+1]-espc[c])*row;
+      if( sz > 0 && sz+csz > budget ) { bounds[n++] = c; sz = 0; }
+      sz += csz;
+    }
+    bounds[n++] = nchks;
+    return Arrays.copyOf(bounds,n);
+  }
+
+  // Estimated bytes of text per row: the widest value of every column from
+  // its rollups, plus separators
+  static long rowBytes( Frame fr ) {
+    long sz = 0;
+    for( Vec v : fr.vecs() ) {
+      if( v.isCategorical() ) {
+        int w = 0;
+        for( String l : v.domain() ) w = Math.max(w,l.length());
+        sz += w+2;
+      } else if( v.isUUID() ) sz += 36;
+      else if( v.isString() ) sz += v.byteSize()/Math.max(1,v.length())+2;
+      else if( v.isInt() ) sz += Long.toString(Math.max(Math.abs((long)v.min()),Math.abs((long)v.max()))).length()+1;
+      else sz += 24;            // Longest Double.toString / toHexString
+      sz++;                     // Comma or newline
+    }
+    return sz;
+  }
+
+  private static FormatWindow window( Frame fr, Key[] cks, int lo, int hi, boolean gzip, boolean hexString ) {
+    FormatWindow fw = new FormatWindow(fr,lo,hi,gzip,hexString);
+    fw.asyncExec(Arrays.copyOfRange(cks,lo,hi));
+    return fw;
+  }
+
+  static byte[] header( Frame fr ) {
+    Bytes b = new Bytes(64*fr.numCols());
+    for( int i=0; i<fr.numCols(); i++ ) {
+      if( i > 0 ) b.add(',');
+      b.add('"').add(fr._names[i].getBytes()).add('"');
+    }
+    if( fr.numCols() > 0 ) b.add('\n');
+    return b.toArray();
+  }
+
+  static byte[] compress( byte[] bs, boolean gzip ) throws IOException {
+    if( !gzip ) return bs;
+    ByteArrayOutputStream bos = new ByteArrayOutputStream(Math.max(64,bs.length>>2));
+    GZIPOutputStream gos = new GZIPOutputStream(bos,1<<16);
+    gos.write(bs);
+    gos.close();
+    return bos.toByteArray();
+  }
+
+  // Per-column formatting state, made once per task
+  private static abstract class Formatter<T extends Formatter<T>> extends MRTask<T> {
+    final Frame _fr;
+    final boolean _gzip, _hexString;
+    transient byte[] _kinds;
+    transient byte[][][] _levels; // Quoted categorical levels, as bytes
+    Formatter( Frame fr, boolean gzip, boolean hexString ) { _fr = fr; _gzip = gzip; _hexString = hexString; }
+
+    @Override protected void setupLocal() {
+      Vec[] vs = _fr.vecs();
+      _kinds = new byte[vs.length];
+      _levels = new byte[vs.length][][];
+      for( int i=0; i<vs.length; i++ ) {
+        Vec v = vs[i];
+        if( v.isCategorical() ) {
+          _kinds[i] = CAT;
+          String[] dom = v.domain();
+          _levels[i] = new byte[dom.length][];
+          for( int l=0; l<dom.length; l++ ) _levels[i][l] = ('"'+dom[l]+'"').getBytes();
+        } else _kinds[i] = v.isUUID() ? UUID : (v.isInt() ? INT : (v.isString() ? STR : REAL));
+      }
+    }
+
+    byte[] format( int cidx ) throws IOException {
+      Vec[] vs = _fr.vecs();
+      Chunk[] cs = new Chunk[vs.length];
+      for( int i=0; i<vs.length; i++ ) cs[i] = vs[i].chunkForChunkIdx(cidx);
+      int len = cs.length == 0 ? 0 : cs[0]._len;
+      Bytes b = new Bytes(Math.max(16,len*cs.length*8));
+      BufferedString tmp = new BufferedString();
+      for( int r=0; r<len; r++ ) {
+        for( int i=0; i<cs.length; i++ ) {
+          if( i > 0 ) b.add(',');
+          Chunk c = cs[i];
+          if( c.isNA(r) ) continue;
+          switch( _kinds[i] ) {
+          case CAT : b.add(_levels[i][(int)c.at8(r)]); break;
+          case UUID: b.add(PrettyPrint.UUID(c.at16l(r),c.at16h(r)).getBytes()); break;
+          case INT : b.addLong(c.at8(r)); break;
+          case STR : c.atStr(tmp,r); b.add('"').add(tmp.getBuffer(),tmp.getOffset(),tmp.length()).add('"'); break;
+          default  : b.addDouble(c.atd(r),_hexString); break;
+          }
+        }
+        b.add('\n');
+      }
+      return compress(b.toArray(),_gzip);
+    }
+  }
+
+  // Format chunks [lo,hi), each on its home node; results gathered in order
+  private static class FormatWindow extends Formatter<FormatWindow> {
+    final int _lo, _n;
+    byte[][] _bytes;            // Formatted chunks lo..lo+n, in order
+    FormatWindow( Frame fr, int lo, int hi, boolean gzip, boolean hexString ) {
+      super(fr,gzip,hexString);
+      _lo = lo;  _n = hi-lo;
+    }
+    @Override public void map( Key key ) {
+      int cidx = FileVec.chunkIdx(key);
+      try {
+        _bytes = new byte[_n][];
+        _bytes[cidx-_lo] = format(cidx);
+      } catch( IOException ioe ) {
+        throw new RuntimeException(ioe);
+      }
+    }
+    @Override public void reduce( FormatWindow f ) {
+      byte[][] bs = f._bytes;
+      if( bs == null || bs == _bytes ) return;
+      if( _bytes == null ) { _bytes = bs; return; }
+      for( int i=0; i<bs.length; i++ ) if( bs[i] != null ) _bytes[i] = bs[i];
+    }
+  }
+
+  // Format & write every chunk as its own part file
+  private static class WriteParts extends Formatter<WriteParts> {
+    final String _dir;
+    final boolean _overwrite;
+    final Key<Job> _job;
+    WriteParts( Frame fr, String dir, boolean overwrite, boolean gzip, boolean hexString, Key<Job> job ) {
+      super(fr,gzip,hexString);
+      _dir = dir; _overwrite = overwrite; _job = job;
+    }
+    @Override public void map( Chunk[] cs ) {
+      int cidx = cs[0].cidx();
+      String path = _dir+"/"+partName(cidx,_gzip);
+      OutputStream os = H2O.getPM().create(path,_overwrite);
+      try {
+        if( cidx == 0 ) os.write(compress(header(_fr),_gzip));
+        os.write(format(cidx));
+      } catch( IOException ioe ) {
+        throw new RuntimeException(ioe);
+      } finally {
+        try { os.close(); } catch( IOException ioe ) { Log.err(ioe); }
+      }
+      if( _job != null ) Job.update(1,_job);
+    }
+  }
+
+  // Growable byte buffer, with number formatting that makes no Strings for
+  // integers
+  static final class Bytes {
+    private byte[] _buf;
+    private int _len;
+    Bytes( int cap ) { _buf = new byte[cap]; }
+    private void ensure( int n ) {
+      if( _len+n > _buf.length ) _buf = Arrays.copyOf(_buf,Math.max(_len+n,_buf.length<<1));
+    }
+    Bytes add( char c ) { ensure(1); _buf[_len++] = (byte)c; return this; }
+    Bytes add( byte[] bs ) { return add(bs,0,bs.length); }
+    Bytes add( byte[] bs, int off, int len ) {
+      ensure(len);
+      System.arraycopy(bs,off,_buf,_len,len);
+      _len += len;
+      return this;
+    }
+    Bytes addLong( long l ) {
+      if( l == Long.MIN_VALUE ) return add(Long.toString(l).getBytes());
+      ensure(20);
+      if( l < 0 ) { _buf[_len++] = '-'; l = -l; }
+      int start = _len;
+      do { _buf[_len++] = (byte)('0'+(l%10)); l /= 10; } while( l != 0 );
+      for( int i=start, j=_len-1; i<j; i++, j-- ) { byte t = _buf[i]; _buf[i] = _buf[j]; _buf[j] = t; }
+      return this;
+    }
+    // Same text as Double.toString (or toHexString); integral values below
+    // 1e7 are written directly, as Double.toString does not use an exponent
+    // for them
+    Bytes addDouble( double d, boolean hex ) {
+      if( !hex && d == (long)d && Math.abs(d) < 1e7 && (d != 0 || 1/d > 0) )
+        return addLong((long)d).add('.').add('0');
+      String s = hex ? Double.toHexString(d) : Double.toString(d);
+      ensure(s.length());
+      for( int i=0; i<s.length(); i++ ) _buf[_len++] = (byte)s.charAt(i);
+      return this;
+    }
+    byte[] toArray() { return Arrays.copyOf(_buf,_len); }
+  }
+}
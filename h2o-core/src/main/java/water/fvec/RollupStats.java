@@ -10,8 +10,13 @@ import water.H2O.H2OCountedCompleter;
 import water.parser.Categorical;
 import water.parser.BufferedString;
 import water.util.ArrayUtils;
+import water.util.HyperLogLog;
+import water.util.QuantileSketch;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
 
 /** A class to compute the rollup stats.  These are computed lazily, thrown
  *  away if the Vec is written into, and then recomputed lazily.  Error to ask
@@ -44,14 +49,19 @@ class RollupStats extends Iced {
   double[] _mins, _maxs;
   long _checksum;
 
-  // Expensive histogram & percentiles
+  // Mergeable sketches, also computed in the 1st pass
+  QuantileSketch _qsketch;      // Of the finite values; gives the percentiles
+  HyperLogLog _hll;             // Of the non-NA values
+  long _distinct;               // Estimated count of distinct non-NA values
+
+  // Expensive histogram
   // Computed in a 2nd pass, on-demand, by calling computeHisto
   private static final int MAX_SIZE = 1000; // Standard bin count; categoricals can have more bins
   // the choice of MAX_SIZE being a power of 10 (rather than 1024) just aligns-to-the-grid of the common input of fixed decimal
   // precision numbers. It is still an estimate and makes no difference mathematically. It just gives tidier output in some
   // simple cases without penalty.
   volatile long[] _bins;
-  // Approximate data value closest to the Xth percentile
+  // Approximate data value closest to the Xth percentile, from the quantile sketch
   double[] _pctiles;
 
   public boolean hasHisto(){return _bins != null;}
@@ -79,6 +89,7 @@ class RollupStats extends Iced {
 
   private RollupStats map( Chunk c ) {
     _size = c.byteSize();
+    sketch(c);
     boolean isUUID = c._vec.isUUID();
     boolean isString = c._vec.isString();
     BufferedString tmpStr = new BufferedString();
@@ -161,28 +172,12 @@ class RollupStats extends Iced {
       }
     } else {
       // Work off all numeric rows, or only the nonzeros for sparse
-      if (c instanceof C1Chunk)
-        checksum=new RollupStatsHelpers(this).numericChunkRollup((C1Chunk) c, start, checksum);
-      else if (c instanceof C1SChunk)
-        checksum=new RollupStatsHelpers(this).numericChunkRollup((C1SChunk) c, start, checksum);
-      else if (c instanceof C1NChunk)
-        checksum=new RollupStatsHelpers(this).numericChunkRollup((C1NChunk) c, start, checksum);
-      else if (c instanceof C2Chunk)
-        checksum=new RollupStatsHelpers(this).numericChunkRollup((C2Chunk) c, start, checksum);
-      else if (c instanceof C2SChunk)
-        checksum=new RollupStatsHelpers(this).numericChunkRollup((C2SChunk) c, start, checksum);
-      else if (c instanceof C4SChunk)
-        checksum=new RollupStatsHelpers(this).numericChunkRollup((C4SChunk) c, start, checksum);
-      else if (c instanceof C4FChunk)
-        checksum=new RollupStatsHelpers(this).numericChunkRollup((C4FChunk) c, start, checksum);
-      else if (c instanceof C4Chunk)
-        checksum=new RollupStatsHelpers(this).numericChunkRollup((C4Chunk) c, start, checksum);
-      else if (c instanceof C8Chunk)
-        checksum=new RollupStatsHelpers(this).numericChunkRollup((C8Chunk) c, start, checksum);
-      else if (c instanceof C8DChunk)
-        checksum=new RollupStatsHelpers(this).numericChunkRollup((C8DChunk) c, start, checksum);
-      else
+      if (c.isSparse())
         checksum=new RollupStatsHelpers(this).numericChunkRollup(c, start, checksum);
+      else if (c.hasFloat())
+        checksum=new RollupStatsHelpers(this).numericChunkRollupDoubles(c, start, checksum);
+      else
+        checksum=new RollupStatsHelpers(this).numericChunkRollupLongs(c, start, checksum);
 
       // special case for sparse chunks
       // we need to merge with the mean (0) and variance (0) of the zeros count of 0s of the sparse chunk - which were skipped above
@@ -214,6 +209,42 @@ class RollupStats extends Iced {
     return this;
   }
 
+  // Quantile and distinct-count sketches of a chunk
+  private void sketch( Chunk c ) {
+    if( c._len == 0 ) return;
+    _hll = new HyperLogLog();
+    if( c._vec.isUUID() ) {
+      for( int i=c.nextNZ(-1); i< c._len; i=c.nextNZ(i) )
+        if( !c.isNA(i) ) _hll.addHash(HyperLogLog.hash(c.at16l(i)) ^ HyperLogLog.hash(~c.at16h(i)));
+      return;
+    }
+    if( c._vec.isString() ) {
+      BufferedString tmpStr = new BufferedString();
+      for( int i=c.nextNZ(-1); i< c._len; i=c.nextNZ(i) )
+        if( !c.isNA(i) ) _hll.addHash(HyperLogLog.hash(c.atStr(tmpStr,i).hashCode()));
+      return;
+    }
+    _qsketch = new QuantileSketch(QuantileSketch.DEFAULT_K, c._start);
+    double min=c.min(), max=c.max();
+    if( min==max ) {            // All constant
+      _hll.add(min);
+      if( !Double.isInfinite(min) ) _qsketch.add(min,c._len);
+      return;
+    }
+    for( int i=c.nextNZ(-1); i< c._len; i=c.nextNZ(i) ) {
+      double d = c.atd(i);
+      if( Double.isNaN(d) ) continue;
+      _hll.add(d);
+      if( !Double.isInfinite(d) ) _qsketch.add(d);
+    }
+    // Sparse?  We skipped all the zeros; do them now
+    int zeros = c._len - c.sparseLen();
+    if( c.isSparse() && zeros > 0 ) {
+      _hll.add(0);
+      _qsketch.add(0,zeros);
+    }
+  }
+
   private void reduce( RollupStats rs ) {
     for( double d : rs._mins ) if (!Double.isNaN(d)) min(d);
     for( double d : rs._maxs ) if (!Double.isNaN(d)) max(d);
@@ -231,6 +262,28 @@ class RollupStats extends Iced {
     _size += rs._size;
     _isInt &= rs._isInt;
     _checksum ^= rs._checksum;
+    if( _qsketch == null ) _qsketch = rs._qsketch; else _qsketch.merge(rs._qsketch);
+    if( _hll     == null ) _hll     = rs._hll;     else _hll    .merge(rs._hll);
+  }
+
+  // Final rollups of a Vec, from the reduced sums and sketches of its chunks
+  private static RollupStats finish( RollupStats rs, Vec vec ) {
+    if( rs == null )
+      rs = new RollupStats(0);
+    else {
+      rs._sigma = Math.sqrt(rs._sigma/(rs._rows-1));
+      if (rs._rows == 1) rs._sigma = 0;
+      if (rs._rows < 5) for (int i=0; i<5-rs._rows; i++) {  // Fix PUBDEV-150 for files under 5 rows
+        rs._maxs[4-i] = Double.NaN;
+        rs._mins[4-i] = Double.NaN;
+      }
+      if( rs._qsketch != null ) rs._pctiles = rs._qsketch.quantiles(Vec.PERCENTILES);
+      if( rs._hll != null ) rs._distinct = Math.min(rs._hll.estimate(), vec.length()-rs._naCnt);
+    }
+    // mean & sigma not allowed on more than 2 classes; for 2 classes the assumption is that it's true/false
+    if( vec.isCategorical() && vec.domain().length > 2 )
+      rs._mean = rs._sigma = Double.NaN;
+    return rs;
   }
 
   double min( double d ) {
@@ -254,25 +307,86 @@ class RollupStats extends Iced {
     Roll( H2OCountedCompleter cmp, Key rskey ) { super(cmp); _rskey=rskey; }
     @Override public void map( Chunk c ) { _rs = new RollupStats(0).map(c); }
     @Override public void reduce( Roll roll ) { _rs.reduce(roll._rs); }
+    @Override public void postGlobal() { _rs = finish(_rs,_fr.anyVec()); }
+    // Just toooo common to report always.  Drowning in multi-megabyte log file writes.
+    @Override public boolean logVerbose() { return false; }
+  }
+
+  // Rollups of all the Vecs of a Frame, in a single pass
+  private static class FrameRoll extends MRTask<FrameRoll> {
+    RollupStats[] _rss;
+    @Override public void map( Chunk[] cs ) {
+      _rss = new RollupStats[cs.length];
+      for( int i=0; i<cs.length; i++ ) _rss[i] = new RollupStats(0).map(cs[i]);
+    }
+    @Override public void reduce( FrameRoll roll ) {
+      if( _rss == null ) _rss = roll._rss;
+      else if( roll._rss != null )
+        for( int i=0; i<_rss.length; i++ ) _rss[i].reduce(roll._rss[i]);
+    }
     @Override public void postGlobal() {
-      if( _rs == null )
-        _rs = new RollupStats(0);
-      else {
-        _rs._sigma = Math.sqrt(_rs._sigma/(_rs._rows-1));
-        if (_rs._rows == 1) _rs._sigma = 0;
-        if (_rs._rows < 5) for (int i=0; i<5-_rs._rows; i++) {  // Fix PUBDEV-150 for files under 5 rows
-          _rs._maxs[4-i] = Double.NaN;
-          _rs._mins[4-i] = Double.NaN;
-        }
+      Vec[] vecs = _fr.vecs();
+      if( _rss == null ) _rss = new RollupStats[vecs.length];
+      for( int i=0; i<vecs.length; i++ ) {
+        _rss[i] = finish(_rss[i],vecs[i]);
+        _rss[i]._checksum ^= vecs[i].length();
       }
-      // mean & sigma not allowed on more than 2 classes; for 2 classes the assumption is that it's true/false
-      if( _fr.anyVec().isCategorical() && _fr.anyVec().domain().length > 2 )
-        _rs._mean = _rs._sigma = Double.NaN;
     }
-    // Just toooo common to report always.  Drowning in multi-megabyte log file writes.
     @Override public boolean logVerbose() { return false; }
   }
 
+  // Install rollups on the home node of their keys - unless rollups are there
+  // already, or are being computed, or the Vec is being modified.
+  private static class InstallRollups extends DTask<InstallRollups> {
+    final Key[] _rsKeys;
+    final RollupStats[] _rss;
+    InstallRollups( Key[] rsKeys, RollupStats[] rss ) { _rsKeys = rsKeys; _rss = rss; }
+    @Override protected void compute2() {
+      Futures fs = new Futures();
+      for( int i=0; i<_rsKeys.length; i++ ) {
+        assert _rsKeys[i].home();
+        DKV.DputIfMatch(_rsKeys[i], new Value(_rsKeys[i], _rss[i]), null, fs);
+      }
+      fs.blockForPending();
+      tryComplete();
+    }
+  }
+
+  /** Compute the rollups of many Vecs in a single pass over their chunks,
+   *  rather than one pass (and one cluster-wide task) per Vec.  Vecs with
+   *  rollups already present or being computed are skipped, and so are Vecs
+   *  not compatible with the first one needing rollups; these get the usual
+   *  lazy per-Vec rollups.  Meant for fresh Vecs, e.g. right after a parse:
+   *  the rollups are only installed where no other rollups showed up meanwhile. */
+  static void computeAll( Vec[] vecs ) {
+    ArrayList<Vec> todo = new ArrayList<>();
+    for( Vec v : vecs )
+      if( v.length() > 0 && DKV.get(v.rollupStatsKey()) == null && (todo.isEmpty() || todo.get(0).checkCompatible(v)) )
+        todo.add(v);
+    if( todo.isEmpty() ) return;
+    Vec[] vs = todo.toArray(new Vec[todo.size()]);
+    RollupStats[] rss = new FrameRoll().doAll(new Frame(vs))._rss;
+    // One install task per home node of the rollups
+    HashMap<H2ONode,ArrayList<Integer>> homes = new HashMap<>();
+    for( int i=0; i<vs.length; i++ ) {
+      H2ONode home = vs[i].rollupStatsKey().home_node();
+      if( !homes.containsKey(home) ) homes.put(home, new ArrayList<Integer>());
+      homes.get(home).add(i);
+    }
+    Futures fs = new Futures();
+    for( Map.Entry<H2ONode,ArrayList<Integer>> e : homes.entrySet() ) {
+      ArrayList<Integer> idxs = e.getValue();
+      Key[] keys = new Key[idxs.size()];
+      RollupStats[] rs = new RollupStats[idxs.size()];
+      for( int j=0; j<keys.length; j++ ) {
+        keys[j] = vs[idxs.get(j)].rollupStatsKey();
+        rs[j] = rss[idxs.get(j)];
+      }
+      fs.add(RPC.call(e.getKey(), new InstallRollups(keys, rs)));
+    }
+    fs.blockForPending();
+  }
+
   static void start(final Vec vec, Futures fs, boolean computeHisto) {
     if( DKV.get(vec._key)== null ) throw new RuntimeException("Rollups not possible, because Vec was deleted: "+vec._key);
     final Key rskey = vec.rollupStatsKey();
@@ -469,37 +583,6 @@ class RollupStats extends Iced {
         @Override public void callback(Histo histo) {
           assert ArrayUtils.sum(histo._bins) == rows;
           rs._bins = histo._bins;
-          // Compute percentiles from histogram
-          rs._pctiles = new double[Vec.PERCENTILES.length];
-          int j = 0;                 // Histogram bin number
-          int k = 0;                 // The next non-zero bin after j
-          long hsum = 0;             // Rolling histogram sum
-          double base = rs.h_base();
-          double stride = rs.h_stride();
-          double lastP = -1.0;       // any negative value to pass assert below first time
-          for (int i = 0; i < Vec.PERCENTILES.length; i++) {
-            final double P = Vec.PERCENTILES[i];
-            assert P>=0 && P<=1 && P>=lastP;   // rely on increasing percentiles here. If P has dup then strange but accept, hence >= not >
-            lastP = P;
-            double pdouble = 1.0 + P*(rows-1);   // following stats:::quantile.default type 7
-            long pint = (long) pdouble;          // 1-based into bin vector
-            double h = pdouble - pint;           // any fraction h to linearly interpolate between?
-            assert P!=1 || (h==0.0 && pint==rows);  // i.e. max
-            while (hsum < pint) hsum += rs._bins[j++];
-            // j overshot by 1 bin; we added _bins[j-1] and this goes from too low to either exactly right or too big
-            // pint now falls in bin j-1 (the ++ happened even when hsum==pint), so grab that bin value now
-            rs._pctiles[i] = base + stride * (j - 1);
-            if (h>0 && pint==hsum) {
-              // linearly interpolate between adjacent non-zero bins
-              //      i) pint is the last of (j-1)'s bin count (>1 when either duplicates exist in input, or stride makes dups at lower accuracy)
-              // AND ii) h>0 so we do need to find the next non-zero bin
-              if (k<j) k=j; // if j jumped over the k needed for the last P, catch k up to j
-                            // Saves potentially winding k forward over the same zero stretch many times
-              while (rs._bins[k]==0) k++;  // find the next non-zero bin
-              rs._pctiles[i] += h * stride * (k-j+1);
-            } // otherwise either h==0 and we know which bin, or fraction is between two positions that fall in the same bin
-            // this guarantees we are within one bin of the exact answer; i.e. within (max-min)/MAX_SIZE
-          }
           installResponse(nnn, rs);
         }
       },rs,nbins).dfork(vec); // intentionally using dfork here to increase priority level
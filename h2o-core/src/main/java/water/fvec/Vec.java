@@ -639,8 +639,21 @@ public class Vec extends Keyed<Vec> {
 
   /** A simple and cheap percentiles of the Vec, useful for getting a broad
    *  overview of the data.  The specific percentiles are take from {@link #PERCENTILES}. 
+   *  They come from a quantile sketch computed with the other rollups, so
+   *  they are exact for small Vecs, and have a rank error of about 1% else.
    *  @return A set of percentiles */
-  public double[] pctiles() { return RollupStats.get(this, true)._pctiles;   }
+  public double[] pctiles() { return rollupStats()._pctiles;   }
+
+  /** Estimated count of distinct non-NA values, from a HyperLogLog sketch
+   *  computed with the other rollups; nearly exact for small counts, within
+   *  a few percent else.
+   *  @return Estimated count of distinct values */
+  public long distinctCnt() { return rollupStats()._distinct; }
+
+  /** The quantile sketch of the finite values, computed with the other
+   *  rollups; e.g. to bracket exact quantiles before refining them.
+   *  @return The quantile sketch, or null for string and UUID Vecs */
+  public QuantileSketch quantileSketch() { return rollupStats()._qsketch; }
 
 
   /** Compute the roll-up stats as-needed */
@@ -660,6 +673,13 @@ public class Vec extends Keyed<Vec> {
    */
   public void startRollupStats(Futures fs, boolean doHisto) { RollupStats.start(this,fs,doHisto); }
 
+  /** Compute the rollup stats of many Vecs at once, in a single pass over
+   *  their chunks rather than one pass per Vec - e.g. for all the columns of
+   *  a freshly parsed Frame.  Vecs with rollups already, or not compatible
+   *  with the others, are skipped; they still get lazy rollups as usual.
+   *  @param vecs Vecs to compute the rollup stats of */
+  public static void computeRollupStats(Vec... vecs) { RollupStats.computeAll(vecs); }
+
   /** A high-quality 64-bit checksum of the Vec's content, useful for
    *  establishing dataset identity.
    *  @return Checksum of the Vec's content  */
@@ -1049,6 +1069,7 @@ public class Vec extends Keyed<Vec> {
     Key kr = chunkKey(vkey,-2); // Rollup Stats
     H2O.raw_remove(kr);
     H2O.raw_remove(vkey);
+    FrameSnapshot.forget(vkey);
   }
 
   // ======= Whole Vec Transformations ======
@@ -84,6 +84,8 @@ public class NetworkBench extends Iced {
       System.out.println();
     }
     Log.info("Newtork test done in " + ((System.currentTimeMillis()-t1)*0.001) + "s");
+    if( NIOTransport.enabled() ) Log.info(NIOTransport.stats());
+    Log.info(UDPBatch.stats());
     return this;
   }
 
@@ -0,0 +1,287 @@
+package water.parser;
+
+import water.DKV;
+import water.Job;
+import water.Key;
+import water.exceptions.H2OParseException;
+import water.exceptions.H2OParseSetupException;
+import water.fvec.ByteVec;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Base for parsers of self-describing columnar files (ORC, Parquet).
+ *
+ * Such files are cut into independently readable slices - ORC stripes,
+ * Parquet row-groups - listed in a footer together with per-column min/max
+ * statistics.  The file is still loaded as a plain ByteVec and parsed by
+ * {@code DistributedParse}, but a chunk does not hold text lines: the parse
+ * of byte-chunk {@code cidx} reads every slice that <em>starts</em> in that
+ * chunk, so slices are spread across the cluster like the chunks themselves.
+ *
+ * Only the projected columns are decoded (see {@code ParseSetup._skipped_columns}),
+ * slices whose statistics cannot satisfy the row filter are never read (see
+ * {@link RowFilter}), and values are handed to the ParseWriter as numbers or
+ * byte strings - never as text to be re-tokenized.
+ *
+ * The format readers themselves need Hadoop and live in h2o-persist-hdfs;
+ * they are loaded reflectively by {@link ParseSetup#parser}.
+ */
+public abstract class ColumnarParser extends Parser {
+  /** How a reader hands over the values of a column. */
+  protected static final byte KIND_LONG = 0;   // Integral numbers; times in msec
+  protected static final byte KIND_DOUBLE = 1; // Floating point numbers
+  protected static final byte KIND_BYTES = 2;  // UTF-8 strings or raw bytes
+
+  // Rows decoded per batch
+  protected static final int BATCH_ROWS = 1024;
+
+  /** One independently readable slice of a file: an ORC stripe or a Parquet row-group. */
+  protected static final class Split {
+    final long _offset;         // Byte offset of the first byte of the slice
+    final long _length;         // Bytes in the slice
+    final long _nrows;
+    // Per file column value range; (-Inf,+Inf) when unknown, (+Inf,-Inf)
+    // when the column holds only missing values.
+    final double[] _mins, _maxs;
+    protected Split(long offset, long length, long nrows, double[] mins, double[] maxs) {
+      _offset = offset; _length = length; _nrows = nrows; _mins = mins; _maxs = maxs;
+    }
+  }
+
+  /** What a file footer says: the flat columns and the slices. */
+  protected static final class Layout {
+    final String[] _names;      // Per file column
+    final byte[] _types;        // Default Vec type per file column
+    final byte[] _kinds;        // KIND_XXX per file column
+    final Split[] _splits;
+    protected Layout(String[] names, byte[] types, byte[] kinds, Split[] splits) {
+      _names = names; _types = types; _kinds = kinds; _splits = splits;
+    }
+  }
+
+  /** A batch of decoded rows, laid out per file column; unread columns are null. */
+  protected static final class Batch {
+    protected final int _capacity;  // Most rows a reader may put in
+    protected int _nrows;
+    protected final boolean[][] _na;
+    protected final long[][] _l;      // KIND_LONG
+    protected final double[][] _d;    // KIND_DOUBLE
+    protected final byte[][][] _b;    // KIND_BYTES: buffer, offset & length of each value
+    protected final int[][] _bo, _bl;
+    Batch(Layout layout, int[] cols, int nrows) {
+      int ncols = layout._names.length;
+      _capacity = nrows;
+      _na = new boolean[ncols][];
+      _l = new long[ncols][];
+      _d = new double[ncols][];
+      _b = new byte[ncols][][];
+      _bo = new int[ncols][];
+      _bl = new int[ncols][];
+      for( int c : cols ) {
+        _na[c] = new boolean[nrows];
+        switch( layout._kinds[c] ) {
+          case KIND_LONG:   _l[c] = new long[nrows];    break;
+          case KIND_DOUBLE: _d[c] = new double[nrows];  break;
+          case KIND_BYTES:  _b[c] = new byte[nrows][]; _bo[c] = new int[nrows]; _bl[c] = new int[nrows]; break;
+        }
+      }
+    }
+    // Numeric view of a value, for row filters
+    double num(Layout layout, int c, int row) {
+      if( _na[c][row] ) return Double.NaN;
+      switch( layout._kinds[c] ) {
+        case KIND_LONG:   return _l[c][row];
+        case KIND_DOUBLE: return _d[c][row];
+        default:          return Double.NaN;
+      }
+    }
+    String str(Layout layout, int c, int row) {
+      if( _na[c][row] ) return "NA";
+      switch( layout._kinds[c] ) {
+        case KIND_LONG:   return Long.toString(_l[c][row]);
+        case KIND_DOUBLE: return Double.toString(_d[c][row]);
+        default:          return new BufferedString(_b[c][row], _bo[c][row], _bl[c][row]).toString();
+      }
+    }
+  }
+
+  /** Decodes the rows of one slice, a batch at a time. */
+  protected interface SplitReader extends Closeable {
+    /** Fill the batch with the next rows; false when the slice is done. */
+    boolean next(Batch b) throws IOException;
+  }
+
+  // Footer of the file being parsed, read once per node
+  private transient Layout _layout;
+  private transient Key _layoutKey;
+
+  protected ColumnarParser(ParseSetup setup, Key jobKey) { super(setup, jobKey); }
+
+  /** Read the file footer: flat columns, their types, and the slices. */
+  protected abstract Layout readLayout(ByteVec vec) throws IOException;
+
+  /** Open a reader decoding file columns {@code cols} of one slice. */
+  protected abstract SplitReader openSplit(ByteVec vec, Layout layout, Split split, int[] cols) throws IOException;
+
+  final synchronized Layout layout(ByteVec vec) {
+    if( _layout == null || !vec._key.equals(_layoutKey) ) {
+      try {
+        _layout = readLayout(vec);
+      } catch( IOException ioe ) {
+        throw new H2OParseException("Unable to read the " + _setup._parse_type + " footer: " + ioe.getMessage());
+      }
+      _layoutKey = vec._key;
+    }
+    return _layout;
+  }
+
+  // File columns to read: all but the skipped ones
+  final int[] projection(Layout layout) {
+    int ncols = layout._names.length;
+    boolean[] skip = new boolean[ncols];
+    if( _setup._skipped_columns != null )
+      for( int c : _setup._skipped_columns ) {
+        if( c < 0 || c >= ncols )
+          throw new H2OParseSetupException("Skipped column index " + c + " is out of range; the file has " + ncols + " columns.");
+        skip[c] = true;
+      }
+    int[] cols = new int[ncols];
+    int n = 0;
+    for( int c = 0; c < ncols; c++ )
+      if( !skip[c] ) cols[n++] = c;
+    return Arrays.copyOf(cols, n);
+  }
+
+  // Row filter bound to the file columns; it may only use projected columns
+  final RowFilter filter(Layout layout, int[] cols) {
+    RowFilter filter = RowFilter.parse(_setup._row_filter);
+    if( filter == null ) return null;
+    filter.bind(layout._names);
+    for( int c : filter._cols ) {
+      if( Arrays.binarySearch(cols, c) < 0 )
+        throw new H2OParseSetupException("Row filter column '" + layout._names[c] + "' is skipped.");
+      if( layout._kinds[c] == KIND_BYTES )
+        throw new H2OParseSetupException("Row filter column '" + layout._names[c] + "' is not numeric.");
+    }
+    return filter;
+  }
+
+  /** Parse every slice starting in byte-chunk {@code cidx}. */
+  @Override ParseWriter parseChunk(int cidx, ParseReader din, ParseWriter dout) {
+    if( !(din instanceof FVecParseReader) )
+      throw new H2OParseException(_setup._parse_type + " files cannot be parsed from a compressed stream.");
+    FVecParseReader fdin = (FVecParseReader)din;
+    ByteVec vec = (ByteVec)fdin._vec;
+    long lo = fdin._firstLine, hi = lo + fdin._chk._len;
+    Layout layout = layout(vec);
+    int[] cols = projection(layout);
+    RowFilter filter = filter(layout, cols);
+    for( Split split : layout._splits ) {
+      if( split._offset < lo || split._offset >= hi ) continue;
+      if( filter != null && !filter.mayAccept(split._mins, split._maxs) ) continue; // Nothing in here can pass
+      if( _jobKey != null && ((Job)DKV.getGet(_jobKey)).isCancelledOrCrashed() ) break;
+      try {
+        parseSplit(vec, layout, split, cols, filter, dout);
+      } catch( IOException ioe ) {
+        throw new H2OParseException("Unable to read " + _setup._parse_type + " data at offset " + split._offset + ": " + ioe.getMessage());
+      }
+    }
+    return dout;
+  }
+
+  private void parseSplit(ByteVec vec, Layout layout, Split split, int[] cols, RowFilter filter, ParseWriter dout) throws IOException {
+    Batch b = new Batch(layout, cols, BATCH_ROWS);
+    BufferedString str = new BufferedString();
+    try( SplitReader rd = openSplit(vec, layout, split, cols) ) {
+      while( rd.next(b) ) {
+        ROWS:
+        for( int row = 0; row < b._nrows; row++ ) {
+          if( filter != null )
+            for( int i = 0; i < filter._cols.length; i++ )
+              if( !filter.accept(i, b.num(layout, filter._cols[i], row)) )
+                continue ROWS;
+          for( int j = 0; j < cols.length; j++ ) {
+            int c = cols[j];
+            if( b._na[c][row] ) { dout.addInvalidCol(j); continue; }
+            switch( layout._kinds[c] ) {
+              case KIND_LONG:
+                if( dout.isString(j) ) dout.addStrCol(j, str.setTo(Long.toString(b._l[c][row])));
+                else dout.addNumCol(j, b._l[c][row], 0);
+                break;
+              case KIND_DOUBLE:
+                if( dout.isString(j) ) dout.addStrCol(j, str.setTo(Double.toString(b._d[c][row])));
+                else dout.addNumCol(j, b._d[c][row]);
+                break;
+              case KIND_BYTES:
+                dout.addStrCol(j, str.set(b._b[c][row], b._bo[c][row], b._bl[c][row]));
+                break;
+            }
+          }
+          dout.newLine();
+        }
+      }
+    }
+  }
+
+  /**
+   * The columnar type of a file, from the user's choice or else from the
+   * magic bytes at its start; null when the file is not columnar.
+   */
+  static ParserType guessType(byte[] bits, ParserType userType) {
+    if( userType == ParserType.ORC || userType == ParserType.PARQUET ) return userType;
+    if( userType != ParserType.GUESS ) return null;
+    if( bits.length >= 4 && bits[0]=='P' && bits[1]=='A' && bits[2]=='R' && bits[3]=='1' ) return ParserType.PARQUET;
+    if( bits.length >= 3 && bits[0]=='O' && bits[1]=='R' && bits[2]=='C' ) return ParserType.ORC;
+    return null;
+  }
+
+  /**
+   * Setup for a columnar file: names and types come from the footer, the
+   * preview from the first rows of the first slice.  Skipped columns and
+   * the row filter are checked against the file and carried along.
+   */
+  static ParseSetup guessSetup(ByteVec vec, ParserType type, ParseSetup userSetup) {
+    ParseSetup ps = new ParseSetup(userSetup).setParseType(type);
+    ColumnarParser p = (ColumnarParser)ps.parser(null);
+    Layout layout = p.layout(vec);
+    int[] cols = p.projection(layout);
+    if( cols.length == 0 ) throw new H2OParseSetupException("All columns of the file are skipped.");
+    p.filter(layout, cols);
+
+    String[] names = new String[cols.length];
+    byte[] types = new byte[cols.length];
+    for( int j = 0; j < cols.length; j++ ) {
+      names[j] = layout._names[cols[j]];
+      types[j] = layout._types[cols[j]];
+    }
+    // Honor user renames and type overrides of the projected columns
+    if( userSetup._column_names != null && userSetup._column_names.length == cols.length ) names = userSetup._column_names;
+    if( userSetup._column_types != null && userSetup._column_types.length == cols.length ) types = userSetup._column_types;
+
+    // Preview: column names, then the first rows
+    String[][] data = new String[1][];
+    data[0] = names;
+    if( layout._splits.length > 0 ) {
+      Batch b = new Batch(layout, cols, PreviewParseWriter.MAX_PREVIEW_LINES - 1);
+      try( SplitReader rd = p.openSplit(vec, layout, layout._splits[0], cols) ) {
+        if( rd.next(b) ) {
+          data = Arrays.copyOf(data, 1 + b._nrows);
+          for( int row = 0; row < b._nrows; row++ ) {
+            data[1 + row] = new String[cols.length];
+            for( int j = 0; j < cols.length; j++ )
+              data[1 + row][j] = b.str(layout, cols[j], row);
+          }
+        }
+      } catch( IOException ioe ) {
+        throw new H2OParseSetupException("Unable to read " + type + " data: " + ioe.getMessage());
+      }
+    }
+    ParseSetup res = new ParseSetup(type, ParseSetup.GUESS_SEP, false, ParseSetup.HAS_HEADER, cols.length, names, types, null, null, data);
+    res._skipped_columns = userSetup._skipped_columns;
+    res._row_filter = userSetup._row_filter;
+    return res;
+  }
+}
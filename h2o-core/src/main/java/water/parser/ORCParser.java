@@ -1,7 +0,0 @@
-package water.parser;
-
-/**
- * Created by brandon on 9/22/15.
- */
-public class ORCParser {
-}
@@ -0,0 +1,164 @@
+package water.parser;
+
+import water.H2O;
+import water.H2O.H2OCountedCompleter;
+import water.MemoryManager;
+import water.util.UnsafeUtils;
+
+import java.io.*;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.zip.GZIPInputStream;
+
+/** Gunzip of block-indexed (BGZF-style) gzip files, with the blocks inflated
+ *  in parallel.
+ *
+ *  A BGZF file is a series of small gzip members, each carrying its own
+ *  compressed size in a "BC" extra field; so the members can be cut out of
+ *  the compressed stream without inflating anything, and inflated
+ *  independently.  Members are read ahead and handed to the F/J pool, a
+ *  bounded number at a time, and returned in order: the parser reading this
+ *  stream consumes one block while the next ones are being inflated.
+ *
+ *  Should a member without a block size turn up, the rest of the stream is
+ *  inflated serially.
+ */
+class ParallelGunzip extends InputStream {
+  private static final int HDR = 12;      // Fixed gzip header, with XLEN
+  private final InputStream _in;
+  private final int _window;              // Members in flight
+  private final ArrayDeque<Inflate> _pending = new ArrayDeque<>();
+  private InputStream _tail;              // Serial inflate of a non-BGZF rest
+  private boolean _eof;                   // No more members in _in
+  private byte[] _buf = new byte[0];      // Current inflated block
+  private int _pos;
+
+  ParallelGunzip( InputStream in ) { this(in,4*H2O.NUMCPUS); }
+  ParallelGunzip( InputStream in, int window ) { _in = in; _window = Math.max(1,window); }
+
+  /** True if bits start with a gzip member holding a BGZF block size. */
+  static boolean isBlocked( byte[] bits ) {
+    return bits.length >= HDR && blockSize(bits,bits.length) > 0;
+  }
+
+  // Total member size from the BC extra field, or -1
+  private static int blockSize( byte[] hdr, int len ) {
+    if( (hdr[0]&0xFF) != 0x1f || (hdr[1]&0xFF) != 0x8b || hdr[2] != 8 || (hdr[3]&4) == 0 ) return -1;
+    int xlen = UnsafeUtils.get2(hdr,10)&0xFFFF;
+    for( int p=HDR; p+4 <= Math.min(len,HDR+xlen); ) {
+      int slen = UnsafeUtils.get2(hdr,p+2)&0xFFFF;
+      if( hdr[p] == 'B' && hdr[p+1] == 'C' && slen == 2 && p+6 <= len )
+        return (UnsafeUtils.get2(hdr,p+4)&0xFFFF)+1;
+      p += 4+slen;
+    }
+    return -1;
+  }
+
+  @Override public int read() throws IOException {
+    if( !fill() ) return -1;
+    return _buf[_pos++]&0xFF;
+  }
+
+  @Override public int read( byte[] b, int off, int len ) throws IOException {
+    if( len == 0 ) return 0;
+    if( !fill() ) return -1;
+    int n = Math.min(len,_buf.length-_pos);
+    System.arraycopy(_buf,_pos,b,off,n);
+    _pos += n;
+    return n;
+  }
+
+  // Zero only at the end of the stream, as the stream parser loops on it
+  @Override public int available() throws IOException {
+    return fill() ? _buf.length-_pos : 0;
+  }
+
+  @Override public void close() throws IOException {
+    _pending.clear();
+    if( _tail != null ) _tail.close();
+    _in.close();
+  }
+
+  // Make the current block non-empty; false at the end of the stream
+  private boolean fill() throws IOException {
+    while( _pos == _buf.length ) {
+      while( !_eof && _pending.size() < _window ) submit();
+      if( _pending.isEmpty() ) {
+        if( _tail == null ) return false;
+        byte[] bs = new byte[1<<16];
+        int n = _tail.read(bs);
+        if( n < 0 ) return false;
+        _buf = n == bs.length ? bs : Arrays.copyOf(bs,n);
+        _pos = 0;
+        continue;
+      }
+      Inflate t = _pending.poll();
+      t.join();
+      if( t._ioe != null ) throw t._ioe;
+      _buf = t._out; _pos = 0;
+    }
+    return true;
+  }
+
+  // Cut the next member out of the compressed stream and start inflating it
+  private void submit() throws IOException {
+    byte[] hdr = new byte[HDR];
+    int n = readFully(hdr,0,HDR);
+    if( n == 0 ) { _eof = true; return; }
+    if( n < HDR ) throw new EOFException("Truncated gzip member header");
+    if( (hdr[3]&4) != 0 ) {
+      int xlen = UnsafeUtils.get2(hdr,10)&0xFFFF;
+      byte[] h2 = Arrays.copyOf(hdr,HDR+xlen);
+      if( readFully(h2,HDR,xlen) < xlen ) throw new EOFException("Truncated gzip member header");
+      hdr = h2;
+    }
+    int bsize = blockSize(hdr,hdr.length);
+    if( bsize < hdr.length ) {  // Not blocked: inflate the rest serially
+      _eof = true;
+      _tail = new GZIPInputStream(new SequenceInputStream(new ByteArrayInputStream(hdr),_in),1<<16);
+      return;
+    }
+    byte[] member = Arrays.copyOf(hdr,bsize);
+    if( readFully(member,hdr.length,bsize-hdr.length) < bsize-hdr.length )
+      throw new EOFException("Truncated gzip member");
+    Inflate t = new Inflate(member);
+    if( Thread.currentThread() instanceof H2O.FJWThr ) t.fork();
+    else H2O.submitTask(t);
+    _pending.add(t);
+  }
+
+  private int readFully( byte[] b, int off, int len ) throws IOException {
+    int n = 0;
+    while( n < len ) {
+      int x = _in.read(b,off+n,len-n);
+      if( x < 0 ) break;
+      n += x;
+    }
+    return n;
+  }
+
+  // Inflate one member; the trailing ISIZE gives the output size
+  private static class Inflate extends H2OCountedCompleter<Inflate> {
+    private final byte[] _member;
+    byte[] _out;
+    IOException _ioe;
+    Inflate( byte[] member ) { _member = member; }
+    @Override protected void compute2() {
+      try {
+        int isize = UnsafeUtils.get4(_member,_member.length-4);
+        _out = MemoryManager.malloc1(isize);
+        GZIPInputStream gis = new GZIPInputStream(new ByteArrayInputStream(_member));
+        int off = 0;
+        while( off < isize ) {
+          int n = gis.read(_out,off,isize-off);
+          if( n < 0 ) throw new EOFException("Short gzip block");
+          off += n;
+        }
+        gis.close();
+      } catch( IOException ioe ) {
+        _ioe = ioe;
+      }
+      tryComplete();
+    }
+  }
+}
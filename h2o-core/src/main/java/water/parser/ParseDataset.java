@@ -21,9 +21,6 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashSet;
 import java.util.List;
-import java.util.zip.GZIPInputStream;
-import java.util.zip.ZipEntry;
-import java.util.zip.ZipInputStream;
 
 import com.google.common.base.Charsets;
 
@@ -745,27 +742,13 @@ public final class ParseDataset extends Job<Frame> {
             chunksAreLocal(vec,chunkStartIdx,key);
           }
           break;
-        case ZIP: {
-          // Zipped file; no parallel decompression;
+        default: {
+          // Compressed file: decompress into local chunks, then parse.  Each
+          // file in a zip archive is parsed; block-indexed gzip is inflated
+          // in parallel, ahead of the parser.
           InputStream bvs = vec.openStream(_jobKey);
-          ZipInputStream zis = new ZipInputStream(bvs);
-          ZipEntry ze = zis.getNextEntry(); // Get the *FIRST* entry
-          // There is at least one entry in zip file and it is not a directory.
-          if( ze != null && !ze.isDirectory() )
-            _dout[_lo] = streamParse(zis,localSetup,makeDout(localSetup,chunkStartIdx,vec.nChunks()), bvs);
-            // check for more files in archive
-            ZipEntry ze2 = zis.getNextEntry();
-            if (ze2 != null && !ze.isDirectory()) {
-              Log.warn("Only single file zip archives are currently supported, only file: "+ze.getName()+" has been parsed.  Remaining files have been ignored.");
-            }
-          else zis.close();       // Confused: which zipped file to decompress
-          chunksAreLocal(vec,chunkStartIdx,key);
-          break;
-        }
-        case GZIP: {
-          InputStream bvs = vec.openStream(_jobKey);
-          // Zipped file; no parallel decompression;
-          _dout[_lo] = streamParse(new GZIPInputStream(bvs),localSetup,makeDout(localSetup,chunkStartIdx,vec.nChunks()),bvs);
+          InputStream dis = ZipUtil.decompress(bvs,cpr,zips,localSetup._check_header == ParseSetup.HAS_HEADER);
+          _dout[_lo] = streamParse(dis,localSetup,makeDout(localSetup,chunkStartIdx,vec.nChunks()),bvs);
           // set this node as the one which processed all the chunks
           chunksAreLocal(vec,chunkStartIdx,key);
           break;
@@ -828,6 +811,7 @@ public final class ParseDataset extends Job<Frame> {
       private transient final Key _srckey; // Source/text file to delete on done
       private transient NonBlockingSetInt _visited;
       private transient long [] _espc;
+      private transient Parser _columnarParser;
       final int _nchunks;
 
       DistributedParse(VectorGroup vg, ParseSetup setup, int vecIdstart, int startChunkIdx, MultiFileParseTask mfpt, Key srckey, int nchunks) {
@@ -846,6 +830,8 @@ public final class ParseDataset extends Job<Frame> {
         super.setupLocal();
         _visited = new NonBlockingSetInt();
         _espc = MemoryManager.malloc8(_nchunks);
+        if( _setup._parse_type == ParserType.ORC || _setup._parse_type == ParserType.PARQUET )
+          _columnarParser = _setup.parser(_jobKey);
       }
       @Override public void map( Chunk in ) {
         if (((Job)DKV.getGet(_jobKey)).isCancelledOrCrashed()) return;
@@ -870,6 +856,11 @@ public final class ParseDataset extends Job<Frame> {
           p = new SVMLightParser(_setup, _jobKey);
           dout = new SVMLightFVecParseWriter(_vg, _vecIdStart, in.cidx() + _startChunkIdx, _setup._chunk_size, avs);
           break;
+        case ORC:
+        case PARQUET:
+          p = _columnarParser;  // Shared by all chunks on this node, to read the footer once
+          dout = new FVecParseWriter(_vg,_startChunkIdx + in.cidx(), categoricals(_cKey, _setup._number_columns), _setup._column_types, _setup._chunk_size, avs);
+          break;
         default:
           throw H2O.unimpl();
         }
@@ -941,10 +932,11 @@ public final class ParseDataset extends Job<Frame> {
   private static void logParseResults(ParseDataset job, Frame fr) {
     long numRows = fr.anyVec().length();
     Log.info("Parse result for " + job.dest() + " (" + Long.toString(numRows) + " rows):");
-    // get all rollups started in parallell, otherwise this takes ages!
+    // get all rollups in one pass, otherwise this takes ages!
     Futures fs = new Futures();
     Vec[] vecArr = fr.vecs();
-    for(Vec v:vecArr)  v.startRollupStats(fs);
+    Vec.computeRollupStats(vecArr);
+    for(Vec v:vecArr)  v.startRollupStats(fs); // Any Vec left out
     fs.blockForPending();
 
     int namelen = 0;
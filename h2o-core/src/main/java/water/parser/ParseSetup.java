@@ -27,7 +27,7 @@ public final class ParseSetup extends Iced {
   public static final int HAS_HEADER = 1;
   public static final int GUESS_COL_CNT = -1;
 
-  ParserType _parse_type;     // CSV, XLS, XSLX, SVMLight, Auto, ARFF
+  ParserType _parse_type;     // CSV, XLS, XSLX, SVMLight, Auto, ARFF, ORC, PARQUET
   byte _separator;            // Field separator, usually comma ',' or TAB or space ' '
   // Whether or not single-quotes quote a field.  E.g. how do we parse:
   // raw data:  123,'Mally,456,O'Mally
@@ -43,11 +43,15 @@ public final class ParseSetup extends Iced {
   String[][] _data;           // First few rows of parsed/tokenized data
   int _chunk_size = FileVec.DFLT_CHUNK_SIZE;  // Optimal chunk size to be used store values
   PreviewParseWriter _column_previews = null;
+  int[] _skipped_columns;     // Columnar files: indices of file columns not to read
+  String _row_filter;         // Columnar files: rows to keep, e.g. "year >= 2014 & amount < 1e6"
 
   public ParseSetup(ParseSetup ps) {
     this(ps._parse_type,
             ps._separator, ps._single_quotes, ps._check_header, ps._number_columns,
             ps._column_names, ps._column_types, ps._domains, ps._na_strings, ps._data, ps._chunk_size);
+    _skipped_columns = ps._skipped_columns;
+    _row_filter = ps._row_filter;
   }
 
   public ParseSetup(ParserType t, byte sep, boolean singleQuotes, int checkHeader, int ncols, String[] columnNames, byte[] ctypes, String[][] domains, String[][] naStrings, String[][] data, int chunkSize) {
@@ -78,6 +82,8 @@ public final class ParseSetup extends Iced {
             null, ps.na_strings, null, ps.chunk_size);
     if(ps.parse_type == null) _parse_type = ParserType.GUESS;
     if(ps.separator == 0) _separator = GUESS_SEP;
+    _skipped_columns = ps.skipped_columns;
+    _row_filter = ps.row_filter;
   }
 
   /**
@@ -144,11 +150,24 @@ public final class ParseSetup extends Iced {
       case XLS:      return new      XlsParser(this,jobKey);
       case SVMLight: return new SVMLightParser(this,jobKey);
       case ARFF:     return new     ARFFParser(this,jobKey);
+      case ORC:      return columnarParser("water.parser.ORCParser",jobKey);
+      case PARQUET:  return columnarParser("water.parser.ParquetParser",jobKey);
     }
     throw new H2OIllegalArgumentException("Unknown file type.  Parse cannot be completed.",
             "Attempted to invoke a parser for ParseType:" + _parse_type +", which doesn't exist.");
   }
 
+  // The columnar parsers need Hadoop, and ship with h2o-persist-hdfs
+  private Parser columnarParser(String className, Key jobKey) {
+    try {
+      Class klass = Class.forName(className);
+      return (Parser)klass.getConstructor(ParseSetup.class, Key.class).newInstance(this, jobKey);
+    } catch (Exception e) {
+      throw new H2OIllegalArgumentException(_parse_type + " parsing is not available.",
+              "Could not load " + className + " (is h2o-persist-hdfs on the classpath?): " + e);
+    }
+  }
+
   // Set of duplicated column names
   HashSet<String> checkDupColumnNames() {
     HashSet<String> conflictingNames = new HashSet<>();
@@ -279,6 +298,19 @@ public final class ParseSetup extends Iced {
         // Check for supported encodings
         checkEncoding(bits);
 
+        // Columnar files are described by their footer, not by their first bytes
+        ParserType ctype = ColumnarParser.guessType(bits, _userSetup._parse_type);
+        if (ctype != null) {
+          if (ZipUtil.guessCompressionMethod(bv.getFirstBytes()) != ZipUtil.Compression.NONE)
+            throw new H2OParseSetupException(ctype + " files are compressed internally and cannot be parsed from a compressed file.");
+          try {
+            _gblSetup = ColumnarParser.guessSetup(bv, ctype, _userSetup);
+          } catch (H2OParseException pse) {
+            throw new H2OParseSetupException(key, pse);
+          }
+          return;
+        }
+
         // only preview 1 DFLT_CHUNK_SIZE for ByteVecs, UploadFileVecs, compressed, and small files
 /*        if (ice instanceof ByteVec
                 || ((Frame)ice).vecs()[0] instanceof UploadFileVec
@@ -451,6 +483,8 @@ public final class ParseSetup extends Iced {
       case SVMLight: return SVMLightParser.guessSetup(bits);
       case XLS:      return      XlsParser.guessSetup(bits);
       case ARFF:     return      ARFFParser.guessSetup(bits, sep, singleQuotes, columnNames, naStrings);
+      case ORC:
+      case PARQUET:  throw new H2OParseSetupException(pType + " setup needs the whole file, not just its first bytes.");
       case GUESS:
         for( ParserType pTypeGuess : guessFileTypeOrder ) {
           try {
@@ -484,7 +518,9 @@ public final class ParseSetup extends Iced {
               || n.endsWith("xls")
               || n.endsWith("txt")
               || n.endsWith("svm")
-              || n.endsWith("arff")) {
+              || n.endsWith("arff")
+              || n.endsWith("orc")
+              || n.endsWith("parquet")) {
         n = n.substring(0, dot);
         dot = n.lastIndexOf('.');
       }
@@ -578,4 +614,14 @@ public final class ParseSetup extends Iced {
     return this;
   }
 
+  public ParseSetup setSkippedColumns(int[] skipped_columns) {
+    this._skipped_columns = skipped_columns;
+    return this;
+  }
+
+  public ParseSetup setRowFilter(String row_filter) {
+    this._row_filter = row_filter;
+    return this;
+  }
+
 } // ParseSetup state class
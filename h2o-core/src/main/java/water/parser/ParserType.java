@@ -1,9 +1,10 @@
 package water.parser;
 
 /** Which parse flavor is being used, and does it support parallel parsing.
+ *  ORC and PARQUET parse in parallel by stripe / row-group, see ColumnarParser.
  */
 public enum ParserType {
-  GUESS(false), ARFF(true), XLS(false), XLSX(false), CSV(true), SVMLight(true);
+  GUESS(false), ARFF(true), XLS(false), XLSX(false), CSV(true), SVMLight(true), ORC(true), PARQUET(true);
   final boolean _parallelParseSupported;
   ParserType( boolean par ) { _parallelParseSupported = par; }
   String toString( int ncols, byte separator ) {
@@ -0,0 +1,112 @@
+package water.parser;
+
+import water.Iced;
+import water.exceptions.H2OIllegalArgumentException;
+
+import java.util.Arrays;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * A conjunction of simple numeric comparisons, e.g. {@code "year >= 2014 & amount < 1e6"},
+ * used by the columnar parsers to drop rows while parsing.
+ *
+ * A clause is a column name, one of {@code < <= == != >= >}, and a number.
+ * Missing values never pass a clause.  Besides testing single rows, a filter
+ * can test a whole stripe or row-group from its per-column min/max
+ * statistics, so that slices that cannot hold a passing row are never read.
+ */
+public final class RowFilter extends Iced {
+  private static final Pattern CLAUSE = Pattern.compile("\\s*(\\S+?)\\s*(<=|>=|==|!=|<|>)\\s*(\\S+)\\s*");
+  private static final String[] OPS = {"<", "<=", "==", "!=", ">=", ">"};
+  private static final byte LT=0, LE=1, EQ=2, NE=3, GE=4, GT=5;
+
+  final String[] _names;        // Column name per clause
+  final byte[]   _ops;          // Comparison per clause
+  final double[] _vals;         // Constant per clause
+  int[] _cols;                  // Column index per clause, set by bind()
+
+  private RowFilter(String[] names, byte[] ops, double[] vals) { _names = names; _ops = ops; _vals = vals; }
+
+  /** Parse a filter expression; null or blank means no filter. */
+  public static RowFilter parse(String expr) {
+    if( expr == null || expr.trim().isEmpty() ) return null;
+    String[] clauses = expr.split("&+");
+    String[] names = new String[clauses.length];
+    byte[] ops = new byte[clauses.length];
+    double[] vals = new double[clauses.length];
+    for( int i = 0; i < clauses.length; i++ ) {
+      Matcher m = CLAUSE.matcher(clauses[i]);
+      if( !m.matches() )
+        throw new H2OIllegalArgumentException("row_filter", "parse", expr);
+      names[i] = m.group(1);
+      for( byte op = 0; op < OPS.length; op++ )
+        if( OPS[op].equals(m.group(2)) ) ops[i] = op;
+      try {
+        vals[i] = Double.parseDouble(m.group(3));
+      } catch( NumberFormatException nfe ) {
+        throw new H2OIllegalArgumentException("row_filter", "parse", expr);
+      }
+    }
+    return new RowFilter(names, ops, vals);
+  }
+
+  /** Resolve the clause column names against the parsed column names. */
+  RowFilter bind(String[] colNames) {
+    int[] cols = new int[_names.length];
+    for( int i = 0; i < _names.length; i++ ) {
+      cols[i] = -1;
+      for( int c = 0; c < colNames.length; c++ )
+        if( colNames[c].equals(_names[i]) ) { cols[i] = c; break; }
+      if( cols[i] == -1 )
+        throw new H2OIllegalArgumentException("Row filter column '" + _names[i] + "' is not one of the parsed columns.",
+                "Row filter column '" + _names[i] + "' not found in " + Arrays.toString(colNames));
+    }
+    _cols = cols;
+    return this;
+  }
+
+  /** Does the value {@code d} of clause {@code i}'s column pass; NaN never does. */
+  boolean accept(int i, double d) {
+    double v = _vals[i];
+    switch( _ops[i] ) {
+      case LT: return d <  v;
+      case LE: return d <= v;
+      case EQ: return d == v;
+      case NE: return d != v && !Double.isNaN(d);
+      case GE: return d >= v;
+      case GT: return d >  v;
+    }
+    throw water.H2O.fail();
+  }
+
+  /**
+   * Can any row with values inside [mins[c],maxs[c]] per column pass?  An
+   * unknown range is (-Inf,+Inf); a column holding only missing values has
+   * the empty range (+Inf,-Inf).
+   */
+  boolean mayAccept(double[] mins, double[] maxs) {
+    for( int i = 0; i < _ops.length; i++ ) {
+      double lo = mins[_cols[i]], hi = maxs[_cols[i]], v = _vals[i];
+      if( lo > hi ) return false;         // No values at all
+      switch( _ops[i] ) {
+        case LT: if( !(lo <  v) ) return false; break;
+        case LE: if( !(lo <= v) ) return false; break;
+        case EQ: if( v < lo || v > hi ) return false; break;
+        case NE: if( lo == v && hi == v ) return false; break;
+        case GE: if( !(hi >= v) ) return false; break;
+        case GT: if( !(hi >  v) ) return false; break;
+      }
+    }
+    return true;
+  }
+
+  @Override public String toString() {
+    StringBuilder sb = new StringBuilder();
+    for( int i = 0; i < _ops.length; i++ ) {
+      if( i > 0 ) sb.append(" & ");
+      sb.append(_names[i]).append(' ').append(OPS[_ops[i]]).append(' ').append(_vals[i]);
+    }
+    return sb.toString();
+  }
+}
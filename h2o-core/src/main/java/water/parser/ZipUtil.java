@@ -3,6 +3,7 @@ package water.parser;
 import java.io.*;
 import java.util.Arrays;
 import java.util.zip.*;
+import org.apache.commons.compress.compressors.bzip2.BZip2CompressorInputStream;
 import water.fvec.ByteVec;
 import water.fvec.FileVec;
 import water.util.Log;
@@ -10,7 +11,7 @@ import water.util.UnsafeUtils;
 
 abstract class ZipUtil {
 
-  public static enum Compression { NONE, ZIP, GZIP }
+  public static enum Compression { NONE, ZIP, GZIP, BZIP2 }
 
   static byte [] getFirstUnzippedBytes( ByteVec bv ) {
     try{
@@ -25,6 +26,9 @@ abstract class ZipUtil {
       return Compression.ZIP;
     if( bits.length > 2 && (UnsafeUtils.get2(bits,0)&0xffff) == GZIPInputStream.GZIP_MAGIC )
       return Compression.GZIP;
+    // "BZh" and a block size digit
+    if( bits.length > 4 && bits[0] == 'B' && bits[1] == 'Z' && bits[2] == 'h' && bits[3] >= '1' && bits[3] <= '9' )
+      return Compression.BZIP2;
     return Compression.NONE;
   }
 
@@ -51,6 +55,8 @@ abstract class ZipUtil {
         // There is at least one entry in zip file and it is not a directory.
         if( ze == null || ze.isDirectory() ) return bs; // Don't crash, ignore file if cannot unzip
         is = zis;
+      } else if( cmp == Compression.BZIP2 ) {
+        is = new BZip2CompressorInputStream(bais,true);
       } else {
         assert cmp == Compression.GZIP;
         is = new GZIPInputStream(bais);
@@ -84,7 +90,7 @@ abstract class ZipUtil {
     int cnt = 0;
     byte[] zips = bv.getFirstBytes();
     ZipUtil.Compression cpr = guessCompressionMethod(zips);
-    if (cpr == Compression.NONE || cpr == Compression.GZIP)
+    if (cpr != Compression.ZIP)
       cnt = 1;
     else { //ZIP archives allow multiple files in a single archive
       try {
@@ -100,4 +106,84 @@ abstract class ZipUtil {
     }
     return cnt;
   }
+
+  /** Decompressing stream over the whole of a compressed file.  Block-indexed
+   *  gzip is inflated in parallel; every file in a zip archive is parsed, as
+   *  one stream, dropping the header line of all but the first file when
+   *  skipHeader. */
+  static InputStream decompress( InputStream is, Compression cmp, byte[] firstBytes, boolean skipHeader ) throws IOException {
+    switch( cmp ) {
+    case ZIP  : return new ZipEntries(new ZipInputStream(is),skipHeader);
+    case GZIP : return ParallelGunzip.isBlocked(firstBytes) ? new ParallelGunzip(is) : new GZIPInputStream(is,1<<16);
+    case BZIP2: return new UntilEOF(new BZip2CompressorInputStream(is,true));
+    default   : return is;
+    }
+  }
+
+  // A stream which reports 1 available byte until it hits EOF, for streams
+  // (e.g. bzip2) which always report 0 and so would stop the stream parser
+  // after its first buffer.
+  private static class UntilEOF extends FilterInputStream {
+    private boolean _eof;
+    UntilEOF( InputStream is ) { super(is); }
+
+    @Override public int read() throws IOException {
+      int c = super.read();
+      if( c == -1 ) _eof = true;
+      return c;
+    }
+
+    @Override public int read( byte[] b, int off, int len ) throws IOException {
+      int n = super.read(b,off,len);
+      if( n == -1 ) _eof = true;
+      return n;
+    }
+
+    // Zero only at the end of the stream, as the stream parser loops on it
+    @Override public int available() { return _eof ? 0 : 1; }
+  }
+
+  // All the file entries of a zip archive, back to back.  Every entry ends in
+  // a line break, so the last row of one file never runs into the next.
+  private static class ZipEntries extends InputStream {
+    private final ZipInputStream _zis;
+    private final boolean _skipHeader;
+    private int _nentries;
+    private boolean _open, _eof;
+    private int _last = '\n';
+    ZipEntries( ZipInputStream zis, boolean skipHeader ) { _zis = zis; _skipHeader = skipHeader; }
+
+    @Override public int read() throws IOException {
+      byte[] b = new byte[1];
+      return read(b,0,1) <= 0 ? -1 : b[0]&0xFF;
+    }
+
+    @Override public int read( byte[] b, int off, int len ) throws IOException {
+      if( len == 0 ) return 0;
+      while( !_eof ) {
+        if( !_open && !nextEntry() ) break;
+        int n = _zis.read(b,off,len);
+        if( n > 0 ) { _last = b[off+n-1]; return n; }
+        _open = false;          // End of this entry
+        if( _last != '\n' && _last != '\r' ) { b[off] = '\n'; _last = '\n'; return 1; }
+      }
+      _eof = true;
+      return -1;
+    }
+
+    // Zero only at the end of the archive, as the stream parser loops on it
+    @Override public int available() { return _eof ? 0 : 1; }
+
+    @Override public void close() throws IOException { _zis.close(); }
+
+    private boolean nextEntry() throws IOException {
+      ZipEntry ze;
+      while( (ze = _zis.getNextEntry()) != null && ze.isDirectory() ) ;
+      if( ze == null ) return false;
+      if( _nentries++ > 0 && _skipHeader )
+        for( int c; (c = _zis.read()) != -1 && c != '\n'; ) ;
+      _open = true;
+      return true;
+    }
+  }
 }
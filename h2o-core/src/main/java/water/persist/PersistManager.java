@@ -109,6 +109,7 @@ public class PersistManager {
 
     I[Value.ICE ] = ice;
     I[Value.NFS ] = new PersistNFS();
+    I[Value.SNAP] = new PersistSnapshot();
 
     try {
       Class klass = Class.forName("water.persist.PersistHdfs");
@@ -0,0 +1,31 @@
+package water.persist;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.ArrayList;
+
+import water.*;
+import water.fvec.FrameSnapshot;
+
+// Persistence backend for the chunks of a loaded FrameSnapshot.
+// Read-only: the chunks are already on disk, in the snapshot files, and are
+// read from there (mapped) when first used or after being freed.
+public final class PersistSnapshot extends Persist {
+
+  @Override public byte[] load(Value v) throws IOException {
+    assert v.isPersisted();
+    return FrameSnapshot.loadChunk(v._key);
+  }
+
+  // Snapshot chunks are always persisted, and are not ICE so never deleted
+  @Override public void store(Value v) { throw H2O.fail(); }
+  @Override public void delete(Value v) { throw H2O.fail(); }
+
+  @Override public void cleanUp() { }
+
+  @Override public Key uriToKey(URI uri) { throw H2O.unimpl(); }
+
+  @Override public ArrayList<String> calcTypeaheadMatches(String filter, int limit) { throw H2O.unimpl(); }
+
+  @Override public void importFiles(String path, ArrayList<String> files, ArrayList<String> keys, ArrayList<String> fails, ArrayList<String> dels) { throw H2O.unimpl(); }
+}
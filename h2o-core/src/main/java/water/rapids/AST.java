@@ -182,6 +182,8 @@ abstract public class AST extends Iced<AST> {
     init(new ASTRowSlice());
     init(new ASTSetDomain());
     init(new ASTSetLevel());
+    init(new ASTSnapshotLoad());
+    init(new ASTSnapshotSave());
     init(new ASTTmpAssign());
     init(new ASTPop());
 
@@ -196,6 +198,7 @@ abstract public class AST extends Iced<AST> {
     init(new ASTDdply());
     init(new ASTGroup());
     init(new ASTMerge());
+    init(new ASTSort());
     init(new ASTQtile());
 
     // String Ops
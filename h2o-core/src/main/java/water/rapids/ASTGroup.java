@@ -29,63 +29,71 @@ import java.util.Arrays;
 class ASTGroup extends ASTPrim {
   enum NAHandling { ALL, RM, IGNORE }
 
-  // Functions handled by GroupBy
+  // Functions handled by GroupBy.  Each aggregate is a run of width() doubles
+  // at some offset of an accumulator array: its own array for a G, or a
+  // column of flat per-group accumulators for GBHash.
   enum FCN {
     nrow() { 
-      @Override void op( double[] d0s, double d1 ) { d0s[0]++; }
-      @Override void atomic_op( double[] d0s, double[] d1s ) { d0s[0] += d1s[0]; }
-      @Override double postPass( double ds[], long n ) { return ds[0]; }
+      @Override void op( double[] d0s, int o, double d1 ) { d0s[o]++; }
+      @Override double postPass( double ds[], int o, int w, long n ) { return ds[o]; }
     },
     mean() { 
-      @Override void op( double[] d0s, double d1 ) { d0s[0]+=d1; }
-      @Override void atomic_op( double[] d0s, double[] d1s ) { d0s[0] += d1s[0]; }
-      @Override double postPass( double ds[], long n ) { return ds[0]/n; }
+      @Override void op( double[] d0s, int o, double d1 ) { d0s[o]+=d1; }
+      @Override double postPass( double ds[], int o, int w, long n ) { return ds[o]/n; }
     },
     sum() { 
-      @Override void op( double[] d0s, double d1 ) { d0s[0]+=d1; }
-      @Override void atomic_op( double[] d0s, double[] d1s ) { d0s[0] += d1s[0]; }
-      @Override double postPass( double ds[], long n ) { return ds[0]; }
+      @Override void op( double[] d0s, int o, double d1 ) { d0s[o]+=d1; }
+      @Override double postPass( double ds[], int o, int w, long n ) { return ds[o]; }
     },
     sumSquares() {
-      @Override void op( double[] d0s, double d1 ) { d0s[0]+=d1*d1; }
-      @Override void atomic_op( double[] d0s, double[] d1s ) { d0s[0] += d1s[0]; }
-      @Override double postPass( double ds[], long n) { return ds[0]; }
+      @Override void op( double[] d0s, int o, double d1 ) { d0s[o]+=d1*d1; }
+      @Override double postPass( double ds[], int o, int w, long n) { return ds[o]; }
     },
     var() {
-      @Override void op( double[] d0s, double d1 ) { d0s[0]+=d1*d1; d0s[1]+=d1; }
-      @Override void atomic_op( double[] d0s, double[] d1s ) { ArrayUtils.add(d0s,d1s); }
-      @Override double postPass( double ds[], long n) { return (ds[0] - ds[1]*ds[1]/n)/n; }
-      @Override double[] initVal(int ignored) { return new double[2]; /* 0 -> sum_squares; 1 -> sum*/}
+      @Override void op( double[] d0s, int o, double d1 ) { d0s[o]+=d1*d1; d0s[o+1]+=d1; }
+      @Override double postPass( double ds[], int o, int w, long n) { return (ds[o] - ds[o+1]*ds[o+1]/n)/n; }
+      @Override int width(int ignored) { return 2; /* 0 -> sum_squares; 1 -> sum*/}
     },
     sdev() {
-      @Override void op( double[] d0s, double d1 ) { d0s[0]+=d1*d1; d0s[1]+=d1; }
-      @Override void atomic_op( double[] d0s, double[] d1s ) { ArrayUtils.add(d0s,d1s); }
-      @Override double postPass( double ds[], long n) { return Math.sqrt((ds[0] - ds[1]*ds[1]/n)/n); }
-      @Override double[] initVal(int ignored) { return new double[2]; /* 0 -> sum_squares; 1 -> sum*/}
+      @Override void op( double[] d0s, int o, double d1 ) { d0s[o]+=d1*d1; d0s[o+1]+=d1; }
+      @Override double postPass( double ds[], int o, int w, long n) { return Math.sqrt((ds[o] - ds[o+1]*ds[o+1]/n)/n); }
+      @Override int width(int ignored) { return 2; /* 0 -> sum_squares; 1 -> sum*/}
     },
     min() { 
-      @Override void op( double[] d0s, double d1 ) { d0s[0]= Math.min(d0s[0],d1); }
-      @Override void atomic_op( double[] d0s, double[] d1s ) { op(d0s,d1s[0]); }
-      @Override double postPass( double ds[], long n ) { return ds[0]; }
-      @Override double[] initVal(int maxx) { return new double[]{ Double.MAX_VALUE}; }
+      @Override void op( double[] d0s, int o, double d1 ) { d0s[o]= Math.min(d0s[o],d1); }
+      @Override void merge( double[] d0s, int o0, double[] d1s, int o1, int w ) { op(d0s,o0,d1s[o1]); }
+      @Override double postPass( double ds[], int o, int w, long n ) { return ds[o]; }
+      @Override double init() { return Double.MAX_VALUE; }
     },
     max() { 
-      @Override void op( double[] d0s, double d1 ) { d0s[0]= Math.max(d0s[0],d1); }
-      @Override void atomic_op( double[] d0s, double[] d1s ) { op(d0s,d1s[0]); }
-      @Override double postPass( double ds[], long n ) { return ds[0]; }
-      @Override double[] initVal(int maxx) { return new double[]{-Double.MAX_VALUE}; }
+      @Override void op( double[] d0s, int o, double d1 ) { d0s[o]= Math.max(d0s[o],d1); }
+      @Override void merge( double[] d0s, int o0, double[] d1s, int o1, int w ) { op(d0s,o0,d1s[o1]); }
+      @Override double postPass( double ds[], int o, int w, long n ) { return ds[o]; }
+      @Override double init() { return -Double.MAX_VALUE; }
     },
     mode() { 
-      @Override void op( double[] d0s, double d1 ) { d0s[(int)d1]++; }
-      @Override void atomic_op( double[] d0s, double[] d1s ) { ArrayUtils.add(d0s,d1s); }
-      @Override double postPass( double ds[], long n ) { return ArrayUtils.maxIndex(ds); }
-      @Override double[] initVal(int maxx) { return new double[maxx]; }
+      @Override void op( double[] d0s, int o, double d1 ) { d0s[o+(int)d1]++; }
+      @Override double postPass( double ds[], int o, int w, long n ) { return ArrayUtils.maxIndex(o==0 && w==ds.length ? ds : Arrays.copyOfRange(ds,o,o+w)); }
+      @Override int width(int maxx) { return maxx; }
     },
     ;
-    abstract void op( double[] d0, double d1 );
-    abstract void atomic_op( double[] d0, double[] d1 );
-    abstract double postPass( double ds[], long n );
-    double[] initVal(int maxx) { return new double[]{0}; }
+    abstract void op( double[] d0, int o, double d1 );
+    abstract double postPass( double ds[], int o, int w, long n );
+    // Fold the run at d1s[o1] into the run at d0s[o0]; a sum by default
+    void merge( double[] d0s, int o0, double[] d1s, int o1, int w ) {
+      for( int i=0; i<w; i++ ) d0s[o0+i] += d1s[o1+i];
+    }
+    int width(int maxx) { return 1; }
+    double init() { return 0; }
+
+    void op( double[] d0, double d1 ) { op(d0,0,d1); }
+    void atomic_op( double[] d0, double[] d1 ) { merge(d0,0,d1,0,d0.length); }
+    double postPass( double ds[], long n ) { return postPass(ds,0,ds.length,n); }
+    double[] initVal(int maxx) {
+      double[] ds = new double[width(maxx)];
+      if( init() != 0 ) Arrays.fill(ds,init());
+      return ds;
+    }
   }
 
   @Override int nargs() { return -1; } // (GB data [group-by-cols] [order-by-cols] {fcn col "na"}...)
@@ -119,6 +127,14 @@ class ASTGroup extends ASTPrim {
       aggs[(idx-4)/3] = new AGG(fcn,agg_col,na, (int)fr.vec(agg_col).max()+1);
     }
 
+    String[] fcnames = new String[aggs.length];
+    for( int i=0; i<aggs.length; i++ )
+      fcnames[i] = aggs[i]._fcn.toString()+"_"+fr.name(aggs[i]._col);
+
+    // Integer group keys: flat primitive tables, no per-group objects
+    if( GBHash.applies(fr,gbCols) )
+      return new ValFrame(GBHash.groupBy(fr,gbCols,aggs,ordCols,fcnames));
+
     // do the group by work now
     IcedHashMap<G,String> gss = doGroups(fr,gbCols,aggs);
     final G[] grps = gss.keySet().toArray(new G[gss.size()]);
@@ -142,10 +158,6 @@ class ASTGroup extends ASTPrim {
         });
 
     // Build the output!
-    String[] fcnames = new String[aggs.length];
-    for( int i=0; i<aggs.length; i++ )
-      fcnames[i] = aggs[i]._fcn.toString()+"_"+fr.name(aggs[i]._col);
-
     MRTask mrfill = new MRTask() {
       @Override public void map(Chunk[] c, NewChunk[] ncs) {
         int start=(int)c[0].start();
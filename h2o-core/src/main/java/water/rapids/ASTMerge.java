@@ -33,8 +33,8 @@ public class ASTMerge extends ASTPrim {
   // Size cutoff before switching between a hashed-join vs a sorting join.
   // Hash tables beyond this count are assumed to be inefficient, and we're
   // better served by sorting all the join columns and doing a global
-  // merge-join.
-  static final int MAX_HASH_SIZE = 120000000;
+  // merge-join.  Not final, so tests can force the sorting join.
+  static int MAX_HASH_SIZE = 120000000;
 
   @Override Val apply( Env env, Env.StackHelp stk, AST asts[] ) {
     Frame l = stk.track(asts[1].exec(env)).getFrame();
@@ -136,7 +136,9 @@ public class ASTMerge extends ASTPrim {
       return new ValFrame(new AllRiteWithDupJoin(ncols,rows,hashed,allLeft).doAll(types,walked).outputFrame(names,domains));
     } 
 
-    throw H2O.unimpl();
+    // All of the hashed set, with dups: the unmatched hashed rows have no
+    // walked row to hang off of; sort both sides instead.
+    return sortingMerge(walked,hashed,allLeft,allRite,ncols,id_maps);
   }
 
   /** Use a sorting merge/join, probably because the hash table size exceeded
@@ -156,7 +158,7 @@ public class ASTMerge extends ASTPrim {
    *  categorical column to another; the width is ncols
    */
   private ValFrame sortingMerge( Frame walked, Frame hashed, boolean allLeft, boolean allRite, int ncols, int[][] id_maps) {
-    throw H2O.unimpl();
+    return new ValFrame(SortMerge.merge(walked,hashed,allLeft,allRite,ncols,id_maps));
   }
 
   // One Row object per row of the hashed dataset, so kept as small as
@@ -0,0 +1,45 @@
+package water.rapids;
+
+import water.Key;
+import water.Keyed;
+import water.fvec.Frame;
+import water.fvec.FrameSnapshot;
+
+import java.io.IOException;
+
+/** Save a Frame as a binary snapshot directory; see {@link FrameSnapshot} */
+class ASTSnapshotSave extends ASTPrim {
+  @Override public String[] args() { return new String[]{"frame", "dir", "overwrite"}; }
+  @Override int nargs() { return 1+3; } // (snapshot.save frame "dir" overwrite)
+  @Override public String str() { return "snapshot.save"; }
+  @Override ValNum apply( Env env, Env.StackHelp stk, AST asts[] ) {
+    Frame fr = stk.track(asts[1].exec(env)).getFrame();
+    String dir = asts[2].exec(env).getStr();
+    boolean overwrite = asts[3].exec(env).getNum() == 1;
+    try {
+      FrameSnapshot.save(fr,dir,overwrite);
+    } catch( IOException ioe ) {
+      throw new IllegalArgumentException("Cannot save snapshot "+dir+": "+ioe.getMessage());
+    }
+    return new ValNum(fr.numRows());
+  }
+}
+
+/** Load a snapshot directory as a Frame under the given id.  Returns the id
+ *  rather than the Frame, so the loaded columns are not copied on return. */
+class ASTSnapshotLoad extends ASTPrim {
+  @Override public String[] args() { return new String[]{"id", "dir"}; }
+  @Override int nargs() { return 1+2; } // (snapshot.load id "dir")
+  @Override public String str() { return "snapshot.load"; }
+  @Override ValStr apply( Env env, Env.StackHelp stk, AST asts[] ) {
+    Key id = Key.make( asts[1].str() );
+    String dir = asts[2].exec(env).getStr();
+    Keyed.remove(id);  // Remove anything under prior name
+    try {
+      FrameSnapshot.load(dir,id);
+    } catch( IOException ioe ) {
+      throw new IllegalArgumentException("Cannot load snapshot "+dir+": "+ioe.getMessage());
+    }
+    return new ValStr(id.toString());
+  }
+}
@@ -0,0 +1,28 @@
+package water.rapids;
+
+import water.fvec.Frame;
+
+/** Sort the rows of a Frame by one or more columns, ascending.
+ *  Sample AST: (sort $frame [cols])
+ *
+ *  Sort columns may be numeric, categorical (by level index) or time.  NAs
+ *  sort first, and rows with equal keys keep their original order.  The sort
+ *  is distributed, see {@link SortMerge}; no node holds more than its share
+ *  of the rows.
+ */
+class ASTSort extends ASTPrim {
+  @Override public String[] args() { return new String[]{"ary","cols"}; }
+  @Override public String str(){ return "sort";}
+  @Override int nargs() { return 1+2; } // (sort ary [cols])
+
+  @Override Val apply( Env env, Env.StackHelp stk, AST asts[] ) {
+    Frame fr = stk.track(asts[1].exec(env)).getFrame();
+    int[] cols = asts[2].columns(fr.names());
+    if( cols.length == 0 )
+      throw new IllegalArgumentException("Sort requires at least one column");
+    for( int col : cols )
+      if( col < 0 || col >= fr.numCols() )
+        throw new IllegalArgumentException("Column must be an integer from 0 to "+(fr.numCols()-1));
+    return new ValFrame(SortMerge.sort(fr,cols));
+  }
+}
@@ -0,0 +1,280 @@
+package water.rapids;
+
+import water.*;
+import water.fvec.*;
+import water.util.Log;
+
+import java.util.Arrays;
+
+/** Group-by over integer, categorical and time keys, for {@link ASTGroup}.
+ *
+ *  Groups live in flat primitive tables: a long[] of keys, an open-addressing
+ *  int[] index over it, and per-aggregate columns of accumulators and row
+ *  counts.  No per-group objects are made.  Every map call builds its own
+ *  table, and tables are merged (smaller into larger) in reduce.
+ *
+ *  A table bigger than {@link #MAX_BYTES} aborts the pass; the group-by is
+ *  then redone in 2, 4, ... passes, each keeping only the groups whose key
+ *  hashes to that pass.  Each pass becomes one chunk of the result, so at
+ *  most one partition of the groups is held at a time.
+ */
+class GBHash {
+  /** Memory budget for one table of groups.  Set with {@code -Dh2o.gb.max_bytes}. */
+  static long MAX_BYTES = Long.getLong("h2o.gb.max_bytes", Runtime.getRuntime().maxMemory()>>2);
+  static final int MAX_PASSES = 1<<10;
+
+  static final long NA = Long.MIN_VALUE; // NA key
+
+  /** True if all group-by columns hold integers. */
+  static boolean applies( Frame fr, int[] gbCols ) {
+    if( gbCols.length == 0 ) return false;
+    for( int c : gbCols ) {
+      Vec v = fr.vec(c);
+      if( !(v.isCategorical() || v.isTime() || v.get_type() == Vec.T_BAD || (v.isNumeric() && v.isInt())) )
+        return false;
+    }
+    return true;
+  }
+
+  /** Group fr by gbCols and compute aggs; same output as the G-based path: the
+   *  group-by columns, then one column per aggregate, ordered by ordCols. */
+  static Frame groupBy( Frame fr, int[] gbCols, ASTGroup.AGG[] aggs, int[] ordCols, String[] fcnames ) {
+    int[] ws = new int[aggs.length];
+    for( int a=0; a<aggs.length; a++ ) ws[a] = aggs[a]._fcn.width(aggs[a]._maxx);
+    long perGroup = 8L*gbCols.length + 8 /*index*/;
+    for( int w : ws ) perGroup += 8L*w + 8;
+    long maxGroups = Math.max(1024,MAX_BYTES/perGroup);
+
+    for( int npass=1; npass<=MAX_PASSES; npass<<=1 ) {
+      AppendableVec[] avs = outputVecs(fr,gbCols,aggs.length);
+      Futures fs = new Futures();
+      int pass = 0;
+      for( ; pass<npass; pass++ ) {
+        GBTask t = new GBTask(gbCols,aggs,ws,npass,pass,maxGroups).doAll(fr);
+        if( t._overflow ) break;
+        Table tab = t._tab == null ? new Table(gbCols.length,aggs,ws) : t._tab; // No rows
+        write(tab,gbCols.length,avs,pass,npass==1 ? ordCols : null,fs);
+      }
+      if( pass < npass ) {        // Too many groups; drop this try and split finer
+        fs.blockForPending();
+        for( AppendableVec av : avs )
+          for( int c=0; c<pass; c++ ) DKV.remove(av.chunkKey(c),fs);
+        fs.blockForPending();
+        Log.info("Group-by: over "+maxGroups+" groups in a pass, retrying with "+(npass<<1)+" passes");
+        continue;
+      }
+      Vec[] vecs = AppendableVec.closeAll(avs,fs);
+      fs.blockForPending();
+      String[] names = new String[vecs.length];
+      for( int i=0; i<gbCols.length; i++ ) names[i] = fr.name(gbCols[i]);
+      System.arraycopy(fcnames,0,names,gbCols.length,fcnames.length);
+      Frame f = new Frame(names,vecs);
+      if( npass == 1 || ordCols.length == 0 ) return f;
+      // Passes are not ordered among each other; sort them together
+      Frame sorted = SortMerge.sort(f,ordCols);
+      f.delete();
+      return sorted;
+    }
+    throw new IllegalArgumentException("Too many groups: over "+maxGroups*MAX_PASSES);
+  }
+
+  private static AppendableVec[] outputVecs( Frame fr, int[] gbCols, int naggs ) {
+    Key keys[] = Vec.VectorGroup.VG_LEN1.addVecs(gbCols.length+naggs);
+    AppendableVec[] avs = new AppendableVec[keys.length];
+    for( int i=0; i<avs.length; i++ ) {
+      avs[i] = new AppendableVec(keys[i],Vec.T_NUM);
+      if( i < gbCols.length ) avs[i].setDomain(fr.vec(gbCols[i]).domain());
+    }
+    return avs;
+  }
+
+  // One pass of groups as chunk cidx of the result
+  private static void write( final Table t, final int ncols, AppendableVec[] avs, int cidx, int[] ordCols, Futures fs ) {
+    NewChunk[] ncs = new NewChunk[avs.length];
+    for( int i=0; i<avs.length; i++ ) ncs[i] = new NewChunk(avs[i],cidx);
+    long[] order = new long[t._n];
+    for( int g=0; g<t._n; g++ ) order[g] = g;
+    if( ordCols != null && ordCols.length > 0 ) {
+      final int[] ocs = ordCols;  // NA keys are least
+      SortMerge.sort(order,0,t._n,new SortMerge.Cmp() {
+          @Override int compare( long a, long b ) {
+            for( int c : ocs ) {
+              int x = Long.compare(t._keys[(int)a*ncols+c],t._keys[(int)b*ncols+c]);
+              if( x != 0 ) return x;
+            }
+            return 0;
+          }
+        });
+    }
+    for( long og : order ) {
+      int g = (int)og;
+      for( int c=0; c<ncols; c++ ) {
+        long l = t._keys[g*ncols+c];
+        if( l == NA ) ncs[c].addNA(); else ncs[c].addNum(l,0);
+      }
+      for( int a=0; a<t._aggs.length; a++ ) {
+        int w = t._ws[a];
+        ncs[ncols+a].addNum(t._aggs[a]._fcn.postPass(t._acc[a],g*w,w,t._ns[a][g]));
+      }
+    }
+    for( NewChunk nc : ncs ) nc.close(cidx,fs);
+  }
+
+  // 64 bits of hash over a key: the low half indexes the table, the high half
+  // picks the pass
+  static long hash( long[] keys, int off, int ncols ) {
+    long h = 0;
+    for( int i=0; i<ncols; i++ ) {
+      h = (h ^ keys[off+i]) * 0x9E3779B97F4A7C15L;
+      h ^= h>>>29;
+    }
+    h *= 0xBF58476D1CE4E5B9L;
+    return h ^ (h>>>32);
+  }
+
+  // Flat table of groups
+  static final class Table extends Iced {
+    final int _ncols;
+    final ASTGroup.AGG[] _aggs;
+    final int[] _ws;            // Accumulator width per aggregate
+    int _n;                     // Number of groups
+    long[] _keys;               // _ncols keys per group
+    double[][] _acc;            // Per aggregate, _ws[a] accumulators per group
+    long[][] _ns;               // Per aggregate, row count per group
+    transient int[] _idx;       // Open-addressing index: group+1, 0 if empty
+
+    Table( int ncols, ASTGroup.AGG[] aggs, int[] ws ) {
+      _ncols = ncols; _aggs = aggs; _ws = ws;
+      _keys = new long[16*ncols];
+      _acc = new double[aggs.length][];
+      _ns = new long[aggs.length][];
+      for( int a=0; a<aggs.length; a++ ) {
+        _acc[a] = new double[16*ws[a]];
+        _ns[a] = new long[16];
+      }
+    }
+
+    // Index of the group for key[off..off+ncols), inserting it if missing
+    int find( long[] key, int off, long hash ) {
+      if( _idx == null ) reindex(Math.max(32,Integer.highestOneBit(_n)<<2));
+      int mask = _idx.length-1;
+      for( int i=(int)hash & mask; ; i=(i+1) & mask ) {
+        int g = _idx[i]-1;
+        if( g >= 0 ) {
+          if( SortMerge.compare(_keys,g*_ncols,key,off,_ncols) == 0 ) return g;
+          continue;
+        }
+        g = add(key,off);
+        _idx[i] = g+1;
+        if( _n*2 > _idx.length ) reindex(_idx.length<<1); // Keep the load under 1/2
+        return g;
+      }
+    }
+
+    private int add( long[] key, int off ) {
+      int g = _n++;
+      if( _n*_ncols > _keys.length ) grow();
+      System.arraycopy(key,off,_keys,g*_ncols,_ncols);
+      for( int a=0; a<_aggs.length; a++ ) {
+        double init = _aggs[a]._fcn.init();
+        if( init != 0 ) Arrays.fill(_acc[a],g*_ws[a],(g+1)*_ws[a],init);
+      }
+      return g;
+    }
+
+    private void grow() {
+      int cap = Math.max(16,_n<<1);
+      _keys = Arrays.copyOf(_keys,cap*_ncols);
+      for( int a=0; a<_aggs.length; a++ ) {
+        _acc[a] = Arrays.copyOf(_acc[a],cap*_ws[a]);
+        _ns[a] = Arrays.copyOf(_ns[a],cap);
+      }
+    }
+
+    private void reindex( int len ) {
+      _idx = new int[len];
+      int mask = len-1;
+      for( int g=0; g<_n; g++ ) {
+        int i = (int)hash(_keys,g*_ncols,_ncols) & mask;
+        while( _idx[i] != 0 ) i = (i+1) & mask;
+        _idx[i] = g+1;
+      }
+    }
+
+    // Fold one row value into aggregate a of group g, per the NA handling
+    void op( int g, int a, double d ) {
+      ASTGroup.AGG agg = _aggs[a];
+      if( !Double.isNaN(d) || agg._na == ASTGroup.NAHandling.ALL    ) agg._fcn.op(_acc[a],g*_ws[a],d);
+      if( !Double.isNaN(d) || agg._na == ASTGroup.NAHandling.IGNORE ) _ns[a][g]++;
+    }
+
+    // Fold all groups of t into this table
+    void merge( Table t ) {
+      for( int j=0; j<t._n; j++ ) {
+        int g = find(t._keys,j*_ncols,hash(t._keys,j*_ncols,_ncols));
+        for( int a=0; a<_aggs.length; a++ ) {
+          int w = _ws[a];
+          _aggs[a]._fcn.merge(_acc[a],g*w,t._acc[a],j*w,w);
+          _ns[a][g] += t._ns[a][j];
+        }
+      }
+    }
+
+    // Drop unused capacity before shipping
+    void trim() {
+      _keys = Arrays.copyOf(_keys,_n*_ncols);
+      for( int a=0; a<_aggs.length; a++ ) {
+        _acc[a] = Arrays.copyOf(_acc[a],_n*_ws[a]);
+        _ns[a] = Arrays.copyOf(_ns[a],_n);
+      }
+      _idx = null;
+    }
+  }
+
+  private static class GBTask extends MRTask<GBTask> {
+    final int[] _gbCols;
+    final ASTGroup.AGG[] _aggs;
+    final int[] _ws;
+    final int _npass, _pass;
+    final long _maxGroups;
+    Table _tab;
+    boolean _overflow;
+    GBTask( int[] gbCols, ASTGroup.AGG[] aggs, int[] ws, int npass, int pass, long maxGroups ) {
+      _gbCols = gbCols; _aggs = aggs; _ws = ws; _npass = npass; _pass = pass; _maxGroups = maxGroups;
+    }
+    @Override public void map( Chunk cs[] ) {
+      int len = cs[0]._len, ncols = _gbCols.length;
+      // Bulk decode keys, row-major, and the aggregated columns
+      long[] keys = new long[len*ncols];
+      long[] col = new long[len];
+      for( int c=0; c<ncols; c++ ) {
+        cs[_gbCols[c]].getLongs(col,0,len,NA);
+        for( int r=0; r<len; r++ ) keys[r*ncols+c] = col[r];
+      }
+      double[][] vals = new double[_aggs.length][];
+      for( int a=0; a<_aggs.length; a++ )
+        vals[a] = cs[_aggs[a]._col].getDoubles(new double[len],0,len);
+
+      Table t = new Table(ncols,_aggs,_ws);
+      for( int r=0; r<len; r++ ) {
+        long h = hash(keys,r*ncols,ncols);
+        if( _npass > 1 && ((h>>>33) % _npass) != _pass ) continue; // Another pass's group
+        int g = t.find(keys,r*ncols,h);
+        if( t._n > _maxGroups ) { _overflow = true; return; }
+        for( int a=0; a<_aggs.length; a++ ) t.op(g,a,vals[a][r]);
+      }
+      _tab = t;
+    }
+    @Override public void reduce( GBTask t ) {
+      if( _overflow || t._overflow ) { _overflow = true; _tab = null; return; }
+      if( t._tab == null ) return;
+      if( _tab == null ) { _tab = t._tab; return; }
+      Table big = _tab, small = t._tab;
+      if( small._n > big._n ) { big = t._tab; small = _tab; }
+      big.merge(small);
+      _tab = big;
+      if( big._n > _maxGroups ) { _overflow = true; _tab = null; }
+    }
+    @Override protected void closeLocal() { if( _tab != null ) _tab.trim(); }
+  }
+}
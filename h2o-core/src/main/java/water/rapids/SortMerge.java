@@ -0,0 +1,496 @@
+package water.rapids;
+
+import water.*;
+import water.fvec.*;
+import water.parser.BufferedString;
+import water.util.ArrayUtils;
+import water.util.Log;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Random;
+
+/** Distributed sort, and sort-merge join; used by {@link ASTSort}, and by
+ *  {@link ASTMerge} when the hashed side is too big to replicate.
+ *
+ *  Nothing is replicated.  A sample of the keys picks split points that cut
+ *  the key space into P roughly equal partitions.  Every row is then shipped
+ *  to the node owning its partition, and each node sorts (and merge-joins)
+ *  its partitions locally.  Partition p becomes chunk p of the result, so
+ *  each partition is owned by the node which will home that output chunk and
+ *  the result never moves again.
+ *
+ *  Sorting puts NAs first, like group-by ordering, and keeps ties in their
+ *  original order.  Joining never matches a row with an NA in any join column
+ *  (NA != NA); such rows are spread round-robin over the partitions and kept
+ *  or dropped per the all-flags.
+ */
+class SortMerge {
+  // Target rows per partition (tests lower it to force many partitions), and
+  // an upper bound on the number of partitions
+  static int ROWS_PER_PART = 1<<20;
+  static final int MAX_PARTS = 1<<16;
+  // Sampled keys per partition; more samples give more even partitions
+  static final int SAMPLES_PER_PART = 32;
+  static final int MAX_SAMPLES = 1<<20;
+
+  static final long NA = Long.MIN_VALUE; // NA marker for keys & integer payloads
+
+  // Payload column kinds
+  static final byte K_DBL = 0, K_LONG = 1, K_STR = 2, K_UUID = 3;
+
+  /** Join walked and hashed on their first ncols columns; see
+   *  ASTMerge.sortingMerge for the arguments.  Result columns are the key
+   *  columns, the walked payload columns and the hashed payload columns. */
+  static Frame merge( Frame walked, Frame hashed, boolean allLeft, boolean allRite, int ncols, int[][] id_maps ) {
+    // Only the hashed keys are mapped, into the walked categorical ids
+    int[][] maps = null;
+    if( id_maps != null )
+      for( int[] m : id_maps ) if( m != null ) { maps = id_maps; break; }
+
+    int[] cols = ArrayUtils.seq(0,ncols);
+    KeySpec wkeys = new KeySpec(cols,null,new boolean[ncols],false);
+    KeySpec hkeys = new KeySpec(cols,maps,new boolean[ncols],false);
+    int nparts = nparts(walked.numRows()+hashed.numRows());
+    Vec dummy = Vec.makeCon(0,nparts,0,false); // One (1-row) chunk per partition
+    try {
+      // Sample both sides, pick split keys, and ship every row to the node
+      // owning its partition
+      String uniq = "sortmerge_"+Long.toHexString(new Random().nextLong());
+      long[] splits = splits(new Frame[]{walked,hashed},new KeySpec[]{wkeys,hkeys},nparts);
+      int[] owner = owners(dummy);
+      int[] wpay = ArrayUtils.seq(ncols,walked.numCols()), hpay = ArrayUtils.seq(ncols,hashed.numCols());
+      new Shuffle(uniq,0,wkeys,nparts,splits,owner,wpay,kinds(walked,wpay)).doAll(walked);
+      new Shuffle(uniq,1,hkeys,nparts,splits,owner,hpay,kinds(hashed,hpay)).doAll(hashed);
+
+      // Output: keys, then walked payload, then hashed payload
+      int nw = walked.numCols(), nh = hashed.numCols()-ncols;
+      String[] names = Arrays.copyOf(walked.names(),nw+nh);
+      System.arraycopy(hashed.names(),ncols,names,nw,nh);
+      String[][] domains = Arrays.copyOf(walked.domains(),nw+nh);
+      System.arraycopy(hashed.domains(),ncols,domains,nw,nh);
+      byte[] types = Arrays.copyOf(walked.types(),nw+nh);
+      System.arraycopy(hashed.types(),ncols,types,nw,nh);
+      // Unmatched hashed rows may carry categorical levels the walked side lacks
+      if( allRite && maps != null )
+        for( int i=0; i<ncols; i++ )
+          if( maps[i] != null ) domains[i] = extend(walked.vec(i).domain(),hashed.vec(i).domain(),maps[i]);
+
+      Merge m = new Merge(uniq,ncols,nparts,new int[]{walked.anyVec().nChunks(),hashed.anyVec().nChunks()},
+                          new byte[][]{kinds(walked,wpay),kinds(hashed,hpay)},allLeft,allRite,false);
+      return m.doAll(types,dummy).outputFrame(names,domains);
+    } finally {
+      dummy.remove();
+    }
+  }
+
+  /** Sort fr by the given numeric, categorical or time columns, ascending;
+   *  categoricals by level index.  The result has one chunk per partition. */
+  static Frame sort( Frame fr, int[] cols ) {
+    boolean[] reals = new boolean[cols.length];
+    for( int i=0; i<cols.length; i++ ) {
+      Vec v = fr.vec(cols[i]);
+      if( !(v.isNumeric() || v.isCategorical() || v.isTime() || v.get_type() == Vec.T_BAD) )
+        throw new IllegalArgumentException("Cannot sort by "+v.get_type_str()+" column "+fr.name(cols[i]));
+      reals[i] = v.isNumeric() && !v.isInt();
+    }
+    KeySpec keys = new KeySpec(cols,null,reals,true);
+    int nparts = nparts(fr.numRows());
+    Vec dummy = Vec.makeCon(0,nparts,0,false);
+    try {
+      String uniq = "sort_"+Long.toHexString(new Random().nextLong());
+      long[] splits = splits(new Frame[]{fr},new KeySpec[]{keys},nparts);
+      int[] pay = ArrayUtils.seq(0,fr.numCols());
+      byte[] kinds = kinds(fr,pay);
+      new Shuffle(uniq,0,keys,nparts,splits,owners(dummy),pay,kinds).doAll(fr);
+      Merge m = new Merge(uniq,cols.length,nparts,new int[]{fr.anyVec().nChunks(),0},
+                          new byte[][]{kinds,new byte[0]},true,false,true);
+      return m.doAll(fr.types(),dummy).outputFrame(fr.names(),fr.domains());
+    } finally {
+      dummy.remove();
+    }
+  }
+
+  private static int nparts( long nrows ) {
+    return (int)Math.max(H2O.CLOUD.size(), Math.min(MAX_PARTS, (nrows+ROWS_PER_PART-1)/ROWS_PER_PART));
+  }
+
+  // Node homing each (dummy) output chunk
+  private static int[] owners( Vec dummy ) {
+    int[] owner = new int[dummy.nChunks()];
+    for( int p=0; p<owner.length; p++ )
+      owner[p] = dummy.chunkKey(p).home_node().index();
+    return owner;
+  }
+
+  // The walked domain, plus the hashed-only levels where the map put them
+  private static String[] extend( String[] wdom, String[] hdom, int[] map ) {
+    int len = wdom.length;
+    for( int x : map ) len = Math.max(len,x+1);
+    String[] dom = Arrays.copyOf(wdom,len);
+    for( int j=0; j<map.length; j++ )
+      if( map[j] >= wdom.length ) dom[map[j]] = hdom[j];
+    return dom;
+  }
+
+  static byte[] kinds( Frame fr, int[] pay ) {
+    byte[] ks = new byte[pay.length];
+    for( int i=0; i<pay.length; i++ ) {
+      Vec v = fr.vec(pay[i]);
+      switch( v.get_type() ) {
+      case Vec.T_BAD : ks[i] = K_DBL; break;
+      case Vec.T_NUM : ks[i] = v.isInt() ? K_LONG : K_DBL; break;
+      case Vec.T_CAT :
+      case Vec.T_TIME: ks[i] = K_LONG; break;
+      case Vec.T_STR : ks[i] = K_STR; break;
+      case Vec.T_UUID: ks[i] = K_UUID; break;
+      default: throw H2O.unimpl("sort-merge of "+v.get_type_str()+" columns");
+      }
+    }
+    return ks;
+  }
+
+  // How the key of a row is read: a long per key column, compared as signed
+  private static class KeySpec extends Iced {
+    final int[] _cols;          // Key columns
+    final int[][] _maps;        // Categorical id maps per key column, or null
+    final boolean[] _reals;     // Real-valued key columns
+    final boolean _sort;        // Sorting: NAs are least and kept, not dropped
+    KeySpec( int[] cols, int[][] maps, boolean[] reals, boolean sort ) { _cols = cols; _maps = maps; _reals = reals; _sort = sort; }
+    int ncols() { return _cols.length; }
+
+    // Load the key of row r into key[off..off+ncols); false for a join key
+    // with an NA
+    boolean fill( Chunk chks[], int r, long[] key, int off ) {
+      boolean ok = true;
+      for( int i=0; i<_cols.length; i++ ) {
+        Chunk c = chks[_cols[i]];
+        if( c.isNA(r) ) { key[off+i] = NA; ok = _sort; continue; }
+        long l;
+        if( _reals[i] ) {         // Doubles as order-preserving longs
+          l = Double.doubleToLongBits(c.atd(r));
+          l ^= (l>>63) & Long.MAX_VALUE;
+        } else l = c.at8(r);
+        key[off+i] = _maps == null || _maps[i] == null ? l : _maps[i][(int)l];
+      }
+      return ok;
+    }
+  }
+
+  static int compare( long[] a, int aoff, long[] b, int boff, int ncols ) {
+    for( int i=0; i<ncols; i++ ) {
+      int x = Long.compare(a[aoff+i],b[boff+i]);
+      if( x != 0 ) return x;
+    }
+    return 0;
+  }
+
+  // Partition of a key: the number of splits <= key
+  static int part( long[] splits, int ncols, long[] key, int off ) {
+    int lo = 0, hi = splits.length/ncols;
+    while( lo < hi ) {
+      int mid = (lo+hi)>>>1;
+      if( compare(splits,mid*ncols,key,off,ncols) <= 0 ) lo = mid+1;
+      else hi = mid;
+    }
+    return lo;
+  }
+
+  // Sample the keys of all frames, sort the samples, and take nparts-1 evenly
+  // spaced keys as splits
+  private static long[] splits( Frame[] frs, KeySpec[] kss, int nparts ) {
+    final int ncols = kss[0].ncols();
+    long nrows = 0;
+    for( Frame fr : frs ) nrows += fr.numRows();
+    double rate = Math.min(1.0, Math.min((double)nparts*SAMPLES_PER_PART, MAX_SAMPLES)/Math.max(1,nrows));
+    long seed = new Random().nextLong();
+    long[] keys = new long[0];
+    int n = 0;
+    for( int i=0; i<frs.length; i++ ) {
+      Sample s = new Sample(kss[i],rate,seed+i).doAll(frs[i]);
+      if( s._n == 0 ) continue;
+      keys = Arrays.copyOf(keys,(n+s._n)*ncols);
+      System.arraycopy(s._keys,0,keys,n*ncols,s._n*ncols);
+      n += s._n;
+    }
+    if( n == 0 ) return keys;   // All keys NA, or no rows
+    return splits(keys,n,ncols,nparts);
+  }
+  private static long[] splits( final long[] keys, int n, final int ncols, int nparts ) {
+    long[] idx = new long[n];
+    for( int i=0; i<n; i++ ) idx[i] = i;
+    sort(idx,0,n,new Cmp() {
+        @Override int compare( long a, long b ) { return SortMerge.compare(keys,(int)a*ncols,keys,(int)b*ncols,ncols); }
+      });
+    long[] splits = new long[(nparts-1)*ncols];
+    for( int k=0; k<nparts-1; k++ )
+      System.arraycopy(keys,(int)idx[(int)((long)(k+1)*n/nparts)]*ncols,splits,k*ncols,ncols);
+    Log.info("Sort-merge: "+nparts+" partitions from "+n+" sampled keys");
+    return splits;
+  }
+
+  static abstract class Cmp { abstract int compare( long a, long b ); }
+
+  // Stable merge sort of refs[lo,hi)
+  static void sort( long[] refs, int lo, int hi, Cmp cmp ) {
+    msort(refs,new long[(hi-lo+1)>>1],lo,hi,cmp);
+  }
+  private static void msort( long[] a, long[] tmp, int lo, int hi, Cmp cmp ) {
+    if( hi-lo < 16 ) {          // Insertion sort small runs
+      for( int i=lo+1; i<hi; i++ ) {
+        long x = a[i];
+        int j = i;
+        for( ; j>lo && cmp.compare(a[j-1],x) > 0; j-- ) a[j] = a[j-1];
+        a[j] = x;
+      }
+      return;
+    }
+    int mid = (lo+hi)>>>1;
+    msort(a,tmp,lo,mid,cmp);
+    msort(a,tmp,mid,hi,cmp);
+    if( cmp.compare(a[mid-1],a[mid]) <= 0 ) return; // Already in order
+    int ie = mid-lo;
+    System.arraycopy(a,lo,tmp,0,ie);
+    int i=0, j=mid, k=lo;
+    while( i<ie && j<hi ) a[k++] = cmp.compare(a[j],tmp[i]) < 0 ? a[j++] : tmp[i++];
+    while( i<ie ) a[k++] = tmp[i++];
+  }
+
+  // Bernoulli sample of the keys; join keys with an NA are skipped
+  private static class Sample extends MRTask<Sample> {
+    final KeySpec _ks;
+    final int _ncols;
+    final double _rate;
+    final long _seed;
+    long[] _keys;               // _n keys of _ncols each
+    int _n;
+    Sample( KeySpec ks, double rate, long seed ) { _ks = ks; _ncols = ks.ncols(); _rate = rate; _seed = seed; }
+    @Override public void map( Chunk chks[] ) {
+      Random rng = new Random(_seed+chks[0].cidx());
+      long[] key = new long[_ncols];
+      long[] ks = new long[_ncols*8];
+      int n = 0;
+      for( int r=0; r<chks[0]._len; r++ ) {
+        if( rng.nextDouble() >= _rate ) continue;
+        if( !_ks.fill(chks,r,key,0) ) continue;
+        if( (n+1)*_ncols > ks.length ) ks = Arrays.copyOf(ks,ks.length<<1);
+        System.arraycopy(key,0,ks,n*_ncols,_ncols);
+        n++;
+      }
+      _keys = ks;  _n = n;
+    }
+    @Override public void reduce( Sample s ) {
+      if( s._n == 0 ) return;
+      if( _n == 0 ) { _keys = s._keys; _n = s._n; return; }
+      long[] ks = Arrays.copyOf(_keys,(_n+s._n)*_ncols);
+      System.arraycopy(s._keys,0,ks,_n*_ncols,s._n*_ncols);
+      _keys = ks;  _n += s._n;
+    }
+  }
+
+  // Rows of one source chunk bound for one node, column-wise
+  private static class Shard extends Iced {
+    int _n;
+    int[] _parts;               // Partition per row
+    long[] _keys;               // _ncols keys per row; NA for missing
+    double[][] _ds;             // Payload columns, per kind; null if not that kind
+    long[][] _ls;               // Longs, or the low half of UUIDs
+    long[][] _hs;               // High half of UUIDs
+    String[][] _ss;
+    Shard() { }                 // For serialization
+    Shard( int len, int ncols, byte[] kinds ) {
+      _parts = new int[len];
+      _keys = new long[len*ncols];
+      _ds = new double[kinds.length][];
+      _ls = new long[kinds.length][];
+      _hs = new long[kinds.length][];
+      _ss = new String[kinds.length][];
+      for( int c=0; c<kinds.length; c++ )
+        switch( kinds[c] ) {
+        case K_DBL : _ds[c] = new double[len]; break;
+        case K_LONG: _ls[c] = new long  [len]; break;
+        case K_UUID: _ls[c] = new long  [len]; _hs[c] = new long[len]; break;
+        default:     _ss[c] = new String[len]; break;
+        }
+    }
+    void add( Chunk chks[], int ncols, int[] pay, byte[] kinds, int r, int part, long[] keys, BufferedString bStr ) {
+      int i = _n++;
+      _parts[i] = part;
+      System.arraycopy(keys,r*ncols,_keys,i*ncols,ncols);
+      for( int c=0; c<kinds.length; c++ ) {
+        Chunk chk = chks[pay[c]];
+        switch( kinds[c] ) {
+        case K_DBL : _ds[c][i] = chk.atd(r); break;
+        case K_LONG: _ls[c][i] = chk.isNA(r) ? NA : chk.at8(r); break;
+        case K_UUID:
+          if( chk.isNA(r) ) { _ls[c][i] = C16Chunk._LO_NA; _hs[c][i] = C16Chunk._HI_NA; }
+          else { _ls[c][i] = chk.at16l(r); _hs[c][i] = chk.at16h(r); }
+          break;
+        default:     _ss[c][i] = chk.isNA(r) ? null : chk.atStr(bStr,r).toString(); break;
+        }
+      }
+    }
+  }
+
+  // Shards are homed on the node they are bound for
+  static Key shardKey( String uniq, int side, int cidx, int node ) {
+    return Key.make(uniq+"_"+side+"_"+cidx+"_"+node,(byte)1,Key.HIDDEN_USER_KEY,true,H2O.CLOUD._memary[node]);
+  }
+
+  // Partition every row of one side, and ship the rows to their owners
+  private static class Shuffle extends MRTask<Shuffle> {
+    final String _uniq;
+    final int _side, _ncols, _nparts;
+    final KeySpec _ks;
+    final long[] _splits;
+    final int[] _owner;
+    final int[] _pay;           // Payload columns
+    final byte[] _kinds;        // Payload kinds
+    Shuffle( String uniq, int side, KeySpec ks, int nparts, long[] splits, int[] owner, int[] pay, byte[] kinds ) {
+      _uniq = uniq; _side = side; _ks = ks; _ncols = ks.ncols(); _nparts = nparts; _splits = splits; _owner = owner; _pay = pay; _kinds = kinds;
+    }
+    @Override public void map( Chunk chks[] ) {
+      int len = chks[0]._len;
+      long start = chks[0].start();
+      long[] keys = new long[len*_ncols];
+      int[] parts = new int[len];
+      int[] cnts = new int[H2O.CLOUD.size()];
+      for( int r=0; r<len; r++ ) {
+        parts[r] = _ks.fill(chks,r,keys,r*_ncols)
+          ? part(_splits,_ncols,keys,r*_ncols)
+          : (int)((start+r)%_nparts); // NA keys never match; spread them out
+        cnts[_owner[parts[r]]]++;
+      }
+      Shard[] shs = new Shard[cnts.length];
+      for( int n=0; n<cnts.length; n++ )
+        if( cnts[n] > 0 ) shs[n] = new Shard(cnts[n],_ncols,_kinds);
+      BufferedString bStr = new BufferedString();
+      for( int r=0; r<len; r++ )
+        shs[_owner[parts[r]]].add(chks,_ncols,_pay,_kinds,r,parts[r],keys,bStr);
+      for( int n=0; n<shs.length; n++ )
+        if( shs[n] != null ) DKV.put(shardKey(_uniq,_side,chks[0].cidx(),n),shs[n],_fs);
+    }
+  }
+
+  // Gather this node's shards, then sort & merge-join one partition per
+  // (dummy) chunk
+  private static class Merge extends MRTask<Merge> {
+    final String _uniq;
+    final int _ncols, _nparts;
+    final int[] _nchunks;       // Source chunks per side
+    final byte[][] _kinds;      // Payload kinds per side
+    final boolean _allLeft, _allRite;
+    final boolean _sort;        // Sorting: NA keys sort first, keys not output
+    transient Shard[][] _shards;  // Per side, this node's shards
+    transient int[][] _pstart;    // Per side, start of each partition in _refs
+    transient long[][] _refs;     // Per side, shard<<32|row grouped by partition
+    Merge( String uniq, int ncols, int nparts, int[] nchunks, byte[][] kinds, boolean allLeft, boolean allRite, boolean sort ) {
+      _uniq = uniq; _ncols = ncols; _nparts = nparts; _nchunks = nchunks; _kinds = kinds; _allLeft = allLeft; _allRite = allRite; _sort = sort;
+    }
+
+    @Override protected void setupLocal() {
+      int me = H2O.SELF.index();
+      Futures fs = new Futures();
+      _shards = new Shard[2][];  _pstart = new int[2][];  _refs = new long[2][];
+      for( int s=0; s<2; s++ ) {
+        ArrayList<Shard> shs = new ArrayList<>();
+        for( int c=0; c<_nchunks[s]; c++ ) {
+          Key k = shardKey(_uniq,s,c,me);
+          Shard sh = DKV.getGet(k);
+          if( sh != null ) { shs.add(sh); DKV.remove(k,fs); }
+        }
+        Shard[] sa = _shards[s] = shs.toArray(new Shard[shs.size()]);
+        // Counting sort of this node's rows by partition
+        int[] pstart = new int[_nparts+1];
+        for( Shard sh : sa )
+          for( int i=0; i<sh._n; i++ ) pstart[sh._parts[i]+1]++;
+        for( int p=0; p<_nparts; p++ ) pstart[p+1] += pstart[p];
+        long[] refs = new long[pstart[_nparts]];
+        int[] pos = Arrays.copyOf(pstart,_nparts);
+        for( int j=0; j<sa.length; j++ )
+          for( int i=0; i<sa[j]._n; i++ )
+            refs[pos[sa[j]._parts[i]]++] = ((long)j<<32)|i;
+        _pstart[s] = pstart;  _refs[s] = refs;
+      }
+      fs.blockForPending();
+    }
+
+    @Override protected void closeLocal() { _shards = null; _pstart = null; _refs = null; }
+
+    // The refs of one partition; rows with NA keys moved (stably) to the end,
+    // and the rest sorted by key.  Returns the count of keyed rows.
+    private int sorted( int side, int p, long[] refs ) {
+      final Shard[] shs = _shards[side];
+      int n = 0, na = refs.length;
+      long[] nas = new long[refs.length];
+      for( int i=_pstart[side][p]; i<_pstart[side][p+1]; i++ ) {
+        long ref = _refs[side][i];
+        if( !_sort && hasNA(shs[(int)(ref>>>32)],(int)ref) ) nas[--na] = ref;
+        else refs[n++] = ref;
+      }
+      for( int i=refs.length-1, j=n; i>=na; i--, j++ ) refs[j] = nas[i];
+      sort(refs,0,n,new Cmp() {
+          @Override int compare( long a, long b ) { return cmp(shs,a,shs,b); }
+        });
+      return n;
+    }
+    private boolean hasNA( Shard s, int r ) {
+      for( int c=0; c<_ncols; c++ ) if( s._keys[r*_ncols+c] == NA ) return true;
+      return false;
+    }
+    private int cmp( Shard[] as, long a, Shard[] bs, long b ) {
+      return compare(as[(int)(a>>>32)]._keys,(int)a*_ncols,bs[(int)(b>>>32)]._keys,(int)b*_ncols,_ncols);
+    }
+
+    @Override public void map( Chunk chks[], NewChunk ncs[] ) {
+      int p = chks[0].cidx();
+      long[] w = new long[_pstart[0][p+1]-_pstart[0][p]];
+      long[] h = new long[_pstart[1][p+1]-_pstart[1][p]];
+      int nw = sorted(0,p,w), nh = sorted(1,p,h);
+      Shard[] ws = _shards[0], hs = _shards[1];
+      int i=0, j=0;
+      while( i<nw || j<nh ) {
+        int c = i==nw ? 1 : (j==nh ? -1 : cmp(ws,w[i],hs,h[j]));
+        if( c < 0 ) { if( _allLeft ) emit(ncs,w[i],-1); i++; }
+        else if( c > 0 ) { if( _allRite ) emit(ncs,-1,h[j]); j++; }
+        else {                  // Equal keys: cross product of both runs
+          int i2 = i+1, j2 = j+1;
+          while( i2<nw && cmp(ws,w[i2],ws,w[i]) == 0 ) i2++;
+          while( j2<nh && cmp(hs,h[j2],hs,h[j]) == 0 ) j2++;
+          for( int a=i; a<i2; a++ )
+            for( int b=j; b<j2; b++ )
+              emit(ncs,w[a],h[b]);
+          i = i2;  j = j2;
+        }
+      }
+      if( _allLeft ) for( i=nw; i<w.length; i++ ) emit(ncs,w[i],-1);
+      if( _allRite ) for( j=nh; j<h.length; j++ ) emit(ncs,-1,h[j]);
+    }
+
+    // One output row from a walked and/or a hashed row; -1 for none
+    private void emit( NewChunk ncs[], long wref, long href ) {
+      Shard w = wref < 0 ? null : _shards[0][(int)(wref>>>32)];
+      Shard h = href < 0 ? null : _shards[1][(int)(href>>>32)];
+      int nk = _sort ? 0 : _ncols; // Sorted rows are all payload
+      Shard ks = w != null ? w : h;
+      int kr = (int)(w != null ? wref : href);
+      for( int c=0; c<nk; c++ ) {
+        long l = ks._keys[kr*_ncols+c];
+        if( l == NA ) ncs[c].addNA(); else ncs[c].addNum(l,0);
+      }
+      addPayload(ncs,nk,_kinds[0],w,(int)wref);
+      addPayload(ncs,nk+_kinds[0].length,_kinds[1],h,(int)href);
+    }
+    private static void addPayload( NewChunk ncs[], int off, byte[] kinds, Shard s, int r ) {
+      for( int c=0; c<kinds.length; c++ ) {
+        NewChunk nc = ncs[off+c];
+        switch( kinds[c] ) {
+        case K_DBL : if( s == null ) nc.addNA(); else nc.addNum(s._ds[c][r]); break;
+        case K_LONG: if( s == null || s._ls[c][r] == NA ) nc.addNA(); else nc.addNum(s._ls[c][r],0); break;
+        case K_UUID: if( s == null ) nc.addUUID(C16Chunk._LO_NA,C16Chunk._HI_NA); else nc.addUUID(s._ls[c][r],s._hs[c][r]); break;
+        default:     nc.addStr(s == null ? null : s._ss[c][r]); break;
+        }
+      }
+    }
+  }
+}
@@ -31,6 +31,8 @@ public class ChunkSummary extends MRTask<ChunkSummary> {
     "CStr",                     // Strings
     "CXD",                      // Sparse doubles
     "CUD",                      // Few Unique doubles
+    "CRL",                      // Run-length numbers
+    "CFOR",                     // Frame-of-reference integers
     "C8D",                      //leave this as last -> no compression
   };
   final transient static String[] chunkNames = new String[]{
@@ -52,6 +54,8 @@ public class ChunkSummary extends MRTask<ChunkSummary> {
           "String",
           "Sparse Reals",
           "Unique Reals",
+          "Run-Length Numbers",
+          "Frame-of-Reference Integers",
           "64-bit Reals",
   };
 
@@ -0,0 +1,165 @@
+package water.util;
+
+import water.Iced;
+
+import java.util.Arrays;
+
+/** Mergeable quantile sketch (KLL: Karnin, Lang &amp; Liberty, "Optimal
+ *  Quantile Approximation in Streams", 2016) - Iced, so cheaply reduced over
+ *  the wire.
+ *
+ *  <p>Values are kept in a stack of compactors: a value at level h stands for
+ *  2^h values of the stream.  Once a level is full, it is sorted and every
+ *  other value (starting at a random offset) moves up one level, the rest is
+ *  dropped.  The lower levels are kept smaller than the higher ones, so the
+ *  sketch holds about 3k values whatever the length of the stream, with a
+ *  rank error of about 1.7/k.  Sketches of different chunks merge level by
+ *  level, so a sketch is built in the same pass as the other rollups.
+ *
+ *  <p>The sketch is exact as long as no level was compacted, i.e. for up to k
+ *  values.
+ */
+public class QuantileSketch extends Iced<QuantileSketch> {
+  public static final int DEFAULT_K = 200;
+  private static final double C = 2.0/3.0; // Capacity ratio of neighbouring levels
+
+  private final int _k;
+  private double[][] _items;    // Values of every level
+  private int[] _len;           // Number of values of every level
+  private long _n;              // Number of values in the stream (the total weight)
+  private long _rnd;            // State of the coin flips for compactions
+  private transient int[] _caps; // Max. number of values of every level
+
+  public QuantileSketch() { this(DEFAULT_K, 0x5EEDL); }
+  public QuantileSketch( int k, long seed ) {
+    _k = k;
+    _items = new double[1][];
+    _len = new int[1];
+    _rnd = seed*0x9E3779B97F4A7C15L | 1; // Non-zero xorshift state
+  }
+
+  /** @return Number of values added to the sketch */
+  public long count() { return _n; }
+
+  /** @return Bound on the rank error of {@link #quantiles}, as a fraction of
+   *  {@link #count}: about 3 standard deviations of the KLL error, and 0 as
+   *  long as the sketch is exact */
+  public double rankError() { return _len.length == 1 ? 0 : 3.4/_k; }
+
+  /** Add one value */
+  public void add( double d ) {
+    push(0,d);
+    if( _len[0] > capacity(0) ) compress(); // Only level 0 grew
+  }
+
+  /** Add the value d, cnt times (e.g. the zeros of a sparse chunk) */
+  public void add( double d, long cnt ) {
+    // A value at level h stands for 2^h values: add one per bit of cnt
+    for( int h=0; cnt > 0; h++, cnt >>>= 1 )
+      if( (cnt&1) != 0 ) push(h,d);
+    compress();
+  }
+
+  /** Merge another sketch into this one */
+  public void merge( QuantileSketch qs ) {
+    if( qs == null ) return;
+    for( int h=0; h<qs._len.length; h++ )
+      for( int i=0; i<qs._len[h]; i++ )
+        push(h,qs._items[h][i]);
+    compress();
+  }
+
+  /** Quantiles of the stream, with linear interpolation between the values
+   *  of the sketch (R type 7, as the rollup percentiles have been computed
+   *  before).
+   *  @param probs Probabilities, in [0,1]
+   *  @return The quantiles; NaN for an empty sketch */
+  public double[] quantiles( double[] probs ) {
+    double[] res = new double[probs.length];
+    if( _n == 0 ) { Arrays.fill(res,Double.NaN); return res; }
+    // Sort every level, and merge them by value; the cumulative weights give
+    // the ranks of the merged values
+    int m = 0;
+    double[][] levels = new double[_len.length][];
+    for( int h=0; h<_len.length; h++ ) {
+      levels[h] = _items[h] == null ? new double[0] : Arrays.copyOf(_items[h],_len[h]);
+      Arrays.sort(levels[h]);
+      m += _len[h];
+    }
+    double[] sorted = new double[m];
+    long[] cum = new long[m];
+    int[] pos = new int[levels.length];
+    long sum = 0;
+    for( int j=0; j<m; j++ ) {
+      int hmin = -1;
+      for( int h=0; h<levels.length; h++ )
+        if( pos[h] < levels[h].length && (hmin == -1 || levels[h][pos[h]] < levels[hmin][pos[hmin]]) )
+          hmin = h;
+      sorted[j] = levels[hmin][pos[hmin]++];
+      cum[j] = (sum += 1L<<hmin);
+    }
+    for( int p=0; p<probs.length; p++ ) {
+      double pd = probs[p]*(_n-1); // 0-based rank
+      long lo = (long)pd;
+      double h = pd-lo;
+      double x = sorted[rank(cum,lo)];
+      res[p] = h == 0 ? x : x + h*(sorted[rank(cum,Math.min(lo+1,_n-1))] - x);
+    }
+    return res;
+  }
+
+  // Index of the sketch value at 0-based rank r of the stream
+  private static int rank( long[] cum, long r ) {
+    int idx = Arrays.binarySearch(cum,r+1);
+    return idx >= 0 ? idx : -idx-1;
+  }
+
+  // Max. number of values of level h
+  private int capacity( int h ) {
+    if( _caps == null || _caps.length != _len.length ) { // Levels were added
+      _caps = new int[_len.length];
+      for( int l=0; l<_caps.length; l++ )
+        _caps[l] = Math.max(2,(int)Math.ceil(_k*Math.pow(C,_caps.length-1-l)));
+    }
+    return _caps[h];
+  }
+
+  private void push( int h, double d ) {
+    if( h >= _len.length ) {    // Grow the stack of levels
+      _items = Arrays.copyOf(_items,h+1);
+      _len = Arrays.copyOf(_len,h+1);
+    }
+    double[] items = _items[h];
+    if( items == null ) items = _items[h] = new double[Math.min(capacity(h)+1,8)];
+    else if( _len[h] == items.length ) items = _items[h] = Arrays.copyOf(items,items.length<<1);
+    items[_len[h]++] = d;
+    _n += 1L<<h;
+  }
+
+  // Compact full levels, bottom up, until all levels fit
+  private void compress() {
+    boolean again = true;
+    while( again ) {
+      again = false;
+      for( int h=0; h<_len.length; h++ )
+        if( _len[h] > capacity(h) ) { compact(h); again = true; }
+    }
+  }
+
+  // Sort level h, keep the smallest value if their count is odd, and move one
+  // value of every pair (the lower or the upper one, by a coin flip) up a level
+  private void compact( int h ) {
+    int n = _len[h];
+    double[] items = _items[h];
+    Arrays.sort(items,0,n);
+    int odd = n&1;
+    _len[h] = odd;              // items[0] stays if odd
+    _n -= (long)(n-odd)<<h;
+    for( int i=odd+(coin() ? 1 : 0); i<n; i+=2 ) push(h+1,items[i]);
+  }
+
+  private boolean coin() {
+    _rnd ^= _rnd << 13;  _rnd ^= _rnd >>> 7;  _rnd ^= _rnd << 17;
+    return (_rnd & 1) != 0;
+  }
+}
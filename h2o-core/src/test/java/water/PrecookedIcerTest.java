@@ -0,0 +1,38 @@
+package water;
+
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import water.fvec.Vec;
+
+/** Icers generated at build time, and the Unsafe field offsets of auto-gen'd Icers. */
+public class PrecookedIcerTest extends TestUtil {
+  @BeforeClass public static void stall() { stall_till_cloudsize(1); }
+
+  // Private and final fields are not accessible to the Icer, which uses Unsafe
+  private static class Hidden extends Iced<Hidden> {
+    private int _i;
+    private final double[] _ds;
+    final String _s;
+    Hidden( int i, double[] ds, String s ) { _i=i; _ds=ds; _s=s; }
+  }
+
+  @Test public void testInaccessibleFields() {
+    Hidden h = new AutoBuffer().put(new Hidden(7,new double[]{1.5,-2},"seven")).flipForReading().get();
+    Assert.assertEquals(7,h._i);
+    Assert.assertArrayEquals(new double[]{1.5,-2},h._ds,0);
+    Assert.assertEquals("seven",h._s);
+  }
+
+  // With a build-time type ID table, core classes use the Icers pre-cooked for
+  // the same IDs, and their IDs are known without asking the leader
+  @Test public void testPrecookedIcers() {
+    if( TypeMap.PRECOOKED_HASH == 0 ) return; // Not built by gradle; all Icers are woven
+    int id = TypeMap.onIce(Vec.class.getName());
+    Assert.assertTrue(id < TypeMap.PRECOOKED_IDS);
+    Icer icer = TypeMap.getIcer(id,Vec.class);
+    Assert.assertEquals(Vec.class.getName()+"$Icer",icer.getClass().getName());
+    Assert.assertEquals(id,icer.frozenType());
+    Assert.assertEquals(Vec.class.getName(),icer.className());
+  }
+}
@@ -0,0 +1,74 @@
+package water;
+
+import org.junit.*;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Random;
+
+/** Messages packed into a batch come out of it unchanged and in order. */
+public class UDPBatchTest extends TestUtil {
+  @BeforeClass() public static void setup() { stall_till_cloudsize(1); }
+
+  private static ByteBuffer msg( Random rnd, int sz ) {
+    byte[] bs = new byte[sz];
+    rnd.nextBytes(bs);
+    return ByteBuffer.wrap(bs);
+  }
+
+  private static ByteBuffer batch() {
+    return ByteBuffer.allocate(AutoBuffer.BBP_SML.size()).order(ByteOrder.nativeOrder());
+  }
+
+  // Pack msgs, seal, split, and compare
+  private static void roundTrip( ArrayList<ByteBuffer> msgs ) {
+    ByteBuffer bb = batch();
+    UDPBatch.begin(bb);
+    for( ByteBuffer m : msgs ) UDPBatch.append(bb,m);
+    Assert.assertTrue(bb.position() <= UDPBatch.BATCH_BYTES);
+    UDPBatch.seal(bb,msgs.size());
+    Assert.assertEquals(UDP.udp.batch.ordinal(), bb.get(0));
+    ArrayList<byte[]> out = UDPBatch.split(bb);
+    Assert.assertEquals(msgs.size(), out.size());
+    for( int i=0; i<msgs.size(); i++ ) {
+      byte[] exp = msgs.get(i).array();
+      Assert.assertArrayEquals(exp, Arrays.copyOf(out.get(i),exp.length));
+    }
+  }
+
+  @Test public void testMixedSizes() {
+    Random rnd = new Random(0xBA7C4);
+    ArrayList<ByteBuffer> msgs = new ArrayList<>();
+    for( int sz : new int[]{1, 16, 0, 200, 3, 64} ) msgs.add(msg(rnd,sz));
+    roundTrip(msgs);
+  }
+
+  // Filled until the next message would not fit, as Pending.add does
+  @Test public void testFullBatch() {
+    Random rnd = new Random(0xF011);
+    ArrayList<ByteBuffer> msgs = new ArrayList<>();
+    int pos = 1+2;
+    while( true ) {
+      int sz = 1+rnd.nextInt(120);
+      if( pos+2+sz > UDPBatch.BATCH_BYTES ) break;
+      msgs.add(msg(rnd,sz));
+      pos += 2+sz;
+    }
+    Assert.assertTrue(msgs.size() > 1);
+    roundTrip(msgs);
+  }
+
+  // A lone message is sent as is, without the batch header
+  @Test public void testSingleMessage() {
+    ByteBuffer m = msg(new Random(1),40);
+    ByteBuffer bb = batch();
+    UDPBatch.begin(bb);
+    UDPBatch.append(bb,m);
+    UDPBatch.seal(bb,1);
+    byte[] sent = new byte[bb.remaining()];
+    bb.get(sent);
+    Assert.assertArrayEquals(m.array(), sent);
+  }
+}
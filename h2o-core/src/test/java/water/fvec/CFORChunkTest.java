@@ -0,0 +1,63 @@
+package water.fvec;
+
+import org.junit.*;
+
+import water.TestUtil;
+import java.util.Arrays;
+
+public class CFORChunkTest extends TestUtil {
+  @BeforeClass() public static void setup() { stall_till_cloudsize(1); }
+
+  // Sorted millisecond timestamps: 8 bytes fixed-width, 2 per block here
+  @Test
+  public void test_inflate_impl_timestamps() {
+    long[] vals = new long[3000];
+    long t = 1400000000000L;
+    for (int i = 0; i < vals.length; ++i) vals[i] = t += (i*31)%200;
+    checkRoundTrip(vals, -1);
+  }
+
+  // Monotonic IDs with NAs, a constant block and a block of NAs
+  @Test
+  public void test_inflate_impl_ids() {
+    long[] vals = new long[4000];
+    for (int i = 0; i < vals.length; ++i) vals[i] = 10000000000L + i;
+    for (int i = 1024; i < 1280; ++i) vals[i] = 77;  // Constant block
+    for (int i = 2; i < vals.length; i += 101) vals[i] = Long.MIN_VALUE; // NAs
+    for (int i = 2048; i < 2304; ++i) vals[i] = Long.MIN_VALUE;
+    checkRoundTrip(vals, Long.MIN_VALUE);
+  }
+
+  private static void checkRoundTrip(long[] vals, long na) {
+    NewChunk nc = new NewChunk(null, 0);
+    for (long v : vals)
+      if (v == na) nc.addNA(); else nc.addNum(v, 0);
+    Chunk cc = nc.compress();
+    Assert.assertEquals(vals.length, cc._len);
+    Assert.assertTrue(cc instanceof CFORChunk);
+    Assert.assertTrue(cc._mem.length < 4*vals.length);
+    check(cc, vals, na);
+
+    nc = cc.inflate_impl(new NewChunk(null, 0));
+    Assert.assertEquals(vals.length, nc._len);
+    Chunk cc2 = nc.compress();
+    Assert.assertTrue(cc2 instanceof CFORChunk);
+    check(cc2, vals, na);
+    Assert.assertTrue(Arrays.equals(cc._mem, cc2._mem));
+  }
+
+  private static void check(Chunk cc, long[] vals, long na) {
+    double[] bulk = cc.toDoubleArray(null);
+    for (int i = 0; i < vals.length; ++i) {
+      if (vals[i] == na) {
+        Assert.assertTrue(cc.isNA(i));
+        Assert.assertTrue(Double.isNaN(cc.atd(i)));
+        Assert.assertTrue(Double.isNaN(bulk[i]));
+      } else {
+        Assert.assertFalse(cc.isNA(i));
+        Assert.assertEquals(vals[i], cc.at8(i));
+        Assert.assertEquals((double)vals[i], bulk[i], 0);
+      }
+    }
+  }
+}
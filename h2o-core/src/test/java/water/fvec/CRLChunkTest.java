@@ -0,0 +1,84 @@
+package water.fvec;
+
+import org.junit.*;
+
+import water.TestUtil;
+import java.util.Arrays;
+
+public class CRLChunkTest extends TestUtil {
+  @BeforeClass() public static void setup() { stall_till_cloudsize(1); }
+
+  // Runs of 8-byte longs, with a run of NAs
+  @Test
+  public void test_inflate_impl_longs() {
+    long[] vals = new long[]{0, 1000000000000L, Long.MAX_VALUE, -7};
+    final int RUN = 500;
+    NewChunk nc = new NewChunk(null, 0);
+    for (long v : vals) for (int i = 0; i < RUN; ++i) nc.addNum(v, 0);
+    for (int i = 0; i < RUN; ++i) nc.addNA();
+    int len = (vals.length+1)*RUN;
+
+    Chunk cc = nc.compress();
+    Assert.assertEquals(len, cc._len);
+    Assert.assertTrue(cc instanceof CRLChunk);
+    Assert.assertFalse(cc.hasFloat());
+    check(cc, vals, RUN);
+
+    nc = cc.inflate_impl(new NewChunk(null, 0));
+    Assert.assertEquals(len, nc._len);
+    Chunk cc2 = nc.compress();
+    Assert.assertTrue(cc2 instanceof CRLChunk);
+    check(cc2, vals, RUN);
+    Assert.assertTrue(Arrays.equals(cc._mem, cc2._mem));
+  }
+
+  // Runs of doubles, with a run of NAs
+  @Test
+  public void test_inflate_impl_doubles() {
+    double[] vals = new double[]{Math.PI, -2.5, Double.NaN, 1e-300, Double.POSITIVE_INFINITY};
+    final int RUN = 300;
+    NewChunk nc = new NewChunk(null, 0);
+    for (double v : vals) for (int i = 0; i < RUN; ++i) nc.addNum(v);
+
+    Chunk cc = nc.compress();
+    Assert.assertEquals(vals.length*RUN, cc._len);
+    Assert.assertTrue(cc instanceof CRLChunk);
+    Assert.assertTrue(cc.hasFloat());
+    double[] bulk = cc.toDoubleArray(null);
+    for (int i = cc._len-1; i >= 0; --i) { // Backwards: not the sequential path
+      double v = vals[i/RUN];
+      Assert.assertEquals(v, cc.atd(i), Math.ulp(v));
+      Assert.assertEquals(v, bulk[i], Math.ulp(v));
+      Assert.assertEquals(Double.isNaN(v), cc.isNA(i));
+    }
+
+    nc = cc.inflate_impl(new NewChunk(null, 0));
+    Chunk cc2 = nc.compress();
+    Assert.assertTrue(cc2 instanceof CRLChunk);
+    Assert.assertTrue(Arrays.equals(cc._mem, cc2._mem));
+  }
+
+  // Short runs do not beat the fixed-width encodings
+  @Test
+  public void test_not_chosen() {
+    NewChunk nc = new NewChunk(null, 0);
+    for (int i = 0; i < 2000; ++i) nc.addNum((i*7919)%100, 0);
+    Assert.assertFalse(nc.compress() instanceof CRLChunk);
+  }
+
+  private static void check(Chunk cc, long[] vals, int run) {
+    double[] bulk = cc.toDoubleArray(null);
+    for (int i = 0; i < vals.length*run; ++i) {
+      Assert.assertEquals(vals[i/run], cc.at8(i));
+      Assert.assertEquals((double)vals[i/run], bulk[i], 0);
+      Assert.assertFalse(cc.isNA(i));
+    }
+    for (int i = vals.length*run; i < cc._len; ++i) {
+      Assert.assertTrue(cc.isNA(i));
+      Assert.assertTrue(Double.isNaN(bulk[i]));
+    }
+    // Random access
+    for (int i = cc._len-1; i >= 0; i -= 37)
+      Assert.assertEquals(i < vals.length*run, !cc.isNA(i));
+  }
+}
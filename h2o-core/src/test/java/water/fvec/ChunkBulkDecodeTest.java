@@ -0,0 +1,82 @@
+package water.fvec;
+
+import org.junit.*;
+
+import water.TestUtil;
+
+import java.util.Random;
+
+/** Bulk getDoubles/getLongs/getIntegers must agree with row-by-row access, on
+ *  every compression and for sub-ranges. */
+public class ChunkBulkDecodeTest extends TestUtil {
+  @BeforeClass() public static void setup() { stall_till_cloudsize(1); }
+
+  @Test public void testIntegerChunks() {
+    Random rng = new Random(0xDECAF);
+    long[][] ranges = new long[][]{{0,0},{0,200},{-100,100},{0,60000},{-30000,30000},{-2000000000L,2000000000L},{-1L<<50,1L<<50}};
+    for( long[] rg : ranges )
+      for( double naRate : new double[]{0,0.1} ) {
+        NewChunk nc = new NewChunk(null,0);
+        for( int i=0; i<1500; i++ )
+          if( rng.nextDouble() < naRate ) nc.addNA();
+          else nc.addNum(rg[0] + (long)(rng.nextDouble()*(rg[1]-rg[0])),0);
+        check(nc.compress());
+      }
+  }
+
+  @Test public void testScaledAndFloatChunks() {
+    Random rng = new Random(0xBEEF);
+    for( double scale : new double[]{0.1,0.001,Math.PI} )
+      for( double naRate : new double[]{0,0.1} ) {
+        NewChunk nc = new NewChunk(null,0);
+        for( int i=0; i<1500; i++ )
+          if( rng.nextDouble() < naRate ) nc.addNA();
+          else nc.addNum(Math.round(rng.nextDouble()*1000)*scale);
+        check(nc.compress());
+      }
+  }
+
+  @Test public void testSparseAndRunChunks() {
+    NewChunk nc = new NewChunk(null,0);
+    for( int i=0; i<5000; i++ ) nc.addNum(i%97 == 0 ? i : 0,0);
+    check(nc.compress());
+    nc = new NewChunk(null,0);
+    for( int i=0; i<5000; i++ ) nc.addNum(i%101 == 0 ? 0.5*i : 0);
+    check(nc.compress());
+    nc = new NewChunk(null,0);
+    for( int i=0; i<5000; i++ ) if( i/700 == 3 ) nc.addNA(); else nc.addNum(i/700,0);
+    check(nc.compress());
+    nc = new NewChunk(null,0);
+    for( int i=0; i<5000; i++ ) nc.addNum(1000000+i,0);
+    check(nc.compress());
+  }
+
+  private static void check( Chunk c ) {
+    int len = c._len;
+    int[][] ranges = new int[][]{{0,len},{0,0},{1,len-1},{len/3,len/2}};
+    for( int[] rg : ranges ) {
+      int from = rg[0], to = rg[1], n = to-from;
+      double[] ds = c.getDoubles(new double[n],from,to);
+      double[] dz = c.getDoubles(new double[n],from,to,-1);
+      long  [] ls = c.getLongs(new long[n],from,to,Long.MIN_VALUE);
+      for( int i=from; i<to; i++ ) {
+        String msg = c.getClass().getSimpleName()+" row "+i;
+        if( c.isNA(i) ) {
+          Assert.assertTrue(msg, Double.isNaN(ds[i-from]));
+          Assert.assertEquals(msg, -1, dz[i-from], 0);
+          Assert.assertEquals(msg, Long.MIN_VALUE, ls[i-from]);
+        } else {
+          Assert.assertEquals(msg, c.atd(i), ds[i-from], 0);
+          Assert.assertEquals(msg, c.atd(i), dz[i-from], 0);
+          Assert.assertEquals(msg, c.at8(i), ls[i-from]);
+        }
+      }
+      if( !c.hasFloat() ) {
+        int[] is = c.getIntegers(new int[n],from,to,Integer.MIN_VALUE);
+        for( int i=from; i<to; i++ )
+          if( c.isNA(i) ) Assert.assertEquals(Integer.MIN_VALUE, is[i-from]);
+          else if( c.at8(i) == (int)c.at8(i) ) Assert.assertEquals((int)c.at8(i), is[i-from]);
+      }
+    }
+  }
+}
@@ -0,0 +1,110 @@
+package water.fvec;
+
+import org.junit.*;
+
+import water.H2O;
+import water.Key;
+import water.MRTask;
+import water.TestUtil;
+import water.DKV;
+import water.Value;
+import water.parser.BufferedString;
+import water.rapids.Exec;
+
+import java.io.File;
+import java.io.IOException;
+
+/** A saved and reloaded Frame has the same layout, chunks and rollups, and
+ *  its chunks are only read when used. */
+public class FrameSnapshotTest extends TestUtil {
+  @BeforeClass() public static void setup() { stall_till_cloudsize(1); }
+
+  @Test public void testRoundTrip() throws IOException {
+    Vec seq = Vec.makeSeq(50000,true);
+    Frame fr = null, fr2 = null;
+    File dir = File.createTempFile("snapshot",".frame");
+    Assert.assertTrue(dir.delete());
+    try {
+      fr = new MRTask() {
+        @Override public void map( Chunk[] cs, NewChunk[] ncs ) {
+          Chunk c = cs[0];
+          for( int i=0; i<c._len; i++ ) {
+            long r = c.at8(i);
+            if( r%7 == 0 ) ncs[0].addNA(); else ncs[0].addNum(r*0.37 - 1000);
+            ncs[1].addNum(r%3,0);
+            if( r%11 == 0 ) ncs[2].addNA(); else ncs[2].addStr("s"+r);
+          }
+        }
+      }.doAll(new byte[]{Vec.T_NUM,Vec.T_CAT,Vec.T_STR},seq)
+       .outputFrame(Key.make(),new String[]{"real","cat","str"},new String[][]{null,{"a","b","c"},null});
+      Assert.assertTrue(fr.anyVec().nChunks() > 1);
+
+      FrameSnapshot.save(fr,dir.getPath(),false);
+      try {
+        FrameSnapshot.save(fr,dir.getPath(),false);
+        Assert.fail("Expected an existing snapshot to be kept");
+      } catch( IllegalArgumentException expected ) { }
+      long loads = H2O.getPM().getStats()[Value.SNAP].load_count.get();
+      fr2 = FrameSnapshot.load(dir.getPath(),Key.make());
+      // Chunks stay on disk until first used
+      Value val = DKV.get(fr2.vec(0).chunkKey(0));
+      Assert.assertTrue(val.isPersisted());
+      Assert.assertEquals(loads, H2O.getPM().getStats()[Value.SNAP].load_count.get());
+      Assert.assertArrayEquals(fr.vec(0).chunkForChunkIdx(0).getBytes(), val.memOrLoad());
+      Assert.assertEquals(loads+1, H2O.getPM().getStats()[Value.SNAP].load_count.get());
+      // and are read again once freed
+      val.freeMem();
+      Assert.assertArrayEquals(fr.vec(0).chunkForChunkIdx(0).getBytes(), val.memOrLoad());
+
+      Assert.assertArrayEquals(fr.names(), fr2.names());
+      Assert.assertArrayEquals(fr.anyVec().espc(), fr2.anyVec().espc());
+      Assert.assertArrayEquals(fr.vec(1).domain(), fr2.vec(1).domain());
+      Assert.assertTrue(fr2.vec(2).isString());
+      for( int i=0; i<fr.numCols(); i++ ) {
+        Vec v = fr.vec(i), v2 = fr2.vec(i);
+        Assert.assertEquals(v.naCnt(), v2.naCnt());
+        if( v.isNumeric() ) {
+          Assert.assertEquals(v.min(), v2.min(), 0);
+          Assert.assertEquals(v.max(), v2.max(), 0);
+          Assert.assertEquals(v.mean(), v2.mean(), 0);
+        }
+        for( int c=0; c<v.nChunks(); c++ )
+          Assert.assertEquals(v.chunkForChunkIdx(c).getClass(), v2.chunkForChunkIdx(c).getClass());
+      }
+      BufferedString s = new BufferedString(), s2 = new BufferedString();
+      for( long r=0; r<fr.numRows(); r++ ) {
+        Assert.assertEquals(fr.vec(0).at(r), fr2.vec(0).at(r), 0);
+        Assert.assertEquals(fr.vec(1).at(r), fr2.vec(1).at(r), 0);
+        if( fr.vec(2).isNA(r) ) Assert.assertTrue(fr2.vec(2).isNA(r));
+        else Assert.assertEquals(fr.vec(2).atStr(s,r).toString(), fr2.vec(2).atStr(s2,r).toString());
+      }
+    } finally {
+      seq.remove();
+      if( fr  != null ) fr .delete();
+      if( fr2 != null ) fr2.delete();
+      File[] fs = dir.listFiles();
+      if( fs != null ) for( File f : fs ) f.delete();
+      dir.delete();
+    }
+  }
+
+  @Test public void testRapids() throws IOException {
+    Frame fr = null, fr2 = null;
+    File dir = File.createTempFile("snapshot",".frame");
+    Assert.assertTrue(dir.delete());
+    try {
+      fr = parse_test_file(Key.make("snapshot.hex"),"smalldata/iris/iris_wheader.csv");
+      String path = dir.getPath().replace('\\','/');
+      Assert.assertEquals(fr.numRows(), Exec.exec("(snapshot.save snapshot.hex \""+path+"\" FALSE)").getNum(), 0);
+      Assert.assertEquals("snapshot2.hex", Exec.exec("(snapshot.load snapshot2.hex \""+path+"\")").getStr());
+      fr2 = DKV.getGet("snapshot2.hex");
+      Assert.assertTrue(isBitIdentical(fr, fr2));
+    } finally {
+      if( fr  != null ) fr .delete();
+      if( fr2 != null ) fr2.delete();
+      File[] fs = dir.listFiles();
+      if( fs != null ) for( File f : fs ) f.delete();
+      dir.delete();
+    }
+  }
+}
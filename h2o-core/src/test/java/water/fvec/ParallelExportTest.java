@@ -0,0 +1,98 @@
+package water.fvec;
+
+import org.junit.*;
+
+import water.MRTask;
+import water.TestUtil;
+
+import java.io.*;
+import java.util.zip.GZIPInputStream;
+
+/** Chunk-parallel export must produce the same text as Frame.toCSV. */
+public class ParallelExportTest extends TestUtil {
+  @BeforeClass() public static void setup() { stall_till_cloudsize(1); }
+
+  private static Frame mixedFrame() {
+    Vec seq = Vec.makeSeq(20000,true);
+    try {
+      Frame fr = new MRTask() {
+        @Override public void map( Chunk[] cs, NewChunk[] ncs ) {
+          Chunk c = cs[0];
+          for( int i=0; i<c._len; i++ ) {
+            long r = c.at8(i);
+            if( r%7 == 0 ) ncs[0].addNA(); else ncs[0].addNum(r*0.37 - 1000);
+            ncs[1].addNum(r%3,0);
+            ncs[2].addNum(r%5 == 0 ? r*1000003L : -r,0);
+            if( r%11 == 0 ) ncs[3].addNA(); else ncs[3].addStr("s"+r);
+            ncs[4].addNum(r%4 == 0 ? r : r+0.5);
+          }
+        }
+      }.doAll(new byte[]{Vec.T_NUM,Vec.T_CAT,Vec.T_NUM,Vec.T_STR,Vec.T_NUM},seq)
+       .outputFrame(new String[]{"real","cat","int","str","mix"},new String[][]{null,{"a","b","c"},null,null,null});
+      return fr;
+    } finally {
+      seq.remove();
+    }
+  }
+
+  private static byte[] readAll( InputStream is ) throws IOException {
+    ByteArrayOutputStream bos = new ByteArrayOutputStream();
+    byte[] buf = new byte[1<<16];
+    for( int n; (n = is.read(buf)) > 0; ) bos.write(buf,0,n);
+    return bos.toByteArray();
+  }
+
+  @Test public void testSingleFile() throws IOException {
+    Frame fr = mixedFrame();
+    try {
+      Assert.assertTrue(fr.anyVec().nChunks() > 1);
+      byte[] exp = readAll(fr.toCSV(true,false));
+      ByteArrayOutputStream bos = new ByteArrayOutputStream();
+      ParallelExport.exportSingle(fr,bos,false,false,null);
+      Assert.assertEquals(new String(exp), new String(bos.toByteArray()));
+
+      // Gzip: one member per chunk, read back as one stream
+      bos = new ByteArrayOutputStream();
+      ParallelExport.exportSingle(fr,bos,true,false,null);
+      byte[] unz = readAll(new GZIPInputStream(new ByteArrayInputStream(bos.toByteArray())));
+      Assert.assertArrayEquals(exp, unz);
+
+      // A budget below one chunk: a window per chunk, same text
+      Assert.assertEquals(fr.anyVec().nChunks()+1, ParallelExport.windows(fr,1).length);
+      bos = new ByteArrayOutputStream();
+      ParallelExport.exportSingle(fr,bos,false,false,null,1);
+      Assert.assertEquals(new String(exp), new String(bos.toByteArray()));
+      Assert.assertEquals(2, ParallelExport.windows(fr,Long.MAX_VALUE).length);
+    } finally {
+      fr.delete();
+    }
+  }
+
+  @Test public void testParts() throws IOException {
+    Frame fr = mixedFrame();
+    File dir = File.createTempFile("export",".parts");
+    Assert.assertTrue(dir.delete());
+    try {
+      byte[] exp = readAll(fr.toCSV(true,false));
+      // A stale part, from an earlier export with more chunks, is deleted
+      Assert.assertTrue(dir.mkdirs());
+      File stale = new File(dir,ParallelExport.partName(99999,true));
+      Assert.assertTrue(stale.createNewFile());
+      ParallelExport.exportParts(fr,dir.getPath(),false,false,false,null);
+      Assert.assertTrue(stale.exists());
+      ParallelExport.exportParts(fr,dir.getPath(),true,false,false,null);
+      Assert.assertFalse(stale.exists());
+      Assert.assertEquals(fr.anyVec().nChunks(), dir.listFiles().length);
+      ByteArrayOutputStream bos = new ByteArrayOutputStream();
+      int n = fr.anyVec().nChunks();
+      for( int i=0; i<n; i++ )
+        bos.write(readAll(new FileInputStream(new File(dir,ParallelExport.partName(i,false)))));
+      Assert.assertArrayEquals(exp, bos.toByteArray());
+    } finally {
+      fr.delete();
+      File[] fs = dir.listFiles();
+      if( fs != null ) for( File f : fs ) f.delete();
+      dir.delete();
+    }
+  }
+}
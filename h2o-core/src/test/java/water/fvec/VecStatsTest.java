@@ -5,6 +5,7 @@ import org.junit.*;
 
 import java.util.Random;
 import water.Futures;
+import water.MRTask;
 import water.TestUtil;
 import water.Key;
 
@@ -71,4 +72,49 @@ public class VecStatsTest extends TestUtil {
     vec.remove();
 
   }
+
+  // Rollups of many Vecs in one pass: same as the rollups of every single Vec,
+  // with sketched percentiles and distinct counts
+  @Test public void testFrameRollups() {
+    Vec seq = null, mod = null, con = null;
+    Vec[] copies = new Vec[0];
+    try {
+      seq = Vec.makeSeq(50000, true); // 1..50000
+      mod = seq.makeZero();
+      new MRTask() {
+        @Override public void map(Chunk c) {
+          for( int r = 0; r < c._len; r++ ) c.set(r, (r + c._start) % 7);
+        }
+      }.doAll(mod);
+      con = seq.makeCon(3.5);
+      Vec[] vecs = new Vec[]{seq, mod, con};
+      Vec.computeRollupStats(vecs);
+      copies = new Vec[vecs.length];
+      for( int i = 0; i < vecs.length; i++ ) {
+        Vec v = vecs[i];
+        assertNotNull(RollupStats.getOrNull(v));
+        Vec c = copies[i] = v.makeCopy(); // Per-Vec rollups
+        assertEquals(c.min(), v.min(), 0);
+        assertEquals(c.max(), v.max(), 0);
+        assertEquals(c.mean(), v.mean(), 1e-9);
+        assertEquals(c.sigma(), v.sigma(), 1e-9);
+        assertEquals(c.naCnt(), v.naCnt());
+        assertEquals(c.nzCnt(), v.nzCnt());
+        assertEquals(c.checksum(), v.checksum());
+        assertEquals(c.distinctCnt(), v.distinctCnt());
+        assertArrayEquals(c.pctiles(), v.pctiles(), 0.01 * (v.max() - v.min()));
+      }
+      double[] pct = seq.pctiles();
+      for( int p = 0; p < pct.length; p++ )
+        assertEquals(1 + Vec.PERCENTILES[p] * 49999, pct[p], 0.01 * 50000);
+      assertEquals(50000, seq.distinctCnt(), 0.05 * 50000);
+      assertEquals(7, mod.distinctCnt());
+      assertEquals(3, mod.pctiles()[5], 0);
+      assertEquals(1, con.distinctCnt());
+      assertEquals(3.5, con.pctiles()[0], 0);
+    } finally {
+      for( Vec v : new Vec[]{seq, mod, con} ) if( v != null ) v.remove();
+      for( Vec v : copies ) if( v != null ) v.remove();
+    }
+  }
 }
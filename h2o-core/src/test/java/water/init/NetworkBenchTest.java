@@ -0,0 +1,30 @@
+package water.init;
+
+import org.junit.Assume;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import water.H2O;
+import water.TestUtil;
+
+/** Runs NetworkBench on the current cloud; driven by benchNetwork.sh, which
+ *  launches the cloud with either small-message transport.  Skipped unless
+ *  {@code -Dh2o.bench.network.nodes=<cloud size>} is given. */
+public class NetworkBenchTest extends TestUtil {
+  static final int NODES = Integer.getInteger("h2o.bench.network.nodes", 0);
+
+  @BeforeClass public static void stall() { stall_till_cloudsize(1); }
+
+  @Test public void bench() {
+    Assume.assumeTrue(NODES > 0);
+    H2O.waitForCloudSize(NODES, 60000);
+    int[] szs = NetworkBench.MSG_SZS, cnts = NetworkBench.MSG_CNT;
+    try {
+      NetworkBench.MSG_SZS = new int[]{1, 64, 1024};
+      NetworkBench.MSG_CNT = new int[]{100000, 100000, 50000};
+      new NetworkBench().doTest();
+    } finally {
+      NetworkBench.MSG_SZS = szs;
+      NetworkBench.MSG_CNT = cnts;
+    }
+  }
+}
@@ -0,0 +1,136 @@
+package water.parser;
+
+import org.apache.commons.compress.compressors.bzip2.BZip2CompressorOutputStream;
+import org.junit.*;
+
+import water.Key;
+import water.TestUtil;
+import water.fvec.Frame;
+import water.fvec.NFSFileVec;
+
+import java.io.*;
+import java.util.zip.*;
+
+/** Block-indexed gzip inflated in parallel, zip archives with several
+ *  files, and bzip2. */
+public class ParallelGunzipTest extends TestUtil {
+  @BeforeClass() public static void setup() { stall_till_cloudsize(1); }
+
+  // One BGZF member: gzip header with a "BC" extra field holding the size
+  private static void bgzfBlock( OutputStream os, byte[] data, int off, int len ) throws IOException {
+    Deflater def = new Deflater(Deflater.DEFAULT_COMPRESSION,true);
+    def.setInput(data,off,len);
+    def.finish();
+    ByteArrayOutputStream cbos = new ByteArrayOutputStream();
+    byte[] buf = new byte[1<<16];
+    while( !def.finished() ) cbos.write(buf,0,def.deflate(buf));
+    def.end();
+    byte[] cdata = cbos.toByteArray();
+    CRC32 crc = new CRC32();
+    crc.update(data,off,len);
+    int bsize = 12+6+cdata.length+8-1;
+    os.write(new byte[]{0x1f,(byte)0x8b,8,4,0,0,0,0,0,(byte)0xff,6,0,'B','C',2,0,(byte)bsize,(byte)(bsize>>8)});
+    os.write(cdata);
+    le4(os,(int)crc.getValue());
+    le4(os,len);
+  }
+  private static void le4( OutputStream os, int x ) throws IOException {
+    os.write(x); os.write(x>>8); os.write(x>>16); os.write(x>>24);
+  }
+
+  private static byte[] csv( int rows ) {
+    StringBuilder sb = new StringBuilder();
+    for( int i=0; i<rows; i++ ) sb.append(i).append(',').append(i*0.5).append('\n');
+    return sb.toString().getBytes();
+  }
+
+  private static byte[] readAll( InputStream is ) throws IOException {
+    ByteArrayOutputStream bos = new ByteArrayOutputStream();
+    byte[] buf = new byte[1<<12];
+    for( int n; (n = is.read(buf)) > 0; ) bos.write(buf,0,n);
+    return bos.toByteArray();
+  }
+
+  @Test public void testBlocked() throws IOException {
+    byte[] data = csv(100000);
+    ByteArrayOutputStream bos = new ByteArrayOutputStream();
+    for( int off=0; off<data.length; off+=60000 )
+      bgzfBlock(bos,data,off,Math.min(60000,data.length-off));
+    bgzfBlock(bos,data,0,0);    // BGZF end-of-file marker
+    byte[] gz = bos.toByteArray();
+    Assert.assertTrue(ParallelGunzip.isBlocked(gz));
+    Assert.assertArrayEquals(data, readAll(new ParallelGunzip(new ByteArrayInputStream(gz),3)));
+    Assert.assertArrayEquals(data, readAll(ZipUtil.decompress(new ByteArrayInputStream(gz),ZipUtil.Compression.GZIP,gz,false)));
+
+    // A plain gzip member after the blocks is inflated serially
+    GZIPOutputStream gos = new GZIPOutputStream(bos);
+    gos.write(data);
+    gos.finish();
+    byte[] exp = new byte[2*data.length];
+    System.arraycopy(data,0,exp,0,data.length);
+    System.arraycopy(data,0,exp,data.length,data.length);
+    Assert.assertArrayEquals(exp, readAll(new ParallelGunzip(new ByteArrayInputStream(bos.toByteArray()),2)));
+
+    // Plain gzip is not blocked
+    bos = new ByteArrayOutputStream();
+    gos = new GZIPOutputStream(bos);
+    gos.write(data);
+    gos.close();
+    Assert.assertFalse(ParallelGunzip.isBlocked(bos.toByteArray()));
+  }
+
+  @Test public void testZipEntries() throws IOException {
+    File f = File.createTempFile("entries",".zip");
+    Frame fr = null;
+    try {
+      ZipOutputStream zos = new ZipOutputStream(new FileOutputStream(f));
+      for( int e=0; e<3; e++ ) {
+        zos.putNextEntry(new ZipEntry("part"+e+".csv"));
+        StringBuilder sb = new StringBuilder("a,b\n");
+        for( int i=0; i<100; i++ ) sb.append(e*100+i).append(',').append(e).append('\n');
+        // Last file has no trailing newline
+        zos.write((e == 2 ? sb.substring(0,sb.length()-1) : sb.toString()).getBytes());
+        zos.closeEntry();
+      }
+      zos.close();
+      NFSFileVec nfs = NFSFileVec.make(f);
+      fr = ParseDataset.parse(Key.make(),nfs._key);
+      Assert.assertEquals(2, fr.numCols());
+      Assert.assertEquals(300, fr.numRows());
+      for( int i=0; i<300; i++ ) {
+        Assert.assertEquals(i, fr.vec(0).at8(i));
+        Assert.assertEquals(i/100, fr.vec(1).at8(i));
+      }
+    } finally {
+      if( fr != null ) fr.delete();
+      f.delete();
+    }
+  }
+
+  // Well over the stream parser's buffer, so every buffer must be parsed
+  @Test public void testBzip2() throws IOException {
+    byte[] data = csv(100000);
+    Assert.assertTrue(data.length > 1<<20);
+    File plain = File.createTempFile("plain",".csv");
+    File bz2 = File.createTempFile("bzip",".csv.bz2");
+    Frame fr0 = null, fr1 = null;
+    try {
+      FileOutputStream fos = new FileOutputStream(plain);
+      fos.write(data);
+      fos.close();
+      BZip2CompressorOutputStream bos = new BZip2CompressorOutputStream(new FileOutputStream(bz2));
+      bos.write(data);
+      bos.close();
+      fr0 = ParseDataset.parse(Key.make(),NFSFileVec.make(plain)._key);
+      fr1 = ParseDataset.parse(Key.make(),NFSFileVec.make(bz2)._key);
+      Assert.assertEquals(100000, fr0.numRows());
+      Assert.assertEquals(fr0.numRows(), fr1.numRows());
+      Assert.assertTrue(isBitIdentical(fr0,fr1));
+    } finally {
+      if( fr0 != null ) fr0.delete();
+      if( fr1 != null ) fr1.delete();
+      plain.delete();
+      bz2.delete();
+    }
+  }
+}
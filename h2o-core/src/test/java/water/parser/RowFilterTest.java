@@ -0,0 +1,53 @@
+package water.parser;
+
+import org.junit.*;
+
+import water.TestUtil;
+import water.exceptions.H2OIllegalArgumentException;
+
+/** Row filters of the columnar parsers: single rows, and whole slices from
+ *  their min/max statistics. */
+public class RowFilterTest extends TestUtil {
+  @BeforeClass() public static void setup() { stall_till_cloudsize(1); }
+
+  private static final String[] NAMES = {"year", "amount", "state"};
+  private static final double INF = Double.POSITIVE_INFINITY;
+
+  @Test public void testRows() {
+    RowFilter f = RowFilter.parse("year >= 2014 & amount<1e6").bind(NAMES);
+    Assert.assertArrayEquals(new int[]{0, 1}, f._cols);
+    Assert.assertTrue (f.accept(0, 2014));
+    Assert.assertFalse(f.accept(0, 2013));
+    Assert.assertTrue (f.accept(1, 999999));
+    Assert.assertFalse(f.accept(1, 1e6));
+    Assert.assertFalse(f.accept(0, Double.NaN)); // Missing never passes
+
+    RowFilter ne = RowFilter.parse("state != 3").bind(NAMES);
+    Assert.assertTrue (ne.accept(0, 2));
+    Assert.assertFalse(ne.accept(0, 3));
+    Assert.assertFalse(ne.accept(0, Double.NaN));
+  }
+
+  @Test public void testSlices() {
+    RowFilter f = RowFilter.parse("year == 2014").bind(NAMES);
+    Assert.assertTrue (f.mayAccept(new double[]{2010, -INF, -INF}, new double[]{2015, INF, INF}));
+    Assert.assertFalse(f.mayAccept(new double[]{2015, -INF, -INF}, new double[]{2020, INF, INF}));
+    Assert.assertTrue (f.mayAccept(new double[]{-INF, -INF, -INF}, new double[]{INF, INF, INF}));   // No statistics
+    Assert.assertFalse(f.mayAccept(new double[]{INF, -INF, -INF}, new double[]{-INF, INF, INF}));   // All missing
+
+    RowFilter lt = RowFilter.parse("amount < 10").bind(NAMES);
+    Assert.assertFalse(lt.mayAccept(new double[]{0, 10, 0}, new double[]{0, 20, 0}));
+    Assert.assertTrue (lt.mayAccept(new double[]{0,  9, 0}, new double[]{0, 20, 0}));
+
+    RowFilter ne = RowFilter.parse("state != 3").bind(NAMES);
+    Assert.assertFalse(ne.mayAccept(new double[]{0, 0, 3}, new double[]{0, 0, 3}));
+    Assert.assertTrue (ne.mayAccept(new double[]{0, 0, 3}, new double[]{0, 0, 4}));
+  }
+
+  @Test public void testBadFilters() {
+    Assert.assertNull(RowFilter.parse(" "));
+    try { RowFilter.parse("year ~ 2014"); Assert.fail(); } catch( H2OIllegalArgumentException expected ) { }
+    try { RowFilter.parse("year > abc");  Assert.fail(); } catch( H2OIllegalArgumentException expected ) { }
+    try { RowFilter.parse("month > 3").bind(NAMES); Assert.fail(); } catch( H2OIllegalArgumentException expected ) { }
+  }
+}
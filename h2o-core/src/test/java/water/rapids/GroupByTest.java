@@ -132,6 +132,35 @@ public class GroupByTest extends TestUtil {
     }
   }
 
+  // Integer keys past the per-pass group budget: several passes, same answer
+  @Test public void testManyGroupsPasses() {
+    Frame data = null, fr = null;
+    long max = GBHash.MAX_BYTES;
+    try {
+      int N = 20000, K = 5000;
+      double[][] rows = new double[N][];
+      for( int i=0; i<N; i++ ) rows[i] = new double[]{(i*7919L)%K - K/2, i%10};
+      data = water.util.ArrayUtils.frame(new String[]{"k","v"}, rows);
+      String tree = String.format("(GB %s [0] [0] nrow 0 \"all\" sum 1 \"all\" min 1 \"all\")",data._key);
+      GBHash.MAX_BYTES = 1;     // Budget floors at 1024 groups a pass
+      fr = Exec.exec(tree).getFrame();
+      chkDim(fr,4,K);
+      for( int g=0; g<K; g++ ) {
+        long k = g - K/2, sum = 0, min = Long.MAX_VALUE, n = 0;
+        for( int i=0; i<N; i++ )
+          if( (i*7919L)%K - K/2 == k ) { n++; sum += i%10; min = Math.min(min,i%10); }
+        chkFr(fr,0,g,k);        // Ordered by key across passes
+        chkFr(fr,1,g,n);
+        chkFr(fr,2,g,sum);
+        chkFr(fr,3,g,min);
+      }
+    } finally {
+      GBHash.MAX_BYTES = max;
+      if( fr != null ) fr.delete();
+      if( data != null ) data.delete();
+    }
+  }
+
   @Test public void testImpute() {
     Frame fr = null;
     try {
@@ -0,0 +1,236 @@
+package water.rapids;
+
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import water.*;
+import water.fvec.*;
+import water.util.ArrayUtils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/** Distributed sort, and merges forced down the sorting join by a zero
+ *  hash-size cutoff. */
+public class SortMergeTest extends TestUtil {
+  @BeforeClass public static void setup() { stall_till_cloudsize(1); }
+
+  private static Frame merge( Frame l, Frame r, boolean allLeft, boolean allRite ) {
+    int max = ASTMerge.MAX_HASH_SIZE;
+    ASTMerge.MAX_HASH_SIZE = 0;
+    try {
+      String x = String.format("(merge %s %s #%d #%d )",l._key,r._key,allLeft?1:0,allRite?1:0);
+      return Exec.exec(x).getFrame();
+    } finally {
+      ASTMerge.MAX_HASH_SIZE = max;
+    }
+  }
+
+  // Rows as sorted strings, columns picked by name
+  private static String[] rows( Frame f, String... names ) {
+    String[] rs = new String[(int)f.numRows()];
+    for( int i=0; i<rs.length; i++ ) {
+      StringBuilder sb = new StringBuilder();
+      for( String n : names ) {
+        Vec v = f.vec(n);
+        sb.append(v.isNA(i) ? "NA" : (v.isCategorical() ? v.factor(v.at8(i)) : ""+v.at8(i))).append(',');
+      }
+      rs[i] = sb.toString();
+    }
+    Arrays.sort(rs);
+    return rs;
+  }
+
+  @Test public void testNumericKeys() {
+    Frame l=null, r=null, f=null;
+    try {
+      l = ArrayUtils.frame(ar("id","x"), ard(1,10), ard(2,20), ard(2,21), ard(3,30), ard(Double.NaN,40));
+      r = ArrayUtils.frame(ar("id","y"), ard(2,200), ard(3,300), ard(3,301), ard(4,400), ard(Double.NaN,500));
+
+      f = merge(l,r,false,false);
+      Assert.assertArrayEquals(new String[]{"2,20,200,","2,21,200,","3,30,300,","3,30,301,"}, rows(f,"id","x","y"));
+      f.delete();
+
+      f = merge(l,r,true,false);
+      Assert.assertArrayEquals(new String[]{"1,10,NA,","2,20,200,","2,21,200,","3,30,300,","3,30,301,","NA,40,NA,"}, rows(f,"id","x","y"));
+      f.delete();
+
+      f = merge(l,r,true,true);
+      Assert.assertArrayEquals(new String[]{"1,10,NA,","2,20,200,","2,21,200,","3,30,300,","3,30,301,","4,NA,400,","NA,40,NA,","NA,NA,500,"},
+                               rows(f,"id","x","y"));
+    } finally {
+      if( f != null ) f.delete();
+      if( r != null ) r.delete();
+      if( l != null ) l.delete();
+    }
+  }
+
+  @Test public void testCategoricalKeys() {
+    Frame l=null, r=null, f=null;
+    try {
+      l = ArrayUtils.frame("name" ,vec(ar("Cliff","Arno","Tomas","Spencer"),ari(0,1,2,3)));
+      l.    add("age"  ,vec(ar(">dirt" ,"middle","middle","young'n"),ari(0,1,2,3)));
+      l = new Frame(l);
+      DKV.put(l);
+      r = ArrayUtils.frame("name" ,vec(ar("Arno","Tomas","Michael","Cliff"),ari(0,1,2,3)));
+      r.    add("skill",vec(ar("science","linearmath","sparkling","hacker"),ari(0,1,2,3)));
+      r = new Frame(r);
+      DKV.put(r);
+
+      f = merge(l,r,true,false);
+      Assert.assertArrayEquals(new String[]{"Arno,middle,science,","Cliff,>dirt,hacker,","Spencer,young'n,NA,","Tomas,middle,linearmath,"},
+                               rows(f,"name","age","skill"));
+      f.delete();
+
+      // Michael is only on the right; the key domain grows to hold him
+      f = merge(l,r,true,true);
+      Assert.assertArrayEquals(new String[]{"Arno,middle,science,","Cliff,>dirt,hacker,","Michael,NA,sparkling,","Spencer,young'n,NA,","Tomas,middle,linearmath,"},
+                               rows(f,"name","age","skill"));
+    } finally {
+      if( f != null ) f.delete();
+      if( r != null ) r.delete();
+      if( l != null ) l.delete();
+    }
+  }
+
+  @Test public void testSort() {
+    Frame fr=null, f=null;
+    try {
+      fr = ArrayUtils.frame(ar("a","b"), ard(3,0.5), ard(1,-2.5), ard(Double.NaN,7), ard(3,-0.25), ard(1,1e10), ard(2,0), ard(1,-2.5));
+
+      // Multi-column: NAs first, then by a, then by b
+      f = Exec.exec(String.format("(sort %s [0 1])",fr._key)).getFrame();
+      double[][] exp = new double[][]{{Double.NaN,7},{1,-2.5},{1,-2.5},{1,1e10},{2,0},{3,-0.25},{3,0.5}};
+      Assert.assertEquals(exp.length, f.numRows());
+      for( int i=0; i<exp.length; i++ ) {
+        Assert.assertEquals(exp[i][0], f.vec(0).at(i), 0);
+        Assert.assertEquals(exp[i][1], f.vec(1).at(i), 0);
+      }
+      f.delete();
+
+      // Ties keep their original order
+      f = Exec.exec(String.format("(sort %s [0])",fr._key)).getFrame();
+      double[] bs = new double[]{7,-2.5,1e10,-2.5,0,0.5,-0.25};
+      for( int i=0; i<bs.length; i++ )
+        Assert.assertEquals(bs[i], f.vec(1).at(i), 0);
+    } finally {
+      if( f != null ) f.delete();
+      if( fr != null ) fr.delete();
+    }
+  }
+
+  // UUID payload columns are carried through; missing rows get NA UUIDs
+  @Test public void testUUIDPayload() {
+    Frame l=null, r=null, f=null;
+    Vec seq = Vec.makeSeq(10,false);
+    try {
+      l = new MRTask() {
+        @Override public void map( Chunk[] cs, NewChunk[] ncs ) {
+          for( int i=0; i<cs[0]._len; i++ ) {
+            long id = cs[0].at8(i);
+            ncs[0].addNum(id,0);
+            if( id == 3 ) ncs[1].addUUID(C16Chunk._LO_NA,C16Chunk._HI_NA);
+            else ncs[1].addUUID(id,7*id);
+          }
+        }
+      }.doAll(new byte[]{Vec.T_NUM,Vec.T_UUID},seq).outputFrame(Key.make(),new String[]{"id","u"},null);
+      r = ArrayUtils.frame(ar("id","y"), ard(2,200), ard(3,300), ard(5,500), ard(20,2000));
+
+      f = merge(l,r,true,true);
+      Assert.assertEquals(11, f.numRows());
+      Assert.assertTrue(f.vec("u").isUUID());
+      Vec id = f.vec("id"), u = f.vec("u");
+      for( long i=0; i<f.numRows(); i++ ) {
+        long x = id.at8(i);
+        if( x == 3 || x == 20 ) { Assert.assertTrue(u.isNA(i)); continue; }
+        Assert.assertFalse(u.isNA(i));
+        Assert.assertEquals(x, u.at16l(i));
+        Assert.assertEquals(7*x, u.at16h(i));
+      }
+    } finally {
+      seq.remove();
+      if( f != null ) f.delete();
+      if( r != null ) r.delete();
+      if( l != null ) l.delete();
+    }
+  }
+
+  // Many partitions even on one node, so rows cross partitions and ties & NAs
+  // sit around the split points
+  private static final int SMALL_PART = 50;
+
+  // Keys with many ties, and NAs
+  private static double[][] tiedRows( int n, int mod, int namod, double off ) {
+    double[][] rows = new double[n][];
+    for( int i=0; i<n; i++ )
+      rows[i] = new double[]{i%namod == 0 ? Double.NaN : (i*7)%mod, off+i};
+    return rows;
+  }
+
+  @Test public void testSortManyParts() {
+    int rpp = SortMerge.ROWS_PER_PART;
+    SortMerge.ROWS_PER_PART = SMALL_PART;
+    Frame fr=null, f=null;
+    try {
+      final double[][] rows = tiedRows(1000,17,13,0);
+      fr = ArrayUtils.frame(ar("a","b"), rows);
+      f = Exec.exec(String.format("(sort %s [0])",fr._key)).getFrame();
+      Assert.assertTrue(f.anyVec().nChunks() >= 1000/SMALL_PART);
+      // Expected: a stable sort with NAs first
+      Integer[] idx = new Integer[rows.length];
+      for( int i=0; i<idx.length; i++ ) idx[i] = i;
+      Arrays.sort(idx,new java.util.Comparator<Integer>() {
+          @Override public int compare( Integer x, Integer y ) {
+            double a = rows[x][0], b = rows[y][0];
+            if( Double.isNaN(a) || Double.isNaN(b) ) return Double.isNaN(a) ? (Double.isNaN(b) ? 0 : -1) : 1;
+            return Double.compare(a,b);
+          }
+        });
+      Assert.assertEquals(rows.length, f.numRows());
+      for( int i=0; i<idx.length; i++ ) {
+        Assert.assertEquals(rows[idx[i]][0], f.vec(0).at(i), 0);
+        Assert.assertEquals(rows[idx[i]][1], f.vec(1).at(i), 0);
+      }
+    } finally {
+      SortMerge.ROWS_PER_PART = rpp;
+      if( f != null ) f.delete();
+      if( fr != null ) fr.delete();
+    }
+  }
+
+  @Test public void testMergeManyParts() {
+    int rpp = SortMerge.ROWS_PER_PART;
+    SortMerge.ROWS_PER_PART = SMALL_PART;
+    Frame l=null, r=null, f=null;
+    try {
+      double[][] ls = tiedRows(500,40,31,0), rs = tiedRows(300,50,23,10000);
+      l = ArrayUtils.frame(ar("id","x"), ls);
+      r = ArrayUtils.frame(ar("id","y"), rs);
+      // Expected full outer join; NA keys never match
+      ArrayList<String> exp = new ArrayList<>();
+      boolean[] rmatched = new boolean[rs.length];
+      for( double[] lr : ls ) {
+        boolean matched = false;
+        for( int j=0; j<rs.length; j++ )
+          if( !Double.isNaN(lr[0]) && lr[0] == rs[j][0] ) {
+            exp.add((long)lr[0]+","+(long)lr[1]+","+(long)rs[j][1]+",");
+            matched = rmatched[j] = true;
+          }
+        if( !matched ) exp.add((Double.isNaN(lr[0]) ? "NA" : ""+(long)lr[0])+","+(long)lr[1]+",NA,");
+      }
+      for( int j=0; j<rs.length; j++ )
+        if( !rmatched[j] ) exp.add((Double.isNaN(rs[j][0]) ? "NA" : ""+(long)rs[j][0])+",NA,"+(long)rs[j][1]+",");
+      String[] ea = exp.toArray(new String[exp.size()]);
+      Arrays.sort(ea);
+
+      f = merge(l,r,true,true);
+      Assert.assertTrue(f.anyVec().nChunks() >= 800/SMALL_PART);
+      Assert.assertArrayEquals(ea, rows(f,"id","x","y"));
+    } finally {
+      SortMerge.ROWS_PER_PART = rpp;
+      if( f != null ) f.delete();
+      if( r != null ) r.delete();
+      if( l != null ) l.delete();
+    }
+  }
+}
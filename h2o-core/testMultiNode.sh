@@ -31,6 +31,7 @@ trap cleanup SIGTERM SIGINT
 #   build/libs/h2o-core.jar      - Main h2o core classes
 #   build/libs/h2o-core-test.jar - Test h2o core classes
 #   build/resources/main         - Main resources (e.g. page.html)
+#   build/icers                  - Pre-cooked Icers and type ID table (generateIcers)
 #JVM="nice java -ea -cp build/libs/h2o-core.jar${SEP}build/libs/h2o-core-test.jar${SEP}../lib/*"
 # Ahhh... but the makefile runs the tests skipping the jar'ing step when possible.
 # Also, sometimes see test files in the main-class directory, so put the test
@@ -53,7 +54,7 @@ else
   fi
 fi
 # Command to invoke test
-JVM="nice $JAVA_CMD -ea -cp build/classes/test${SEP}build/classes/main${SEP}../h2o-genmodel/build/libs/h2o-genmodel.jar${SEP}../lib/*"
+JVM="nice $JAVA_CMD -ea -cp build/classes/test${SEP}build/classes/main${SEP}build/icers${SEP}../h2o-genmodel/build/libs/h2o-genmodel.jar${SEP}../lib/*"
 echo "$JVM" > $OUTDIR/jvm_cmd.txt
 
 # Tests
@@ -0,0 +1,112 @@
+package hex.genmodel.easy;
+
+import hex.ModelCategory;
+import hex.genmodel.GenModel;
+import hex.genmodel.easy.exception.PredictException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Row predictions through {@link EasyPredictModelWrapper}: from a {@link RowData}, versus from a reusable
+ * {@code double[]} through a {@link CompiledRowSchema}.  The model is a cheap synthetic binomial model, so the
+ * cost of getting the row to the model dominates.  Run with {@code -prof gc} to see the allocation rates.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EasyPredictBenchmark {
+  private static final int NUM = 20;    // Numerical columns
+  private static final int CAT = 5;     // Categorical columns
+  private static final int LEVELS = 10; // Levels per categorical column
+  private static final int ROWS = 1024; // Distinct rows, cycled through
+
+  private EasyPredictModelWrapper wrapper;
+  private CompiledRowSchema schema;
+  private RowData[] rowDatas;
+  private double[][] rows;
+  private double[] preds;
+  private int next;
+
+  /** Logistic regression on the numerical columns and one-hot categoricals. */
+  static class SyntheticModel extends GenModel {
+    final double[] beta;
+    SyntheticModel(String[] names, String[][] domains, double[] beta) { super(names, domains); this.beta = beta; }
+    @Override public ModelCategory getModelCategory() { return ModelCategory.Binomial; }
+    @Override public boolean isSupervised() { return true; }
+    @Override public int nclasses() { return 2; }
+    @Override public String getUUID() { return "synthetic"; }
+    @Override public double[] score0(double[] data, double[] preds) {
+      double eta = 0;
+      for (int i = 0; i < NUM; i++) eta += beta[i] * (Double.isNaN(data[i]) ? 0 : data[i]);
+      for (int i = NUM; i < NUM + CAT; i++)
+        if (!Double.isNaN(data[i])) eta += beta[NUM + (i - NUM) * LEVELS + (int) data[i]];
+      double p = 1 / (1 + Math.exp(-eta));
+      preds[0] = p > 0.5 ? 1 : 0;
+      preds[1] = 1 - p;
+      preds[2] = p;
+      return preds;
+    }
+  }
+
+  @Setup
+  public void setup() {
+    Random rng = new Random(42);
+    String[] names = new String[NUM + CAT];              // Features only, as in POJOs
+    String[][] domains = new String[NUM + CAT + 1][];    // Response last
+    for (int i = 0; i < NUM; i++) names[i] = "num" + i;
+    for (int i = NUM; i < NUM + CAT; i++) {
+      names[i] = "cat" + i;
+      domains[i] = new String[LEVELS];
+      for (int l = 0; l < LEVELS; l++) domains[i][l] = "level" + l;
+    }
+    domains[NUM + CAT] = new String[]{"NO", "YES"};
+    double[] beta = new double[NUM + CAT * LEVELS];
+    for (int i = 0; i < beta.length; i++) beta[i] = rng.nextGaussian() / 10;
+
+    wrapper = new EasyPredictModelWrapper(new SyntheticModel(names, domains, beta));
+    schema = wrapper.compile(names, null);
+    preds = new double[schema.getPredsSize()];
+
+    rowDatas = new RowData[ROWS];
+    rows = new double[ROWS][names.length];
+    for (int r = 0; r < ROWS; r++) {
+      rowDatas[r] = new RowData();
+      for (int i = 0; i < NUM; i++) {
+        double d = rng.nextGaussian();
+        rows[r][i] = d;
+        rowDatas[r].put(names[i], Double.toString(d));
+      }
+      for (int i = NUM; i < NUM + CAT; i++) {
+        int l = rng.nextInt(LEVELS);
+        rows[r][i] = l;
+        rowDatas[r].put(names[i], domains[i][l]);
+      }
+    }
+  }
+
+  @Benchmark
+  public double rowData() throws PredictException {
+    RowData row = rowDatas[next++ & (ROWS - 1)];
+    return wrapper.predictBinomial(row).classProbabilities[1];
+  }
+
+  @Benchmark
+  public double compiled() throws PredictException {
+    double[] row = rows[next++ & (ROWS - 1)];
+    return schema.predict(row, preds)[2];
+  }
+}
@@ -0,0 +1,149 @@
+package hex.genmodel.easy;
+
+import java.util.HashMap;
+
+import hex.genmodel.GenModel;
+import hex.genmodel.easy.exception.PredictException;
+import hex.genmodel.easy.exception.PredictUnknownCategoricalLevelException;
+
+/**
+ * A layout of input rows compiled against a generated model, for predictions without any per-row allocation.
+ *
+ * {@link EasyPredictModelWrapper#predict(RowData)} looks up every column name and categorical level in a
+ * {@code HashMap}, parses strings, and allocates the raw data and prediction objects on every call.  Here the
+ * column names and categorical levels are resolved once, when the schema is compiled, into arrays: rows are
+ * then passed as a reusable {@code double[]}, in the order of the compiled columns, and predictions are
+ * written into a caller-supplied {@code double[]}.
+ *
+ * <p></p>
+ * Values of the row are handled as follows:
+ * <ul>
+ * <li>
+ *   For numerical columns, the value itself; NaN means NA.
+ * </li>
+ * <li>
+ *   For categorical columns, the integral index of the level in the levels given for the column when compiling,
+ *   or in the model's own levels if none were given; NaN means NA.  A level unseen during training results in a
+ *   {@link PredictUnknownCategoricalLevelException}.
+ * </li>
+ * </ul>
+ * Columns not known to the model are ignored, and model columns not compiled in are NA.
+ *
+ * <p></p>
+ * A compiled schema holds the scratch buffer of the model's raw data, so it is not thread-safe: compile one per
+ * thread (compiling is cheap).
+ *
+ * <p></p>
+ * Example usage:
+ * <pre>
+ *   CompiledRowSchema schema = wrapper.compile(new String[]{"AGE", "RACE", "DPROS"}, null);
+ *   double[] row = new double[3];
+ *   double[] preds = new double[schema.getPredsSize()];
+ *   for (...) {
+ *     row[0] = 68; row[1] = 2; row[2] = 4;
+ *     schema.predict(row, preds);  // preds[0] is the label index, then the class probabilities
+ *     String label = schema.getLabel(preds);
+ *   }
+ * </pre>
+ */
+public class CompiledRowSchema implements java.io.Serializable {
+  final private GenModel m;
+  final private String[] columnNames;
+  final private int[] modelIndex;      // Index of every column in the model's raw data, or -1 if unknown
+  final private int[][] levelIndex;    // Per categorical column: model level index of every given level, or -1
+  final private String[][] levelNames; // Per categorical column: the given levels, for error messages
+  final private int[] missingIndex;    // Indices of the model's raw data with no column; always NA
+  final private double[] rawData;      // Scratch buffer for the model's raw data
+
+  CompiledRowSchema(GenModel model, HashMap<String, Integer> modelColumnNameToIndexMap,
+                    HashMap<Integer, HashMap<String, Integer>> domainMap,
+                    String[] columns, String[][] levels) {
+    m = model;
+    columnNames = columns.clone();
+    modelIndex = new int[columns.length];
+    levelIndex = new int[columns.length][];
+    levelNames = new String[columns.length][];
+    boolean[] seen = new boolean[m.nfeatures()];
+    int nseen = 0;
+    for (int c = 0; c < columns.length; c++) {
+      Integer index = modelColumnNameToIndexMap.get(columns[c]);
+      // Skip column names that are not known, or not features (e.g. the response).
+      if (index == null || index >= seen.length) {
+        modelIndex[c] = -1;
+        continue;
+      }
+      modelIndex[c] = index;
+      if (!seen[index]) { seen[index] = true; nseen++; }
+
+      HashMap<String, Integer> columnDomainMap = domainMap.get(index);
+      if (columnDomainMap == null) continue;           // Numerical column
+      String[] given = levels == null || levels[c] == null ? m.getDomainValues(index) : levels[c];
+      levelNames[c] = given;
+      levelIndex[c] = new int[given.length];
+      for (int l = 0; l < given.length; l++) {
+        Integer levelIdx = columnDomainMap.get(given[l]);
+        levelIndex[c][l] = levelIdx == null ? -1 : levelIdx;
+      }
+    }
+    missingIndex = new int[seen.length - nseen];
+    for (int i = 0, k = 0; i < seen.length; i++)
+      if (!seen[i]) missingIndex[k++] = i;
+    rawData = new double[m.nfeatures()];
+  }
+
+  /**
+   * Make a prediction on a new data point, without allocating.
+   *
+   * @param row Values of the compiled columns, see above.  Not modified.
+   * @param preds Output buffer of {@link #getPredsSize()} elements; for classifiers the label index, then the
+   *              class probabilities; for regression the value; for clustering the cluster.
+   * @return preds
+   * @throws PredictException
+   */
+  public double[] predict(double[] row, double[] preds) throws PredictException {
+    double[] raw = rawData;
+    for (int i : missingIndex) raw[i] = Double.NaN; // In case the model scribbled on its input
+    for (int c = 0; c < modelIndex.length; c++) {
+      int index = modelIndex[c];
+      if (index < 0) continue;
+      double value = row[c];
+      int[] levels = levelIndex[c];
+      if (levels != null && !Double.isNaN(value)) {
+        int level = (int) value;
+        int levelIdx = level >= 0 && level < levels.length ? levels[level] : -1;
+        if (levelIdx < 0) {
+          String levelName = level >= 0 && level < levels.length ? levelNames[c][level] : Integer.toString(level);
+          throw new PredictUnknownCategoricalLevelException("Unknown categorical level (" + columnNames[c] + "," + levelName + ")", columnNames[c], levelName);
+        }
+        value = levelIdx;
+      }
+      raw[index] = value;
+    }
+    return m.score0(raw, preds);
+  }
+
+  /**
+   * Get the size of the output buffer of {@link #predict(double[], double[])}.
+   * @return The size.
+   */
+  public int getPredsSize() {
+    return m.getPredsSize();
+  }
+
+  /**
+   * Get the predicted label of a classifier, from the output of {@link #predict(double[], double[])}.
+   * @param preds The predictions.
+   * @return The label; one of {@link EasyPredictModelWrapper#getResponseDomainValues()}.
+   */
+  public String getLabel(double[] preds) {
+    return m.getDomainValues(m.getResponseIdx())[(int) preds[0]];
+  }
+
+  /**
+   * Get the compiled columns, in the order of the rows to predict.
+   * @return The column names.
+   */
+  public String[] getColumnNames() {
+    return columnNames.clone();
+  }
+}
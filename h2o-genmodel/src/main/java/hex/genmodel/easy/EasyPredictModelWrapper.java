@@ -22,6 +22,10 @@ import hex.genmodel.easy.prediction.RegressionModelPrediction;
  * model category.
  *
  * <p></p>
+ * For many predictions with a fixed set of columns, e.g. in a JVM-embedded scorer, {@link #compile} the columns
+ * once and predict from reusable arrays instead, without any allocation per row.
+ *
+ * <p></p>
  * See the top-of-tree master version of this file <a href="https://github.com/h2oai/h2o-3/blob/master/h2o-genmodel/src/main/java/hex/genmodel/easy/EasyPredictModelWrapper.java" target="_blank">here on github</a>.
  */
 public class EasyPredictModelWrapper implements java.io.Serializable {
@@ -179,6 +183,19 @@ public class EasyPredictModelWrapper implements java.io.Serializable {
     return p;
   }
 
+  /**
+   * Compile a layout of input rows against the model, for repeated predictions without any per-row allocation.
+   * See {@link CompiledRowSchema}.
+   *
+   * @param columns Column names of the rows to predict, in order.
+   * @param levels Per column, the levels of a categorical column, in the order of the indices the rows will hold;
+   *               or null (for the whole array or a column) to use the model's own levels.
+   * @return The compiled schema.
+   */
+  public CompiledRowSchema compile(String[] columns, String[][] levels) {
+    return new CompiledRowSchema(m, modelColumnNameToIndexMap, domainMap, columns, levels);
+  }
+
   //----------------------------------------------------------------------
   // Transparent methods passed through to GenModel.
   //----------------------------------------------------------------------
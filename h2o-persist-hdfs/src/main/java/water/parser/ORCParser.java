@@ -0,0 +1,175 @@
+package water.parser;
+
+import org.apache.hadoop.hive.ql.exec.vector.BytesColumnVector;
+import org.apache.hadoop.hive.ql.exec.vector.ColumnVector;
+import org.apache.hadoop.hive.ql.exec.vector.DecimalColumnVector;
+import org.apache.hadoop.hive.ql.exec.vector.DoubleColumnVector;
+import org.apache.hadoop.hive.ql.exec.vector.LongColumnVector;
+import org.apache.hadoop.hive.ql.exec.vector.TimestampColumnVector;
+import org.apache.hadoop.hive.ql.exec.vector.VectorizedRowBatch;
+import org.apache.orc.ColumnStatistics;
+import org.apache.orc.DateColumnStatistics;
+import org.apache.orc.DecimalColumnStatistics;
+import org.apache.orc.DoubleColumnStatistics;
+import org.apache.orc.IntegerColumnStatistics;
+import org.apache.orc.OrcFile;
+import org.apache.orc.Reader;
+import org.apache.orc.RecordReader;
+import org.apache.orc.StripeInformation;
+import org.apache.orc.StripeStatistics;
+import org.apache.orc.TimestampColumnStatistics;
+import org.apache.orc.TypeDescription;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+
+import water.Key;
+import water.fvec.ByteVec;
+import water.fvec.Vec;
+import water.persist.VecFileSystem;
+import water.util.Log;
+
+/**
+ * ORC parser: each stripe is parsed by the node holding its first byte.
+ *
+ * Top-level primitive fields become columns; nested fields (struct, list,
+ * map, union) are not imported.  Integers and booleans map to numeric
+ * columns, strings to categoricals, binary to strings, dates and timestamps
+ * to time columns (msec since the epoch).
+ */
+public class ORCParser extends ColumnarParser {
+  private static final long MSEC_PER_DAY = 24L*3600*1000;
+
+  // Set by readLayout: the file reader, its schema, and the top-level field
+  // of every flat column
+  private transient Reader _reader;
+  private transient TypeDescription _schema;
+  private transient int[] _fields;
+
+  public ORCParser(ParseSetup setup, Key jobKey) { super(setup, jobKey); }
+
+  @Override protected Layout readLayout(ByteVec vec) throws IOException {
+    Reader rd = OrcFile.createReader(VecFileSystem.path(vec), OrcFile.readerOptions(VecFileSystem.CONF).maxLength(vec.length()));
+    TypeDescription schema = rd.getSchema();
+    if( schema.getCategory() != TypeDescription.Category.STRUCT )
+      throw new IOException("Top-level ORC type is " + schema.getCategory() + ", expected a struct");
+    List<String> fieldNames = schema.getFieldNames();
+    List<TypeDescription> children = schema.getChildren();
+
+    // Flat columns
+    int n = 0;
+    int[] fields = new int[children.size()];
+    String[] names = new String[fields.length];
+    byte[] types = new byte[fields.length];
+    byte[] kinds = new byte[fields.length];
+    for( int f = 0; f < children.size(); f++ ) {
+      switch( children.get(f).getCategory() ) {
+        case BOOLEAN: case BYTE: case SHORT: case INT: case LONG:
+                            types[n] = Vec.T_NUM;  kinds[n] = KIND_LONG;   break;
+        case FLOAT: case DOUBLE: case DECIMAL:
+                            types[n] = Vec.T_NUM;  kinds[n] = KIND_DOUBLE; break;
+        case STRING: case VARCHAR: case CHAR:
+                            types[n] = Vec.T_CAT;  kinds[n] = KIND_BYTES;  break;
+        case BINARY:        types[n] = Vec.T_STR;  kinds[n] = KIND_BYTES;  break;
+        case DATE: case TIMESTAMP:
+                            types[n] = Vec.T_TIME; kinds[n] = KIND_LONG;   break;
+        default:
+          Log.warn("ORC field '" + fieldNames.get(f) + "' of type " + children.get(f) + " is not flat; not imported.");
+          continue;
+      }
+      names[n] = fieldNames.get(f);
+      fields[n++] = f;
+    }
+    fields = Arrays.copyOf(fields, n);
+
+    // Stripes, with per-column value ranges
+    List<StripeInformation> stripes = rd.getStripes();
+    List<StripeStatistics> stats = rd.getStripeStatistics();
+    Split[] splits = new Split[stripes.size()];
+    for( int s = 0; s < splits.length; s++ ) {
+      double[] mins = new double[n], maxs = new double[n];
+      Arrays.fill(mins, Double.NEGATIVE_INFINITY);
+      Arrays.fill(maxs, Double.POSITIVE_INFINITY);
+      if( s < stats.size() ) {
+        ColumnStatistics[] cs = stats.get(s).getColumnStatistics();
+        for( int c = 0; c < n; c++ )
+          range(cs[children.get(fields[c]).getId()], c, mins, maxs);
+      }
+      StripeInformation si = stripes.get(s);
+      splits[s] = new Split(si.getOffset(), si.getLength(), si.getNumberOfRows(), mins, maxs);
+    }
+
+    _reader = rd;
+    _schema = schema;
+    _fields = fields;
+    return new Layout(Arrays.copyOf(names, n), Arrays.copyOf(types, n), Arrays.copyOf(kinds, n), splits);
+  }
+
+  // Value range of one column of a stripe, in the units the column is parsed to
+  private static void range(ColumnStatistics cs, int c, double[] mins, double[] maxs) {
+    if( cs == null ) return;
+    if( cs.getNumberOfValues() == 0 ) { mins[c] = Double.POSITIVE_INFINITY; maxs[c] = Double.NEGATIVE_INFINITY; return; }
+    if( cs instanceof IntegerColumnStatistics ) {
+      mins[c] = ((IntegerColumnStatistics)cs).getMinimum();
+      maxs[c] = ((IntegerColumnStatistics)cs).getMaximum();
+    } else if( cs instanceof DoubleColumnStatistics ) {
+      mins[c] = ((DoubleColumnStatistics)cs).getMinimum();
+      maxs[c] = ((DoubleColumnStatistics)cs).getMaximum();
+    } else if( cs instanceof DecimalColumnStatistics ) {
+      mins[c] = ((DecimalColumnStatistics)cs).getMinimum().doubleValue();
+      maxs[c] = ((DecimalColumnStatistics)cs).getMaximum().doubleValue();
+    } else if( cs instanceof DateColumnStatistics ) {
+      mins[c] = ((DateColumnStatistics)cs).getMinimum().getTime();
+      maxs[c] = ((DateColumnStatistics)cs).getMaximum().getTime();
+    } else if( cs instanceof TimestampColumnStatistics ) {
+      mins[c] = ((TimestampColumnStatistics)cs).getMinimum().getTime();
+      maxs[c] = ((TimestampColumnStatistics)cs).getMaximum().getTime();
+    }
+  }
+
+  @Override protected SplitReader openSplit(ByteVec vec, final Layout layout, Split split, final int[] cols) throws IOException {
+    final List<TypeDescription> children = _schema.getChildren();
+    // Decode only the projected columns
+    boolean[] include = new boolean[_schema.getMaximumId() + 1];
+    include[0] = true;
+    for( int c : cols ) {
+      TypeDescription td = children.get(_fields[c]);
+      for( int id = td.getId(); id <= td.getMaximumId(); id++ ) include[id] = true;
+    }
+    final RecordReader rr = _reader.rows(_reader.options().range(split._offset, split._length).include(include));
+    return new SplitReader() {
+      private VectorizedRowBatch _vrb;
+      @Override public boolean next(Batch b) throws IOException {
+        if( _vrb == null ) _vrb = _schema.createRowBatch(b._capacity);
+        if( !rr.nextBatch(_vrb) || _vrb.size == 0 ) return false;
+        for( int c : cols )
+          fill(children.get(_fields[c]).getCategory(), _vrb.cols[_fields[c]], b, c, _vrb.size);
+        b._nrows = _vrb.size;
+        return true;
+      }
+      @Override public void close() throws IOException { rr.close(); }
+    };
+  }
+
+  private static void fill(TypeDescription.Category cat, ColumnVector cv, Batch b, int c, int nrows) {
+    boolean[] na = b._na[c];
+    for( int r = 0; r < nrows; r++ ) {
+      int k = cv.isRepeating ? 0 : r;
+      if( na[r] = !cv.noNulls && cv.isNull[k] ) continue;
+      switch( cat ) {
+        case DATE:      b._l[c][r] = ((LongColumnVector)cv).vector[k] * MSEC_PER_DAY;  break;
+        case TIMESTAMP: b._l[c][r] = ((TimestampColumnVector)cv).getTime(k);          break;
+        case DECIMAL:   b._d[c][r] = ((DecimalColumnVector)cv).vector[k].getHiveDecimal().doubleValue(); break;
+        case FLOAT: case DOUBLE:
+                        b._d[c][r] = ((DoubleColumnVector)cv).vector[k];              break;
+        case STRING: case VARCHAR: case CHAR: case BINARY: {
+          BytesColumnVector bcv = (BytesColumnVector)cv;
+          b._b[c][r] = bcv.vector[k]; b._bo[c][r] = bcv.start[k]; b._bl[c][r] = bcv.length[k];
+          break;
+        }
+        default:        b._l[c][r] = ((LongColumnVector)cv).vector[k];                break;
+      }
+    }
+  }
+}
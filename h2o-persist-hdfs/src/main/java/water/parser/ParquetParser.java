@@ -0,0 +1,205 @@
+package water.parser;
+
+import org.apache.hadoop.fs.Path;
+import org.apache.parquet.column.ColumnDescriptor;
+import org.apache.parquet.column.ColumnReader;
+import org.apache.parquet.column.impl.ColumnReadStoreImpl;
+import org.apache.parquet.column.page.PageReadStore;
+import org.apache.parquet.column.statistics.Statistics;
+import org.apache.parquet.example.data.simple.convert.GroupRecordConverter;
+import org.apache.parquet.format.converter.ParquetMetadataConverter;
+import org.apache.parquet.hadoop.ParquetFileReader;
+import org.apache.parquet.hadoop.metadata.BlockMetaData;
+import org.apache.parquet.hadoop.metadata.ColumnChunkMetaData;
+import org.apache.parquet.hadoop.metadata.ColumnPath;
+import org.apache.parquet.hadoop.metadata.ParquetMetadata;
+import org.apache.parquet.io.api.Binary;
+import org.apache.parquet.schema.MessageType;
+import org.apache.parquet.schema.OriginalType;
+import org.apache.parquet.schema.PrimitiveType;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import water.Key;
+import water.fvec.ByteVec;
+import water.fvec.Vec;
+import water.persist.VecFileSystem;
+import water.util.Log;
+
+/**
+ * Parquet parser: each row-group is parsed by the node holding its first byte.
+ *
+ * Top-level, non-repeated primitive fields become columns; nested and
+ * repeated fields are not imported.  Numbers and booleans map to numeric
+ * columns, UTF8/ENUM binaries to categoricals, other binaries to strings,
+ * and DATE, TIMESTAMP_MILLIS and INT96 (Impala) timestamps to time columns
+ * (msec since the epoch).  Decimals are parsed as doubles.
+ */
+public class ParquetParser extends ColumnarParser {
+  private static final long MSEC_PER_DAY = 24L*3600*1000;
+  private static final long JULIAN_DAY_OF_EPOCH = 2440588L;
+
+  // Set by readLayout: the footer, and the descriptor & type of every flat column
+  private transient ParquetMetadata _footer;
+  private transient ColumnDescriptor[] _descs;
+  private transient PrimitiveType[] _ptypes;
+
+  public ParquetParser(ParseSetup setup, Key jobKey) { super(setup, jobKey); }
+
+  @Override protected Layout readLayout(ByteVec vec) throws IOException {
+    ParquetMetadata footer = ParquetFileReader.readFooter(VecFileSystem.CONF, VecFileSystem.path(vec), ParquetMetadataConverter.NO_FILTER);
+    MessageType schema = footer.getFileMetaData().getSchema();
+
+    // Flat columns
+    List<ColumnDescriptor> descs = new ArrayList<>();
+    List<PrimitiveType> ptypes = new ArrayList<>();
+    for( ColumnDescriptor cd : schema.getColumns() ) {
+      if( cd.getPath().length != 1 || cd.getMaxRepetitionLevel() > 0 ) {
+        Log.warn("Parquet field '" + Arrays.toString(cd.getPath()) + "' is nested or repeated; not imported.");
+        continue;
+      }
+      descs.add(cd);
+      ptypes.add(schema.getType(cd.getPath()).asPrimitiveType());
+    }
+    int n = descs.size();
+    String[] names = new String[n];
+    byte[] types = new byte[n];
+    byte[] kinds = new byte[n];
+    for( int c = 0; c < n; c++ ) {
+      PrimitiveType pt = ptypes.get(c);
+      OriginalType ot = pt.getOriginalType();
+      names[c] = pt.getName();
+      types[c] = Vec.T_NUM;
+      kinds[c] = ot == OriginalType.DECIMAL ? KIND_DOUBLE : KIND_LONG;
+      switch( pt.getPrimitiveTypeName() ) {
+        case INT32:  if( ot == OriginalType.DATE ) types[c] = Vec.T_TIME; break;
+        case INT64:  if( ot == OriginalType.TIMESTAMP_MILLIS ) types[c] = Vec.T_TIME; break;
+        case INT96:  types[c] = Vec.T_TIME; break;
+        case FLOAT: case DOUBLE: kinds[c] = KIND_DOUBLE; break;
+        case BINARY: case FIXED_LEN_BYTE_ARRAY:
+          if( ot == OriginalType.DECIMAL ) break;
+          types[c] = ot == OriginalType.UTF8 || ot == OriginalType.ENUM ? Vec.T_CAT : Vec.T_STR;
+          kinds[c] = KIND_BYTES;
+          break;
+      }
+    }
+
+    // Row-groups, with per-column value ranges
+    List<BlockMetaData> blocks = footer.getBlocks();
+    Split[] splits = new Split[blocks.size()];
+    for( int s = 0; s < splits.length; s++ ) {
+      BlockMetaData block = blocks.get(s);
+      double[] mins = new double[n], maxs = new double[n];
+      Arrays.fill(mins, Double.NEGATIVE_INFINITY);
+      Arrays.fill(maxs, Double.POSITIVE_INFINITY);
+      for( ColumnChunkMetaData ccm : block.getColumns() )
+        for( int c = 0; c < n; c++ )
+          if( ccm.getPath().equals(ColumnPath.get(descs.get(c).getPath())) )
+            range(ccm, ptypes.get(c), c, mins, maxs);
+      splits[s] = new Split(block.getStartingPos(), block.getCompressedSize(), block.getRowCount(), mins, maxs);
+    }
+
+    _footer = footer;
+    _descs = descs.toArray(new ColumnDescriptor[n]);
+    _ptypes = ptypes.toArray(new PrimitiveType[n]);
+    return new Layout(names, types, kinds, splits);
+  }
+
+  // Value range of one column of a row-group, in the units the column is parsed to
+  private static void range(ColumnChunkMetaData ccm, PrimitiveType pt, int c, double[] mins, double[] maxs) {
+    Statistics st = ccm.getStatistics();
+    if( st == null || st.isEmpty() ) return;
+    if( !st.hasNonNullValue() ) {
+      if( st.getNumNulls() == ccm.getValueCount() ) { mins[c] = Double.POSITIVE_INFINITY; maxs[c] = Double.NEGATIVE_INFINITY; }
+      return;
+    }
+    double scale = 1;
+    OriginalType ot = pt.getOriginalType();
+    if( ot == OriginalType.DATE ) scale = MSEC_PER_DAY;
+    if( ot == OriginalType.DECIMAL ) scale = Math.pow(10, -pt.getDecimalMetadata().getScale());
+    switch( pt.getPrimitiveTypeName() ) {
+      case BOOLEAN:
+      case INT32: case INT64:
+      case FLOAT: case DOUBLE:
+        Object lo = st.genericGetMin(), hi = st.genericGetMax();
+        mins[c] = (lo instanceof Boolean ? ((Boolean)lo ? 1 : 0) : ((Number)lo).doubleValue()) * scale;
+        maxs[c] = (hi instanceof Boolean ? ((Boolean)hi ? 1 : 0) : ((Number)hi).doubleValue()) * scale;
+        break;
+      default:                  // No usable range for binaries & INT96
+    }
+  }
+
+  @Override protected SplitReader openSplit(ByteVec vec, Layout layout, Split split, final int[] cols) throws IOException {
+    BlockMetaData block = null;
+    for( BlockMetaData bmd : _footer.getBlocks() )
+      if( bmd.getStartingPos() == split._offset ) block = bmd;
+    if( block == null ) throw new IOException("No row-group starts at offset " + split._offset);
+    // Read only the projected column chunks of this one row-group
+    List<ColumnDescriptor> want = new ArrayList<>();
+    for( int c : cols ) want.add(_descs[c]);
+    Path path = VecFileSystem.path(vec);
+    final ParquetFileReader pfr = new ParquetFileReader(VecFileSystem.CONF, _footer.getFileMetaData(), path, Collections.singletonList(block), want);
+    final PageReadStore pages = pfr.readNextRowGroup();
+    MessageType schema = _footer.getFileMetaData().getSchema();
+    ColumnReadStoreImpl store = new ColumnReadStoreImpl(pages, new GroupRecordConverter(schema).getRootConverter(), schema, _footer.getFileMetaData().getCreatedBy());
+    final ColumnReader[] readers = new ColumnReader[cols.length];
+    for( int j = 0; j < cols.length; j++ ) readers[j] = store.getColumnReader(_descs[cols[j]]);
+    return new SplitReader() {
+      private long _left = pages.getRowCount();
+      @Override public boolean next(Batch b) {
+        int nrows = (int)Math.min(_left, b._capacity);
+        if( nrows == 0 ) return false;
+        for( int j = 0; j < cols.length; j++ )
+          fill(readers[j], _descs[cols[j]].getMaxDefinitionLevel(), _ptypes[cols[j]], b, cols[j], nrows);
+        b._nrows = nrows;
+        _left -= nrows;
+        return true;
+      }
+      @Override public void close() throws IOException { pfr.close(); }
+    };
+  }
+
+  private static void fill(ColumnReader cr, int maxDef, PrimitiveType pt, Batch b, int c, int nrows) {
+    boolean[] na = b._na[c];
+    boolean dec = pt.getOriginalType() == OriginalType.DECIMAL;
+    int scale = dec ? pt.getDecimalMetadata().getScale() : 0;
+    boolean date = pt.getOriginalType() == OriginalType.DATE;
+    for( int r = 0; r < nrows; r++, cr.consume() ) {
+      if( na[r] = cr.getCurrentDefinitionLevel() < maxDef ) continue;
+      switch( pt.getPrimitiveTypeName() ) {
+        case BOOLEAN: b._l[c][r] = cr.getBoolean() ? 1 : 0; break;
+        case INT32:
+          if( dec ) b._d[c][r] = BigDecimal.valueOf(cr.getInteger(), scale).doubleValue();
+          else      b._l[c][r] = date ? cr.getInteger() * MSEC_PER_DAY : cr.getInteger();
+          break;
+        case INT64:
+          if( dec ) b._d[c][r] = BigDecimal.valueOf(cr.getLong(), scale).doubleValue();
+          else      b._l[c][r] = cr.getLong();
+          break;
+        case INT96: {           // Nanos of the day, then Julian day; little endian
+          ByteBuffer bb = cr.getBinary().toByteBuffer().order(ByteOrder.LITTLE_ENDIAN);
+          long nanos = bb.getLong();
+          long day = bb.getInt();
+          b._l[c][r] = (day - JULIAN_DAY_OF_EPOCH) * MSEC_PER_DAY + nanos / 1000000;
+          break;
+        }
+        case FLOAT:  b._d[c][r] = cr.getFloat();  break;
+        case DOUBLE: b._d[c][r] = cr.getDouble(); break;
+        default: {              // BINARY, FIXED_LEN_BYTE_ARRAY
+          Binary bin = cr.getBinary();
+          if( dec ) { b._d[c][r] = new BigDecimal(new BigInteger(bin.getBytes()), scale).doubleValue(); break; }
+          byte[] bs = bin.getBytes();
+          b._b[c][r] = bs; b._bo[c][r] = 0; b._bl[c][r] = bs.length;
+        }
+      }
+    }
+  }
+}
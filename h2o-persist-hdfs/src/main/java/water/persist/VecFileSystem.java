@@ -0,0 +1,144 @@
+package water.persist;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FSDataInputStream;
+import org.apache.hadoop.fs.FSDataOutputStream;
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.fs.PositionedReadable;
+import org.apache.hadoop.fs.Seekable;
+import org.apache.hadoop.fs.permission.FsPermission;
+import org.apache.hadoop.util.Progressable;
+
+import java.io.EOFException;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+
+import water.DKV;
+import water.Key;
+import water.fvec.ByteVec;
+import water.fvec.Chunk;
+
+/**
+ * Read-only Hadoop FileSystem over ByteVecs already loaded into the cluster.
+ *
+ * Lets Hadoop-based readers (the ORC and Parquet parsers) seek around a file
+ * that H2O has imported from any source - NFS, HDFS, S3 or an upload - by
+ * reading straight from its Chunks.  A ByteVec's path is {@link #path}.
+ */
+public final class VecFileSystem extends FileSystem {
+  public static final String SCHEME = "vec";
+  private static final URI NAME = URI.create(SCHEME + ":///");
+
+  /** Hadoop configuration resolving {@code vec:} paths to this file system. */
+  public static final Configuration CONF;
+  static {
+    Configuration conf = new Configuration(PersistHdfs.CONF);
+    conf.set("fs." + SCHEME + ".impl", VecFileSystem.class.getName());
+    CONF = conf;
+  }
+
+  /** The path of a ByteVec: its key bytes, hex encoded. */
+  public static Path path(ByteVec vec) {
+    byte[] kb = vec._key._kb;
+    StringBuilder sb = new StringBuilder("/");
+    for( byte b : kb ) sb.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+    return new Path(SCHEME, null, sb.toString());
+  }
+
+  private static ByteVec vec(Path p) throws FileNotFoundException {
+    String hex = p.toUri().getPath().substring(1);
+    byte[] kb = new byte[hex.length() / 2];
+    for( int i = 0; i < kb.length; i++ )
+      kb[i] = (byte)Integer.parseInt(hex.substring(2 * i, 2 * i + 2), 16);
+    Object o = DKV.getGet(Key.make(kb));
+    if( !(o instanceof ByteVec) ) throw new FileNotFoundException(p.toString());
+    return (ByteVec)o;
+  }
+
+  @Override public void initialize(URI name, Configuration conf) throws IOException {
+    super.initialize(name, conf);
+    setConf(conf);
+  }
+
+  @Override public URI getUri() { return NAME; }
+
+  @Override public FSDataInputStream open(Path p, int bufferSize) throws IOException {
+    return new FSDataInputStream(new VecInputStream(vec(p)));
+  }
+
+  @Override public FileStatus getFileStatus(Path p) throws IOException {
+    ByteVec vec = vec(p);
+    return new FileStatus(vec.length(), false, 1, vec.length(), 0, p.makeQualified(this));
+  }
+
+  @Override public FileStatus[] listStatus(Path p) throws IOException { return new FileStatus[]{getFileStatus(p)}; }
+
+  @Override public Path getWorkingDirectory() { return new Path(NAME); }
+  @Override public void setWorkingDirectory(Path p) { }
+
+  // Read-only
+  @Override public FSDataOutputStream create(Path p, FsPermission perm, boolean overwrite, int bufferSize, short replication, long blockSize, Progressable progress) throws IOException {
+    throw new IOException("VecFileSystem is read-only");
+  }
+  @Override public FSDataOutputStream append(Path p, int bufferSize, Progressable progress) throws IOException {
+    throw new IOException("VecFileSystem is read-only");
+  }
+  @Override public boolean rename(Path src, Path dst) throws IOException { throw new IOException("VecFileSystem is read-only"); }
+  @Override public boolean delete(Path p, boolean recursive) throws IOException { throw new IOException("VecFileSystem is read-only"); }
+  @Override public boolean mkdirs(Path p, FsPermission perm) throws IOException { throw new IOException("VecFileSystem is read-only"); }
+
+  /** Seekable stream over the Chunks of a ByteVec. */
+  private static final class VecInputStream extends InputStream implements Seekable, PositionedReadable {
+    private final ByteVec _vec;
+    private final long _len;
+    private long _pos;
+    VecInputStream(ByteVec vec) { _vec = vec; _len = vec.length(); }
+
+    // Copy out of the one Chunk holding byte 'pos'
+    @Override public int read(long pos, byte[] buf, int off, int len) {
+      if( pos >= _len ) return -1;
+      if( len == 0 ) return 0;
+      Chunk c = _vec.chunkForRow(pos);
+      byte[] mem = c.getBytes();
+      int coff = (int)(pos - c.start());
+      int n = Math.min(len, mem.length - coff);
+      System.arraycopy(mem, coff, buf, off, n);
+      return n;
+    }
+    @Override public void readFully(long pos, byte[] buf, int off, int len) throws IOException {
+      while( len > 0 ) {
+        int n = read(pos, buf, off, len);
+        if( n < 0 ) throw new EOFException("Read past the end of a " + _len + " byte file");
+        pos += n; off += n; len -= n;
+      }
+    }
+    @Override public void readFully(long pos, byte[] buf) throws IOException { readFully(pos, buf, 0, buf.length); }
+
+    @Override public int read(byte[] buf, int off, int len) {
+      int n = read(_pos, buf, off, len);
+      if( n > 0 ) _pos += n;
+      return n;
+    }
+    @Override public int read() {
+      byte[] b = new byte[1];
+      return read(b, 0, 1) == 1 ? (b[0] & 0xFF) : -1;
+    }
+    @Override public int available() { return (int)Math.min(_len - _pos, Integer.MAX_VALUE); }
+    @Override public long skip(long n) {
+      long s = Math.max(0, Math.min(n, _len - _pos));
+      _pos += s;
+      return s;
+    }
+
+    @Override public void seek(long pos) throws IOException {
+      if( pos < 0 || pos > _len ) throw new EOFException("Cannot seek to " + pos + " in a " + _len + " byte file");
+      _pos = pos;
+    }
+    @Override public long getPos() { return _pos; }
+    @Override public boolean seekToNewSource(long pos) { return false; }
+  }
+}
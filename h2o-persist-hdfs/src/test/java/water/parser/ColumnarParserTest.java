@@ -0,0 +1,208 @@
+package water.parser;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.hive.ql.exec.vector.BytesColumnVector;
+import org.apache.hadoop.hive.ql.exec.vector.DoubleColumnVector;
+import org.apache.hadoop.hive.ql.exec.vector.LongColumnVector;
+import org.apache.hadoop.hive.ql.exec.vector.VectorizedRowBatch;
+import org.apache.orc.OrcFile;
+import org.apache.orc.TypeDescription;
+import org.apache.orc.Writer;
+import org.apache.parquet.column.ParquetProperties;
+import org.apache.parquet.example.data.Group;
+import org.apache.parquet.example.data.simple.SimpleGroupFactory;
+import org.apache.parquet.format.converter.ParquetMetadataConverter;
+import org.apache.parquet.hadoop.ParquetFileReader;
+import org.apache.parquet.hadoop.ParquetWriter;
+import org.apache.parquet.hadoop.example.GroupWriteSupport;
+import org.apache.parquet.hadoop.metadata.CompressionCodecName;
+import org.apache.parquet.schema.MessageType;
+import org.apache.parquet.schema.MessageTypeParser;
+import org.junit.*;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+
+import water.Key;
+import water.TestUtil;
+import water.fvec.Frame;
+import water.fvec.NFSFileVec;
+import water.fvec.Vec;
+
+/** ORC and Parquet files written with their own libraries - so against the
+ *  Hadoop of this build - and parsed back: types, missing values, skipped
+ *  columns, and stripes / row-groups skipped by a row filter. */
+public class ColumnarParserTest extends TestUtil {
+  @BeforeClass() public static void setup() { stall_till_cloudsize(1); }
+
+  @Rule public TemporaryFolder _tmp = new TemporaryFolder();
+
+  // Rows of the test files; enough for several stripes / row-groups
+  private static final int NROWS = 20000;
+  private static final long MSEC_PER_DAY = 24L*3600*1000;
+  private static final String[] CATS = {"a", "b", "c"};
+  private static final String[] NAMES = {"id", "x", "cat", "day", "flag"};
+
+  // Values of every column as a function of the id; NaN / null for missing
+  private static double x(long id) { return id % 7 == 0 ? Double.NaN : id * 0.5; }
+  private static String cat(long id) { return id % 11 == 0 ? null : CATS[(int)(id % 3)]; }
+  private static int day(long id) { return 16000 + (int)(id % 100); } // Days since the epoch
+  private static boolean flag(long id) { return id % 2 == 0; }
+
+  private File writeOrc() throws IOException {
+    File f = new File(_tmp.getRoot(), "test.orc");
+    TypeDescription schema = TypeDescription.createStruct()
+        .addField("id", TypeDescription.createLong())
+        .addField("x", TypeDescription.createDouble())
+        .addField("cat", TypeDescription.createString())
+        .addField("day", TypeDescription.createDate())
+        .addField("flag", TypeDescription.createBoolean());
+    // Small stripes, so the file has several
+    Writer w = OrcFile.createWriter(new Path(f.getPath()), OrcFile.writerOptions(new Configuration())
+        .setSchema(schema).stripeSize(16*1024).bufferSize(4*1024).rowIndexStride(1000));
+    VectorizedRowBatch b = schema.createRowBatch();
+    LongColumnVector ids = (LongColumnVector)b.cols[0], days = (LongColumnVector)b.cols[3], flags = (LongColumnVector)b.cols[4];
+    DoubleColumnVector xs = (DoubleColumnVector)b.cols[1];
+    BytesColumnVector cats = (BytesColumnVector)b.cols[2];
+    for( long id = 0; id < NROWS; id++ ) {
+      int r = b.size++;
+      ids.vector[r] = id;
+      double x = x(id);
+      if( Double.isNaN(x) ) { xs.noNulls = false; xs.isNull[r] = true; } else xs.vector[r] = x;
+      String c = cat(id);
+      if( c == null ) { cats.noNulls = false; cats.isNull[r] = true; } else { byte[] bs = c.getBytes(); cats.setRef(r, bs, 0, bs.length); }
+      days.vector[r] = day(id);
+      flags.vector[r] = flag(id) ? 1 : 0;
+      if( b.size == b.getMaxSize() ) { w.addRowBatch(b); b.reset(); }
+    }
+    if( b.size > 0 ) w.addRowBatch(b);
+    w.close();
+    Assert.assertTrue("Expected several stripes", OrcFile.createReader(new Path(f.getPath()), OrcFile.readerOptions(new Configuration())).getStripes().size() > 2);
+    return f;
+  }
+
+  private File writeParquet() throws IOException {
+    File f = new File(_tmp.getRoot(), "test.parquet");
+    MessageType schema = MessageTypeParser.parseMessageType(
+        "message test { required int64 id; optional double x; optional binary cat (UTF8); required int32 day (DATE); required boolean flag; }");
+    Configuration conf = new Configuration();
+    GroupWriteSupport.setSchema(schema, conf);
+    // Small row-groups, so the file has several
+    ParquetWriter<Group> w = new ParquetWriter<>(new Path(f.getPath()), new GroupWriteSupport(), CompressionCodecName.UNCOMPRESSED,
+        16*1024, 4*1024, 4*1024, true, false, ParquetProperties.WriterVersion.PARQUET_1_0, conf);
+    SimpleGroupFactory gf = new SimpleGroupFactory(schema);
+    for( long id = 0; id < NROWS; id++ ) {
+      Group g = gf.newGroup().append("id", id);
+      if( !Double.isNaN(x(id)) ) g.append("x", x(id));
+      if( cat(id) != null ) g.append("cat", cat(id));
+      g.append("day", day(id)).append("flag", flag(id));
+      w.write(g);
+    }
+    w.close();
+    Assert.assertTrue("Expected several row-groups", ParquetFileReader.readFooter(conf, new Path(f.getPath()), ParquetMetadataConverter.NO_FILTER).getBlocks().size() > 2);
+    return f;
+  }
+
+  private static Frame parse(File f, int[] skipped, String filter) {
+    NFSFileVec nfs = NFSFileVec.make(f);
+    ParseSetup user = new ParseSetup(ParserType.GUESS, ParseSetup.GUESS_SEP, false, ParseSetup.GUESS_HEADER, ParseSetup.GUESS_COL_CNT, null)
+        .setSkippedColumns(skipped).setRowFilter(filter);
+    Key[] keys = new Key[]{nfs._key};
+    return ParseDataset.parse(Key.make(), keys, true, ParseSetup.guessSetup(keys, user));
+  }
+
+  // Check every row against the values of its id; returns the sum of the ids
+  private static long check(Frame fr, String[] names) {
+    Assert.assertArrayEquals(names, fr.names());
+    Vec id = fr.vec("id"), x = fr.vec("x"), cat = fr.vec("cat"), day = fr.vec("day"), flag = fr.vec("flag");
+    if( x    != null ) Assert.assertTrue(x.isNumeric());
+    if( cat  != null ) Assert.assertTrue(cat.isCategorical());
+    if( day  != null ) Assert.assertTrue(day.isTime());
+    if( flag != null ) Assert.assertTrue(flag.isNumeric());
+    long sum = 0;
+    for( long r = 0; r < fr.numRows(); r++ ) {
+      long i = id.at8(r);
+      sum += i;
+      if( x != null ) {
+        if( Double.isNaN(x(i)) ) Assert.assertTrue(x.isNA(r));
+        else Assert.assertEquals(x(i), x.at(r), 0);
+      }
+      if( cat != null ) {
+        if( cat(i) == null ) Assert.assertTrue(cat.isNA(r));
+        else Assert.assertEquals(cat(i), cat.domain()[(int)cat.at8(r)]);
+      }
+      if( day  != null ) Assert.assertEquals(day(i) * MSEC_PER_DAY, day.at8(r));
+      if( flag != null ) Assert.assertEquals(flag(i) ? 1 : 0, flag.at8(r));
+    }
+    return sum;
+  }
+
+  private static void testAll(File f) {
+    Frame fr = null;
+    try {
+      fr = parse(f, null, null);
+      Assert.assertEquals(NROWS, fr.numRows());
+      Assert.assertEquals((long)NROWS*(NROWS-1)/2, check(fr, NAMES));
+    } finally {
+      if( fr != null ) fr.delete();
+    }
+  }
+
+  private static void testProjection(File f) {
+    Frame fr = null;
+    try {
+      fr = parse(f, new int[]{1, 3}, null);
+      Assert.assertEquals(NROWS, fr.numRows());
+      Assert.assertEquals((long)NROWS*(NROWS-1)/2, check(fr, new String[]{"id", "cat", "flag"}));
+    } finally {
+      if( fr != null ) fr.delete();
+    }
+  }
+
+  private static void testRowFilter(File f, ParserType type) {
+    int lo = 15000;
+    String filter = "id >= " + lo;
+    // The footer statistics alone rule out most slices
+    NFSFileVec nfs = NFSFileVec.make(f);
+    try {
+      ParseSetup ps = new ParseSetup(ParserType.GUESS, ParseSetup.GUESS_SEP, false, ParseSetup.GUESS_HEADER, ParseSetup.GUESS_COL_CNT, null)
+          .setParseType(type).setRowFilter(filter);
+      ColumnarParser p = (ColumnarParser)ps.parser(null);
+      ColumnarParser.Layout layout = p.layout(nfs);
+      RowFilter rf = p.filter(layout, p.projection(layout));
+      int skipped = 0;
+      for( ColumnarParser.Split s : layout._splits )
+        if( !rf.mayAccept(s._mins, s._maxs) ) skipped++;
+      Assert.assertTrue("Expected slices to skip", skipped > 0);
+      Assert.assertTrue("Expected slices to read", skipped < layout._splits.length);
+    } finally {
+      nfs.remove();
+    }
+    // ...and the rows left are exactly the ones passing
+    Frame fr = null;
+    try {
+      fr = parse(f, null, filter);
+      Assert.assertEquals(NROWS - lo, fr.numRows());
+      Assert.assertEquals((long)NROWS*(NROWS-1)/2 - (long)lo*(lo-1)/2, check(fr, NAMES));
+      Assert.assertEquals(lo, fr.vec("id").min(), 0);
+    } finally {
+      if( fr != null ) fr.delete();
+    }
+  }
+
+  @Test public void testORC() throws IOException {
+    File f = writeOrc();
+    testAll(f);
+    testProjection(f);
+    testRowFilter(f, ParserType.ORC);
+  }
+
+  @Test public void testParquet() throws IOException {
+    File f = writeParquet();
+    testAll(f);
+    testProjection(f);
+    testRowFilter(f, ParserType.PARQUET);
+  }
+}